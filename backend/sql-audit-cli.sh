@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# SQL 审查命令行模式（CI 使用），参数见: bash sql-audit-cli.sh --help
+#
+# 首次运行时把 Spring Boot 可执行 jar 解压为普通 classpath 布局（target/cli），
+# 并通过 -XX:+AutoCreateSharedArchive 自动生成 AppCDS 归档；之后的运行直接映射归档中的类，
+# 小仓库从 JVM 启动到输出结果在 1 秒内。jar 重新打包后会自动重新解压并重建归档。
+
+set -euo pipefail
+
+SCRIPT_DIR="$(cd -- "$(dirname -- "${BASH_SOURCE[0]}")" && pwd)"
+CLI_DIR="${SQL_AUDIT_CLI_DIR:-$SCRIPT_DIR/target/cli}"
+MAIN_CLASS="com.sqlaudit.cli.SqlAuditCli"
+
+die() { printf 'ERROR: %s\n' "$*" >&2; exit 2; }
+
+if [ -n "${JAVA_HOME:-}" ] && [ -x "$JAVA_HOME/bin/java" ]; then
+  JAVA_CMD="$JAVA_HOME/bin/java"
+else
+  JAVA_CMD="$(command -v java || true)"
+fi
+[ -n "$JAVA_CMD" ] || die "java not found; install Java 21+ or set JAVA_HOME."
+
+JAR="${SQL_AUDIT_JAR:-}"
+if [ -z "$JAR" ]; then
+  JAR="$(ls -t "$SCRIPT_DIR"/target/sql-audit-*-exec.jar 2>/dev/null | head -n 1 || true)"
+fi
+[ -n "$JAR" ] && [ -f "$JAR" ] || die "backend jar not found; run 'mvn -B package -DskipTests' in $SCRIPT_DIR first."
+
+APP_JAR="$CLI_DIR/$(basename "$JAR")"
+ARCHIVE="$CLI_DIR/sql-audit-cli.jsa"
+
+if [ ! -f "$APP_JAR" ] || [ "$JAR" -nt "$APP_JAR" ]; then
+  rm -rf "$CLI_DIR"
+  mkdir -p "$CLI_DIR"
+  "$JAVA_CMD" -Djarmode=tools -jar "$JAR" extract --force --destination "$CLI_DIR" >/dev/null \
+    || die "failed to extract $JAR"
+  touch "$APP_JAR"
+fi
+
+# 短进程不需要 C2 编译；日志与报告统一按 UTF-8 输出，避免 CI 默认 POSIX locale 下中文变成 '?'
+exec "$JAVA_CMD" \
+  -XX:SharedArchiveFile="$ARCHIVE" -XX:+AutoCreateSharedArchive -Xlog:cds=off -Xlog:cds+dynamic=off \
+  -XX:TieredStopAtLevel=1 \
+  -Dstdout.encoding=UTF-8 -Dstderr.encoding=UTF-8 \
+  ${SQL_AUDIT_CLI_JAVA_OPTS:-} \
+  -cp "$APP_JAR" "$MAIN_CLASS" "$@"
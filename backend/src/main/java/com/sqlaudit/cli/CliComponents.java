@@ -0,0 +1,153 @@
+package com.sqlaudit.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sqlaudit.parser.MyBatisMapperParser;
+import com.sqlaudit.parser.SqlLogParser;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.report.exporter.ExcelReportExporter;
+import com.sqlaudit.report.exporter.JsonReportExporter;
+import com.sqlaudit.report.exporter.MarkdownReportExporter;
+import com.sqlaudit.report.exporter.NormalizedJsonReportExporter;
+import com.sqlaudit.report.exporter.ReportExporter;
+import com.sqlaudit.report.exporter.SarifReportExporter;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import com.sqlaudit.rule.checker.ExplainPlanChecker;
+import com.sqlaudit.rule.checker.IndexHintChecker;
+import com.sqlaudit.rule.checker.SqlChecker;
+import com.sqlaudit.service.BaselineService;
+import com.sqlaudit.service.ExplainReplayService;
+import com.sqlaudit.service.LogAuditService;
+import com.sqlaudit.service.RuleService;
+import com.sqlaudit.service.RuntimeStatsService;
+import com.sqlaudit.service.ScanService;
+import com.sqlaudit.service.SchemaCatalogService;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 命令行模式的手工装配：不启动 Spring 容器，组件在首次使用时才创建
+ * <p>
+ * 检查器清单见 {@link BuiltInCheckers}；新增 {@link ReportExporter} 实现时需同步登记到这里（有单元测试校验两边一致）。
+ */
+final class CliComponents {
+
+    private static final Map<String, Function<CliComponents, ReportExporter>> EXPORTERS = new LinkedHashMap<>();
+
+    static {
+        EXPORTERS.put("markdown", c -> new MarkdownReportExporter());
+        EXPORTERS.put("json", c -> new JsonReportExporter(c.objectMapper()));
+        EXPORTERS.put("sarif", c -> new SarifReportExporter(c.objectMapper()));
+        EXPORTERS.put("normalized", c -> new NormalizedJsonReportExporter(c.objectMapper()));
+        EXPORTERS.put("xlsx", c -> new ExcelReportExporter());
+    }
+
+    private ObjectMapper objectMapper;
+    private RuleService ruleService;
+    private ScanService scanService;
+    private BaselineService baselineService;
+    private LogAuditService logAuditService;
+    private RuntimeStatsService runtimeStatsService;
+    private IndexHintChecker indexHintChecker;
+    private ExplainPlanChecker explainPlanChecker;
+    private SchemaCatalogService schemaCatalogService;
+    private ExplainReplayService explainReplayService;
+
+    static Set<String> exportFormats() {
+        return EXPORTERS.keySet();
+    }
+
+    /**
+     * 与 Spring 默认配置保持一致：注册 JSR-310 模块，日期以 ISO 字符串输出
+     */
+    ObjectMapper objectMapper() {
+        if (objectMapper == null) {
+            objectMapper = new ObjectMapper()
+                    .registerModule(new JavaTimeModule())
+                    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        }
+        return objectMapper;
+    }
+
+    RuleService ruleService() {
+        if (ruleService == null) {
+            List<SqlChecker> checkers = BuiltInCheckers.all();
+            for (SqlChecker checker : checkers) {
+                if (checker instanceof IndexHintChecker indexHint) {
+                    indexHintChecker = indexHint;
+                } else if (checker instanceof ExplainPlanChecker explainPlan) {
+                    explainPlanChecker = explainPlan;
+                }
+            }
+            ruleService = new RuleService(checkers, new WordRuleParser());
+        }
+        return ruleService;
+    }
+
+    /**
+     * 导入的表结构作用于 {@link #ruleService()} 中的 INDEX_HINT 检查器
+     */
+    SchemaCatalogService schemaCatalogService() {
+        if (schemaCatalogService == null) {
+            ruleService();
+            schemaCatalogService = new SchemaCatalogService(indexHintChecker, new SqlScriptParser(), null);
+        }
+        return schemaCatalogService;
+    }
+
+    /**
+     * EXPLAIN 回放默认关闭，由 --explain 启用；回放库作用于 {@link #ruleService()} 中的 EXPLAIN_PLAN 检查器
+     */
+    ExplainReplayService explainReplayService() {
+        if (explainReplayService == null) {
+            explainReplayService = new ExplainReplayService(explainPlanChecker(), schemaCatalogService(),
+                    false, 10000, Runtime.getRuntime().availableProcessors(), 20000, 5, null);
+        }
+        return explainReplayService;
+    }
+
+    private ExplainPlanChecker explainPlanChecker() {
+        ruleService();
+        return explainPlanChecker;
+    }
+
+    ScanService scanService() {
+        if (scanService == null) {
+            scanService = new ScanService(new MyBatisMapperParser(), new SqlScriptParser(), ruleService());
+        }
+        return scanService;
+    }
+
+    BaselineService baselineService() {
+        if (baselineService == null) {
+            baselineService = new BaselineService(objectMapper());
+        }
+        return baselineService;
+    }
+
+    LogAuditService logAuditService() {
+        if (logAuditService == null) {
+            logAuditService = new LogAuditService(new SqlLogParser(), new SqlScriptParser(), ruleService());
+        }
+        return logAuditService;
+    }
+
+    RuntimeStatsService runtimeStatsService() {
+        if (runtimeStatsService == null) {
+            runtimeStatsService = new RuntimeStatsService(new SqlLogParser());
+        }
+        return runtimeStatsService;
+    }
+
+    Optional<ReportExporter> exporter(String format) {
+        Function<CliComponents, ReportExporter> factory = EXPORTERS.get(format);
+        return factory == null ? Optional.empty() : Optional.of(factory.apply(this));
+    }
+}
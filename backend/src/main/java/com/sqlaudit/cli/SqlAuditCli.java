@@ -0,0 +1,426 @@
+package com.sqlaudit.cli;
+
+import com.sqlaudit.model.AuditRule.Severity;
+import com.sqlaudit.model.Baseline;
+import com.sqlaudit.model.IndexAdvice;
+import com.sqlaudit.model.ScanOptions;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.StatementStats;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.SqlLogParser.LogFormat;
+import com.sqlaudit.report.NearDuplicates;
+import com.sqlaudit.report.exporter.FileSortedViolations;
+import com.sqlaudit.report.exporter.ReportExporter;
+import com.sqlaudit.service.RuntimeStatsService;
+import com.sqlaudit.util.TextDecodingUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 命令行入口：不启动 Web 服务，直接扫描并输出报告，供 CI 流水线使用
+ * <p>
+ * 退出码：0 通过；1 存在不低于 --fail-on 级别的违规；2 参数错误或扫描失败。
+ * 启动脚本见 backend/sql-audit-cli.sh（解压 jar 并使用 AppCDS 归档加速启动）。
+ */
+public final class SqlAuditCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_VIOLATIONS = 1;
+    static final int EXIT_ERROR = 2;
+
+    private static final String USAGE = """
+            用法: sql-audit-cli [选项] <仓库目录 | .sql 文件>
+                  sql-audit-cli --log [选项] <数据库日志文件>
+
+            选项:
+              -f, --format <格式>     输出格式: text（默认）, markdown, json, sarif, normalized, xlsx
+              -o, --output <文件>     报告输出文件，默认标准输出（xlsx 必须指定）
+              -b, --baseline <文件>   基线文件，命中基线的违规不计入报告
+              -r, --rules <文件>      自定义规则 Word 文档（.docx）
+                  --schema <路径>     表结构 DDL 文件或目录，启用索引命中检查（INDEX_HINT）
+                  --explain           按表结构在内嵌库中 EXPLAIN 每条语句，检查大表全表扫描（EXPLAIN_PLAN，需 --schema）
+                  --row-counts <文件> 各表行数统计（每行"表名,行数"），供 --explain 区分大表；缺省时所有表视为大表
+                  --duplicates        列出近似重复的 SQL 簇（与摘要输出到同一位置）
+                  --index-advice      列出复合索引建议（与摘要输出到同一位置；配合 --stats 按执行次数加权）
+                  --max-violations <数量> 违规数量上限，达到后停止扫描并标记截断，默认 1000
+                  --stats <文件>      运行时统计快照（pg_stat_statements 风格 CSV），为违规标注生产环境执行开销
+                  --log               审查数据库日志（慢查询日志、csvlog 或语句统计 CSV，支持 .gz）
+                  --log-format <格式> 日志格式: auto（默认）, text, csv_log, csv_stats；指定时隐含 --log
+                  --fail-on <级别>    达到该级别的违规时以退出码 1 结束: error（默认）, warning, info, none
+              -v, --verbose           输出扫描日志（写到标准错误）
+              -h, --help              显示帮助
+
+            退出码: 0 通过, 1 存在违规, 2 参数错误或扫描失败
+            """;
+
+    private SqlAuditCli() {
+    }
+
+    public static void main(String[] args) {
+        configureLogging(args);
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * 日志统一写到标准错误，避免混入标准输出中的报告；须在任何 Logger 初始化之前调用
+     */
+    private static void configureLogging(String[] args) {
+        if (System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", "sql-audit-cli-logback.xml");
+        }
+        for (String arg : args) {
+            if ("-v".equals(arg) || "--verbose".equals(arg)) {
+                System.setProperty("sql-audit.cli.log-level", "INFO");
+            }
+        }
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("错误: " + e.getMessage());
+            err.println();
+            err.print(USAGE);
+            return EXIT_ERROR;
+        }
+        if (options.help) {
+            out.print(USAGE);
+            return EXIT_OK;
+        }
+
+        CliComponents components = new CliComponents();
+        ReportExporter exporter = null;
+        if (!"text".equals(options.format)) {
+            exporter = components.exporter(options.format).orElse(null);
+            if (exporter == null) {
+                err.println("错误: 不支持的输出格式: " + options.format + "，可选: text, "
+                        + String.join(", ", CliComponents.exportFormats()));
+                return EXIT_ERROR;
+            }
+            if (isBinary(exporter) && options.output == null) {
+                err.println("错误: " + options.format + " 为二进制格式，请通过 --output 指定输出文件");
+                return EXIT_ERROR;
+            }
+        }
+
+        ScanReport report;
+        try {
+            report = scan(components, options);
+        } catch (IllegalArgumentException e) {
+            err.println("错误: " + e.getMessage());
+            return EXIT_ERROR;
+        } catch (Exception e) {
+            err.println("扫描失败: " + e);
+            return EXIT_ERROR;
+        }
+
+        try {
+            writeReport(report, exporter, options, out);
+        } catch (IOException e) {
+            err.println("写出报告失败: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+
+        // 输出到标准输出的结构化报告不能混入摘要，摘要改写到标准错误
+        PrintStream summaryOut = exporter == null || options.output != null ? out : err;
+        if (options.duplicates) {
+            writeDuplicates(report, summaryOut);
+        }
+        if (options.indexAdvice) {
+            writeIndexAdvice(report, summaryOut);
+        }
+        if (exporter != null || options.output != null) {
+            summaryOut.println(summary(report));
+        }
+        return exitCode(report, options.failOn);
+    }
+
+    private static ScanReport scan(CliComponents components, Options options) throws IOException {
+        if (options.rulesFile != null) {
+            try (InputStream in = Files.newInputStream(options.rulesFile)) {
+                components.ruleService().loadRulesFromWord(in);
+            }
+        }
+        if (options.explain) {
+            components.explainReplayService().setEnabled(true);
+            if (options.rowCountsFile != null) {
+                components.explainReplayService().importRowCounts(options.rowCountsFile);
+            }
+        }
+        if (options.schemaPath != null) {
+            components.schemaCatalogService().importDdl(options.schemaPath);
+        }
+        ScanOptions.ScanOptionsBuilder scanOptions = ScanOptions.builder().maxViolations(options.maxViolations);
+        if (options.baselineFile != null) {
+            Baseline baseline = components.baselineService().loadBaseline(options.baselineFile);
+            scanOptions.baselineFingerprints(components.baselineService().fingerprints(baseline));
+        }
+        if (options.schemaPath != null) {
+            components.schemaCatalogService().current()
+                    .ifPresent(snapshot -> scanOptions.schemaCatalog(snapshot.catalog()));
+        }
+        RuntimeStatsService.Snapshot stats = options.statsFile != null
+                ? components.runtimeStatsService().importSnapshot(options.statsFile)
+                : null;
+        if (stats != null) {
+            scanOptions.runtimeStats(stats.index());
+        }
+
+        ScanReport report = scanTarget(components, options, scanOptions.build());
+        if (stats != null) {
+            RuntimeStatsService.annotate(report, stats);
+        }
+        return report;
+    }
+
+    private static ScanReport scanTarget(CliComponents components, Options options, ScanOptions scanOptions)
+            throws IOException {
+        Path target = options.target;
+        if (options.logFormat != null) {
+            return components.logAuditService().audit(target, options.logFormat, scanOptions);
+        }
+        if (Files.isRegularFile(target)) {
+            String fileName = target.getFileName().toString();
+            if (!fileName.toLowerCase(Locale.ROOT).endsWith(".sql")) {
+                throw new IllegalArgumentException("只支持扫描目录或 .sql 文件: " + target);
+            }
+            var decoded = TextDecodingUtils.decodeBestEffort(Files.readAllBytes(target));
+            List<String> notices = new ArrayList<>();
+            String decodeNotice = decoded.buildNotice(fileName);
+            if (decodeNotice != null) {
+                notices.add(decodeNotice);
+            }
+            return components.scanService().scanSqlContent(decoded.text(), fileName, notices, scanOptions);
+        }
+        return components.scanService().scan(target.toString(), scanOptions);
+    }
+
+    private static void writeReport(ScanReport report, ReportExporter exporter, Options options, PrintStream out)
+            throws IOException {
+        if (options.output == null) {
+            if (exporter == null) {
+                writeText(report, out);
+            } else {
+                exporter.write(report, out);
+            }
+            out.flush();
+            return;
+        }
+        Path parent = options.output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(options.output), 65536)) {
+            if (exporter == null) {
+                PrintStream printer = new PrintStream(fileOut, false, StandardCharsets.UTF_8);
+                writeText(report, printer);
+                printer.flush();
+            } else {
+                exporter.write(report, fileOut);
+            }
+        }
+    }
+
+    /**
+     * 纯文本格式：每条违规一行，形如编译器输出，便于 CI 日志中定位
+     */
+    private static void writeText(ScanReport report, PrintStream out) {
+        for (String notice : report.getNotices()) {
+            out.println("提示: " + notice);
+        }
+        for (Violation v : report.getViolations()) {
+            int line = v.getSqlFragment() != null ? v.getSqlFragment().getLineNumber() : 0;
+            StatementStats stats = v.getSqlFragment() != null ? v.getSqlFragment().getRuntimeStats() : null;
+            out.printf("%s:%d: [%s] %s %s%s%n",
+                    FileSortedViolations.pathOf(v), line,
+                    v.getRule().getSeverity(), v.getRule().getId(), v.getMessage(),
+                    stats == null ? "" : String.format(Locale.ROOT, " (执行 %d 次, 累计 %.1f ms)",
+                            stats.getExecutions(), stats.getTotalTimeMs()));
+        }
+        out.println(summary(report));
+    }
+
+    private static void writeDuplicates(ScanReport report, PrintStream out) {
+        NearDuplicates duplicates = report.getNearDuplicates();
+        if (duplicates == null || duplicates.clusters().isEmpty()) {
+            out.println("未发现近似重复的 SQL");
+            return;
+        }
+        out.printf("近似重复的 SQL: %d 组%n", duplicates.clusters().size());
+        for (NearDuplicates.Cluster cluster : duplicates.clusters()) {
+            String sql = cluster.sql().replaceAll("\\s+", " ");
+            out.printf(Locale.ROOT, "  %d 条, 相似度 %.2f: %s%n", cluster.members().size(), cluster.similarity(),
+                    sql.length() > 120 ? sql.substring(0, 120) + "..." : sql);
+            for (NearDuplicates.Member member : cluster.members()) {
+                out.printf("    %s:%d %s%n", member.file(), member.line(),
+                        member.statementId() != null ? member.statementId() : "");
+            }
+        }
+    }
+
+    private static void writeIndexAdvice(ScanReport report, PrintStream out) {
+        IndexAdvice advice = report.getIndexAdvice();
+        if (advice == null || advice.getRecommendations().isEmpty()) {
+            out.println("没有索引建议");
+            return;
+        }
+        out.printf("索引建议（按%s排序）:%n", advice.isWeightedByExecutions() ? "执行次数" : "语句数");
+        for (IndexAdvice.Recommendation recommendation : advice.getRecommendations()) {
+            out.printf("  %s  -- %d 条语句, 权重 %d, %s%n", recommendation.getDdl(), recommendation.getStatements(),
+                    recommendation.getWeight(), recommendation.getReason());
+        }
+    }
+
+    private static String summary(ScanReport report) {
+        StringBuilder sb = new StringBuilder()
+                .append("扫描 ").append(report.getTotalFiles()).append(" 个文件, ")
+                .append(report.getTotalStatements()).append(" 条 SQL, 违规 ").append(report.getTotalViolations())
+                .append(" 条 (ERROR ").append(report.getErrorCount())
+                .append(", WARNING ").append(report.getWarningCount())
+                .append(", INFO ").append(report.getInfoCount()).append(')');
+        if (report.getBaselineSuppressed() > 0) {
+            sb.append(", 基线抑制 ").append(report.getBaselineSuppressed()).append(" 条");
+        }
+        if (report.isLimitReached()) {
+            sb.append(", 已达违规上限，结果被截断");
+        }
+        return sb.toString();
+    }
+
+    private static boolean isBinary(ReportExporter exporter) {
+        String contentType = exporter.contentType().toLowerCase(Locale.ROOT);
+        return !contentType.startsWith("text/") && !contentType.contains("json");
+    }
+
+    static int exitCode(ScanReport report, Severity failOn) {
+        if (failOn == null) {
+            return EXIT_OK;
+        }
+        int count = switch (failOn) {
+            case ERROR -> report.getErrorCount();
+            case WARNING -> report.getErrorCount() + report.getWarningCount();
+            case INFO -> report.getErrorCount() + report.getWarningCount() + report.getInfoCount();
+        };
+        return count > 0 ? EXIT_VIOLATIONS : EXIT_OK;
+    }
+
+    /**
+     * 命令行参数
+     */
+    static final class Options {
+
+        Path target;
+        String format = "text";
+        Path output;
+        Path baselineFile;
+        Path rulesFile;
+        Path statsFile;
+        Path schemaPath;
+        boolean explain;
+        Path rowCountsFile;
+        boolean duplicates;
+        boolean indexAdvice;
+        /** 不大于 0 表示使用默认上限 */
+        int maxViolations;
+        /** 非 null 表示审查数据库日志 */
+        LogFormat logFormat;
+        /** null 表示从不因违规失败 */
+        Severity failOn = Severity.ERROR;
+        boolean help;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-h", "--help" -> options.help = true;
+                    case "-v", "--verbose" -> {
+                        // 已在 configureLogging 中处理
+                    }
+                    case "-f", "--format" -> options.format = value(args, ++i, arg).toLowerCase(Locale.ROOT);
+                    case "-o", "--output" -> options.output = Path.of(value(args, ++i, arg));
+                    case "-b", "--baseline" -> options.baselineFile = Path.of(value(args, ++i, arg));
+                    case "-r", "--rules" -> options.rulesFile = Path.of(value(args, ++i, arg));
+                    case "--stats" -> options.statsFile = Path.of(value(args, ++i, arg));
+                    case "--schema" -> options.schemaPath = Path.of(value(args, ++i, arg));
+                    case "--explain" -> options.explain = true;
+                    case "--row-counts" -> options.rowCountsFile = Path.of(value(args, ++i, arg));
+                    case "--duplicates" -> options.duplicates = true;
+                    case "--index-advice" -> options.indexAdvice = true;
+                    case "--max-violations" -> options.maxViolations = parsePositive(value(args, ++i, arg), arg);
+                    case "--log" -> {
+                        if (options.logFormat == null) {
+                            options.logFormat = LogFormat.AUTO;
+                        }
+                    }
+                    case "--log-format" -> options.logFormat = LogFormat.of(value(args, ++i, arg));
+                    case "--fail-on" -> options.failOn = parseSeverity(value(args, ++i, arg));
+                    default -> {
+                        if (arg.startsWith("-")) {
+                            throw new IllegalArgumentException("未知选项: " + arg);
+                        }
+                        if (options.target != null) {
+                            throw new IllegalArgumentException("只能指定一个扫描目标");
+                        }
+                        options.target = Path.of(arg);
+                    }
+                }
+            }
+            if (options.target == null && !options.help) {
+                throw new IllegalArgumentException("请指定要扫描的仓库目录或 .sql 文件");
+            }
+            if (options.logFormat != null && options.baselineFile != null) {
+                throw new IllegalArgumentException("--baseline 不适用于数据库日志审查");
+            }
+            if ((options.explain || options.rowCountsFile != null) && options.schemaPath == null) {
+                throw new IllegalArgumentException("--explain / --row-counts 需要同时指定 --schema");
+            }
+            if (options.rowCountsFile != null) {
+                options.explain = true;
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException(option + " 缺少参数值");
+            }
+            return args[index];
+        }
+
+        private static int parsePositive(String value, String option) {
+            try {
+                int parsed = Integer.parseInt(value.trim());
+                if (parsed > 0) {
+                    return parsed;
+                }
+            } catch (NumberFormatException e) {
+                // 统一在下面报错
+            }
+            throw new IllegalArgumentException(option + " 需要正整数: " + value);
+        }
+
+        private static Severity parseSeverity(String value) {
+            if ("none".equalsIgnoreCase(value)) {
+                return null;
+            }
+            try {
+                return Severity.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("--fail-on 仅支持 error, warning, info, none: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.sqlaudit.controller;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * 控制器内部使用的 API 异常，由 {@link ApiExceptionHandler} 统一转换为 {"error": "..."} 响应。
+ * <p>
+ * 用于返回类型固定（如 {@code StreamingResponseBody}）而无法直接返回错误 Map 的接口。
+ */
+class ApiException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    ApiException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    HttpStatus getStatus() {
+        return status;
+    }
+}
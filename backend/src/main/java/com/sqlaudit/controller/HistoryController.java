@@ -0,0 +1,137 @@
+package com.sqlaudit.controller;
+
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.report.HistorySegment;
+import com.sqlaudit.report.HistorySegment.Header;
+import com.sqlaudit.service.ReportStore;
+import com.sqlaudit.service.ScanHistoryStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 扫描历史 API：列出历史扫描、违规数趋势、单次扫描的规则分布，以及把历史扫描载回报告存储
+ */
+@RestController
+@RequestMapping("/api/history")
+@CrossOrigin(origins = "*")
+public class HistoryController {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryController.class);
+
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 500;
+
+    private final ScanHistoryStore scanHistoryStore;
+    private final ReportStore reportStore;
+
+    public HistoryController(ScanHistoryStore scanHistoryStore, ReportStore reportStore) {
+        this.scanHistoryStore = scanHistoryStore;
+        this.reportStore = reportStore;
+    }
+
+    /**
+     * 按扫描时间倒序列出历史扫描
+     *
+     * @param days     只列出最近若干天，0 表示不限
+     * @param repoPath 只列出该仓库的扫描
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> list(
+            @RequestParam(defaultValue = "0") int days,
+            @RequestParam(required = false) String repoPath,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        requireEnabled();
+        List<Header> headers = scanHistoryStore.list(days, repoPath);
+        int from = Math.min(Math.max(0, offset), headers.size());
+        int to = Math.min(headers.size(), from + Math.max(1, Math.min(limit, MAX_LIMIT)));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("total", headers.size());
+        body.put("items", headers.subList(from, to));
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * 各次扫描的违规数趋势（按扫描时间正序），只读取历史文件头部
+     */
+    @GetMapping("/trend")
+    public ResponseEntity<List<ScanHistoryStore.TrendPoint>> trend(
+            @RequestParam(defaultValue = "90") int days,
+            @RequestParam(required = false) String repoPath) {
+        requireEnabled();
+        return ResponseEntity.ok(scanHistoryStore.trend(days, repoPath));
+    }
+
+    /**
+     * 单次扫描的头部与按规则的违规数，直接读取映射的违规列，不还原报告
+     */
+    @GetMapping("/{reportId}")
+    public ResponseEntity<Map<String, Object>> get(@PathVariable String reportId) {
+        requireEnabled();
+        HistorySegment segment = open(reportId);
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("header", segment.header());
+            body.put("rules", segment.ruleCounts());
+            return ResponseEntity.ok(body);
+        } catch (IOException e) {
+            log.warn("读取扫描历史 {} 失败", reportId, e);
+            throw new ApiException(HttpStatus.INTERNAL_SERVER_ERROR, "读取扫描历史失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 把历史扫描载回报告存储，返回完整报告；之后可按同一 reportId 使用 /api/report 下的查询与导出接口
+     */
+    @PostMapping("/{reportId}/load")
+    public ResponseEntity<ScanReport> load(@PathVariable String reportId) {
+        requireEnabled();
+        ScanReport stored = reportStore.getReport(reportId).orElse(null);
+        if (stored != null) {
+            return ResponseEntity.ok(stored);
+        }
+        try {
+            ScanReport report = open(reportId).toReport();
+            return ResponseEntity.ok(reportStore.restore(report).report());
+        } catch (IOException e) {
+            log.warn("载入扫描历史 {} 失败", reportId, e);
+            throw new ApiException(HttpStatus.INTERNAL_SERVER_ERROR, "载入扫描历史失败: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{reportId}")
+    public ResponseEntity<?> delete(@PathVariable String reportId) {
+        requireEnabled();
+        if (!scanHistoryStore.delete(reportId)) {
+            throw notFound(reportId);
+        }
+        return ResponseEntity.ok(Map.of("message", "已删除扫描历史"));
+    }
+
+    private HistorySegment open(String reportId) {
+        try {
+            return scanHistoryStore.open(reportId).orElseThrow(() -> notFound(reportId));
+        } catch (IOException e) {
+            log.warn("打开扫描历史 {} 失败", reportId, e);
+            throw new ApiException(HttpStatus.INTERNAL_SERVER_ERROR, "打开扫描历史失败: " + e.getMessage());
+        }
+    }
+
+    private void requireEnabled() {
+        if (!scanHistoryStore.isEnabled()) {
+            throw new ApiException(HttpStatus.NOT_FOUND, "未启用扫描历史，请配置 sql-audit.history.dir");
+        }
+    }
+
+    private static ApiException notFound(String reportId) {
+        return new ApiException(HttpStatus.NOT_FOUND, "扫描历史不存在或已过期: " + reportId);
+    }
+}
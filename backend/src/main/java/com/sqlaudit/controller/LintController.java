@@ -0,0 +1,52 @@
+package com.sqlaudit.controller;
+
+import com.sqlaudit.model.LintResult;
+import com.sqlaudit.service.LintService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 单条 SQL lint API：只返回违规，不生成报告、不影响报告存储
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+public class LintController {
+
+    private final LintService lintService;
+
+    public LintController(LintService lintService) {
+        this.lintService = lintService;
+    }
+
+    /**
+     * 请求体为原始 SQL 文本
+     *
+     * @param statementType 可选，语句类型（select / insert / update / delete ...），不传时自动识别
+     */
+    @PostMapping(value = "/lint", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<?> lintText(@RequestBody String sql,
+            @RequestParam(required = false) String statementType) {
+        return lint(sql, statementType);
+    }
+
+    /**
+     * 请求体: {"sql": "...", "statementType": "可选"}
+     */
+    @PostMapping(value = "/lint", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> lintJson(@RequestBody Map<String, String> request) {
+        return lint(request.get("sql"), request.get("statementType"));
+    }
+
+    private ResponseEntity<?> lint(String sql, String statementType) {
+        try {
+            LintResult result = lintService.lint(sql, statementType);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.sqlaudit.controller;
+
+import com.sqlaudit.model.Baseline;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.report.NearDuplicates;
+import com.sqlaudit.report.NearDuplicates.DuplicatePage;
+import com.sqlaudit.report.ReportIndex;
+import com.sqlaudit.report.ReportIndex.Facet;
+import com.sqlaudit.report.ReportIndex.FacetCounts;
+import com.sqlaudit.report.ReportIndex.SortKey;
+import com.sqlaudit.report.ReportIndex.ViolationFilter;
+import com.sqlaudit.report.ReportIndex.ViolationPage;
+import com.sqlaudit.report.UsageIndex;
+import com.sqlaudit.report.UsageIndex.Access;
+import com.sqlaudit.report.UsageIndex.UsagePage;
+import com.sqlaudit.report.UsageIndex.UsageQuery;
+import com.sqlaudit.service.BaselineService;
+import com.sqlaudit.service.ReportStore;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 报告查询 API：服务端过滤、排序、游标分页与分面计数，表 / 列用法查询，以及基线生成与报告比对
+ */
+@RestController
+@RequestMapping("/api/report")
+@CrossOrigin(origins = "*")
+public class ReportController {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final ReportStore reportStore;
+    private final BaselineService baselineService;
+
+    public ReportController(ReportStore reportStore, BaselineService baselineService) {
+        this.reportStore = reportStore;
+        this.baselineService = baselineService;
+    }
+
+    /**
+     * 分页查询违规记录
+     *
+     * @param reportId 扫描响应中返回的报告 ID
+     * @param sort   排序方式: natural（默认）, file, severity, rule, impact（按运行时开销）
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     */
+    @GetMapping("/violations")
+    public ResponseEntity<?> queryViolations(
+            @RequestParam(required = false) String reportId,
+            @RequestParam(required = false) Set<String> severity,
+            @RequestParam(required = false) Set<String> ruleId,
+            @RequestParam(required = false) String pathPrefix,
+            @RequestParam(required = false) Set<String> namespace,
+            @RequestParam(required = false) Set<String> statementType,
+            @RequestParam(defaultValue = "natural") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        ReportIndex index = requireStored(reportId).index();
+        ViolationFilter filter = new ViolationFilter(severity, ruleId, pathPrefix, namespace, statementType);
+        try {
+            ViolationPage page = index.query(filter, parseSort(sort), cursor, Math.min(limit, MAX_PAGE_SIZE));
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("total", page.total());
+            body.put("items", page.items());
+            body.put("nextCursor", page.nextCursor());
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 过滤侧边栏的分面计数（一次返回全部分面）
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<?> facets(
+            @RequestParam(required = false) String reportId,
+            @RequestParam(required = false) Set<String> severity,
+            @RequestParam(required = false) Set<String> ruleId,
+            @RequestParam(required = false) String pathPrefix,
+            @RequestParam(required = false) Set<String> namespace,
+            @RequestParam(required = false) Set<String> statementType) {
+        ReportIndex index = requireStored(reportId).index();
+        FacetCounts counts = index.facetCounts(
+                new ViolationFilter(severity, ruleId, pathPrefix, namespace, statementType));
+
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("severity", counts.facets().get(Facet.SEVERITY));
+        facets.put("ruleId", counts.facets().get(Facet.RULE));
+        facets.put("file", counts.facets().get(Facet.FILE));
+        facets.put("namespace", counts.facets().get(Facet.NAMESPACE));
+        facets.put("statementType", counts.facets().get(Facet.STATEMENT_TYPE));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("total", counts.total());
+        body.put("facets", facets);
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * 以报告（请求体，未传时为 reportId 对应的已保存报告）中的全部违规生成基线文件并下载
+     */
+    @PostMapping("/baseline")
+    public ResponseEntity<StreamingResponseBody> createBaseline(
+            @RequestParam(required = false) String reportId,
+            @RequestBody(required = false) ScanReport report) {
+        ScanReport source = report != null && report.getScanTime() != null
+                ? report
+                : requireStored(reportId).report();
+        Baseline baseline = baselineService.createBaseline(source);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename("sql-audit-baseline.json", StandardCharsets.UTF_8)
+                .build());
+        return new ResponseEntity<>(out -> baselineService.writeBaseline(baseline, out), headers, HttpStatus.OK);
+    }
+
+    /**
+     * 比较两份报告，返回新增与已修复的违规
+     * <p>
+     * 请求体: {"base": ScanReport, "head": ScanReport}；head 未传时使用 reportId 对应的已保存报告
+     */
+    @PostMapping("/diff")
+    public ResponseEntity<?> diff(@RequestParam(required = false) String reportId,
+            @RequestBody Map<String, ScanReport> request) {
+        ScanReport base = request.get("base");
+        if (base == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "请提供用于比较的基准报告 (base)"));
+        }
+        ScanReport head = request.get("head") != null
+                ? request.get("head")
+                : requireStored(reportId).report();
+        return ResponseEntity.ok(baselineService.diff(base, head));
+    }
+
+    /**
+     * 表用法概览：每张表被多少条语句访问，其中多少条写入
+     */
+    @GetMapping("/usage/tables")
+    public ResponseEntity<Map<String, Object>> usageTables(@RequestParam(required = false) String reportId) {
+        UsageIndex usage = requireUsage(reportId);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("statements", usage.statementCount());
+        body.put("tables", usage.tables());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * 表中被语句引用过的列
+     */
+    @GetMapping("/usage/columns")
+    public ResponseEntity<List<String>> usageColumns(@RequestParam(required = false) String reportId,
+            @RequestParam String table) {
+        return ResponseEntity.ok(requireUsage(reportId).columns(table));
+    }
+
+    /**
+     * 按表 / 列查询语句，例如 table=t_order&amp;notFilteredBy=tenant_id（访问 t_order 却没按 tenant_id 过滤），
+     * 或 table=t_order&amp;access=write（谁在写这张表）
+     *
+     * @param access any（默认）, read, write
+     */
+    @GetMapping("/usage/statements")
+    public ResponseEntity<?> usageStatements(
+            @RequestParam(required = false) String reportId,
+            @RequestParam String table,
+            @RequestParam(required = false) String column,
+            @RequestParam(defaultValue = "any") String access,
+            @RequestParam(required = false) String filteredBy,
+            @RequestParam(required = false) String notFilteredBy,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        UsageIndex usage = requireUsage(reportId);
+        try {
+            UsageQuery query = new UsageQuery(table, column, parseAccess(access), filteredBy, notFilteredBy);
+            UsagePage page = usage.query(query, offset, Math.min(limit, MAX_PAGE_SIZE));
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("total", page.total());
+            body.put("items", page.items());
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 近似重复的 SQL 簇，按语句数从多到少排列
+     *
+     * @param minSimilarity 只要簇内相似度不低于该值的簇（扫描时按 0.8 聚类，此处只能调高）
+     * @param minSize       只要至少包含这么多条语句的簇
+     */
+    @GetMapping("/duplicates")
+    public ResponseEntity<Map<String, Object>> duplicates(
+            @RequestParam(required = false) String reportId,
+            @RequestParam(defaultValue = "0") double minSimilarity,
+            @RequestParam(defaultValue = "2") int minSize,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        NearDuplicates duplicates = requireStored(reportId).report().getNearDuplicates();
+        if (duplicates == null) {
+            throw new ApiException(HttpStatus.NOT_FOUND, "该报告没有重复 SQL 分析结果（数据库日志审查的报告不含）");
+        }
+        DuplicatePage page = duplicates.page(minSimilarity, minSize, offset, Math.min(limit, MAX_PAGE_SIZE));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("threshold", duplicates.threshold());
+        body.put("statements", duplicates.statementCount());
+        body.put("total", page.total());
+        body.put("items", page.items());
+        return ResponseEntity.ok(body);
+    }
+
+    private UsageIndex requireUsage(String reportId) {
+        UsageIndex usage = requireStored(reportId).report().getUsageIndex();
+        if (usage == null) {
+            throw new ApiException(HttpStatus.NOT_FOUND, "该报告没有表用法索引（数据库日志审查的报告不含）");
+        }
+        return usage;
+    }
+
+    private ReportStore.StoredReport requireStored(String reportId) {
+        if (reportId == null || reportId.isBlank()) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, "请提供报告 ID (reportId)");
+        }
+        return reportStore.get(reportId.trim())
+                .orElseThrow(() -> new ApiException(HttpStatus.NOT_FOUND, "报告不存在或已过期，请重新扫描: " + reportId));
+    }
+
+    private Access parseAccess(String access) {
+        try {
+            return Access.valueOf(access.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的访问方式: " + access);
+        }
+    }
+
+    private SortKey parseSort(String sort) {
+        try {
+            return SortKey.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的排序方式: " + sort);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.sqlaudit.controller;
+
+import com.sqlaudit.service.RulePackStore;
+import com.sqlaudit.service.RulePackStore.RulePack;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 规则包 API：列出、启用、删除按文档哈希缓存的自定义规则包（上传见 /api/rules/upload）
+ */
+@RestController
+@RequestMapping("/api/rules/packs")
+@CrossOrigin(origins = "*")
+public class RulePackController {
+
+    private final RulePackStore rulePackStore;
+
+    public RulePackController(RulePackStore rulePackStore) {
+        this.rulePackStore = rulePackStore;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> list() {
+        String activeId = rulePackStore.activeId().orElse(null);
+        return ResponseEntity.ok(rulePackStore.list().stream()
+                .map(pack -> summary(pack, pack.id().equals(activeId)))
+                .toList());
+    }
+
+    /**
+     * 规则包详情，包含全部规则
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> get(@PathVariable String id) {
+        RulePack pack = rulePackStore.get(id).orElseThrow(() -> notFound(id));
+        Map<String, Object> body = summary(pack, id.equals(rulePackStore.activeId().orElse(null)));
+        body.put("rules", pack.rules());
+        return ResponseEntity.ok(body);
+    }
+
+    @PostMapping("/{id}/activate")
+    public ResponseEntity<Map<String, Object>> activate(@PathVariable String id) {
+        RulePack pack = rulePackStore.activate(id).orElseThrow(() -> notFound(id));
+        Map<String, Object> body = summary(pack, true);
+        body.put("message", "已启用规则包，共 " + pack.rules().size() + " 条自定义规则");
+        return ResponseEntity.ok(body);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> delete(@PathVariable String id) {
+        if (!rulePackStore.delete(id)) {
+            throw notFound(id);
+        }
+        return ResponseEntity.ok(Map.of("message", "已删除规则包"));
+    }
+
+    static Map<String, Object> summary(RulePack pack, boolean active) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("packId", pack.id());
+        body.put("name", pack.name());
+        body.put("createdAt", pack.createdAt());
+        body.put("ruleCount", pack.rules().size());
+        body.put("invalidPatterns", pack.invalidPatterns());
+        body.put("active", active);
+        return body;
+    }
+
+    private static ApiException notFound(String id) {
+        return new ApiException(HttpStatus.NOT_FOUND, "规则包不存在: " + id);
+    }
+}
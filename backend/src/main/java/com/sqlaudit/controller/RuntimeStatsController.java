@@ -0,0 +1,97 @@
+package com.sqlaudit.controller;
+
+import com.sqlaudit.service.RuntimeStatsService;
+import com.sqlaudit.service.RuntimeStatsService.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 运行时统计快照 API：导入后，之后的扫描结果自动标注每条违规语句的生产环境执行开销
+ */
+@RestController
+@RequestMapping("/api/runtime-stats")
+@CrossOrigin(origins = "*")
+public class RuntimeStatsController {
+
+    private static final Logger log = LoggerFactory.getLogger(RuntimeStatsController.class);
+
+    private final RuntimeStatsService runtimeStatsService;
+
+    public RuntimeStatsController(RuntimeStatsService runtimeStatsService) {
+        this.runtimeStatsService = runtimeStatsService;
+    }
+
+    /**
+     * 上传统计快照 CSV（支持 .gz）
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> upload(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "请上传文件"));
+        }
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.ok(toBody(runtimeStatsService.importSnapshot(in, file.getOriginalFilename())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("导入运行时统计失败", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "导入运行时统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 导入服务器本地的统计快照
+     * <p>
+     * 请求体: {"path": "..."}
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> load(@RequestBody Map<String, String> request) {
+        String path = request.get("path");
+        if (path == null || path.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "请提供统计文件路径 (path)"));
+        }
+        try {
+            return ResponseEntity.ok(toBody(runtimeStatsService.importSnapshot(Path.of(path.trim()))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("导入运行时统计失败", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "导入运行时统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 当前快照概要；未导入时返回 404
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> current() {
+        Snapshot snapshot = runtimeStatsService.current()
+                .orElseThrow(() -> new ApiException(HttpStatus.NOT_FOUND, "尚未导入运行时统计"));
+        return ResponseEntity.ok(toBody(snapshot));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> clear() {
+        runtimeStatsService.clear();
+        return ResponseEntity.ok(Map.of("message", "已清除运行时统计"));
+    }
+
+    private static Map<String, Object> toBody(Snapshot snapshot) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("source", snapshot.source());
+        body.put("statements", snapshot.statements());
+        body.put("totalCalls", snapshot.totalCalls());
+        body.put("importedAt", snapshot.importedAt());
+        return body;
+    }
+}
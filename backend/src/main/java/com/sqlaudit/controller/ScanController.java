@@ -1,13 +1,28 @@
 package com.sqlaudit.controller;
 
 import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.Baseline;
+import com.sqlaudit.model.ScanOptions;
 import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.parser.SqlLogParser.LogFormat;
+import com.sqlaudit.report.exporter.ReportExporter;
+import com.sqlaudit.service.BaselineService;
+import com.sqlaudit.service.LogAuditService;
 import com.sqlaudit.service.ReportExportService;
+import com.sqlaudit.service.ReportStore;
+import com.sqlaudit.service.RulePackStore;
 import com.sqlaudit.service.RuleService;
+import com.sqlaudit.service.RuntimeStatsService;
+import com.sqlaudit.service.ScanCoordinator;
+import com.sqlaudit.service.ScanHistoryStore;
+import com.sqlaudit.service.SchemaCatalogService;
+import com.sqlaudit.service.ScanRejectedException;
+import com.sqlaudit.service.ScanScheduler;
 import com.sqlaudit.service.ScanService;
 import com.sqlaudit.util.TextDecodingUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -15,11 +30,20 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * SQL 审查 API 控制器
@@ -31,52 +55,104 @@ public class ScanController {
 
     private static final Logger log = LoggerFactory.getLogger(ScanController.class);
 
+    /** 日志审查的内存占用取决于不同语句数而非文件大小，准入估算时按此上限计算文件体积 */
+    private static final long LOG_ADMISSION_BYTES = 32L * 1024 * 1024;
+    /** SQL 脚本需整体读入内存解析，单独限制上传大小 */
+    private static final long MAX_SQL_UPLOAD_BYTES = 10L * 1024 * 1024;
+
     private final ScanService scanService;
     private final RuleService ruleService;
     private final ReportExportService reportExportService;
+    private final BaselineService baselineService;
+    private final ScanScheduler scanScheduler;
+    private final ReportStore reportStore;
+    private final LogAuditService logAuditService;
+    private final RuntimeStatsService runtimeStatsService;
+    private final RulePackStore rulePackStore;
+    private final SchemaCatalogService schemaCatalogService;
+    private final ScanHistoryStore scanHistoryStore;
+    private final ScanCoordinator scanCoordinator;
+    private final int maxViolations;
+    private final boolean offHeapSqlText;
 
-    public ScanController(ScanService scanService, RuleService ruleService, ReportExportService reportExportService) {
+    public ScanController(ScanService scanService, RuleService ruleService, ReportExportService reportExportService,
+            BaselineService baselineService, ScanScheduler scanScheduler, ReportStore reportStore,
+            LogAuditService logAuditService, RuntimeStatsService runtimeStatsService, RulePackStore rulePackStore,
+            SchemaCatalogService schemaCatalogService, ScanHistoryStore scanHistoryStore,
+            ScanCoordinator scanCoordinator,
+            @Value("${sql-audit.scan.max-violations:1000}") int maxViolations,
+            @Value("${sql-audit.scan.off-heap-sql-text:false}") boolean offHeapSqlText) {
         this.scanService = scanService;
         this.ruleService = ruleService;
         this.reportExportService = reportExportService;
+        this.baselineService = baselineService;
+        this.scanScheduler = scanScheduler;
+        this.reportStore = reportStore;
+        this.logAuditService = logAuditService;
+        this.runtimeStatsService = runtimeStatsService;
+        this.rulePackStore = rulePackStore;
+        this.schemaCatalogService = schemaCatalogService;
+        this.scanHistoryStore = scanHistoryStore;
+        this.scanCoordinator = scanCoordinator;
+        this.maxViolations = maxViolations;
+        this.offHeapSqlText = offHeapSqlText;
     }
 
     /**
      * 扫描指定仓库路径
+     * <p>
+     * 请求体: {"repoPath": "...", "baselinePath": "可选，本地基线文件路径"}
+     * <p>
+     * 扫描交由 {@link ScanScheduler} 在独立线程池中执行；调度器饱和时返回 429 + Retry-After。
+     * 配置了 worker 时由 {@link ScanCoordinator} 分片分发给各 worker 执行并合并结果。
+     * 已导入运行时统计快照时先为违规标注执行开销，再存入 {@link ReportStore} 并记入 {@link ScanHistoryStore}；
+     * 响应中的 reportId 用于后续查询与导出。
      */
     @PostMapping("/scan")
-    public ResponseEntity<?> scan(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<?>> scan(@RequestBody Map<String, String> request) {
         String repoPath = request.get("repoPath");
         if (repoPath == null || repoPath.isBlank()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "请提供仓库路径 (repoPath)"));
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", "请提供仓库路径 (repoPath)")));
         }
 
         try {
             log.info("收到扫描请求: {}", repoPath);
-            ScanReport report = scanService.scan(repoPath);
-            scanService.cacheLastScanReport(report);
-            return ResponseEntity.ok(report);
+            ScanOptions scanOptions = scanOptions(request.get("baselinePath"));
+            ScanService.ScanPlan plan = scanService.plan(repoPath);
+            return scanScheduler.submit(plan.fileCount(), plan.totalBytes(), () -> scanCoordinator.isEnabled()
+                            ? scanCoordinator.scan(plan, scanOptions)
+                            : scanService.scan(plan, scanOptions))
+                    .handle((report, error) -> toScanResponse(report, error, "扫描失败", "扫描过程中出错: "));
+        } catch (ScanRejectedException e) {
+            throw e;
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         } catch (Exception e) {
-            log.error("扫描失败", e);
-            return ResponseEntity.internalServerError()
-                    .body(Map.of("error", "扫描过程中出错: " + e.getMessage()));
+            return CompletableFuture.completedFuture(toScanResponse(null, e, "扫描失败", "扫描过程中出错: "));
         }
     }
 
     /**
      * 上传 SQL 脚本文件进行审查
+     * <p>
+     * 违规上限、基线（可选参数 baselinePath，本地基线文件路径）、表结构与运行时统计与仓库扫描相同。
      */
     @PostMapping("/scan/sql")
-    public ResponseEntity<?> scanSql(@RequestParam("file") MultipartFile file) {
+    public CompletableFuture<ResponseEntity<?>> scanSql(@RequestParam("file") MultipartFile file,
+            @RequestParam(value = "baselinePath", required = false) String baselinePath) {
         if (file.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "请上传文件"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "请上传文件")));
         }
 
         String filename = file.getOriginalFilename();
         if (filename == null || !filename.toLowerCase().endsWith(".sql")) {
-            return ResponseEntity.badRequest().body(Map.of("error", "请上传 .sql 格式的 SQL 脚本文件"));
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", "请上传 .sql 格式的 SQL 脚本文件")));
+        }
+        if (file.getSize() > MAX_SQL_UPLOAD_BYTES) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", "SQL 脚本文件不能超过 10MB")));
         }
 
         try {
@@ -91,18 +167,124 @@ public class ScanController {
                 notices.add(decodeNotice);
             }
 
-            ScanReport report = scanService.scanSqlContent(sqlContent, filename, notices);
-            scanService.cacheLastScanReport(report);
-            return ResponseEntity.ok(report);
+            ScanOptions scanOptions = scanOptions(baselinePath);
+            return scanScheduler.submit(1, bytes.length,
+                            () -> scanService.scanSqlContent(sqlContent, filename, notices, scanOptions))
+                    .handle((report, error) -> toScanResponse(report, error, "SQL 脚本审查失败", "审查过程中出错: "));
+        } catch (ScanRejectedException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(toScanResponse(null, e, "SQL 脚本审查失败", "审查过程中出错: "));
+        }
+    }
+
+    /**
+     * 审查服务器本地的数据库日志（慢查询日志 / csvlog / 语句统计 CSV，支持 .gz）
+     * <p>
+     * 请求体: {"logPath": "...", "format": "可选，auto | text | csv_log | csv_stats"}；
+     * 违规上限与表结构与仓库扫描相同。
+     */
+    @PostMapping("/scan/log")
+    public CompletableFuture<ResponseEntity<?>> scanLog(@RequestBody Map<String, String> request) {
+        String logPath = request.get("logPath");
+        if (logPath == null || logPath.isBlank()) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", "请提供日志文件路径 (logPath)")));
+        }
+        try {
+            LogFormat format = LogFormat.of(request.get("format"));
+            Path path = Path.of(logPath.trim());
+            if (!Files.isRegularFile(path)) {
+                throw new IllegalArgumentException("日志文件不存在: " + logPath);
+            }
+            log.info("收到日志审查请求: {}", path);
+            ScanOptions scanOptions = scanOptions(null);
+            return scanScheduler.submit(1, Math.min(Files.size(path), LOG_ADMISSION_BYTES), () -> {
+                        try {
+                            return logAuditService.audit(path, format, scanOptions);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .handle((report, error) -> toScanResponse(report, error, "日志审查失败", "审查过程中出错: "));
+        } catch (ScanRejectedException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(toScanResponse(null, e, "日志审查失败", "审查过程中出错: "));
+        }
+    }
+
+    /**
+     * 上传数据库日志进行审查；上传内容逐行流式解析，不整体读入内存
+     */
+    @PostMapping("/scan/log/upload")
+    public CompletableFuture<ResponseEntity<?>> scanLogUpload(@RequestParam("file") MultipartFile file,
+            @RequestParam(value = "format", required = false) String format) {
+        if (file.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "请上传文件")));
+        }
+        try {
+            LogFormat logFormat = LogFormat.of(format);
+            String filename = file.getOriginalFilename();
+            log.info("收到日志上传审查请求: {}, 大小: {} bytes", filename, file.getSize());
+            ScanOptions scanOptions = scanOptions(null);
+            return scanScheduler.submit(1, Math.min(file.getSize(), LOG_ADMISSION_BYTES), () -> {
+                        try (InputStream in = file.getInputStream()) {
+                            return logAuditService.audit(in, filename, logFormat, scanOptions);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .handle((report, error) -> toScanResponse(report, error, "日志审查失败", "审查过程中出错: "));
+        } catch (ScanRejectedException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         } catch (Exception e) {
-            log.error("SQL 脚本审查失败", e);
-            return ResponseEntity.internalServerError()
-                    .body(Map.of("error", "审查过程中出错: " + e.getMessage()));
+            return CompletableFuture.completedFuture(toScanResponse(null, e, "日志审查失败", "审查过程中出错: "));
         }
     }
 
+    /**
+     * 扫描选项：配置的违规上限与文本区位置、当前导入的表结构与运行时统计；提供基线文件路径时加载其指纹
+     */
+    private ScanOptions scanOptions(String baselinePath) {
+        ScanOptions.ScanOptionsBuilder options = ScanOptions.builder().maxViolations(maxViolations)
+                .offHeapSqlText(offHeapSqlText);
+        if (baselinePath != null && !baselinePath.isBlank()) {
+            Baseline baseline = baselineService.loadBaseline(Path.of(baselinePath.trim()));
+            options.baselineFingerprints(baselineService.fingerprints(baseline));
+        }
+        schemaCatalogService.current().ifPresent(snapshot -> options.schemaCatalog(snapshot.catalog()));
+        runtimeStatsService.current().ifPresent(snapshot -> options.runtimeStats(snapshot.index()));
+        return options.build();
+    }
+
+    private ResponseEntity<?> toScanResponse(ScanReport report, Throwable error, String logMessage,
+            String errorPrefix) {
+        if (error == null) {
+            runtimeStatsService.annotate(report);
+            reportStore.put(report);
+            scanHistoryStore.record(report);
+            return ResponseEntity.ok(report);
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest().body(Map.of("error", cause.getMessage()));
+        }
+        log.error(logMessage, cause);
+        return ResponseEntity.internalServerError()
+                .body(Map.of("error", errorPrefix + cause.getMessage()));
+    }
+
     /**
      * 上传 Word 文档审查规范
+     * <p>
+     * 按文档内容哈希缓存为规则包并启用；内容相同的文档再次上传时直接启用缓存，不重新解析。
      */
     @PostMapping("/rules/upload")
     public ResponseEntity<?> uploadRules(@RequestParam("file") MultipartFile file) {
@@ -116,10 +298,13 @@ public class ScanController {
         }
 
         try {
-            List<AuditRule> rules = ruleService.loadRulesFromWord(file.getInputStream());
+            RulePackStore.ImportResult imported = rulePackStore.importDocument(file.getBytes(), filename);
+            List<AuditRule> rules = imported.pack().rules();
             return ResponseEntity.ok(Map.of(
                     "message", "成功加载 " + rules.size() + " 条审查规则",
-                    "rules", rules));
+                    "rules", rules,
+                    "packId", imported.pack().id(),
+                    "cached", imported.cached()));
         } catch (Exception e) {
             log.error("上传规则文件失败", e);
             return ResponseEntity.badRequest()
@@ -156,77 +341,78 @@ public class ScanController {
      */
     @DeleteMapping("/rules/custom")
     public ResponseEntity<?> clearCustomRules() {
-        ruleService.clearCustomRules();
+        rulePackStore.deactivate();
         return ResponseEntity.ok(Map.of("message", "已清除自定义规则"));
     }
 
     /**
-     * 导出 Markdown 报告（优先使用请求体中的报告；未传时回退到服务端最近一次扫描结果）
+     * 导出请求体中的报告（用于导入的历史报告等服务端未保存的报告）
+     * <p>
+     * format 支持 markdown / json / sarif / xlsx 等，见 {@link ReportExportService#supportedFormats()}
      */
-    @PostMapping("/report/export/markdown")
-    public ResponseEntity<?> exportMarkdown(@RequestBody(required = false) ScanReport report) {
-        return exportReport("markdown", report);
+    @PostMapping("/report/export/{format}")
+    public ResponseEntity<StreamingResponseBody> exportReport(
+            @PathVariable String format,
+            @RequestBody(required = false) ScanReport report,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return streamReport(format, report, acceptEncoding);
     }
 
     /**
-     * 导出 JSON 报告（优先使用请求体中的报告；未传时回退到服务端最近一次扫描结果）
+     * 按报告 ID 下载服务端保存的报告（便于浏览器直接触发下载，无需回传整份报告）
      */
-    @PostMapping("/report/export/json")
-    public ResponseEntity<?> exportJson(@RequestBody(required = false) ScanReport report) {
-        return exportReport("json", report);
-    }
-
-    /**
-     * 直接下载最近一次 Markdown 报告（便于浏览器直接触发下载）
-     */
-    @GetMapping("/report/export/markdown")
-    public ResponseEntity<?> exportMarkdownLatest() {
-        return exportReport("markdown", null);
+    @GetMapping("/report/export/{format}")
+    public ResponseEntity<StreamingResponseBody> exportStoredReport(
+            @PathVariable String format,
+            @RequestParam(required = false) String reportId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (reportId == null || reportId.isBlank()) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, "请提供报告 ID (reportId)");
+        }
+        ScanReport report = reportStore.getReport(reportId.trim())
+                .orElseThrow(() -> new ApiException(HttpStatus.NOT_FOUND, "报告不存在或已过期，请重新扫描: " + reportId));
+        return streamReport(format, report, acceptEncoding);
     }
 
     /**
-     * 直接下载最近一次 JSON 报告（便于浏览器直接触发下载）
+     * 流式写出报告：不设置 Content-Length（走 chunked 传输），客户端支持时使用 gzip 压缩。
      */
-    @GetMapping("/report/export/json")
-    public ResponseEntity<?> exportJsonLatest() {
-        return exportReport("json", null);
-    }
-
-    private ResponseEntity<?> exportReport(String format, ScanReport requestReport) {
-        try {
-            ScanReport report = resolveReportForExport(requestReport);
-            if (report == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Map.of("error", "暂无可导出的审查报告，请先执行一次扫描"));
-            }
+    private ResponseEntity<StreamingResponseBody> streamReport(String format, ScanReport report,
+            String acceptEncoding) {
+        ReportExporter exporter = reportExportService.findExporter(format)
+                .orElseThrow(() -> new ApiException(HttpStatus.BAD_REQUEST,
+                        "不支持的导出格式: " + format + "，可选: " + reportExportService.supportedFormats()));
+        if (report == null || report.getScanTime() == null) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, "暂无可导出的审查报告，请先执行一次扫描");
+        }
+        boolean gzip = exporter.compressible()
+                && acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
 
-            ReportExportService.ExportPayload payload;
-            if ("markdown".equalsIgnoreCase(format)) {
-                payload = reportExportService.exportMarkdown(report);
-            } else if ("json".equalsIgnoreCase(format)) {
-                payload = reportExportService.exportJson(report);
-            } else {
-                return ResponseEntity.badRequest().body(Map.of("error", "不支持的导出格式: " + format));
+        StreamingResponseBody body = out -> {
+            try {
+                if (gzip) {
+                    GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                    exporter.write(report, gzipOut);
+                    gzipOut.finish();
+                } else {
+                    exporter.write(report, out);
+                }
+            } catch (Exception e) {
+                // 响应头已提交，只能记录日志并中断输出
+                log.error("流式导出报告失败, format={}", format, e);
+                throw e;
             }
+        };
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(payload.contentType()));
-            headers.setContentLength(payload.content().length);
-            headers.setContentDisposition(ContentDisposition.attachment()
-                    .filename(payload.filename(), StandardCharsets.UTF_8)
-                    .build());
-            return new ResponseEntity<>(payload.content(), headers, HttpStatus.OK);
-        } catch (Exception e) {
-            log.error("导出报告失败, format={}", format, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "导出失败: " + e.getMessage()));
-        }
-    }
-
-    private ScanReport resolveReportForExport(ScanReport requestReport) {
-        if (requestReport != null && requestReport.getScanTime() != null) {
-            return requestReport;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(exporter.contentType()));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(reportExportService.filename(report, exporter), StandardCharsets.UTF_8)
+                .build());
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
-        return scanService.getLastScanReport().orElse(null);
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 }
@@ -0,0 +1,142 @@
+package com.sqlaudit.controller;
+
+import com.sqlaudit.service.ExplainReplayService;
+import com.sqlaudit.service.SchemaCatalogService;
+import com.sqlaudit.service.SchemaCatalogService.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 表结构 API：导入 DDL 后，INDEX_HINT 规则检查查询条件能否命中索引；启用 EXPLAIN 回放后，EXPLAIN_PLAN 规则按执行计划检查全表扫描
+ */
+@RestController
+@RequestMapping("/api/schema")
+@CrossOrigin(origins = "*")
+public class SchemaController {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaController.class);
+
+    private final SchemaCatalogService schemaCatalogService;
+    private final ExplainReplayService explainReplayService;
+
+    public SchemaController(SchemaCatalogService schemaCatalogService, ExplainReplayService explainReplayService) {
+        this.schemaCatalogService = schemaCatalogService;
+        this.explainReplayService = explainReplayService;
+    }
+
+    /**
+     * 上传 DDL 脚本或 schema 导出文件（支持 .gz）
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> upload(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "请上传文件"));
+        }
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.ok(toBody(schemaCatalogService.importDdl(in, file.getOriginalFilename())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("导入表结构失败", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "导入表结构失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 导入服务器本地的 DDL 文件或目录（目录下的 .sql 文件按路径顺序读入）
+     * <p>
+     * 请求体: {"path": "..."}
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> load(@RequestBody Map<String, String> request) {
+        String path = request.get("path");
+        if (path == null || path.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "请提供 DDL 文件或目录路径 (path)"));
+        }
+        try {
+            return ResponseEntity.ok(toBody(schemaCatalogService.importDdl(Path.of(path.trim()))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("导入表结构失败", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "导入表结构失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 当前表结构概要；未导入时返回 404
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> current() {
+        Snapshot snapshot = schemaCatalogService.current()
+                .orElseThrow(() -> new ApiException(HttpStatus.NOT_FOUND, "尚未导入表结构"));
+        return ResponseEntity.ok(toBody(snapshot));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> clear() {
+        schemaCatalogService.clear();
+        return ResponseEntity.ok(Map.of("message", "已清除表结构"));
+    }
+
+    /**
+     * EXPLAIN 回放状态
+     */
+    @GetMapping("/explain")
+    public ResponseEntity<ExplainReplayService.Status> explainStatus() {
+        return ResponseEntity.ok(explainReplayService.status());
+    }
+
+    /**
+     * 启用或停用 EXPLAIN 回放
+     * <p>
+     * 请求体: {"enabled": true}
+     */
+    @PostMapping("/explain")
+    public ResponseEntity<?> setExplain(@RequestBody Map<String, Boolean> request) {
+        Boolean enabled = request.get("enabled");
+        if (enabled == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "请提供 enabled"));
+        }
+        return ResponseEntity.ok(explainReplayService.setEnabled(enabled));
+    }
+
+    /**
+     * 上传各表行数统计（每行"表名,行数"），用于 EXPLAIN_PLAN 区分大表
+     */
+    @PostMapping(path = "/row-counts", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadRowCounts(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "请上传文件"));
+        }
+        try (InputStream in = file.getInputStream()) {
+            Map<String, Long> counts = explainReplayService.importRowCounts(in, file.getOriginalFilename());
+            return ResponseEntity.ok(Map.of("tables", counts.size()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("导入行数统计失败", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "导入行数统计失败: " + e.getMessage()));
+        }
+    }
+
+    private static Map<String, Object> toBody(Snapshot snapshot) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("source", snapshot.source());
+        body.put("tables", snapshot.catalog().tableCount());
+        body.put("indexes", snapshot.catalog().indexCount());
+        body.put("statements", snapshot.statements());
+        body.put("importedAt", snapshot.importedAt());
+        return body;
+    }
+}
@@ -0,0 +1,108 @@
+package com.sqlaudit.controller;
+
+import com.sqlaudit.model.ScanOptions;
+import com.sqlaudit.model.ShardRequest;
+import com.sqlaudit.report.ShardResultCodec;
+import com.sqlaudit.service.ScanScheduler;
+import com.sqlaudit.service.ScanService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 分布式扫描的 worker 端 API：扫描协调节点发来的分片，逐个文件流式返回结果（见 {@link ShardResultCodec}）
+ * <p>
+ * 任何实例都可以作为 worker。分片与本节点的仓库扫描一样经 {@link ScanScheduler} 准入，共享并发与内存预算，
+ * 繁忙时返回 429，由协调节点重新分配；请求中的规则配置摘要与本节点不一致时返回 409，避免按不同规则检查。
+ */
+@RestController
+@RequestMapping("/api/shard")
+@CrossOrigin(origins = "*")
+public class ShardController {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardController.class);
+
+    /** 准入后等待响应输出流的最长时间；客户端在响应开始前断开时调度线程据此放弃 */
+    private static final long OUTPUT_WAIT_SECONDS = 60;
+
+    private final ScanService scanService;
+    private final ScanScheduler scanScheduler;
+
+    public ShardController(ScanService scanService, ScanScheduler scanScheduler) {
+        this.scanService = scanService;
+        this.scanScheduler = scanScheduler;
+    }
+
+    @PostMapping("/scan")
+    public ResponseEntity<StreamingResponseBody> scan(@RequestBody ShardRequest request) {
+        if (!scanService.ruleFingerprint().equals(request.getRuleFingerprint())) {
+            throw new ApiException(HttpStatus.CONFLICT, "本节点的规则、规则包或表结构配置与协调节点不一致");
+        }
+        List<File> files;
+        try {
+            files = scanService.resolveShardFiles(request);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        Path repoRoot = Path.of(request.getRepoRoot()).toAbsolutePath().normalize();
+        ScanOptions options = ScanOptions.builder()
+                .maxViolations(request.getMaxViolations())
+                .baselineFingerprints(request.getBaselineFingerprints())
+                .offHeapSqlText(request.isOffHeapSqlText())
+                .build();
+        long totalBytes = files.stream().mapToLong(File::length).sum();
+        log.info("收到分片扫描请求: {}，{} 个文件", repoRoot, files.size());
+
+        // 准入在返回响应前完成，拒绝时协调节点收到 429；扫描在调度线程上直接写响应流，写完才释放并发名额
+        CompletableFuture<OutputStream> output = new CompletableFuture<>();
+        CompletableFuture<Void> scan = scanScheduler.submit(files.size(), totalBytes, () -> {
+            try {
+                OutputStream out = output.get(OUTPUT_WAIT_SECONDS, TimeUnit.SECONDS);
+                ShardResultCodec.Encoder encoder = ShardResultCodec.encoder(out);
+                scanService.scanShard(repoRoot, files, options, encoder::write);
+                encoder.finish();
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("分片扫描被中断", e);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IllegalStateException("等待响应输出流超时", e);
+            }
+        });
+
+        StreamingResponseBody body = out -> {
+            output.complete(out);
+            try {
+                scan.join();
+            } catch (CompletionException e) {
+                // 响应已开始输出，只能中断连接；协调节点读不到结束标记，会重新分配该分片
+                log.error("分片扫描失败: {}", repoRoot, e.getCause());
+                if (e.getCause() instanceof UncheckedIOException io) {
+                    throw io.getCause();
+                }
+                throw new IOException("分片扫描失败", e.getCause());
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+}
@@ -0,0 +1,49 @@
+package com.sqlaudit.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 基线文件：记录接入时已存在的违规指纹，后续扫描只报告新增违规
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Baseline {
+
+    /** 基线文件格式版本 */
+    private int version;
+
+    /** 生成时间 */
+    private LocalDateTime createdAt;
+
+    /** 生成基线时扫描的仓库路径 */
+    private String repoPath;
+
+    /** 基线中的违规条目 */
+    private List<Entry> entries;
+
+    /**
+     * 基线条目；除指纹外的字段仅供人工查阅
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+
+        private String fingerprint;
+
+        private String ruleId;
+
+        private String file;
+
+        private String statementId;
+    }
+}
@@ -0,0 +1,70 @@
+package com.sqlaudit.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 索引建议：汇总全部语句在各表上的条件列（等值 / 范围）与排序列，给出按权重排序的复合索引建议
+ * <p>
+ * 权重默认为语句数；导入运行时统计时按每条语句的执行次数加权。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexAdvice {
+
+    /** 是否按运行时执行次数加权（否则按语句数） */
+    private boolean weightedByExecutions;
+
+    /** 各表条件列 / 排序列的使用统计，按表名、总权重排序 */
+    private List<ColumnUsage> columns;
+
+    /** 复合索引建议，按权重从高到低排序 */
+    private List<Recommendation> recommendations;
+
+    /**
+     * 单列的使用统计
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ColumnUsage {
+        private String table;
+        private String column;
+        /** 作为等值条件（= / IN）的权重 */
+        private long equality;
+        /** 作为范围条件（&lt; / &gt; / BETWEEN / 前缀 LIKE）的权重 */
+        private long range;
+        /** 作为 ORDER BY 列的权重 */
+        private long orderBy;
+    }
+
+    /**
+     * 一条复合索引建议
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Recommendation {
+        private String table;
+        /** 索引列，依次为等值列、排序列或范围列 */
+        private List<String> columns;
+        /** 能用上该索引的语句权重之和 */
+        private long weight;
+        /** 能用上该索引的语句数 */
+        private int statements;
+        /** 列的来源说明，如"等值 tenant_id, status；排序 created_at" */
+        private String reason;
+        /** 建议的建索引语句 */
+        private String ddl;
+        /** 示例语句位置（文件:行号 语句 ID），最多 3 条 */
+        private List<String> examples;
+    }
+}
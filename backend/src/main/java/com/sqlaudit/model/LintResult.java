@@ -0,0 +1,48 @@
+package com.sqlaudit.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 单条 SQL 的 lint 结果：只包含违规，不生成扫描报告
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LintResult {
+
+    /** 语句类型（小写），请求未指定时自动识别 */
+    private String statementType;
+
+    /** 违规列表 */
+    private List<Item> violations;
+
+    /**
+     * 精简的违规记录：不含 SQL 片段与改写示例
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        private String ruleId;
+
+        private String ruleName;
+
+        private AuditRule.Severity severity;
+
+        private String category;
+
+        private String message;
+
+        private String suggestion;
+
+        private String matchedText;
+    }
+}
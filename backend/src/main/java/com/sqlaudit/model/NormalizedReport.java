@@ -0,0 +1,78 @@
+package com.sqlaudit.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 规范化扫描报告
+ * <p>
+ * 规则、SQL 片段各自只存一份（rules / fragments 表），违规记录通过整数下标引用，
+ * 避免同一规则、同一 SQL 文本在每条违规中重复出现。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NormalizedReport {
+
+    private String repoPath;
+
+    private LocalDateTime scanTime;
+
+    private int totalFiles;
+
+    private int totalStatements;
+
+    private int totalViolations;
+
+    private int errorCount;
+
+    private int warningCount;
+
+    private int infoCount;
+
+    /** 规则表（仅包含被违规引用的规则） */
+    private List<AuditRule> rules;
+
+    /** SQL 片段表（仅包含被违规引用的片段） */
+    private List<SqlFragment> fragments;
+
+    /** 违规记录，rule / fragment 为上面两张表中的下标 */
+    private List<ViolationRef> violations;
+
+    private List<String> scannedFiles;
+
+    private List<String> notices;
+
+    private boolean limitReached;
+
+    /** 因命中基线而未计入报告的违规数 */
+    private int baselineSuppressed;
+
+    /**
+     * 引用规则表、片段表下标的违规记录；下标为 -1 表示原违规记录中对应对象为空
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ViolationRef {
+
+        private int rule;
+
+        private int fragment;
+
+        private String message;
+
+        private String suggestion;
+
+        private String exampleSql;
+
+        private String matchedText;
+    }
+}
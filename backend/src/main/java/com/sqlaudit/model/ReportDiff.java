@@ -0,0 +1,33 @@
+package com.sqlaudit.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 两次扫描报告之间的差异（按违规指纹比较）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportDiff {
+
+    /** 新报告中新增的违规数 */
+    private int addedCount;
+
+    /** 旧报告中存在、新报告中已消失的违规数 */
+    private int fixedCount;
+
+    /** 两份报告都存在的违规数 */
+    private int unchangedCount;
+
+    /** 新增的违规 */
+    private List<Violation> added;
+
+    /** 已修复的违规 */
+    private List<Violation> fixed;
+}
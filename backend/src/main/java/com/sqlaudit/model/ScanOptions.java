@@ -0,0 +1,46 @@
+package com.sqlaudit.model;
+
+import com.sqlaudit.report.RuntimeStatsIndex;
+import com.sqlaudit.rule.SchemaCatalog;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * 扫描选项
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanOptions {
+
+    /** 未指定违规上限时的默认值 */
+    public static final int DEFAULT_MAX_VIOLATIONS = 1000;
+
+    /** 基线违规指纹；命中的违规在扫描时直接跳过，不计入报告 */
+    private Set<String> baselineFingerprints;
+
+    /** 表结构目录；提供时索引建议据此解析列归属并剔除已有索引 */
+    private SchemaCatalog schemaCatalog;
+
+    /** 运行时统计索引；提供时索引建议按执行次数加权 */
+    private RuntimeStatsIndex runtimeStats;
+
+    /** 违规数量上限，达到后停止扫描并标记报告截断；不大于 0 时取默认值 */
+    private int maxViolations;
+
+    /** SQL 文本区是否使用堆外直接内存（默认堆内） */
+    private boolean offHeapSqlText;
+
+    public static ScanOptions defaults() {
+        return new ScanOptions();
+    }
+
+    public int effectiveMaxViolations() {
+        return maxViolations > 0 ? maxViolations : DEFAULT_MAX_VIOLATIONS;
+    }
+}
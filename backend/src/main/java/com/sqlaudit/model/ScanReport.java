@@ -1,5 +1,8 @@
 package com.sqlaudit.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.sqlaudit.report.NearDuplicates;
+import com.sqlaudit.report.UsageIndex;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,6 +20,9 @@ import java.util.List;
 @AllArgsConstructor
 public class ScanReport {
 
+    /** 报告 ID，由服务端报告存储分配，用于后续查询与导出 */
+    private String reportId;
+
     /** 扫描的仓库路径 */
     private String repoPath;
 
@@ -52,4 +58,18 @@ public class ScanReport {
 
     /** 是否因为违规过多达上限而截断 */
     private boolean limitReached;
+
+    /** 因命中基线而未计入报告的违规数 */
+    private int baselineSuppressed;
+
+    /** 索引建议：按表汇总的条件列 / 排序列用法与复合索引建议 */
+    private IndexAdvice indexAdvice;
+
+    /** 全部语句的表 / 列用法索引，随报告保存供查询接口使用，不参与 JSON 输出 */
+    @JsonIgnore
+    private UsageIndex usageIndex;
+
+    /** 近似重复 SQL 簇，通过查询接口获取，不参与 JSON 输出 */
+    @JsonIgnore
+    private NearDuplicates nearDuplicates;
 }
@@ -0,0 +1,38 @@
+package com.sqlaudit.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 分片中单个文件的扫描结果，协调节点按文件顺序合并为完整报告
+ * <p>
+ * 命中基线的违规不传回，只记录各自出现在哪两条保留违规之间，合并时据此按与单机扫描相同的顺序计数。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardFileResult {
+
+    /** 文件在分片请求文件列表中的下标 */
+    private int fileIndex;
+
+    /** 文件中解析出的全部 SQL 片段 */
+    private List<SqlFragment> fragments;
+
+    /** 未命中基线的违规，按检查顺序排列 */
+    private List<Violation> violations;
+
+    /** 每条违规之前（上一条违规之后）被基线抑制的违规数，与 violations 一一对应 */
+    private int[] suppressedBefore;
+
+    /** 最后一条违规之后被基线抑制的违规数 */
+    private int suppressedAfter;
+
+    /** 是否因分片内违规达到上限而未检查完；之后的文件只有片段没有违规 */
+    private boolean truncated;
+}
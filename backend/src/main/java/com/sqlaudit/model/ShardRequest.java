@@ -0,0 +1,37 @@
+package com.sqlaudit.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 分布式扫描中协调节点发给 worker 的分片请求
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardRequest {
+
+    /** 仓库根目录的绝对路径，worker 需能以同一路径访问 */
+    private String repoRoot;
+
+    /** 本分片的 Mapper 文件，相对仓库根目录 */
+    private List<String> files;
+
+    /** 违规数量上限，与整次扫描相同 */
+    private int maxViolations;
+
+    /** 基线违规指纹 */
+    private Set<String> baselineFingerprints;
+
+    /** SQL 文本区是否使用堆外直接内存 */
+    private boolean offHeapSqlText;
+
+    /** 协调节点的规则集与表结构配置摘要，worker 的配置与之不一致时拒绝执行 */
+    private String ruleFingerprint;
+}
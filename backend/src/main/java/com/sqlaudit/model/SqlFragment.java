@@ -1,14 +1,21 @@
 package com.sqlaudit.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.sqlaudit.parser.SqlTextArena;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * 从 MyBatis XML 中提取的 SQL 片段
+ * <p>
+ * equals / hashCode 直接比较字段、不经过 getter：文本保存在文本区中的片段按文本区位置比较，不会为此解码 SQL 文本。
  */
 @Data
+@EqualsAndHashCode(doNotUseGetters = true)
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,12 +33,44 @@ public class SqlFragment {
     /** SQL 类型: select, insert, update, delete */
     private String statementType;
 
-    /** 提取的 SQL 文本 */
+    /** 提取的 SQL 文本；文本保存在扫描的 {@link SqlTextArena} 中时为 null，读取时按需解码 */
     private String sqlText;
 
+    /** 扫描文本区中的 SQL 文本，设置后不再单独保存 sqlText */
+    @JsonIgnore
+    @ToString.Exclude
+    private SqlTextArena.Text storedSqlText;
+
     /** SQL 在文件中的起始行号 */
     private int lineNumber;
 
     /** 所属 namespace */
     private String namespace;
+
+    /** 运行时统计（仅来自数据库日志的片段有值） */
+    private StatementStats runtimeStats;
+
+    /**
+     * 文本保存在文本区中时每次调用都会解码出新的字符串；只读访问优先用 {@link #sqlTextView()}
+     */
+    public String getSqlText() {
+        return sqlText == null && storedSqlText != null ? storedSqlText.toString() : sqlText;
+    }
+
+    /**
+     * 供检查器做正则匹配等只读访问：文本区中的纯 ASCII 文本直接返回视图，不复制
+     */
+    public CharSequence sqlTextView() {
+        return sqlText == null && storedSqlText != null && storedSqlText.isAscii() ? storedSqlText : getSqlText();
+    }
+
+    /**
+     * 把文本区中的 SQL 文本复制为独立字符串，使片段不再引用文本区；随报告保留的片段在扫描结束时调用
+     */
+    public void detachSqlText() {
+        if (sqlText == null && storedSqlText != null) {
+            sqlText = storedSqlText.toString();
+        }
+        storedSqlText = null;
+    }
 }
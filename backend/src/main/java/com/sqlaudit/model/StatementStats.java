@@ -0,0 +1,35 @@
+package com.sqlaudit.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 语句运行时统计：同一指纹（字面量规范化后相同）的语句合并计数
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementStats {
+
+    /** 语句指纹 */
+    private String fingerprint;
+
+    /** 执行次数 */
+    private long executions;
+
+    /** 累计耗时（毫秒），日志中没有耗时信息时为 0 */
+    private double totalTimeMs;
+
+    /** 单次最大耗时（毫秒） */
+    private double maxTimeMs;
+
+    /** 累计返回/影响行数，来源没有该信息时为 0 */
+    private long rows;
+
+    /** 与扫描语句的匹配程度：1 为规范化文本完全一致，小于 1 为词元相似度匹配；日志审查产生的统计为 1 */
+    @Builder.Default
+    private double matchScore = 1.0;
+}
@@ -23,7 +23,9 @@ public class MyBatisMapperParser {
 
     private static final Logger log = LoggerFactory.getLogger(MyBatisMapperParser.class);
 
-    private static final Set<String> SQL_TAGS = Set.of("select", "insert", "update", "delete");
+    // Fixed iteration order: Set.of iterates differently per JVM, which would reorder statements between
+    // coordinator and workers in a distributed scan
+    private static final List<String> SQL_TAGS = List.of("select", "insert", "update", "delete");
     private static final Pattern MYBATIS_PARAM_PATTERN = Pattern.compile("#\\{[^}]*}");
     private static final Pattern DYNAMIC_TAG_PATTERN = Pattern.compile(
             "<(?:if|choose|when|otherwise|where|set|trim|foreach|bind)[^>]*>|</(?:if|choose|when|otherwise|where|set|trim|foreach|bind)>");
@@ -38,10 +40,10 @@ public class MyBatisMapperParser {
         if (!file.getName().endsWith(".xml")) {
             return false;
         }
-        try {
-            byte[] bytes = Files.readAllBytes(file.toPath());
-            int headSize = Math.min(bytes.length, 8192);
-            String head = new String(bytes, 0, headSize, StandardCharsets.ISO_8859_1);
+        try (var in = Files.newInputStream(file.toPath())) {
+            // Only the head is needed to detect the root element; avoid reading large XML files in full
+            byte[] bytes = in.readNBytes(8192);
+            String head = new String(bytes, StandardCharsets.ISO_8859_1);
             return head.contains("<mapper") || head.contains("<!DOCTYPE mapper");
         } catch (IOException e) {
             log.warn("Unable to read file: {}", file.getAbsolutePath(), e);
@@ -53,6 +55,14 @@ public class MyBatisMapperParser {
      * Parses a MyBatis Mapper XML file and extracts SQL fragments.
      */
     public List<SqlFragment> parse(File file, Path repoRoot) {
+        return parse(file, repoRoot, null);
+    }
+
+    /**
+     * Parses a MyBatis Mapper XML file, keeping SQL texts in the scan-wide arena (UTF-8, identical texts stored
+     * once) and sharing path / namespace strings through it. A null arena keeps a plain string per fragment.
+     */
+    public List<SqlFragment> parse(File file, Path repoRoot, SqlTextArena arena) {
         var fragments = new ArrayList<SqlFragment>();
         try {
             var factory = DocumentBuilderFactory.newInstance();
@@ -71,7 +81,15 @@ public class MyBatisMapperParser {
                 return fragments;
             }
 
-            String namespace = root.getAttribute("namespace");
+            // Intern per-file strings once so every fragment of this file shares the same instances
+            String namespace = arena != null
+                    ? arena.name(root.getAttribute("namespace"))
+                    : root.getAttribute("namespace").intern();
+            String filePath = arena != null ? arena.name(file.getAbsolutePath()) : file.getAbsolutePath();
+            String relativePath = repoRoot.relativize(file.toPath()).toString();
+            if (arena != null) {
+                relativePath = arena.name(relativePath);
+            }
 
             // Collect <sql> fragments for <include> resolution
             var sqlFragmentMap = collectSqlFragments(root);
@@ -88,11 +106,12 @@ public class MyBatisMapperParser {
                     if (!cleanedSql.isBlank()) {
                         int lineNumber = estimateLineNumber(file, id);
                         fragments.add(SqlFragment.builder()
-                                .filePath(file.getAbsolutePath())
-                                .relativePath(repoRoot.relativize(file.toPath()).toString())
+                                .filePath(filePath)
+                                .relativePath(relativePath)
                                 .statementId(id)
                                 .statementType(tag)
-                                .sqlText(cleanedSql)
+                                .sqlText(arena == null ? cleanedSql : null)
+                                .storedSqlText(arena != null ? arena.store(cleanedSql) : null)
                                 .lineNumber(lineNumber)
                                 .namespace(namespace)
                                 .build());
@@ -0,0 +1,355 @@
+package com.sqlaudit.parser;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 数据库日志解析器：逐行流式读取 OpenGauss / PostgreSQL 日志及语句统计 CSV，还原出执行过的 SQL
+ * <p>
+ * 支持三种格式：
+ * <ul>
+ * <li>文本日志（stderr）：以非空白字符开头的行开始一条日志，以空白开头的行是上一条的续行（多行 SQL）</li>
+ * <li>csvlog：log_destination=csvlog 产生的无表头 CSV，字段内可含换行</li>
+ * <li>语句统计 CSV：pg_stat_statements 等导出的带表头 CSV，至少包含 query 列，可选 calls、total_exec_time、max_exec_time、rows</li>
+ * </ul>
+ * 解析结果逐条回调，不在内存中保留整份日志。
+ */
+@Component
+public class SqlLogParser {
+
+    private static final Pattern LOG_MESSAGE = Pattern.compile("\\b(LOG|STATEMENT):\\s+(.*)", Pattern.DOTALL);
+    private static final Pattern DURATION = Pattern.compile("^duration:\\s*([\\d.]+)\\s*ms\\s*(.*)", Pattern.DOTALL);
+    private static final Pattern STATEMENT = Pattern.compile("^(?:statement|execute\\s+[^:]*):\\s*(.*)",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern TIMESTAMP_START = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}[ T]\\d{2}:\\d{2}:\\d{2}");
+
+    /** 单条日志记录的字符上限，防止格式异常（如引号未闭合）时把后续整个文件读进一条记录 */
+    private static final int MAX_ENTRY_CHARS = 1 << 20;
+
+    /** csvlog 字段位置（PostgreSQL 文档中的列顺序） */
+    private static final int CSVLOG_SEVERITY = 11;
+    private static final int CSVLOG_MESSAGE = 13;
+    private static final int CSVLOG_QUERY = 19;
+
+    public enum LogFormat {
+        /** 按文件名与首条记录自动识别 */
+        AUTO,
+        /** 文本日志 */
+        TEXT,
+        /** csvlog */
+        CSV_LOG,
+        /** 语句统计 CSV */
+        CSV_STATS;
+
+        /**
+         * 按名称解析（不区分大小写，允许连字符），空值视为 AUTO
+         */
+        public static LogFormat of(String name) {
+            if (name == null || name.isBlank()) {
+                return AUTO;
+            }
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的日志格式: " + name + "（可选 auto、text、csv_log、csv_stats）");
+            }
+        }
+    }
+
+    /**
+     * 日志中还原出的一条语句
+     *
+     * @param calls       执行次数（日志每条记录为 1，统计 CSV 取 calls 列）
+     * @param totalTimeMs 累计耗时，无耗时信息时为 0
+     * @param rows        累计行数（仅统计 CSV 的 rows 列），无该信息时为 0
+     */
+    public record LogStatement(String sql, int line, long calls, double totalTimeMs, double maxTimeMs, long rows) {
+    }
+
+    /**
+     * 以 UTF-8 打开日志流，文件名以 .gz 结尾时自动解压；调用方负责关闭传入的流
+     */
+    public static Reader openReader(InputStream in, String fileName) throws IOException {
+        InputStream input = new BufferedInputStream(in, 65536);
+        if (fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            input = new GZIPInputStream(input, 65536);
+        }
+        return new InputStreamReader(input, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return 读取的物理行数
+     */
+    public long parse(Reader reader, String fileName, LogFormat format, Consumer<LogStatement> consumer)
+            throws IOException {
+        LineSource source = new LineSource(reader instanceof BufferedReader br ? br : new BufferedReader(reader, 65536));
+        LogFormat resolved = format == null ? LogFormat.AUTO : format;
+        if (resolved == LogFormat.AUTO) {
+            String lower = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+            resolved = lower.endsWith(".csv") || lower.endsWith(".csv.gz") ? LogFormat.CSV_LOG : LogFormat.TEXT;
+        }
+        if (resolved == LogFormat.TEXT) {
+            parseText(source, consumer);
+        } else {
+            parseCsv(source, resolved, consumer);
+        }
+        return source.lineNumber;
+    }
+
+    private void parseText(LineSource source, Consumer<LogStatement> consumer) throws IOException {
+        StringBuilder entry = new StringBuilder();
+        int entryLine = 0;
+        String line;
+        while ((line = source.next()) != null) {
+            boolean continuation = !line.isEmpty() && Character.isWhitespace(line.charAt(0));
+            if (continuation && !entry.isEmpty()) {
+                if (entry.length() < MAX_ENTRY_CHARS) {
+                    entry.append('\n').append(line);
+                }
+                continue;
+            }
+            emitMessage(entry, entryLine, consumer);
+            entry.setLength(0);
+            entry.append(line);
+            entryLine = source.lineNumber;
+        }
+        emitMessage(entry, entryLine, consumer);
+    }
+
+    private void emitMessage(CharSequence entry, int line, Consumer<LogStatement> consumer) {
+        if (entry.isEmpty()) {
+            return;
+        }
+        Matcher message = LOG_MESSAGE.matcher(entry);
+        if (!message.find()) {
+            return;
+        }
+        if ("STATEMENT".equals(message.group(1))) {
+            // ERROR 之后附带的出错语句
+            emit(message.group(2), line, 1, 0, consumer);
+            return;
+        }
+        emitLogMessage(message.group(2), line, consumer);
+    }
+
+    /**
+     * 解析 LOG 级别的消息体："duration: x ms  statement: ..." / "statement: ..." / "execute <name>: ..."
+     */
+    private void emitLogMessage(String body, int line, Consumer<LogStatement> consumer) {
+        double duration = 0;
+        Matcher durationMatcher = DURATION.matcher(body);
+        if (durationMatcher.find()) {
+            duration = parseDouble(durationMatcher.group(1));
+            body = durationMatcher.group(2);
+        }
+        Matcher statement = STATEMENT.matcher(body);
+        if (statement.find()) {
+            emit(statement.group(1), line, 1, duration, consumer);
+        }
+    }
+
+    private void parseCsv(LineSource source, LogFormat format, Consumer<LogStatement> consumer) throws IOException {
+        CsvReader csv = new CsvReader(source);
+        List<String> first = csv.next();
+        if (first == null) {
+            return;
+        }
+        int queryColumn = indexOf(first, "query");
+        if (format == LogFormat.CSV_STATS || (queryColumn >= 0 && !TIMESTAMP_START.matcher(first.get(0)).find())) {
+            parseStatsCsv(csv, first, consumer);
+            return;
+        }
+        List<String> record = first;
+        do {
+            emitCsvLogRecord(record, csv.recordLine, consumer);
+        } while ((record = csv.next()) != null);
+    }
+
+    private void emitCsvLogRecord(List<String> record, int line, Consumer<LogStatement> consumer) {
+        if (record.size() <= CSVLOG_MESSAGE) {
+            return;
+        }
+        String severity = record.get(CSVLOG_SEVERITY);
+        if ("LOG".equals(severity)) {
+            emitLogMessage(record.get(CSVLOG_MESSAGE), line, consumer);
+        } else if (record.size() > CSVLOG_QUERY && !record.get(CSVLOG_QUERY).isBlank()) {
+            emit(record.get(CSVLOG_QUERY), line, 1, 0, consumer);
+        }
+    }
+
+    private void parseStatsCsv(CsvReader csv, List<String> header, Consumer<LogStatement> consumer)
+            throws IOException {
+        int query = indexOf(header, "query");
+        if (query < 0) {
+            throw new IllegalArgumentException("语句统计 CSV 缺少 query 列");
+        }
+        int calls = indexOf(header, "calls");
+        int total = indexOf(header, "total_exec_time", "total_time");
+        int max = indexOf(header, "max_exec_time", "max_time");
+        int rows = indexOf(header, "rows");
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            if (record.size() <= query) {
+                continue;
+            }
+            long callCount = calls >= 0 && calls < record.size() ? Math.max(1, parseLong(record.get(calls))) : 1;
+            double totalTime = total >= 0 && total < record.size() ? parseDouble(record.get(total)) : 0;
+            double maxTime = max >= 0 && max < record.size() ? parseDouble(record.get(max)) : 0;
+            long rowCount = rows >= 0 && rows < record.size() ? parseLong(record.get(rows)) : 0;
+            emit(record.get(query), csv.recordLine, callCount, totalTime, maxTime, rowCount, consumer);
+        }
+    }
+
+    private static void emit(String sql, int line, long calls, double duration, Consumer<LogStatement> consumer) {
+        emit(sql, line, calls, duration, duration, 0, consumer);
+    }
+
+    private static void emit(String sql, int line, long calls, double totalTime, double maxTime, long rows,
+            Consumer<LogStatement> consumer) {
+        String text = stripStatement(sql);
+        if (text.length() >= 3) {
+            consumer.accept(new LogStatement(text, line, calls, totalTime, maxTime, rows));
+        }
+    }
+
+    /**
+     * 去掉首尾空白、续行缩进带来的制表符和末尾分号
+     */
+    private static String stripStatement(String sql) {
+        int start = 0;
+        int end = sql.length();
+        while (start < end && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        while (end > start && (sql.charAt(end - 1) == ';' || Character.isWhitespace(sql.charAt(end - 1)))) {
+            end--;
+        }
+        return sql.substring(start, end).replace("\n\t", "\n");
+    }
+
+    private static int indexOf(List<String> header, String... names) {
+        for (String name : names) {
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).trim().equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return (long) Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** 带行号计数的逐行读取 */
+    private static final class LineSource {
+
+        private final BufferedReader reader;
+        private int lineNumber;
+
+        private LineSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        String next() throws IOException {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        }
+    }
+
+    /**
+     * 逐条读取 RFC 4180 CSV 记录，支持引号内的逗号、换行与转义引号
+     */
+    private static final class CsvReader {
+
+        private final LineSource source;
+        private final StringBuilder field = new StringBuilder();
+        private int recordLine;
+
+        private CsvReader(LineSource source) {
+            this.source = source;
+        }
+
+        List<String> next() throws IOException {
+            String line = source.next();
+            while (line != null && line.isEmpty()) {
+                line = source.next();
+            }
+            if (line == null) {
+                return null;
+            }
+            recordLine = source.lineNumber;
+            List<String> record = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (quoted) {
+                        if (c == '"') {
+                            if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                                field.append('"');
+                                i++;
+                            } else {
+                                quoted = false;
+                            }
+                        } else {
+                            field.append(c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        record.add(field.toString());
+                        field.setLength(0);
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                // 引号内换行：读取下一物理行继续当前字段
+                if (field.length() > MAX_ENTRY_CHARS) {
+                    throw new IllegalArgumentException("CSV 格式错误：第 " + recordLine + " 行开始的字段引号未闭合");
+                }
+                line = source.next();
+                if (line == null) {
+                    break;
+                }
+                field.append('\n');
+            }
+            record.add(field.toString());
+            return record;
+        }
+    }
+}
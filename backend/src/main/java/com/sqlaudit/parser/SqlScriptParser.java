@@ -7,6 +7,8 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,6 +23,10 @@ public class SqlScriptParser {
 
     private static final Logger log = LoggerFactory.getLogger(SqlScriptParser.class);
 
+    /** 可识别的语句类型（小写），与 {@link #detectStatementType(String)} 的关键字一致 */
+    public static final Set<String> STATEMENT_TYPES = Set.of(
+            "select", "insert", "update", "delete", "create", "alter", "drop", "truncate", "merge", "replace", "with");
+
     private static final Pattern STATEMENT_TYPE_PATTERN = Pattern.compile(
             "^\\s*(SELECT|INSERT|UPDATE|DELETE|CREATE|ALTER|DROP|TRUNCATE|MERGE|REPLACE|WITH)\\b",
             Pattern.CASE_INSENSITIVE);
@@ -49,7 +55,7 @@ public class SqlScriptParser {
                     .filePath(fileName)
                     .relativePath(fileName)
                     .statementId(type + "_L" + entry.line())
-                    .statementType(type.toLowerCase())
+                    .statementType(type.toLowerCase(Locale.ROOT).intern())
                     .sqlText(sql)
                     .lineNumber(entry.line())
                     .namespace("sql-script")
@@ -147,9 +153,9 @@ public class SqlScriptParser {
     }
 
     /**
-     * 识别 SQL 语句类型
+     * 识别 SQL 语句类型（大写，无法识别时为 UNKNOWN）
      */
-    private String detectStatementType(String sql) {
+    public String detectStatementType(String sql) {
         Matcher matcher = STATEMENT_TYPE_PATTERN.matcher(sql);
         if (matcher.find()) {
             return matcher.group(1).toUpperCase();
@@ -0,0 +1,239 @@
+package com.sqlaudit.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单次扫描内共享的 SQL 文本区
+ * <p>
+ * SQL 文本以 UTF-8 追加到按块分配的 {@link ByteBuffer}（堆内，或可选的堆外直接内存），内容相同的文本只存一份；
+ * 文件路径、namespace 等按文件重复的字符串在同一文本区内去重。片段只持有一个轻量的 {@link Text} 视图，
+ * 纯 ASCII 文本（绝大多数 SQL）可直接按字符读取，交给正则匹配时不复制。
+ * <p>
+ * 文本区随扫描结束而丢弃：报告中保留的片段应先 {@code detachSqlText()}，复制出独立字符串。
+ */
+public final class SqlTextArena {
+
+    /** 默认块大小；超过块大小的文本单独占一块 */
+    static final int CHUNK_SIZE = 1 << 20;
+
+    private final boolean offHeap;
+    private ByteBuffer current;
+    /** 开放寻址的去重表，按 UTF-8 内容哈希定位，命中后逐字节比较 */
+    private Text[] table = new Text[1024];
+    private int texts;
+    private long storedBytes;
+    private long requestedBytes;
+    private final Map<String, String> names = new HashMap<>();
+
+    private SqlTextArena(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public static SqlTextArena onHeap() {
+        return new SqlTextArena(false);
+    }
+
+    public static SqlTextArena offHeap() {
+        return new SqlTextArena(true);
+    }
+
+    /**
+     * 保存 SQL 文本；内容相同的文本返回同一视图
+     */
+    public synchronized Text store(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        requestedBytes += utf8.length;
+        int hash = hash(utf8);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        for (Text candidate = table[slot]; candidate != null; candidate = table[slot]) {
+            if (candidate.hash == hash && candidate.contentEquals(utf8)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        ByteBuffer chunk = reserve(utf8.length);
+        int offset = chunk.position();
+        chunk.put(utf8);
+        Text stored = new Text(chunk, offset, utf8.length, text.length(), utf8.length == text.length(), hash);
+        table[slot] = stored;
+        storedBytes += utf8.length;
+        if (++texts * 2 > table.length) {
+            rehash();
+        }
+        return stored;
+    }
+
+    /**
+     * 文件路径、namespace 等按文件重复的短字符串去重；与 {@link String#intern()} 不同，随文本区一同释放
+     */
+    public synchronized String name(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = names.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /** 去重后的文本条数 */
+    public synchronized int textCount() {
+        return texts;
+    }
+
+    /** 实际写入文本区的 UTF-8 字节数 */
+    public synchronized long storedBytes() {
+        return storedBytes;
+    }
+
+    /** 去重前全部文本的 UTF-8 字节数 */
+    public synchronized long requestedBytes() {
+        return requestedBytes;
+    }
+
+    private ByteBuffer reserve(int length) {
+        if (current != null && current.remaining() >= length) {
+            return current;
+        }
+        int capacity = Math.max(CHUNK_SIZE, length);
+        ByteBuffer chunk = offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        // 超大文本单独占一块，不替换当前块，当前块剩余空间继续使用
+        if (length <= CHUNK_SIZE || current == null) {
+            current = chunk;
+        }
+        return chunk;
+    }
+
+    private void rehash() {
+        Text[] old = table;
+        table = new Text[old.length * 2];
+        int mask = table.length - 1;
+        for (Text text : old) {
+            if (text != null) {
+                int slot = text.hash & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = text;
+            }
+        }
+    }
+
+    private static int hash(byte[] utf8) {
+        int h = 0x9747b28c;
+        for (byte b : utf8) {
+            h = (h ^ b) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 文本区中一段 SQL 文本的只读视图
+     * <p>
+     * 纯 ASCII 文本每个字节即一个字符，{@link #charAt(int)} 直接读缓冲区；含多字节字符时按需整体解码。
+     */
+    public static final class Text implements CharSequence {
+
+        private final ByteBuffer chunk;
+        /** 堆内块的底层数组，按字符读取时绕过 ByteBuffer；堆外块为 null */
+        private final byte[] array;
+        private final int offset;
+        private final int byteLength;
+        private final int length;
+        private final boolean ascii;
+        private final int hash;
+
+        private Text(ByteBuffer chunk, int offset, int byteLength, int length, boolean ascii, int hash) {
+            this.chunk = chunk;
+            this.array = chunk.hasArray() ? chunk.array() : null;
+            this.offset = chunk.hasArray() ? chunk.arrayOffset() + offset : offset;
+            this.byteLength = byteLength;
+            this.length = length;
+            this.ascii = ascii;
+            this.hash = hash;
+        }
+
+        /** 是否可以不解码直接按字符读取 */
+        public boolean isAscii() {
+            return ascii;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (!ascii) {
+                return toString().charAt(index);
+            }
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) ((array != null ? array[offset + index] : chunk.get(offset + index)) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (!ascii) {
+                return toString().subSequence(start, end);
+            }
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new Text(chunk, relativeOffset() + start, end - start, end - start, true, 0);
+        }
+
+        /** 解码为独立字符串 */
+        @Override
+        public String toString() {
+            if (array != null) {
+                return new String(array, offset, byteLength, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            }
+            byte[] bytes = new byte[byteLength];
+            chunk.get(offset, bytes);
+            return new String(bytes, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+
+        /**
+         * 按文本区中的位置（块与块内偏移）判断相等；同一文本区内容相同的文本共用同一位置
+         */
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Text other && chunk == other.chunk
+                    && offset == other.offset && byteLength == other.byteLength;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(chunk) + offset;
+        }
+
+        private boolean contentEquals(byte[] utf8) {
+            if (utf8.length != byteLength) {
+                return false;
+            }
+            if (array != null) {
+                return Arrays.equals(array, offset, offset + byteLength, utf8, 0, utf8.length);
+            }
+            for (int i = 0; i < utf8.length; i++) {
+                if (chunk.get(offset + i) != utf8[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int relativeOffset() {
+            return array != null ? offset - chunk.arrayOffset() : offset;
+        }
+    }
+}
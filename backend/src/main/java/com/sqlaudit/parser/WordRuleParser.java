@@ -4,16 +4,22 @@ import com.sqlaudit.model.AuditRule;
 import com.sqlaudit.model.AuditRule.RuleSource;
 import com.sqlaudit.model.AuditRule.RuleType;
 import com.sqlaudit.model.AuditRule.Severity;
-import org.apache.poi.xwpf.usermodel.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 /**
  * Word 文档规则解析器
@@ -23,6 +29,9 @@ import java.util.regex.Pattern;
  * 1. 段落格式: 每条规则占一个段落，格式为 "规则描述"
  * 2. 表格格式: 表格中的每行代表一条规则
  * 3. 列表格式: 有序/无序列表中的每项为一条规则
+ *
+ * 直接从 zip 中流式读取 word/document.xml（StAX），边读边识别表格行、段落样式和列表编号并生成规则，
+ * 不构建完整的 OOXML 对象模型，图片、样式等部件不会被加载；内存占用只与单个段落/表格行的文本有关。
  */
 @Component
 public class WordRuleParser {
@@ -35,23 +44,16 @@ public class WordRuleParser {
             Pattern.CASE_INSENSITIVE
     );
 
+    /** 主文档部件，个别生成工具会命名为 document2.xml 等 */
+    private static final Pattern MAIN_PART = Pattern.compile("word/document\\d*\\.xml");
+
     /**
-     * 解析 Word 文档，提取审查规则
+     * 解析 Word 文档，提取审查规则；不关闭传入的流
      */
     public List<AuditRule> parse(InputStream inputStream) {
-        List<AuditRule> rules = new ArrayList<>();
+        List<AuditRule> rules;
         try {
-            XWPFDocument document = new XWPFDocument(inputStream);
-
-            // 解析表格中的规则
-            for (XWPFTable table : document.getTables()) {
-                rules.addAll(parseTable(table));
-            }
-
-            // 解析段落中的规则
-            rules.addAll(parseParagraphs(document.getParagraphs()));
-
-            document.close();
+            rules = parseDocument(inputStream);
         } catch (Exception e) {
             log.error("解析 Word 文档失败", e);
             throw new RuntimeException("无法解析上传的 Word 文档: " + e.getMessage(), e);
@@ -61,90 +63,215 @@ public class WordRuleParser {
         return rules;
     }
 
+    private List<AuditRule> parseDocument(InputStream inputStream) throws IOException, XMLStreamException {
+        ZipInputStream zip = new ZipInputStream(inputStream);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (MAIN_PART.matcher(entry.getName()).matches()) {
+                XMLStreamReader reader = newXmlInputFactory().createXMLStreamReader(zip);
+                try {
+                    return new DocumentReader().read(reader);
+                } finally {
+                    reader.close();
+                }
+            }
+        }
+        throw new IOException("文档中缺少 word/document.xml，请确认上传的是 .docx 格式");
+    }
+
     /**
-     * 从表格中解析规则
-     * 支持格式: | 规则编号 | 规则描述 | 严重等级 | ...
+     * 单次遍历 document.xml 的状态机
+     * <p>
+     * 只处理 body 下的顶层段落和顶层表格（与 POI 的 getParagraphs/getTables 一致）；
+     * 文本框内容和嵌套表格不计入所在段落或单元格。表格规则排在段落规则之前。
      */
-    private List<AuditRule> parseTable(XWPFTable table) {
-        List<AuditRule> rules = new ArrayList<>();
-        List<XWPFTableRow> rows = table.getRows();
-        if (rows.size() < 2) {
-            return rules; // 至少需要表头 + 一行数据
+    private final class DocumentReader {
+
+        /** 当前元素路径（本地名），深度即列表长度 */
+        private final List<String> path = new ArrayList<>();
+        private final List<AuditRule> tableRules = new ArrayList<>();
+        private final List<AuditRule> paragraphRules = new ArrayList<>();
+
+        private int bodyDepth = -1;
+        /** 正在跳过的子树根的深度（文本框），-1 表示不跳过 */
+        private int skipDepth = -1;
+        /** 正在收集文本的段落的深度，-1 表示不在段落中 */
+        private int paragraphDepth = -1;
+        private final StringBuilder text = new StringBuilder();
+        private String paragraphStyle;
+        private boolean listItem;
+        private int customIndex = 1;
+
+        private TableState table;
+        private List<String> rowCells;
+
+        List<AuditRule> read(XMLStreamReader reader) throws XMLStreamException {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> start(reader);
+                    case XMLStreamConstants.END_ELEMENT -> end();
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                        if (paragraphDepth >= 0 && skipDepth < 0 && "t".equals(current())) {
+                            text.append(reader.getText());
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            List<AuditRule> rules = new ArrayList<>(tableRules);
+            rules.addAll(paragraphRules);
+            return rules;
+        }
+
+        private void start(XMLStreamReader reader) {
+            String name = reader.getLocalName();
+            String parent = current();
+            path.add(name);
+            int depth = path.size();
+            if (skipDepth >= 0) {
+                return;
+            }
+            switch (name) {
+                case "body" -> bodyDepth = depth;
+                case "txbxContent" -> skipDepth = depth;
+                case "tbl" -> {
+                    if (depth == bodyDepth + 1) {
+                        table = new TableState();
+                    }
+                }
+                case "tr" -> {
+                    if (table != null && depth == bodyDepth + 2) {
+                        rowCells = new ArrayList<>();
+                    }
+                }
+                case "tc" -> {
+                    if (rowCells != null && depth == bodyDepth + 3) {
+                        text.setLength(0);
+                    }
+                }
+                case "p" -> {
+                    if (depth == bodyDepth + 1) {
+                        // 顶层段落
+                        paragraphDepth = depth;
+                        text.setLength(0);
+                        paragraphStyle = null;
+                        listItem = false;
+                    } else if (rowCells != null && depth == bodyDepth + 4 && "tc".equals(parent)) {
+                        // 顶层表格单元格中的段落，文本直接拼接到单元格
+                        paragraphDepth = depth;
+                    }
+                }
+                case "pStyle" -> {
+                    if (paragraphDepth == depth - 2 && "pPr".equals(parent)) {
+                        paragraphStyle = attribute(reader, "val");
+                    }
+                }
+                case "numPr" -> {
+                    if (paragraphDepth == depth - 2 && "pPr".equals(parent)) {
+                        listItem = true;
+                    }
+                }
+                case "tab" -> appendInRun(parent, '\t');
+                case "br", "cr" -> appendInRun(parent, '\n');
+                default -> {
+                }
+            }
+        }
+
+        private void end() {
+            int depth = path.size();
+            String name = path.remove(depth - 1);
+            if (skipDepth >= 0) {
+                if (depth == skipDepth) {
+                    skipDepth = -1;
+                }
+                return;
+            }
+            if (depth == paragraphDepth) {
+                paragraphDepth = -1;
+                if (depth == bodyDepth + 1) {
+                    handleParagraph(text.toString().trim(), paragraphStyle, listItem);
+                }
+                return;
+            }
+            switch (name) {
+                case "tc" -> {
+                    if (rowCells != null && depth == bodyDepth + 3) {
+                        rowCells.add(text.toString().trim());
+                    }
+                }
+                case "tr" -> {
+                    if (rowCells != null && depth == bodyDepth + 2) {
+                        handleRow(table, rowCells);
+                        rowCells = null;
+                    }
+                }
+                case "tbl" -> {
+                    if (depth == bodyDepth + 1) {
+                        table = null;
+                    }
+                }
+                default -> {
+                }
+            }
         }
 
-        // 分析表头确定列含义
-        XWPFTableRow headerRow = rows.get(0);
-        int descCol = -1, severityCol = -1, idCol = -1;
-
-        for (int i = 0; i < headerRow.getTableCells().size(); i++) {
-            String header = headerRow.getCell(i).getText().trim().toLowerCase();
-            if (header.contains("描述") || header.contains("规则") || header.contains("说明")
-                    || header.contains("description") || header.contains("rule")) {
-                descCol = i;
-            } else if (header.contains("等级") || header.contains("级别") || header.contains("severity")
-                    || header.contains("level")) {
-                severityCol = i;
-            } else if (header.contains("编号") || header.contains("id") || header.contains("序号")) {
-                idCol = i;
+        private void appendInRun(String parent, char c) {
+            if (paragraphDepth >= 0 && "r".equals(parent)) {
+                text.append(c);
             }
         }
 
-        // 如果没识别出描述列，用第一列（非编号列）
-        if (descCol == -1) {
-            descCol = (idCol == 0) ? 1 : 0;
+        private String current() {
+            return path.isEmpty() ? null : path.get(path.size() - 1);
         }
 
-        // 解析数据行
-        for (int i = 1; i < rows.size(); i++) {
-            XWPFTableRow row = rows.get(i);
+        /**
+         * 处理表格行：首行为表头，确定各列含义；之后每行生成一条规则
+         * 支持格式: | 规则编号 | 规则描述 | 严重等级 | ...
+         */
+        private void handleRow(TableState table, List<String> cells) {
+            int rowIndex = table.rows++;
+            if (rowIndex == 0) {
+                table.readHeader(cells);
+                return;
+            }
             try {
-                String desc = getCellText(row, descCol);
-                if (desc.isBlank()) continue;
+                String desc = cellText(cells, table.descCol);
+                if (desc.isBlank()) {
+                    return;
+                }
 
-                String id = idCol >= 0 ? getCellText(row, idCol) : "CUSTOM_" + i;
-                Severity severity = severityCol >= 0
-                        ? parseSeverity(getCellText(row, severityCol))
+                String id = table.idCol >= 0 ? cellText(cells, table.idCol) : "CUSTOM_" + rowIndex;
+                Severity severity = table.severityCol >= 0
+                        ? parseSeverity(cellText(cells, table.severityCol))
                         : Severity.WARNING;
 
                 AuditRule rule = buildRuleFromDescription(id, desc, severity);
                 if (rule != null) {
-                    rules.add(rule);
+                    tableRules.add(rule);
                 }
             } catch (Exception e) {
-                log.warn("解析表格第 {} 行失败: {}", i + 1, e.getMessage());
+                log.warn("解析表格第 {} 行失败: {}", rowIndex + 1, e.getMessage());
             }
         }
 
-        return rules;
-    }
-
-    private String getCellText(XWPFTableRow row, int col) {
-        if (col < row.getTableCells().size()) {
-            return row.getCell(col).getText().trim();
-        }
-        return "";
-    }
-
-    /**
-     * 从段落中解析规则
-     * 跳过标题段落和空段落，提取带有编号或列表标记的段落
-     */
-    private List<AuditRule> parseParagraphs(List<XWPFParagraph> paragraphs) {
-        List<AuditRule> rules = new ArrayList<>();
-        int customIndex = 1;
-
-        for (XWPFParagraph paragraph : paragraphs) {
-            String text = paragraph.getText().trim();
-            if (text.isBlank() || text.length() < 5) continue;
+        /**
+         * 处理顶层段落：跳过标题段落和空段落，提取带有编号、列表标记或规则关键词的段落
+         */
+        private void handleParagraph(String text, String style, boolean listItem) {
+            if (text.isBlank() || text.length() < 5) {
+                return;
+            }
 
             // 跳过标题
-            String style = paragraph.getStyle();
             if (style != null && style.toLowerCase().contains("heading")) {
-                continue;
+                return;
             }
 
             // 检测列表项或规则描述
-            if (isRuleText(text)) {
+            if (listItem || isRuleText(text)) {
                 // 去除列表编号前缀
                 String cleanText = text.replaceFirst("^(\\d+[.、)）]\\s*|[•·\\-*]\\s*)", "");
                 Severity severity = extractSeverity(cleanText);
@@ -153,13 +280,61 @@ public class WordRuleParser {
                 if (!desc.isBlank() && desc.length() >= 5) {
                     AuditRule rule = buildRuleFromDescription("CUSTOM_P" + customIndex++, desc, severity);
                     if (rule != null) {
-                        rules.add(rule);
+                        paragraphRules.add(rule);
                     }
                 }
             }
         }
+    }
 
-        return rules;
+    /** 顶层表格的列含义，由表头行确定 */
+    private static final class TableState {
+
+        int rows;
+        int descCol = -1;
+        int severityCol = -1;
+        int idCol = -1;
+
+        void readHeader(List<String> cells) {
+            for (int i = 0; i < cells.size(); i++) {
+                String header = cells.get(i).toLowerCase();
+                if (header.contains("描述") || header.contains("规则") || header.contains("说明")
+                        || header.contains("description") || header.contains("rule")) {
+                    descCol = i;
+                } else if (header.contains("等级") || header.contains("级别") || header.contains("severity")
+                        || header.contains("level")) {
+                    severityCol = i;
+                } else if (header.contains("编号") || header.contains("id") || header.contains("序号")) {
+                    idCol = i;
+                }
+            }
+
+            // 如果没识别出描述列，用第一列（非编号列）
+            if (descCol == -1) {
+                descCol = (idCol == 0) ? 1 : 0;
+            }
+        }
+    }
+
+    private static String cellText(List<String> cells, int col) {
+        return col < cells.size() ? cells.get(col) : "";
+    }
+
+    private static String attribute(XMLStreamReader reader, String localName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (localName.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static XMLInputFactory newXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
     }
 
     /**
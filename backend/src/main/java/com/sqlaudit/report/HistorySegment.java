@@ -0,0 +1,520 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.StatementStats;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 扫描历史的分段文件：一次扫描一个文件，按列存放，打开时内存映射，不整体反序列化
+ * <p>
+ * 文件布局（大端）：定长头部（报告 ID、仓库路径、扫描时间、各级违规数与各段偏移）→ 字符串表（偏移数组 + UTF-8 数据）
+ * → 规则表 → 片段列 → 违规列（{@link ViolationTable} 的各 int 列与匹配文本区）→ 附加段（扫描文件列表、提示、
+ * 索引建议、用法索引、近似重复簇，以 {@link ReportBinaryCodec} 编码）。
+ * <p>
+ * 趋势统计、历史列表只需 {@link #readHeader(Path)} 读取文件开头的几百字节；{@link #open(Path)} 通过
+ * {@link FileChannel#map} 映射整个文件，按规则计数等查询直接读映射的列，只有 {@link #toReport()} 才还原完整报告。
+ */
+public final class HistorySegment {
+
+    private static final int MAGIC = 0x53514148; // "SQAH"
+    private static final int VERSION = 1;
+    private static final int FIXED_HEADER_BYTES = 100;
+    /** 头部上限，仓库路径异常长时拒绝读取，避免按损坏的长度分配内存 */
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+    private static final int NONE = -1;
+    private static final int FLAG_LIMIT_REACHED = 1;
+    private static final int RULE_FIELDS = 10;
+
+    private final Header header;
+    private final MappedByteBuffer buffer;
+    private final long stringsOffset;
+    private final long rulesOffset;
+    private final long fragmentsOffset;
+    private final long violationsOffset;
+    private final long extrasOffset;
+    private final long extrasLength;
+    /** 已解码的字符串，按需填充 */
+    private String[] strings;
+
+    private HistorySegment(Header header, MappedByteBuffer buffer) {
+        this.header = header;
+        this.buffer = buffer;
+        this.stringsOffset = buffer.getLong(52);
+        this.rulesOffset = buffer.getLong(60);
+        this.fragmentsOffset = buffer.getLong(68);
+        this.violationsOffset = buffer.getLong(76);
+        this.extrasOffset = buffer.getLong(84);
+        this.extrasLength = buffer.getLong(92);
+    }
+
+    /**
+     * 历史记录头部，列表与趋势查询只用到这些字段
+     *
+     * @param sizeBytes 分段文件大小
+     */
+    public record Header(String reportId, String repoPath, LocalDateTime scanTime, int totalFiles,
+            int totalStatements, int totalViolations, int errorCount, int warningCount, int infoCount,
+            int baselineSuppressed, boolean limitReached, long sizeBytes) {
+    }
+
+    /**
+     * 单条规则在一次扫描中的违规数
+     */
+    public record RuleCount(String ruleId, String ruleName, AuditRule.Severity severity, int count) {
+    }
+
+    /**
+     * 写出报告；报告须已分配报告 ID
+     */
+    public static void write(ScanReport report, Path file) throws IOException {
+        ViolationTable table = ViolationTable.of(report.getViolations());
+        StringTable strings = new StringTable();
+        int[] ruleFields = new int[table.rules().size() * RULE_FIELDS];
+        for (int i = 0; i < table.rules().size(); i++) {
+            AuditRule rule = table.rules().get(i);
+            int base = i * RULE_FIELDS;
+            ruleFields[base] = strings.id(rule.getId());
+            ruleFields[base + 1] = strings.id(rule.getName());
+            ruleFields[base + 2] = strings.id(rule.getDescription());
+            ruleFields[base + 3] = ordinal(rule.getSeverity());
+            ruleFields[base + 4] = ordinal(rule.getType());
+            ruleFields[base + 5] = strings.id(rule.getPattern());
+            ruleFields[base + 6] = strings.id(rule.getCheckerName());
+            ruleFields[base + 7] = strings.id(rule.getSection());
+            ruleFields[base + 8] = strings.id(rule.getCategory());
+            ruleFields[base + 9] = ordinal(rule.getSource());
+        }
+        List<SqlFragment> fragments = table.fragments();
+        int[][] fragmentColumns = new int[8][fragments.size()];
+        List<StatementStats> stats = new ArrayList<>();
+        for (int i = 0; i < fragments.size(); i++) {
+            SqlFragment fragment = fragments.get(i);
+            fragmentColumns[0][i] = strings.id(fragment.getFilePath());
+            fragmentColumns[1][i] = strings.id(fragment.getRelativePath());
+            fragmentColumns[2][i] = strings.id(fragment.getStatementId());
+            fragmentColumns[3][i] = strings.id(fragment.getStatementType());
+            fragmentColumns[4][i] = strings.id(fragment.getSqlText());
+            fragmentColumns[5][i] = strings.id(fragment.getNamespace());
+            fragmentColumns[6][i] = fragment.getLineNumber();
+            fragmentColumns[7][i] = NONE;
+            if (fragment.getRuntimeStats() != null) {
+                fragmentColumns[7][i] = stats.size();
+                stats.add(fragment.getRuntimeStats());
+            }
+        }
+        int[] statsFingerprints = stats.stream().mapToInt(s -> strings.id(s.getFingerprint())).toArray();
+
+        byte[] reportId = utf8(report.getReportId());
+        byte[] repoPath = report.getRepoPath() != null ? utf8(report.getRepoPath()) : null;
+        int headerLength = FIXED_HEADER_BYTES + 2 + reportId.length + 4 + (repoPath != null ? repoPath.length : 0);
+        if (headerLength > MAX_HEADER_BYTES) {
+            throw new IOException("仓库路径过长，无法写入扫描历史: " + report.getRepoPath());
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(headerLength);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel),
+                    64 * 1024));
+            long stringsOffset = headerLength;
+            strings.write(out);
+            long rulesOffset = flush(out, channel);
+            out.writeInt(table.rules().size());
+            writeInts(out, ruleFields, ruleFields.length);
+            long fragmentsOffset = flush(out, channel);
+            out.writeInt(fragments.size());
+            for (int[] column : fragmentColumns) {
+                writeInts(out, column, fragments.size());
+            }
+            out.writeInt(stats.size());
+            for (int i = 0; i < stats.size(); i++) {
+                StatementStats s = stats.get(i);
+                out.writeInt(statsFingerprints[i]);
+                out.writeLong(s.getExecutions());
+                out.writeDouble(s.getTotalTimeMs());
+                out.writeDouble(s.getMaxTimeMs());
+                out.writeLong(s.getRows());
+                out.writeDouble(s.getMatchScore());
+            }
+            long violationsOffset = flush(out, channel);
+            table.writeColumns(out);
+            long extrasOffset = flush(out, channel);
+            ReportBinaryCodec.write(withoutViolations(report), out);
+            long extrasLength = flush(out, channel) - extrasOffset;
+
+            ByteBuffer header = ByteBuffer.allocate(headerLength);
+            header.putInt(MAGIC).putInt(VERSION).putInt(headerLength)
+                    .putLong(report.getScanTime() != null
+                            ? report.getScanTime().toInstant(ZoneOffset.UTC).toEpochMilli()
+                            : Long.MIN_VALUE)
+                    .putInt(report.getTotalFiles())
+                    .putInt(report.getTotalStatements())
+                    .putInt(report.getTotalViolations())
+                    .putInt(report.getErrorCount())
+                    .putInt(report.getWarningCount())
+                    .putInt(report.getInfoCount())
+                    .putInt(report.getBaselineSuppressed())
+                    .putInt(report.isLimitReached() ? FLAG_LIMIT_REACHED : 0)
+                    .putLong(stringsOffset)
+                    .putLong(rulesOffset)
+                    .putLong(fragmentsOffset)
+                    .putLong(violationsOffset)
+                    .putLong(extrasOffset)
+                    .putLong(extrasLength)
+                    .putShort((short) reportId.length).put(reportId)
+                    .putInt(repoPath != null ? repoPath.length : NONE);
+            if (repoPath != null) {
+                header.put(repoPath);
+            }
+            header.flip();
+            // 各段写完后再回填头部，头部从文件开头写起，缓冲区位置即文件位置
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    /**
+     * 只读取头部，不映射整个文件
+     */
+    public static Header readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer prefix = ByteBuffer.allocate(12);
+            readFully(channel, prefix, 0);
+            int headerLength = checkPrefix(prefix);
+            if (channel.size() < headerLength) {
+                throw new IOException("扫描历史文件已损坏: 头部不完整");
+            }
+            ByteBuffer header = ByteBuffer.allocate(headerLength);
+            readFully(channel, header, 0);
+            return parseHeader(header, channel.size());
+        }
+    }
+
+    /**
+     * 以只读方式映射分段文件；映射在对象不可达后由 GC 释放
+     */
+    public static HistorySegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FIXED_HEADER_BYTES) {
+                throw new IOException("扫描历史文件已损坏: 头部不完整");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("扫描历史文件过大，无法映射: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int headerLength = checkPrefix(buffer.slice(0, 12));
+            if (headerLength > size) {
+                throw new IOException("扫描历史文件已损坏: 头部不完整");
+            }
+            return new HistorySegment(parseHeader(buffer.slice(0, headerLength), size), buffer);
+        }
+    }
+
+    public Header header() {
+        return header;
+    }
+
+    /**
+     * 按规则统计违规数（按数量降序），直接读取映射的规则列，只解码规则字典
+     */
+    public List<RuleCount> ruleCounts() throws IOException {
+        List<AuditRule> rules = readRules();
+        ByteBuffer violations = section(violationsOffset, extrasOffset);
+        int size = violations.getInt();
+        int[] counts = new int[rules.size()];
+        int unknown = 0;
+        for (int i = 0; i < size; i++) {
+            int rule = violations.getInt(Integer.BYTES * (1 + i));
+            if (rule >= 0 && rule < counts.length) {
+                counts[rule]++;
+            } else {
+                unknown++;
+            }
+        }
+        List<RuleCount> result = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            AuditRule rule = rules.get(i);
+            result.add(new RuleCount(rule.getId(), rule.getName(), rule.getSeverity(), counts[i]));
+        }
+        if (unknown > 0) {
+            result.add(new RuleCount(null, null, null, unknown));
+        }
+        result.sort(Comparator.comparingInt(RuleCount::count).reversed());
+        return result;
+    }
+
+    /**
+     * 还原完整报告：字典解码一次，违规各列整块复制为 {@link ViolationTable}
+     */
+    public ScanReport toReport() throws IOException {
+        try {
+            List<AuditRule> rules = readRules();
+            List<SqlFragment> fragments = readFragments();
+            ViolationTable violations = ViolationTable.readColumns(section(violationsOffset, extrasOffset), rules,
+                    fragments);
+            ByteBuffer extrasSection = section(extrasOffset, extrasOffset + extrasLength);
+            byte[] extras = new byte[extrasSection.remaining()];
+            extrasSection.get(extras);
+            ScanReport report = ReportBinaryCodec.read(new ByteArrayInputStream(extras));
+            report.setViolations(violations);
+            return report;
+        } catch (RuntimeException e) {
+            // 偏移越界等由缓冲区抛出的异常统一视为文件损坏
+            throw new IOException("扫描历史文件已损坏: " + header.reportId(), e);
+        }
+    }
+
+    private List<AuditRule> readRules() throws IOException {
+        ByteBuffer in = section(rulesOffset, fragmentsOffset);
+        int count = in.getInt();
+        List<AuditRule> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rules.add(AuditRule.builder()
+                    .id(string(in.getInt()))
+                    .name(string(in.getInt()))
+                    .description(string(in.getInt()))
+                    .severity(constant(AuditRule.Severity.values(), in.getInt()))
+                    .type(constant(AuditRule.RuleType.values(), in.getInt()))
+                    .pattern(string(in.getInt()))
+                    .checkerName(string(in.getInt()))
+                    .section(string(in.getInt()))
+                    .category(string(in.getInt()))
+                    .source(constant(AuditRule.RuleSource.values(), in.getInt()))
+                    .build());
+        }
+        return rules;
+    }
+
+    private List<SqlFragment> readFragments() throws IOException {
+        ByteBuffer in = section(fragmentsOffset, violationsOffset);
+        int count = in.getInt();
+        int[][] columns = new int[8][count];
+        for (int[] column : columns) {
+            in.asIntBuffer().get(column);
+            in.position(in.position() + count * Integer.BYTES);
+        }
+        int statsCount = in.getInt();
+        List<StatementStats> stats = new ArrayList<>(statsCount);
+        for (int i = 0; i < statsCount; i++) {
+            stats.add(StatementStats.builder()
+                    .fingerprint(string(in.getInt()))
+                    .executions(in.getLong())
+                    .totalTimeMs(in.getDouble())
+                    .maxTimeMs(in.getDouble())
+                    .rows(in.getLong())
+                    .matchScore(in.getDouble())
+                    .build());
+        }
+        List<SqlFragment> fragments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int statsId = columns[7][i];
+            fragments.add(SqlFragment.builder()
+                    .filePath(string(columns[0][i]))
+                    .relativePath(string(columns[1][i]))
+                    .statementId(string(columns[2][i]))
+                    .statementType(string(columns[3][i]))
+                    .sqlText(string(columns[4][i]))
+                    .namespace(string(columns[5][i]))
+                    .lineNumber(columns[6][i])
+                    .runtimeStats(statsId == NONE ? null : stats.get(statsId))
+                    .build());
+        }
+        return fragments;
+    }
+
+    /**
+     * 按下标读取字符串表，同一下标只解码一次，相同取值共享同一实例
+     */
+    private String string(int id) throws IOException {
+        if (id == NONE) {
+            return null;
+        }
+        ByteBuffer in = buffer.duplicate();
+        int count = in.getInt((int) stringsOffset);
+        if (id < 0 || id >= count) {
+            throw new IOException("扫描历史文件已损坏: 字符串引用越界");
+        }
+        if (strings == null) {
+            strings = new String[count];
+        }
+        String value = strings[id];
+        if (value == null) {
+            int offsets = (int) stringsOffset + Integer.BYTES;
+            int data = offsets + (count + 1) * Integer.BYTES;
+            int start = in.getInt(offsets + id * Integer.BYTES);
+            int end = in.getInt(offsets + (id + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            in.get(data + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = value;
+        }
+        return value;
+    }
+
+    private ByteBuffer section(long start, long end) throws IOException {
+        if (start < header.sizeBytes() && end <= header.sizeBytes() && start <= end) {
+            return buffer.slice((int) start, (int) (end - start));
+        }
+        throw new IOException("扫描历史文件已损坏: 段偏移越界");
+    }
+
+    private static int checkPrefix(ByteBuffer prefix) throws IOException {
+        if (prefix.getInt(0) != MAGIC) {
+            throw new IOException("不是有效的扫描历史文件");
+        }
+        int version = prefix.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("不支持的扫描历史文件版本: " + version);
+        }
+        int headerLength = prefix.getInt(8);
+        if (headerLength < FIXED_HEADER_BYTES || headerLength > MAX_HEADER_BYTES) {
+            throw new IOException("扫描历史文件已损坏: 头部长度异常");
+        }
+        return headerLength;
+    }
+
+    private static Header parseHeader(ByteBuffer in, long sizeBytes) throws IOException {
+        try {
+            long scanMillis = in.getLong(12);
+            in.position(FIXED_HEADER_BYTES);
+            byte[] reportId = new byte[in.getShort()];
+            in.get(reportId);
+            int repoPathLength = in.getInt();
+            String repoPath = null;
+            if (repoPathLength != NONE) {
+                byte[] bytes = new byte[repoPathLength];
+                in.get(bytes);
+                repoPath = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return new Header(new String(reportId, StandardCharsets.UTF_8), repoPath,
+                    scanMillis == Long.MIN_VALUE
+                            ? null
+                            : LocalDateTime.ofInstant(Instant.ofEpochMilli(scanMillis), ZoneOffset.UTC),
+                    in.getInt(20), in.getInt(24), in.getInt(28), in.getInt(32), in.getInt(36), in.getInt(40),
+                    in.getInt(44), (in.getInt(48) & FLAG_LIMIT_REACHED) != 0, sizeBytes);
+        } catch (RuntimeException e) {
+            throw new IOException("扫描历史文件已损坏: 头部无法解析", e);
+        }
+    }
+
+    /**
+     * 附加段只保存违规以外的部分，违规已按列写在前面
+     */
+    private static ScanReport withoutViolations(ScanReport report) {
+        return ScanReport.builder()
+                .reportId(report.getReportId())
+                .repoPath(report.getRepoPath())
+                .scanTime(report.getScanTime())
+                .totalFiles(report.getTotalFiles())
+                .totalStatements(report.getTotalStatements())
+                .totalViolations(report.getTotalViolations())
+                .errorCount(report.getErrorCount())
+                .warningCount(report.getWarningCount())
+                .infoCount(report.getInfoCount())
+                .violations(List.of())
+                .scannedFiles(report.getScannedFiles())
+                .notices(report.getNotices())
+                .limitReached(report.isLimitReached())
+                .baselineSuppressed(report.getBaselineSuppressed())
+                .indexAdvice(report.getIndexAdvice())
+                .usageIndex(report.getUsageIndex())
+                .nearDuplicates(report.getNearDuplicates())
+                .build();
+    }
+
+    private static long flush(DataOutputStream out, FileChannel channel) throws IOException {
+        out.flush();
+        return channel.position();
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("扫描历史文件已损坏: 文件过短");
+            }
+        }
+        target.flip();
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value == null ? NONE : value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E constant(E[] values, int ordinal) throws IOException {
+        if (ordinal == NONE) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("扫描历史文件已损坏: 枚举值越界");
+        }
+        return values[ordinal];
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写出时的字符串表：按取值去重，写为偏移数组加连续的 UTF-8 数据
+     */
+    private static final class StringTable {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private final List<Integer> offsets = new ArrayList<>();
+
+        int id(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer existing = ids.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            int id = offsets.size();
+            offsets.add(data.size());
+            data.writeBytes(utf8(value));
+            ids.put(value, id);
+            return id;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(offsets.size());
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            out.writeInt(data.size());
+            data.writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.IndexAdvice;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.StatementStats;
+import com.sqlaudit.rule.PredicateColumns;
+import com.sqlaudit.rule.PredicateColumns.Access;
+import com.sqlaudit.rule.PredicateColumns.Predicate;
+import com.sqlaudit.rule.PredicateColumns.SortColumn;
+import com.sqlaudit.rule.SchemaCatalog;
+import com.sqlaudit.util.CharSequences;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 复合索引建议的聚合器：逐条语句累加各表条件列、排序列的用法，以及每条语句的"理想索引"候选
+ * <p>
+ * 一条语句在一张表上的理想索引为：等值列在前，其后接排序列；没有排序列时接第一个范围列（范围列之后的列无法继续用于查找）。
+ * 聚合器只做与顺序无关的累加，可以按分片并行累加后用 {@link #merge} 合并。给出建议时再按整张表的等值频度排列等值列，
+ * 剔除已有索引能覆盖的候选，并把互为前缀的候选并入较长的一条。
+ */
+public final class IndexAdvisor {
+
+    /** 默认给出的建议条数 */
+    public static final int DEFAULT_LIMIT = 20;
+
+    private static final int MAX_EQUALITY_COLUMNS = 4;
+    private static final int MAX_EXAMPLES = 3;
+    private static final int MAX_INDEX_NAME_LENGTH = 63;
+
+    private final SchemaCatalog catalog;
+    private final RuntimeStatsIndex runtimeStats;
+    private final Map<String, TableStats> tables = new HashMap<>();
+    private boolean weightedByExecutions;
+
+    /**
+     * @param catalog      表结构目录，用于解析列归属和剔除已有索引；可为空目录
+     * @param runtimeStats 运行时统计索引，提供时按执行次数加权；可为 null
+     */
+    public IndexAdvisor(SchemaCatalog catalog, RuntimeStatsIndex runtimeStats) {
+        this.catalog = catalog != null ? catalog : SchemaCatalog.empty();
+        this.runtimeStats = runtimeStats;
+        this.weightedByExecutions = runtimeStats != null;
+    }
+
+    /**
+     * 候选索引的形状
+     *
+     * @param equality 等值列，按列名排序
+     * @param tail     排序列，或单个范围列
+     * @param sorted   tail 是否为排序列
+     */
+    private record Pattern(List<String> equality, List<String> tail, boolean sorted) {
+    }
+
+    private static final class CandidateStats {
+        long weight;
+        int statements;
+        final List<String> examples = new ArrayList<>(MAX_EXAMPLES);
+
+        void add(long weight, int statements, List<String> examples) {
+            this.weight += weight;
+            this.statements += statements;
+            for (String example : examples) {
+                if (this.examples.size() < MAX_EXAMPLES) {
+                    this.examples.add(example);
+                }
+            }
+        }
+    }
+
+    private static final class TableStats {
+        /** 列 → {等值, 范围, 排序} 权重 */
+        final Map<String, long[]> columns = new HashMap<>();
+        final Map<Pattern, CandidateStats> candidates = new HashMap<>();
+    }
+
+    public void add(SqlFragment fragment) {
+        CharSequence sql = fragment.sqlTextView();
+        if (sql == null || CharSequences.isBlank(sql)) {
+            return;
+        }
+        Access access = PredicateColumns.analyze(sql, catalog);
+        if (access.predicates().isEmpty() && access.orderBy().isEmpty()) {
+            return;
+        }
+        long weight = weightOf(fragment);
+        String example = exampleOf(fragment);
+
+        Map<String, Set<String>> equality = new LinkedHashMap<>();
+        Map<String, Set<String>> range = new LinkedHashMap<>();
+        for (Predicate predicate : access.predicates()) {
+            (predicate.equality() ? equality : range)
+                    .computeIfAbsent(predicate.table(), k -> new LinkedHashSet<>()).add(predicate.column());
+        }
+        Map<String, List<String>> order = new LinkedHashMap<>();
+        for (SortColumn column : access.orderBy()) {
+            order.computeIfAbsent(column.table(), k -> new ArrayList<>()).add(column.column());
+        }
+
+        Set<String> touched = new LinkedHashSet<>(equality.keySet());
+        touched.addAll(range.keySet());
+        touched.addAll(order.keySet());
+        for (String table : touched) {
+            TableStats stats = tables.computeIfAbsent(table, k -> new TableStats());
+            Set<String> eq = equality.getOrDefault(table, Set.of());
+            Set<String> ranges = new LinkedHashSet<>(range.getOrDefault(table, Set.of()));
+            ranges.removeAll(eq);
+            List<String> sort = order.getOrDefault(table, List.of());
+            for (String column : eq) {
+                stats.columns.computeIfAbsent(column, k -> new long[3])[0] += weight;
+            }
+            for (String column : ranges) {
+                stats.columns.computeIfAbsent(column, k -> new long[3])[1] += weight;
+            }
+            for (String column : new LinkedHashSet<>(sort)) {
+                stats.columns.computeIfAbsent(column, k -> new long[3])[2] += weight;
+            }
+
+            // 排序列要全部落在这张表上索引才能消除排序；已被等值条件固定的排序列不影响顺序
+            List<String> tail = new ArrayList<>();
+            boolean sorted = false;
+            if (order.size() == 1 && !sort.isEmpty()) {
+                for (String column : sort) {
+                    if (!eq.contains(column) && !tail.contains(column)) {
+                        tail.add(column);
+                    }
+                }
+                sorted = !tail.isEmpty();
+            }
+            if (tail.isEmpty() && !ranges.isEmpty()) {
+                tail.add(ranges.iterator().next());
+            }
+            List<String> eqColumns = new ArrayList<>(new TreeSet<>(eq));
+            if (eqColumns.size() > MAX_EQUALITY_COLUMNS) {
+                eqColumns = eqColumns.subList(0, MAX_EQUALITY_COLUMNS);
+            }
+            if (eqColumns.isEmpty() && tail.isEmpty()) {
+                continue;
+            }
+            stats.candidates.computeIfAbsent(new Pattern(List.copyOf(eqColumns), List.copyOf(tail), sorted),
+                    k -> new CandidateStats()).add(weight, 1, List.of(example));
+        }
+    }
+
+    /**
+     * 合并另一个分片的累加结果，返回自身
+     */
+    public IndexAdvisor merge(IndexAdvisor other) {
+        weightedByExecutions |= other.weightedByExecutions;
+        other.tables.forEach((table, otherStats) -> {
+            TableStats stats = tables.computeIfAbsent(table, k -> new TableStats());
+            otherStats.columns.forEach((column, weights) -> {
+                long[] target = stats.columns.computeIfAbsent(column, k -> new long[3]);
+                for (int i = 0; i < target.length; i++) {
+                    target[i] += weights[i];
+                }
+            });
+            otherStats.candidates.forEach((pattern, candidate) -> stats.candidates
+                    .computeIfAbsent(pattern, k -> new CandidateStats())
+                    .add(candidate.weight, candidate.statements, candidate.examples));
+        });
+        return this;
+    }
+
+    public IndexAdvice advise() {
+        return advise(DEFAULT_LIMIT);
+    }
+
+    public IndexAdvice advise(int limit) {
+        List<IndexAdvice.ColumnUsage> columns = new ArrayList<>();
+        List<IndexAdvice.Recommendation> recommendations = new ArrayList<>();
+        new TreeMap<>(tables).forEach((table, stats) -> {
+            List<Map.Entry<String, long[]>> entries = new ArrayList<>(stats.columns.entrySet());
+            entries.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> -total(e.getValue()))
+                    .thenComparing(Map.Entry::getKey));
+            for (Map.Entry<String, long[]> entry : entries) {
+                long[] weights = entry.getValue();
+                columns.add(IndexAdvice.ColumnUsage.builder().table(table).column(entry.getKey())
+                        .equality(weights[0]).range(weights[1]).orderBy(weights[2]).build());
+            }
+            recommendations.addAll(recommend(table, stats));
+        });
+        recommendations.sort(Comparator.comparingLong(IndexAdvice.Recommendation::getWeight).reversed()
+                .thenComparing(Comparator.comparingInt(IndexAdvice.Recommendation::getStatements).reversed())
+                .thenComparing(IndexAdvice.Recommendation::getTable)
+                .thenComparing(r -> String.join(",", r.getColumns())));
+        return IndexAdvice.builder()
+                .weightedByExecutions(weightedByExecutions)
+                .columns(columns)
+                .recommendations(List.copyOf(recommendations.subList(0, Math.min(limit, recommendations.size()))))
+                .build();
+    }
+
+    private List<IndexAdvice.Recommendation> recommend(String table, TableStats stats) {
+        SchemaCatalog.Table definition = catalog.table(table);
+        List<Proposal> proposals = new ArrayList<>();
+        for (Map.Entry<Pattern, CandidateStats> entry : stats.candidates.entrySet()) {
+            Pattern pattern = entry.getKey();
+            if (isCovered(definition, pattern)) {
+                continue;
+            }
+            // 等值列之间的顺序不影响查找，频度高的放前面，便于不同语句共用前缀
+            List<String> equality = new ArrayList<>(pattern.equality());
+            equality.sort(Comparator.comparingLong((String c) -> -stats.columns.get(c)[0])
+                    .thenComparing(Comparator.naturalOrder()));
+            List<String> indexColumns = new ArrayList<>(equality);
+            indexColumns.addAll(pattern.tail());
+            proposals.add(new Proposal(indexColumns, pattern, equality, entry.getValue()));
+        }
+        proposals.sort(Comparator.comparingInt((Proposal p) -> -p.columns.size())
+                .thenComparingLong(p -> -p.stats.weight)
+                .thenComparing(p -> String.join(",", p.columns)));
+
+        List<Proposal> kept = new ArrayList<>();
+        for (Proposal proposal : proposals) {
+            Proposal longer = null;
+            for (Proposal candidate : kept) {
+                if (candidate.columns.size() >= proposal.columns.size()
+                        && candidate.columns.subList(0, proposal.columns.size()).equals(proposal.columns)) {
+                    longer = candidate;
+                    break;
+                }
+            }
+            if (longer != null) {
+                longer.merged.add(proposal.stats.weight, proposal.stats.statements, proposal.stats.examples);
+            } else {
+                kept.add(proposal);
+            }
+        }
+
+        List<IndexAdvice.Recommendation> result = new ArrayList<>(kept.size());
+        for (Proposal proposal : kept) {
+            result.add(IndexAdvice.Recommendation.builder()
+                    .table(table)
+                    .columns(List.copyOf(proposal.columns))
+                    .weight(proposal.merged.weight)
+                    .statements(proposal.merged.statements)
+                    .reason(reasonOf(proposal))
+                    .ddl(ddlOf(table, proposal.columns))
+                    .examples(List.copyOf(proposal.merged.examples))
+                    .build());
+        }
+        return result;
+    }
+
+    private static final class Proposal {
+        final List<String> columns;
+        final Pattern pattern;
+        final List<String> equality;
+        final CandidateStats stats;
+        /** 自身加上被并入的较短候选 */
+        final CandidateStats merged = new CandidateStats();
+
+        Proposal(List<String> columns, Pattern pattern, List<String> equality, CandidateStats stats) {
+            this.columns = columns;
+            this.pattern = pattern;
+            this.equality = equality;
+            this.stats = stats;
+            merged.add(stats.weight, stats.statements, stats.examples);
+        }
+    }
+
+    /**
+     * 已有索引能否满足该候选：前若干列恰为等值列（顺序不限），其后依次为排序列或范围列。
+     * 没有导入表结构时，假定 id 为主键：含 id 等值条件的语句至多命中一行，视为已覆盖
+     */
+    private boolean isCovered(SchemaCatalog.Table definition, Pattern pattern) {
+        if (definition == null) {
+            return catalog.isEmpty() && pattern.equality().contains("id");
+        }
+        int equalityCount = pattern.equality().size();
+        int needed = equalityCount + pattern.tail().size();
+        for (List<String> index : definition.indexes()) {
+            if (index.size() < needed) {
+                continue;
+            }
+            if (new HashSet<>(index.subList(0, equalityCount)).equals(new HashSet<>(pattern.equality()))
+                    && index.subList(equalityCount, needed).equals(pattern.tail())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String reasonOf(Proposal proposal) {
+        StringBuilder reason = new StringBuilder();
+        if (!proposal.equality.isEmpty()) {
+            reason.append("等值 ").append(String.join(", ", proposal.equality));
+        }
+        if (!proposal.pattern.tail().isEmpty()) {
+            if (!reason.isEmpty()) {
+                reason.append("；");
+            }
+            reason.append(proposal.pattern.sorted() ? "排序 " : "范围 ")
+                    .append(String.join(", ", proposal.pattern.tail()));
+        }
+        return reason.toString();
+    }
+
+    private static String ddlOf(String table, List<String> columns) {
+        String shortTable = table.substring(table.lastIndexOf('.') + 1);
+        String name = "idx_" + shortTable + "_" + String.join("_", columns);
+        if (name.length() > MAX_INDEX_NAME_LENGTH) {
+            name = name.substring(0, MAX_INDEX_NAME_LENGTH);
+        }
+        return "CREATE INDEX " + name + " ON " + table + " (" + String.join(", ", columns) + ");";
+    }
+
+    private long weightOf(SqlFragment fragment) {
+        StatementStats stats = fragment.getRuntimeStats();
+        if (stats == null && runtimeStats != null) {
+            stats = runtimeStats.match(fragment.sqlTextView());
+        }
+        if (stats != null) {
+            weightedByExecutions = true;
+            return Math.max(1, stats.getExecutions());
+        }
+        return 1;
+    }
+
+    private static String exampleOf(SqlFragment fragment) {
+        String file = fragment.getRelativePath() != null ? fragment.getRelativePath() : fragment.getFilePath();
+        return (file != null ? file : "") + ":" + fragment.getLineNumber()
+                + (fragment.getStatementId() != null ? " " + fragment.getStatementId() : "");
+    }
+
+    private static long total(long[] weights) {
+        return weights[0] + weights[1] + weights[2];
+    }
+}
@@ -0,0 +1,456 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.util.CharSequences;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 仓库内的近似重复 SQL 簇：写法略有不同、实际相同的语句分散在多个 Mapper 中，既难维护也占用多份执行计划缓存
+ * <p>
+ * 语句先按形状去重（与 {@link RuntimeStatsIndex#shapeOf} 同样的规范化，但一次扫描直接得到词元哈希，不走正则），
+ * 对每种形状的连续 3 词元片段（shingle）计算
+ * MinHash 签名；签名分成若干段做局部敏感哈希（LSH），只有至少一段完全相同的语句才成为候选，再用签名估算的
+ * Jaccard 相似度确认。这样不做两两比较，语句数的开销近似线性。分段数 {@value #BANDS} × 每段 {@value #ROWS} 行，
+ * 相似度 0.8 的两条语句落入同一桶的概率约 99.98%，0.3 时约 12%。
+ */
+public final class NearDuplicates {
+
+    /** 默认相似度阈值（估算的 Jaccard 系数） */
+    public static final double DEFAULT_THRESHOLD = 0.8;
+
+    private static final int SHINGLE = 3;
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+    /** 词元数少于该值的语句（如 SELECT 1）不参与比较 */
+    private static final int MIN_TOKENS = 4;
+    /** 簇中展示的代表语句最大长度 */
+    private static final int MAX_SQL_LENGTH = 2000;
+
+    /** 参数与字面量统一记为的词元 */
+    private static final int PARAM = '?';
+    private static final int COMMA = ',';
+    private static final long[] MULTIPLIERS = new long[HASHES];
+    private static final long[] ADDENDS = new long[HASHES];
+
+    static {
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < HASHES; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            MULTIPLIERS[i] = seed | 1;
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            ADDENDS[i] = seed;
+        }
+    }
+
+    private final double threshold;
+    private final int statements;
+    private final List<Cluster> clusters;
+
+    private NearDuplicates(double threshold, int statements, List<Cluster> clusters) {
+        this.threshold = threshold;
+        this.statements = statements;
+        this.clusters = clusters;
+    }
+
+    /**
+     * 簇中的一条语句
+     */
+    public record Member(String file, int line, String statementId, String statementType) {
+    }
+
+    /**
+     * 近似重复簇
+     *
+     * @param similarity 簇内各语句与代表语句估算相似度的最小值；形状完全相同时为 1
+     * @param sql        代表语句（簇中第一条），过长时截断
+     */
+    public record Cluster(double similarity, String sql, List<Member> members) {
+    }
+
+    public record DuplicatePage(int total, List<Cluster> items) {
+    }
+
+    public static NearDuplicates find(List<SqlFragment> fragments) {
+        return find(fragments, DEFAULT_THRESHOLD);
+    }
+
+    public static NearDuplicates find(List<SqlFragment> fragments, double threshold) {
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("相似度阈值须在 (0, 1] 之间: " + threshold);
+        }
+        // 1. 按形状（词元序列的哈希）去重，同形状的语句共用一个签名；词元过少的语句不参与
+        Map<Long, Integer> shapeIds = new HashMap<>();
+        List<int[]> shapes = new ArrayList<>();
+        int[] shapeOf = new int[fragments.size()];
+        for (int i = 0; i < fragments.size(); i++) {
+            int[] tokens = tokenize(fragments.get(i).sqlTextView());
+            if (tokens.length < MIN_TOKENS) {
+                shapeOf[i] = -1;
+                continue;
+            }
+            long key = 0;
+            for (int token : tokens) {
+                key = mix(key + token);
+            }
+            shapeOf[i] = shapeIds.computeIfAbsent(key, k -> {
+                shapes.add(tokens);
+                return shapes.size() - 1;
+            });
+        }
+
+        // 2. MinHash 签名，按形状并行计算
+        int[][] signatures = new int[shapes.size()][];
+        IntStream.range(0, shapes.size()).parallel().forEach(id -> signatures[id] = signature(shapes.get(id)));
+
+        // 3. LSH 分桶后确认相似度，用并查集合并
+        int[] parent = new int[shapes.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        bucketAndUnion(signatures, parent, threshold);
+
+        // 4. 按并查集的根汇总语句，至少两条语句的组成簇
+        Map<Integer, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < fragments.size(); i++) {
+            if (shapeOf[i] >= 0) {
+                groups.computeIfAbsent(root(parent, shapeOf[i]), k -> new ArrayList<>()).add(i);
+            }
+        }
+        List<Cluster> clusters = new ArrayList<>();
+        for (List<Integer> group : groups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            SqlFragment first = fragments.get(group.get(0));
+            int[] representative = signatures[shapeOf[group.get(0)]];
+            double similarity = 1.0;
+            List<Member> members = new ArrayList<>(group.size());
+            for (int index : group) {
+                SqlFragment fragment = fragments.get(index);
+                similarity = Math.min(similarity, similarity(representative, signatures[shapeOf[index]]));
+                members.add(new Member(fileOf(fragment), fragment.getLineNumber(), fragment.getStatementId(),
+                        fragment.getStatementType()));
+            }
+            String sql = first.getSqlText().strip();
+            if (sql.length() > MAX_SQL_LENGTH) {
+                sql = sql.substring(0, MAX_SQL_LENGTH) + "...";
+            }
+            clusters.add(new Cluster(Math.round(similarity * 100) / 100.0, sql, List.copyOf(members)));
+        }
+        clusters.sort(Comparator.comparingInt((Cluster c) -> c.members().size()).reversed()
+                .thenComparing(Comparator.comparingDouble(Cluster::similarity).reversed()));
+        return new NearDuplicates(threshold, fragments.size(), List.copyOf(clusters));
+    }
+
+    public double threshold() {
+        return threshold;
+    }
+
+    public int statementCount() {
+        return statements;
+    }
+
+    /**
+     * 全部簇，按语句数从多到少排序
+     */
+    public List<Cluster> clusters() {
+        return clusters;
+    }
+
+    /**
+     * 按最低相似度、最少语句数过滤后分页
+     */
+    public DuplicatePage page(double minSimilarity, int minSize, int offset, int limit) {
+        List<Cluster> matched = new ArrayList<>();
+        for (Cluster cluster : clusters) {
+            if (cluster.similarity() >= minSimilarity && cluster.members().size() >= minSize) {
+                matched.add(cluster);
+            }
+        }
+        int from = Math.max(0, Math.min(offset, matched.size()));
+        int to = Math.min(matched.size(), from + Math.max(0, limit));
+        return new DuplicatePage(matched.size(), List.copyOf(matched.subList(from, to)));
+    }
+
+    /**
+     * 粗略内存占用，供报告存储估算预算
+     */
+    public long estimatedBytes() {
+        long bytes = 128;
+        for (Cluster cluster : clusters) {
+            bytes += 96 + cluster.sql().length() * 2L + cluster.members().size() * 64L;
+        }
+        return bytes;
+    }
+
+    /**
+     * 一次扫描完成规范化与分词，返回词元哈希序列：标识符不分大小写，引号包围的标识符去掉引号；
+     * MyBatis 参数、?、$n、字符串与数字字面量都记为 ?，连续的 "?, ?"（IN 列表）折叠为一个 ?；注释与分号忽略
+     */
+    static int[] tokenize(CharSequence sql) {
+        if (sql == null) {
+            return new int[0];
+        }
+        int length = sql.length();
+        int[] tokens = new int[16];
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            int token;
+            if (Character.isWhitespace(c) || c == ';') {
+                i++;
+                continue;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = CharSequences.indexOf(sql, '\n', i);
+                i = end < 0 ? length : end + 1;
+                continue;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = CharSequences.indexOf(sql, "*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                continue;
+            } else if ((c == '#' || c == '$') && i + 1 < length && sql.charAt(i + 1) == '{') {
+                int end = CharSequences.indexOf(sql, '}', i);
+                i = end < 0 ? length : end + 1;
+                token = PARAM;
+            } else if (c == '$' && i + 1 < length && Character.isDigit(sql.charAt(i + 1))) {
+                i = skipNumber(sql, i + 1);
+                token = PARAM;
+            } else if (c == '\'') {
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i++) == '\'') {
+                        if (i < length && sql.charAt(i) == '\'') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                token = PARAM;
+            } else if (c == '?' || Character.isDigit(c)) {
+                i = c == '?' ? i + 1 : skipNumber(sql, i);
+                token = PARAM;
+            } else if (c == '"' || c == '`') {
+                int end = CharSequences.indexOf(sql, c, i + 1);
+                end = end < 0 ? length : end;
+                token = identifierHash(sql, i + 1, end);
+                i = Math.min(length, end + 1);
+            } else if (Character.isLetter(c) || c == '_') {
+                int end = i + 1;
+                while (end < length && isIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                token = identifierHash(sql, i, end);
+                i = end;
+            } else if (isComparison(c)) {
+                int end = i + 1;
+                while (end < length && isComparison(sql.charAt(end))) {
+                    end++;
+                }
+                token = identifierHash(sql, i, end);
+                i = end;
+            } else {
+                token = c;
+                i++;
+            }
+            if (token == PARAM && count >= 2 && tokens[count - 1] == COMMA && tokens[count - 2] == PARAM) {
+                count--;
+                continue;
+            }
+            if (count == tokens.length) {
+                tokens = Arrays.copyOf(tokens, count * 2);
+            }
+            tokens[count++] = token;
+        }
+        return Arrays.copyOf(tokens, count);
+    }
+
+    private static int skipNumber(CharSequence sql, int from) {
+        int i = from;
+        while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+    }
+
+    private static boolean isComparison(char c) {
+        return c == '=' || c == '<' || c == '>' || c == '!';
+    }
+
+    /** 大写后的多项式哈希，再与单字符词元错开 */
+    private static int identifierHash(CharSequence sql, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = hash * 31 + Character.toUpperCase(sql.charAt(i));
+        }
+        return hash * 0x9E3779B1 + 0x10000;
+    }
+
+    private static int[] signature(int[] tokens) {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int i = 0; i + SHINGLE <= tokens.length; i++) {
+            long shingle = 0;
+            for (int j = 0; j < SHINGLE; j++) {
+                shingle = shingle * 0x100000001B3L + tokens[i + j];
+            }
+            shingle = mix(shingle);
+            for (int h = 0; h < HASHES; h++) {
+                // 乘加哈希取高 31 位（保持非负）作为第 h 个置换下的值
+                int value = (int) ((shingle * MULTIPLIERS[h] + ADDENDS[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * 每段签名的哈希值与形状编号拼成一个 long 排序，哈希相同的相邻元素即同一个桶；
+     * 桶内每条只与桶首（不相似时再与前一条）确认，大桶也不会退化为两两比较
+     */
+    private static void bucketAndUnion(int[][] signatures, int[] parent, double threshold) {
+        int n = signatures.length;
+        int idBits = Math.max(1, 64 - Long.numberOfLeadingZeros(n));
+        long idMask = (1L << idBits) - 1;
+        long[] keys = new long[n];
+        for (int band = 0; band < BANDS; band++) {
+            for (int id = 0; id < n; id++) {
+                long hash = band;
+                for (int r = band * ROWS; r < (band + 1) * ROWS; r++) {
+                    hash = mix(hash * 31 + signatures[id][r]);
+                }
+                keys[id] = (hash & ~idMask) | id;
+            }
+            Arrays.parallelSort(keys);
+            int start = 0;
+            while (start < n) {
+                int end = start + 1;
+                while (end < n && (keys[end] & ~idMask) == (keys[start] & ~idMask)) {
+                    end++;
+                }
+                int anchor = (int) (keys[start] & idMask);
+                for (int k = start + 1; k < end; k++) {
+                    int id = (int) (keys[k] & idMask);
+                    if (root(parent, id) == root(parent, anchor)) {
+                        continue;
+                    }
+                    if (similarity(signatures[anchor], signatures[id]) >= threshold) {
+                        union(parent, anchor, id);
+                    } else {
+                        int previous = (int) (keys[k - 1] & idMask);
+                        if (similarity(signatures[previous], signatures[id]) >= threshold) {
+                            union(parent, previous, id);
+                        }
+                    }
+                }
+                start = end;
+            }
+        }
+    }
+
+    /** 签名中取值相同的位置比例，即 Jaccard 系数的估计 */
+    private static double similarity(int[] a, int[] b) {
+        if (a == b) {
+            return 1.0;
+        }
+        int same = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return (double) same / HASHES;
+    }
+
+    private static int root(int[] parent, int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = root(parent, a);
+        int rootB = root(parent, b);
+        if (rootA != rootB) {
+            // 编号小的作根，簇内代表语句保持为最先出现的那条
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xFF51AFD7ED558CCDL;
+        x = (x ^ (x >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return x ^ (x >>> 33);
+    }
+
+    private static String fileOf(SqlFragment fragment) {
+        String file = fragment.getRelativePath() != null ? fragment.getRelativePath() : fragment.getFilePath();
+        return file != null ? file : "";
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeDouble(threshold);
+        out.writeInt(statements);
+        out.writeInt(clusters.size());
+        for (Cluster cluster : clusters) {
+            out.writeDouble(cluster.similarity());
+            out.writeUTF(cluster.sql());
+            out.writeInt(cluster.members().size());
+            for (Member member : cluster.members()) {
+                out.writeUTF(member.file());
+                out.writeInt(member.line());
+                writeNullable(out, member.statementId());
+                writeNullable(out, member.statementType());
+            }
+        }
+    }
+
+    static NearDuplicates read(DataInputStream in) throws IOException {
+        double threshold = in.readDouble();
+        int statements = in.readInt();
+        int clusterCount = in.readInt();
+        List<Cluster> clusters = new ArrayList<>(clusterCount);
+        for (int i = 0; i < clusterCount; i++) {
+            double similarity = in.readDouble();
+            String sql = in.readUTF();
+            int memberCount = in.readInt();
+            List<Member> members = new ArrayList<>(memberCount);
+            for (int j = 0; j < memberCount; j++) {
+                members.add(new Member(in.readUTF(), in.readInt(), readNullable(in), readNullable(in)));
+            }
+            clusters.add(new Cluster(similarity, sql, List.copyOf(members)));
+        }
+        return new NearDuplicates(threshold, statements, List.copyOf(clusters));
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,445 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.IndexAdvice;
+import com.sqlaudit.model.NormalizedReport;
+import com.sqlaudit.model.NormalizedReport.ViolationRef;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.StatementStats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 扫描报告的紧凑二进制编码，用于报告存储溢出到磁盘
+ * <p>
+ * 在 {@link ReportNormalizer} 规范化结构的基础上再做字符串表去重（同一文件路径、规则文案只写一次），
+ * 整数使用变长编码，最后整体 deflate 压缩。格式仅供报告存储溢出与构建插件的增量缓存使用，不作为对外交换格式；
+ * 版本不符时读取失败，调用方按缓存失效处理。
+ */
+public final class ReportBinaryCodec {
+
+    private static final int MAGIC = 0x53514152; // "SQAR"
+    private static final int VERSION = 4;
+
+    private ReportBinaryCodec() {
+    }
+
+    /**
+     * 写出报告；不关闭传入的流
+     */
+    public static void write(ScanReport report, OutputStream out) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater, 8192);
+            Writer writer = new Writer(new DataOutputStream(new BufferedOutputStream(deflaterOut, 8192)));
+            writer.writeReport(report);
+            writer.data.flush();
+            deflaterOut.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 读取报告；不关闭传入的流
+     */
+    public static ScanReport read(InputStream in) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            InflaterInputStream inflaterIn = new InflaterInputStream(in, inflater, 8192);
+            return new Reader(new DataInputStream(new BufferedInputStream(inflaterIn, 8192))).readReport();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 编码器：字符串表去重与变长整数，供同包内其他二进制格式复用
+     */
+    static final class Writer {
+
+        final DataOutputStream data;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(DataOutputStream data) {
+            this.data = data;
+        }
+
+        void writeReport(ScanReport report) throws IOException {
+            NormalizedReport normalized = ReportNormalizer.normalize(report);
+            data.writeInt(MAGIC);
+            writeVarInt(VERSION);
+            writeString(report.getReportId());
+            writeString(normalized.getRepoPath());
+            writeString(normalized.getScanTime() != null ? normalized.getScanTime().toString() : null);
+            writeVarInt(normalized.getTotalFiles());
+            writeVarInt(normalized.getTotalStatements());
+            writeVarInt(normalized.getTotalViolations());
+            writeVarInt(normalized.getErrorCount());
+            writeVarInt(normalized.getWarningCount());
+            writeVarInt(normalized.getInfoCount());
+            data.writeBoolean(normalized.isLimitReached());
+            writeVarInt(report.getBaselineSuppressed());
+            writeStrings(normalized.getScannedFiles());
+            writeStrings(normalized.getNotices());
+
+            writeVarInt(normalized.getRules().size());
+            for (AuditRule rule : normalized.getRules()) {
+                writeRule(rule);
+            }
+
+            writeVarInt(normalized.getFragments().size());
+            for (SqlFragment fragment : normalized.getFragments()) {
+                writeFragment(fragment);
+            }
+
+            writeVarInt(normalized.getViolations().size());
+            for (ViolationRef ref : normalized.getViolations()) {
+                // -1 表示空引用，整体加一后以非负变长整数写出
+                writeVarInt(ref.getRule() + 1);
+                writeVarInt(ref.getFragment() + 1);
+                writeString(ref.getMessage());
+                writeString(ref.getSuggestion());
+                writeString(ref.getExampleSql());
+                writeString(ref.getMatchedText());
+            }
+
+            UsageIndex usageIndex = report.getUsageIndex();
+            data.writeBoolean(usageIndex != null);
+            if (usageIndex != null) {
+                usageIndex.write(data);
+            }
+            NearDuplicates nearDuplicates = report.getNearDuplicates();
+            data.writeBoolean(nearDuplicates != null);
+            if (nearDuplicates != null) {
+                nearDuplicates.write(data);
+            }
+            writeIndexAdvice(report.getIndexAdvice());
+        }
+
+        void writeRule(AuditRule rule) throws IOException {
+            writeString(rule.getId());
+            writeString(rule.getName());
+            writeString(rule.getDescription());
+            writeEnum(rule.getSeverity());
+            writeEnum(rule.getType());
+            writeString(rule.getPattern());
+            writeString(rule.getCheckerName());
+            writeString(rule.getSection());
+            writeString(rule.getCategory());
+            writeEnum(rule.getSource());
+        }
+
+        void writeFragment(SqlFragment fragment) throws IOException {
+            writeString(fragment.getFilePath());
+            writeString(fragment.getRelativePath());
+            writeString(fragment.getStatementId());
+            writeString(fragment.getStatementType());
+            writeString(fragment.getSqlText());
+            writeVarInt(fragment.getLineNumber());
+            writeString(fragment.getNamespace());
+            StatementStats stats = fragment.getRuntimeStats();
+            data.writeBoolean(stats != null);
+            if (stats != null) {
+                writeString(stats.getFingerprint());
+                data.writeLong(stats.getExecutions());
+                data.writeDouble(stats.getTotalTimeMs());
+                data.writeDouble(stats.getMaxTimeMs());
+                data.writeLong(stats.getRows());
+                data.writeDouble(stats.getMatchScore());
+            }
+        }
+
+        private void writeIndexAdvice(IndexAdvice advice) throws IOException {
+            data.writeBoolean(advice != null);
+            if (advice == null) {
+                return;
+            }
+            data.writeBoolean(advice.isWeightedByExecutions());
+            List<IndexAdvice.ColumnUsage> columns = advice.getColumns() != null ? advice.getColumns() : List.of();
+            writeVarInt(columns.size());
+            for (IndexAdvice.ColumnUsage column : columns) {
+                writeString(column.getTable());
+                writeString(column.getColumn());
+                data.writeLong(column.getEquality());
+                data.writeLong(column.getRange());
+                data.writeLong(column.getOrderBy());
+            }
+            List<IndexAdvice.Recommendation> recommendations = advice.getRecommendations() != null
+                    ? advice.getRecommendations()
+                    : List.of();
+            writeVarInt(recommendations.size());
+            for (IndexAdvice.Recommendation recommendation : recommendations) {
+                writeString(recommendation.getTable());
+                writeStrings(recommendation.getColumns());
+                data.writeLong(recommendation.getWeight());
+                writeVarInt(recommendation.getStatements());
+                writeString(recommendation.getReason());
+                writeString(recommendation.getDdl());
+                writeStrings(recommendation.getExamples());
+            }
+        }
+
+        void writeStrings(List<String> values) throws IOException {
+            if (values == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(values.size() + 1);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        private void writeEnum(Enum<?> value) throws IOException {
+            writeVarInt(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        /**
+         * 字符串编码：0 表示 null；奇数 2n+1 表示引用字符串表第 n 项；偶数 2(len+1) 表示紧跟 len 字节的新字符串
+         */
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer existing = strings.get(value);
+            if (existing != null) {
+                writeVarInt(existing * 2 + 1);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt((bytes.length + 1) * 2);
+            data.write(bytes);
+        }
+
+        void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                data.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data.writeByte(value);
+        }
+    }
+
+    /**
+     * 与 {@link Writer} 对应的解码器
+     */
+    static final class Reader {
+
+        final DataInputStream data;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(DataInputStream data) {
+            this.data = data;
+        }
+
+        ScanReport readReport() throws IOException {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("不是有效的报告存储文件");
+            }
+            int version = readVarInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的报告存储文件版本: " + version);
+            }
+            String reportId = readString();
+            NormalizedReport normalized = new NormalizedReport();
+            normalized.setRepoPath(readString());
+            String scanTime = readString();
+            normalized.setScanTime(scanTime != null ? LocalDateTime.parse(scanTime) : null);
+            normalized.setTotalFiles(readVarInt());
+            normalized.setTotalStatements(readVarInt());
+            normalized.setTotalViolations(readVarInt());
+            normalized.setErrorCount(readVarInt());
+            normalized.setWarningCount(readVarInt());
+            normalized.setInfoCount(readVarInt());
+            normalized.setLimitReached(data.readBoolean());
+            int baselineSuppressed = readVarInt();
+            normalized.setScannedFiles(readStrings());
+            normalized.setNotices(readStrings());
+
+            int ruleCount = readVarInt();
+            List<AuditRule> rules = new ArrayList<>(ruleCount);
+            for (int i = 0; i < ruleCount; i++) {
+                rules.add(readRule());
+            }
+            normalized.setRules(rules);
+
+            int fragmentCount = readVarInt();
+            List<SqlFragment> fragments = new ArrayList<>(fragmentCount);
+            for (int i = 0; i < fragmentCount; i++) {
+                fragments.add(readFragment());
+            }
+            normalized.setFragments(fragments);
+
+            int violationCount = readVarInt();
+            List<ViolationRef> refs = new ArrayList<>(violationCount);
+            for (int i = 0; i < violationCount; i++) {
+                refs.add(ViolationRef.builder()
+                        .rule(readVarInt() - 1)
+                        .fragment(readVarInt() - 1)
+                        .message(readString())
+                        .suggestion(readString())
+                        .exampleSql(readString())
+                        .matchedText(readString())
+                        .build());
+            }
+            normalized.setViolations(refs);
+            UsageIndex usageIndex = data.readBoolean() ? UsageIndex.read(data) : null;
+            NearDuplicates nearDuplicates = data.readBoolean() ? NearDuplicates.read(data) : null;
+            IndexAdvice indexAdvice = data.readBoolean() ? readIndexAdvice() : null;
+
+            ScanReport report = ReportNormalizer.denormalize(normalized);
+            report.setReportId(reportId);
+            report.setBaselineSuppressed(baselineSuppressed);
+            report.setUsageIndex(usageIndex);
+            report.setNearDuplicates(nearDuplicates);
+            report.setIndexAdvice(indexAdvice);
+            return report;
+        }
+
+        AuditRule readRule() throws IOException {
+            return AuditRule.builder()
+                    .id(readString())
+                    .name(readString())
+                    .description(readString())
+                    .severity(readEnum(AuditRule.Severity.values()))
+                    .type(readEnum(AuditRule.RuleType.values()))
+                    .pattern(readString())
+                    .checkerName(readString())
+                    .section(readString())
+                    .category(readString())
+                    .source(readEnum(AuditRule.RuleSource.values()))
+                    .build();
+        }
+
+        SqlFragment readFragment() throws IOException {
+            return SqlFragment.builder()
+                    .filePath(readString())
+                    .relativePath(readString())
+                    .statementId(readString())
+                    .statementType(readString())
+                    .sqlText(readString())
+                    .lineNumber(readVarInt())
+                    .namespace(readString())
+                    .runtimeStats(data.readBoolean() ? readStats() : null)
+                    .build();
+        }
+
+        private IndexAdvice readIndexAdvice() throws IOException {
+            boolean weighted = data.readBoolean();
+            int columnCount = readVarInt();
+            List<IndexAdvice.ColumnUsage> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                columns.add(IndexAdvice.ColumnUsage.builder()
+                        .table(readString())
+                        .column(readString())
+                        .equality(data.readLong())
+                        .range(data.readLong())
+                        .orderBy(data.readLong())
+                        .build());
+            }
+            int recommendationCount = readVarInt();
+            List<IndexAdvice.Recommendation> recommendations = new ArrayList<>(recommendationCount);
+            for (int i = 0; i < recommendationCount; i++) {
+                recommendations.add(IndexAdvice.Recommendation.builder()
+                        .table(readString())
+                        .columns(readStrings())
+                        .weight(data.readLong())
+                        .statements(readVarInt())
+                        .reason(readString())
+                        .ddl(readString())
+                        .examples(readStrings())
+                        .build());
+            }
+            return IndexAdvice.builder()
+                    .weightedByExecutions(weighted)
+                    .columns(columns)
+                    .recommendations(recommendations)
+                    .build();
+        }
+
+        private StatementStats readStats() throws IOException {
+            return StatementStats.builder()
+                    .fingerprint(readString())
+                    .executions(data.readLong())
+                    .totalTimeMs(data.readDouble())
+                    .maxTimeMs(data.readDouble())
+                    .rows(data.readLong())
+                    .matchScore(data.readDouble())
+                    .build();
+        }
+
+        List<String> readStrings() throws IOException {
+            int size = readVarInt();
+            if (size == 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(size - 1);
+            for (int i = 0; i < size - 1; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        private <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+            int code = readVarInt();
+            if (code == 0) {
+                return null;
+            }
+            if (code > values.length) {
+                throw new IOException("报告存储文件已损坏: 枚举值越界");
+            }
+            return values[code - 1];
+        }
+
+        String readString() throws IOException {
+            int code = readVarInt();
+            if (code == 0) {
+                return null;
+            }
+            if ((code & 1) == 1) {
+                int index = code >>> 1;
+                if (index >= strings.size()) {
+                    throw new IOException("报告存储文件已损坏: 字符串引用越界");
+                }
+                return strings.get(index);
+            }
+            byte[] bytes = new byte[(code >>> 1) - 1];
+            data.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = data.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("报告存储文件已损坏: 变长整数过长");
+        }
+    }
+}
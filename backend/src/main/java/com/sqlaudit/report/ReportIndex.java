@@ -0,0 +1,448 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.StatementStats;
+import com.sqlaudit.model.Violation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 单份扫描报告的违规二级索引
+ * <p>
+ * 扫描完成时在 {@link ViolationTable} 的列上构建一次：每个分面（严重等级、规则、文件、namespace、语句类型）
+ * 一个 int 编码列，每种排序方式预先计算一个下标排列。过滤 = 沿命中位扫描编码列，分面计数 = 按编码累加，
+ * 取值很多的分面（如文件）也不必为每个取值分配一个整报告长度的 BitSet；
+ * 分页只沿排列数组从游标位置向后取，不再遍历/复制违规列表。
+ */
+public final class ReportIndex {
+
+    /** 可过滤/计数的分面 */
+    public enum Facet {
+        SEVERITY, RULE, FILE, NAMESPACE, STATEMENT_TYPE
+    }
+
+    /** 排序方式 */
+    public enum SortKey {
+        /** 原始顺序（扫描顺序） */
+        NATURAL,
+        /** 文件路径 + 行号 */
+        FILE,
+        /** 严重等级（ERROR 在前）+ 文件路径 + 行号 */
+        SEVERITY,
+        /** 规则 ID + 文件路径 + 行号 */
+        RULE,
+        /** 运行时开销：累计耗时、执行次数从高到低，无运行时统计的排在最后 */
+        IMPACT
+    }
+
+    private static final String UNKNOWN = "unknown";
+
+    private final ViolationTable violations;
+    private final Map<Facet, FacetColumn> facets = new EnumMap<>(Facet.class);
+    /** 有序的文件路径，用于前缀查询的二分定位 */
+    private final String[] sortedFiles;
+    private final Map<SortKey, int[]> orders = new EnumMap<>(SortKey.class);
+    /** 不带过滤条件时各分面的计数，构建时算好；侧边栏首次打开、只选了单个分面时直接复用 */
+    private final Map<Facet, Map<String, Integer>> unfilteredCounts = new EnumMap<>(Facet.class);
+    private final BitSet all;
+
+    private ReportIndex(ViolationTable violations) {
+        this.violations = violations;
+        int n = violations.size();
+        for (Facet facet : Facet.values()) {
+            facets.put(facet, indexFacet(facet));
+        }
+        this.sortedFiles = facets.get(Facet.FILE).values().clone();
+        Arrays.sort(sortedFiles);
+        this.all = new BitSet(n);
+        all.set(0, n);
+        for (Facet facet : Facet.values()) {
+            unfilteredCounts.put(facet, Collections.unmodifiableMap(countValues(facet, all)));
+        }
+
+        // 片段、规则先在字典上排好名次（相同排序键名次相同），再对行做整数排序，不构造违规对象
+        List<SqlFragment> fragments = violations.fragments();
+        int[] fileRank = denseRank(fragments.size() + 1, Comparator
+                .<Integer, String>comparing(code -> fragmentValue(fragmentAt(fragments, code), Facet.FILE))
+                .thenComparingInt(code -> lineOf(fragmentAt(fragments, code))));
+        int[] impactRank = denseRank(fragments.size() + 1, Comparator
+                .<Integer>comparingDouble(code -> -totalTimeOf(fragmentAt(fragments, code)))
+                .thenComparingLong(code -> -executionsOf(fragmentAt(fragments, code))));
+        List<AuditRule> rules = violations.rules();
+        int[] ruleRank = denseRank(rules.size() + 1, Comparator.comparing(code -> ruleValue(ruleAt(rules, code))));
+
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = (long) fileRank[violations.fragmentId(i) + 1] << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] byFile = new int[n];
+        for (int i = 0; i < n; i++) {
+            byFile[i] = (int) keys[i];
+        }
+        orders.put(SortKey.FILE, byFile);
+        int[] bySeverity = stableSortBy(byFile, violations::severity, ViolationTable.UNKNOWN_SEVERITY + 1);
+        orders.put(SortKey.SEVERITY, bySeverity);
+        orders.put(SortKey.RULE, stableSortBy(byFile, i -> ruleRank[violations.ruleId(i) + 1], rules.size() + 1));
+        orders.put(SortKey.IMPACT, stableSortBy(bySeverity, i -> impactRank[violations.fragmentId(i) + 1],
+                fragments.size() + 1));
+    }
+
+    public static ReportIndex build(List<Violation> violations) {
+        return new ReportIndex(ViolationTable.of(violations));
+    }
+
+    public int size() {
+        return violations.size();
+    }
+
+    /**
+     * 计算过滤条件命中的违规集合
+     */
+    public BitSet filter(ViolationFilter filter) {
+        return filter(filter, null);
+    }
+
+    /**
+     * 按排序方式和游标取一页结果
+     */
+    public ViolationPage query(ViolationFilter filter, SortKey sortKey, String cursor, int limit) {
+        SortKey effectiveSort = sortKey != null ? sortKey : SortKey.NATURAL;
+        BitSet matched = filter(filter);
+        int[] order = orders.get(effectiveSort);
+        int position = decodeCursor(cursor, effectiveSort);
+        int pageSize = Math.max(1, limit);
+
+        List<Violation> items = new ArrayList<>(Math.min(pageSize, matched.cardinality()));
+        int n = violations.size();
+        while (position < n && items.size() < pageSize) {
+            int idx = order == null ? position : order[position];
+            if (matched.get(idx)) {
+                items.add(violations.get(idx));
+            }
+            position++;
+        }
+        String nextCursor = position < n && hasMatchFrom(matched, order, position)
+                ? encodeCursor(effectiveSort, position)
+                : null;
+        return new ViolationPage(items, matched.cardinality(), nextCursor);
+    }
+
+    /**
+     * 分面计数。某个分面的计数应用除自身以外的全部过滤条件（多选侧边栏的常规语义）。
+     * 除自身外没有其他条件的分面直接返回构建时的计数。
+     */
+    public FacetCounts facetCounts(ViolationFilter filter) {
+        Map<Facet, Map<String, Integer>> counts = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            counts.put(facet, hasConditions(filter, facet)
+                    ? countValues(facet, filter(filter, facet))
+                    : unfilteredCounts.get(facet));
+        }
+        int total = hasConditions(filter, null) ? filter(filter).cardinality() : violations.size();
+        return new FacetCounts(total, counts);
+    }
+
+    private Map<String, Integer> countValues(Facet facet, BitSet rows) {
+        FacetColumn column = facets.get(facet);
+        int[] byValue = new int[column.values().length];
+        for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+            byValue[column.codes()[i]]++;
+        }
+        Map<String, Integer> values = new TreeMap<>();
+        for (int code = 0; code < byValue.length; code++) {
+            if (byValue[code] > 0) {
+                values.put(column.values()[code], byValue[code]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 除 excluded 分面外是否还有生效的过滤条件
+     */
+    private static boolean hasConditions(ViolationFilter filter, Facet excluded) {
+        if (filter == null) {
+            return false;
+        }
+        return excluded != Facet.SEVERITY && notEmpty(filter.severities())
+                || excluded != Facet.RULE && notEmpty(filter.ruleIds())
+                || excluded != Facet.NAMESPACE && notEmpty(filter.namespaces())
+                || excluded != Facet.STATEMENT_TYPE && notEmpty(filter.statementTypes())
+                || excluded != Facet.FILE && filter.pathPrefix() != null && !filter.pathPrefix().isBlank();
+    }
+
+    private static boolean notEmpty(Set<String> values) {
+        return values != null && !values.isEmpty();
+    }
+
+    private BitSet filter(ViolationFilter filter, Facet excluded) {
+        BitSet result = (BitSet) all.clone();
+        if (filter == null) {
+            return result;
+        }
+        applyValues(result, Facet.SEVERITY, excluded, upper(filter.severities()));
+        applyValues(result, Facet.RULE, excluded, filter.ruleIds());
+        applyValues(result, Facet.NAMESPACE, excluded, filter.namespaces());
+        applyValues(result, Facet.STATEMENT_TYPE, excluded, lower(filter.statementTypes()));
+        if (excluded != Facet.FILE && filter.pathPrefix() != null && !filter.pathPrefix().isBlank()) {
+            retain(result, Facet.FILE, filesWithPrefix(filter.pathPrefix()));
+        }
+        return result;
+    }
+
+    private void applyValues(BitSet result, Facet facet, Facet excluded, Set<String> values) {
+        if (facet == excluded || values == null || values.isEmpty()) {
+            return;
+        }
+        FacetColumn column = facets.get(facet);
+        boolean[] selected = new boolean[column.values().length];
+        for (String value : values) {
+            Integer code = column.ids().get(value);
+            if (code != null) {
+                selected[code] = true;
+            }
+        }
+        retain(result, facet, selected);
+    }
+
+    /**
+     * 只保留该分面取值被选中的行：沿已命中的位扫描分面编码列
+     */
+    private void retain(BitSet result, Facet facet, boolean[] selected) {
+        int[] codes = facets.get(facet).codes();
+        for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+            if (!selected[codes[i]]) {
+                result.clear(i);
+            }
+        }
+    }
+
+    private boolean[] filesWithPrefix(String prefix) {
+        FacetColumn fileColumn = facets.get(Facet.FILE);
+        boolean[] selected = new boolean[fileColumn.values().length];
+        int from = Arrays.binarySearch(sortedFiles, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        for (int i = from; i < sortedFiles.length && sortedFiles[i].startsWith(prefix); i++) {
+            selected[fileColumn.ids().get(sortedFiles[i])] = true;
+        }
+        return selected;
+    }
+
+    private boolean hasMatchFrom(BitSet matched, int[] order, int position) {
+        if (order == null) {
+            return matched.nextSetBit(position) >= 0;
+        }
+        for (int i = position; i < order.length; i++) {
+            if (matched.get(order[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 为分面建编码列：先为每个字典下标算出取值，再按行写入取值编号；只有实际出现的取值才分配编号
+     */
+    private FacetColumn indexFacet(Facet facet) {
+        int n = violations.size();
+        int dictionarySize = switch (facet) {
+            case SEVERITY -> ViolationTable.UNKNOWN_SEVERITY + 1;
+            case RULE -> violations.rules().size() + 1;
+            default -> violations.fragments().size() + 1;
+        };
+        String[] valueOfCode = new String[dictionarySize];
+        for (int code = 0; code < dictionarySize; code++) {
+            valueOfCode[code] = switch (facet) {
+                case SEVERITY -> code < AuditRule.Severity.values().length
+                        ? AuditRule.Severity.values()[code].name()
+                        : UNKNOWN;
+                case RULE -> ruleValue(ruleAt(violations.rules(), code));
+                default -> fragmentValue(fragmentAt(violations.fragments(), code), facet);
+            };
+        }
+        Map<String, Integer> ids = new HashMap<>();
+        int[] idOfCode = new int[dictionarySize];
+        Arrays.fill(idOfCode, -1);
+        int[] codes = new int[n];
+        for (int i = 0; i < n; i++) {
+            int code = switch (facet) {
+                case SEVERITY -> violations.severity(i);
+                case RULE -> violations.ruleId(i) + 1;
+                default -> violations.fragmentId(i) + 1;
+            };
+            if (idOfCode[code] < 0) {
+                idOfCode[code] = ids.computeIfAbsent(valueOfCode[code], k -> ids.size());
+            }
+            codes[i] = idOfCode[code];
+        }
+        String[] values = new String[ids.size()];
+        ids.forEach((value, id) -> values[id] = value);
+        return new FacetColumn(codes, values, ids);
+    }
+
+    /**
+     * 字典下标 0..size-1 的名次：排序键相同的名次相同
+     */
+    private static int[] denseRank(int size, Comparator<Integer> comparator) {
+        Integer[] boxed = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, comparator);
+        int[] rank = new int[size];
+        int current = 0;
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && comparator.compare(boxed[i - 1], boxed[i]) != 0) {
+                current++;
+            }
+            rank[boxed[i]] = current;
+        }
+        return rank;
+    }
+
+    /**
+     * 按整数键对已有排列做稳定计数排序：键相同的行保持原排列中的先后
+     */
+    private static int[] stableSortBy(int[] order, IntUnaryOperator key, int buckets) {
+        int[] start = new int[buckets + 1];
+        int[] keys = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = key.applyAsInt(order[i]);
+            start[keys[i] + 1]++;
+        }
+        for (int b = 0; b < buckets; b++) {
+            start[b + 1] += start[b];
+        }
+        int[] sorted = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[start[keys[i]]++] = order[i];
+        }
+        return sorted;
+    }
+
+    /** 字典下标 code 对应的片段，code 为 0 表示无片段（列中的 -1 整体加一） */
+    private static SqlFragment fragmentAt(List<SqlFragment> fragments, int code) {
+        return code == 0 ? null : fragments.get(code - 1);
+    }
+
+    private static AuditRule ruleAt(List<AuditRule> rules, int code) {
+        return code == 0 ? null : rules.get(code - 1);
+    }
+
+    private static String ruleValue(AuditRule rule) {
+        return orUnknown(rule != null ? rule.getId() : null);
+    }
+
+    private static String fragmentValue(SqlFragment fragment, Facet facet) {
+        if (fragment == null) {
+            return UNKNOWN;
+        }
+        return orUnknown(switch (facet) {
+            case FILE -> fragment.getRelativePath();
+            case NAMESPACE -> fragment.getNamespace();
+            case STATEMENT_TYPE -> fragment.getStatementType() != null
+                    ? fragment.getStatementType().toLowerCase(Locale.ROOT)
+                    : null;
+            default -> null;
+        });
+    }
+
+    private static String orUnknown(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value;
+    }
+
+    private static int lineOf(SqlFragment fragment) {
+        return fragment != null ? fragment.getLineNumber() : 0;
+    }
+
+    private static double totalTimeOf(SqlFragment fragment) {
+        StatementStats stats = fragment != null ? fragment.getRuntimeStats() : null;
+        return stats != null ? stats.getTotalTimeMs() : -1;
+    }
+
+    private static long executionsOf(SqlFragment fragment) {
+        StatementStats stats = fragment != null ? fragment.getRuntimeStats() : null;
+        return stats != null ? stats.getExecutions() : -1;
+    }
+
+    private static Set<String> upper(Set<String> values) {
+        if (values == null) {
+            return null;
+        }
+        Set<String> result = new HashSet<>();
+        values.forEach(v -> result.add(v.toUpperCase(Locale.ROOT)));
+        return result;
+    }
+
+    private static Set<String> lower(Set<String> values) {
+        if (values == null) {
+            return null;
+        }
+        Set<String> result = new HashSet<>();
+        values.forEach(v -> result.add(v.toLowerCase(Locale.ROOT)));
+        return result;
+    }
+
+    private static String encodeCursor(SortKey sortKey, int position) {
+        String raw = sortKey.name() + ":" + position;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodeCursor(String cursor, SortKey sortKey) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep < 0 || !sortKey.name().equals(raw.substring(0, sep))) {
+                throw new IllegalArgumentException("游标与排序方式不匹配");
+            }
+            return Math.max(0, Integer.parseInt(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor, e);
+        }
+    }
+
+    /**
+     * 过滤条件；各字段为空表示不限制
+     */
+    public record ViolationFilter(Set<String> severities, Set<String> ruleIds, String pathPrefix,
+            Set<String> namespaces, Set<String> statementTypes) {
+
+        public static ViolationFilter none() {
+            return new ViolationFilter(null, null, null, null, null);
+        }
+    }
+
+    /** 一页查询结果；nextCursor 为 null 表示已无更多数据 */
+    public record ViolationPage(List<Violation> items, int total, String nextCursor) {
+    }
+
+    /** 一个分面的编码列：codes[行] 为取值编号，values[编号] 为取值 */
+    private record FacetColumn(int[] codes, String[] values, Map<String, Integer> ids) {
+    }
+
+    /** 分面计数结果 */
+    public record FacetCounts(int total, Map<Facet, Map<String, Integer>> facets) {
+    }
+}
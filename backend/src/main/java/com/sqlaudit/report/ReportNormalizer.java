@@ -0,0 +1,118 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.NormalizedReport;
+import com.sqlaudit.model.NormalizedReport.ViolationRef;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ScanReport} 与 {@link NormalizedReport} 之间的互相转换
+ * <p>
+ * 规则与片段按值去重：扫描产生的报告中它们本就是共享实例，前端回传的报告反序列化后虽是副本也能合并。
+ * 反向转换得到的 {@link ScanReport} 中，违规记录直接写入列式的 {@link ViolationTable}，共享规则/片段对象，
+ * JSON 结构与原报告一致。
+ */
+public final class ReportNormalizer {
+
+    private ReportNormalizer() {
+    }
+
+    public static NormalizedReport normalize(ScanReport report) {
+        List<Violation> violations = report.getViolations() != null ? report.getViolations() : List.of();
+
+        List<AuditRule> rules = new ArrayList<>();
+        Map<AuditRule, Integer> ruleIndex = new HashMap<>();
+        List<SqlFragment> fragments = new ArrayList<>();
+        Map<SqlFragment, Integer> fragmentIndex = new HashMap<>();
+        List<ViolationRef> refs = new ArrayList<>(violations.size());
+
+        for (Violation v : violations) {
+            int ruleIdx = -1;
+            AuditRule rule = v.getRule();
+            if (rule != null) {
+                ruleIdx = ruleIndex.computeIfAbsent(rule, r -> {
+                    rules.add(r);
+                    return rules.size() - 1;
+                });
+            }
+
+            int fragmentIdx = -1;
+            SqlFragment fragment = v.getSqlFragment();
+            if (fragment != null) {
+                fragmentIdx = fragmentIndex.computeIfAbsent(fragment, f -> {
+                    fragments.add(f);
+                    return fragments.size() - 1;
+                });
+            }
+
+            refs.add(ViolationRef.builder()
+                    .rule(ruleIdx)
+                    .fragment(fragmentIdx)
+                    .message(v.getMessage())
+                    .suggestion(v.getSuggestion())
+                    .exampleSql(v.getExampleSql())
+                    .matchedText(v.getMatchedText())
+                    .build());
+        }
+
+        return NormalizedReport.builder()
+                .repoPath(report.getRepoPath())
+                .scanTime(report.getScanTime())
+                .totalFiles(report.getTotalFiles())
+                .totalStatements(report.getTotalStatements())
+                .totalViolations(report.getTotalViolations())
+                .errorCount(report.getErrorCount())
+                .warningCount(report.getWarningCount())
+                .infoCount(report.getInfoCount())
+                .rules(rules)
+                .fragments(fragments)
+                .violations(refs)
+                .scannedFiles(report.getScannedFiles())
+                .notices(report.getNotices())
+                .limitReached(report.isLimitReached())
+                .baselineSuppressed(report.getBaselineSuppressed())
+                .build();
+    }
+
+    /**
+     * 兼容视图：还原为原有结构的 {@link ScanReport}
+     */
+    public static ScanReport denormalize(NormalizedReport normalized) {
+        List<AuditRule> rules = normalized.getRules() != null ? normalized.getRules() : List.of();
+        List<SqlFragment> fragments = normalized.getFragments() != null ? normalized.getFragments() : List.of();
+        List<ViolationRef> refs = normalized.getViolations() != null ? normalized.getViolations() : List.of();
+
+        ViolationTable violations = new ViolationTable(refs.size());
+        for (ViolationRef ref : refs) {
+            violations.add(lookup(rules, ref.getRule()), lookup(fragments, ref.getFragment()), ref.getMessage(),
+                    ref.getSuggestion(), ref.getExampleSql(), ref.getMatchedText());
+        }
+
+        return ScanReport.builder()
+                .repoPath(normalized.getRepoPath())
+                .scanTime(normalized.getScanTime())
+                .totalFiles(normalized.getTotalFiles())
+                .totalStatements(normalized.getTotalStatements())
+                .totalViolations(normalized.getTotalViolations())
+                .errorCount(normalized.getErrorCount())
+                .warningCount(normalized.getWarningCount())
+                .infoCount(normalized.getInfoCount())
+                .violations(violations)
+                .scannedFiles(normalized.getScannedFiles())
+                .notices(normalized.getNotices())
+                .limitReached(normalized.isLimitReached())
+                .baselineSuppressed(normalized.getBaselineSuppressed())
+                .build();
+    }
+
+    private static <T> T lookup(List<T> table, int index) {
+        return index >= 0 && index < table.size() ? table.get(index) : null;
+    }
+}
@@ -0,0 +1,214 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.StatementStats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 运行时语句统计快照的查找索引：把扫描出的 SQL 片段关联到生产环境的执行统计
+ * <p>
+ * 先按"语句形状"（占位符、字面量、IN 列表、空白统一后的文本）做哈希精确匹配；
+ * 动态 SQL 拼接结果与 Mapper 原文往往不完全一致，未命中时再按词元集合的 Jaccard 相似度匹配。
+ * 相似度候选只从低频词元（表名、列名）的倒排表中产生，不与全部条目逐一比较。
+ */
+public final class RuntimeStatsIndex {
+
+    /** 相似度匹配的最低 Jaccard 系数 */
+    static final double MIN_SIMILARITY = 0.7;
+    /** 单次相似度匹配最多比较的候选条目数 */
+    private static final int MAX_CANDIDATES = 64;
+
+    private static final Pattern MYBATIS_PARAM = Pattern.compile("[#$]\\{[^}]*}");
+    private static final Pattern POSITIONAL_PARAM = Pattern.compile("\\$\\d+");
+    private static final Pattern PUNCTUATION_SPACE = Pattern.compile("\\s*([(),=<>!+\\-*/|;])\\s*");
+    private static final Pattern PARAM_LIST = Pattern.compile("\\?(?:,\\?)+");
+    private static final Pattern TOKEN = Pattern.compile("[A-Z_][A-Z0-9_$]*");
+
+    private final Map<String, Integer> exact;
+    private final List<Entry> entries;
+    private final Map<String, int[]> postings;
+    /** 倒排表长度超过该值的词元（SELECT、WHERE 等）不参与候选生成 */
+    private final int commonTokenThreshold;
+
+    private RuntimeStatsIndex(Map<String, Integer> exact, List<Entry> entries, Map<String, int[]> postings) {
+        this.exact = exact;
+        this.entries = entries;
+        this.postings = postings;
+        this.commonTokenThreshold = Math.max(8, entries.size() / 10);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 语句形状：MyBatis 参数、$n 占位符和字面量统一为 ?，IN 列表折叠为单个 ?，去掉标点两侧空白并转大写
+     */
+    public static String shapeOf(CharSequence sql) {
+        if (sql == null) {
+            return "";
+        }
+        String shape = MYBATIS_PARAM.matcher(sql).replaceAll("?");
+        shape = POSITIONAL_PARAM.matcher(shape).replaceAll("?");
+        shape = ViolationFingerprint.normalizeSql(shape);
+        shape = PUNCTUATION_SPACE.matcher(shape).replaceAll("$1");
+        shape = PARAM_LIST.matcher(shape).replaceAll("?");
+        int end = shape.length();
+        while (end > 0 && shape.charAt(end - 1) == ';') {
+            end--;
+        }
+        return shape.substring(0, end);
+    }
+
+    /**
+     * 查找 SQL 对应的运行时统计
+     *
+     * @return 统计副本，matchScore 为匹配程度；没有足够相似的条目时返回 null
+     */
+    public StatementStats match(CharSequence sql) {
+        String shape = shapeOf(sql);
+        Integer hit = exact.get(shape);
+        if (hit != null) {
+            return entries.get(hit).toStats(1.0);
+        }
+        String[] tokens = tokensOf(shape);
+        Map<Integer, Integer> candidates = new HashMap<>();
+        for (String token : tokens) {
+            int[] posting = postings.get(token);
+            if (posting != null && posting.length <= commonTokenThreshold) {
+                for (int id : posting) {
+                    candidates.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(candidates.entrySet());
+        if (ranked.size() > MAX_CANDIDATES) {
+            ranked.sort(Map.Entry.<Integer, Integer>comparingByValue().reversed());
+            ranked = ranked.subList(0, MAX_CANDIDATES);
+        }
+        int best = -1;
+        double bestScore = 0;
+        for (Map.Entry<Integer, Integer> candidate : ranked) {
+            double score = jaccard(tokens, entries.get(candidate.getKey()).tokens);
+            if (score > bestScore) {
+                best = candidate.getKey();
+                bestScore = score;
+            }
+        }
+        return bestScore >= MIN_SIMILARITY ? entries.get(best).toStats(bestScore) : null;
+    }
+
+    /** 去重并排序后的词元数组，便于求交 */
+    private static String[] tokensOf(String shape) {
+        TreeSet<String> tokens = new TreeSet<>();
+        Matcher matcher = TOKEN.matcher(shape);
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens.toArray(String[]::new);
+    }
+
+    private static double jaccard(String[] a, String[] b) {
+        int i = 0;
+        int j = 0;
+        int shared = 0;
+        while (i < a.length && j < b.length) {
+            int cmp = a[i].compareTo(b[j]);
+            if (cmp == 0) {
+                shared++;
+                i++;
+                j++;
+            } else if (cmp < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - shared;
+        return union == 0 ? 0 : (double) shared / union;
+    }
+
+    private static final class Entry {
+
+        private final String shape;
+        private final String[] tokens;
+        private long calls;
+        private double totalTimeMs;
+        private double maxTimeMs;
+        private long rows;
+
+        private Entry(String shape) {
+            this.shape = shape;
+            this.tokens = tokensOf(shape);
+        }
+
+        StatementStats toStats(double score) {
+            return StatementStats.builder()
+                    .fingerprint(ViolationFingerprint.ofStatement(shape))
+                    .executions(calls)
+                    .totalTimeMs(totalTimeMs)
+                    .maxTimeMs(maxTimeMs)
+                    .rows(rows)
+                    .matchScore(score)
+                    .build();
+        }
+    }
+
+    /**
+     * 逐条累加统计；形状相同的多条记录（如不同数据库、不同用户下的同一语句）合并为一个条目
+     */
+    public static final class Builder {
+
+        private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder add(String sql, long calls, double totalTimeMs, double maxTimeMs, long rows) {
+            String shape = shapeOf(sql);
+            if (shape.isEmpty()) {
+                return this;
+            }
+            Entry entry = entries.computeIfAbsent(shape, Entry::new);
+            entry.calls += calls;
+            entry.totalTimeMs += totalTimeMs;
+            entry.maxTimeMs = Math.max(entry.maxTimeMs, maxTimeMs);
+            entry.rows += rows;
+            return this;
+        }
+
+        public int size() {
+            return entries.size();
+        }
+
+        public RuntimeStatsIndex build() {
+            List<Entry> list = new ArrayList<>(entries.values());
+            Map<String, Integer> exact = new HashMap<>(list.size() * 2);
+            Map<String, List<Integer>> tokenLists = new HashMap<>();
+            for (int i = 0; i < list.size(); i++) {
+                Entry entry = list.get(i);
+                exact.put(entry.shape, i);
+                for (String token : entry.tokens) {
+                    tokenLists.computeIfAbsent(token, k -> new ArrayList<>()).add(i);
+                }
+            }
+            Map<String, int[]> postings = new HashMap<>(tokenLists.size() * 2);
+            tokenLists.forEach((token, ids) -> postings.put(token, ids.stream().mapToInt(Integer::intValue).toArray()));
+            return new RuntimeStatsIndex(exact, List.copyOf(list), postings);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.ShardFileResult;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 分布式扫描中 worker 传回分片结果的流式编码
+ * <p>
+ * 每处理完一个文件写出一条记录并同步刷新，协调节点边接收边解码；字符串与规则在整条流内去重，
+ * 编码方式与 {@link ReportBinaryCodec} 相同。流以结束标记收尾，连接中断导致缺少结束标记时读取失败，
+ * 协调节点据此判定分片失败并重新分配。
+ */
+public final class ShardResultCodec {
+
+    private static final int MAGIC = 0x53515348; // "SQSH"
+    private static final int VERSION = 1;
+    private static final int TAG_END = 0;
+    private static final int TAG_FILE = 1;
+
+    private ShardResultCodec() {
+    }
+
+    /**
+     * 创建编码器；写完全部文件后调用 {@link Encoder#finish()}，不关闭传入的流
+     */
+    public static Encoder encoder(OutputStream out) throws IOException {
+        return new Encoder(out);
+    }
+
+    /**
+     * 逐条解码文件结果交给 consumer；读到结束标记前流已结束时抛出 {@link IOException}。不关闭传入的流
+     */
+    public static void read(InputStream in, Consumer<ShardFileResult> consumer) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            InflaterInputStream inflaterIn = new InflaterInputStream(in, inflater, 8192);
+            ReportBinaryCodec.Reader reader = new ReportBinaryCodec.Reader(
+                    new DataInputStream(new BufferedInputStream(inflaterIn, 8192)));
+            if (reader.data.readInt() != MAGIC) {
+                throw new IOException("不是有效的分片结果");
+            }
+            int version = reader.readVarInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的分片结果版本: " + version);
+            }
+            List<AuditRule> rules = new ArrayList<>();
+            int files = 0;
+            for (int tag = reader.readVarInt(); tag != TAG_END; tag = reader.readVarInt()) {
+                if (tag != TAG_FILE) {
+                    throw new IOException("分片结果已损坏: 未知记录类型 " + tag);
+                }
+                consumer.accept(readFile(reader, rules));
+                files++;
+            }
+            if (reader.readVarInt() != files) {
+                throw new IOException("分片结果已损坏: 文件数不一致");
+            }
+        } catch (EOFException e) {
+            throw new IOException("分片结果不完整，连接可能已中断", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ShardFileResult readFile(ReportBinaryCodec.Reader reader, List<AuditRule> rules)
+            throws IOException {
+        int fileIndex = reader.readVarInt();
+        int fragmentCount = reader.readVarInt();
+        List<SqlFragment> fragments = new ArrayList<>(fragmentCount);
+        for (int i = 0; i < fragmentCount; i++) {
+            fragments.add(reader.readFragment());
+        }
+        int violationCount = reader.readVarInt();
+        List<Violation> violations = new ArrayList<>(violationCount);
+        int[] suppressedBefore = new int[violationCount];
+        for (int i = 0; i < violationCount; i++) {
+            AuditRule rule = readRule(reader, rules);
+            int fragment = reader.readVarInt() - 1;
+            if (fragment >= fragmentCount) {
+                throw new IOException("分片结果已损坏: 片段引用越界");
+            }
+            violations.add(Violation.builder()
+                    .rule(rule)
+                    .sqlFragment(fragment < 0 ? null : fragments.get(fragment))
+                    .message(reader.readString())
+                    .suggestion(reader.readString())
+                    .exampleSql(reader.readString())
+                    .matchedText(reader.readString())
+                    .build());
+            suppressedBefore[i] = reader.readVarInt();
+        }
+        return ShardFileResult.builder()
+                .fileIndex(fileIndex)
+                .fragments(fragments)
+                .violations(violations)
+                .suppressedBefore(suppressedBefore)
+                .suppressedAfter(reader.readVarInt())
+                .truncated(reader.data.readBoolean())
+                .build();
+    }
+
+    /**
+     * 规则引用：0 表示 null；奇数 2n+1 引用已出现的第 n 条规则；2 表示紧跟一条新规则
+     */
+    private static AuditRule readRule(ReportBinaryCodec.Reader reader, List<AuditRule> rules) throws IOException {
+        int code = reader.readVarInt();
+        if (code == 0) {
+            return null;
+        }
+        if (code == 2) {
+            AuditRule rule = reader.readRule();
+            rules.add(rule);
+            return rule;
+        }
+        int index = code >>> 1;
+        if ((code & 1) == 0 || index >= rules.size()) {
+            throw new IOException("分片结果已损坏: 规则引用越界");
+        }
+        return rules.get(index);
+    }
+
+    /**
+     * 分片结果编码器；非线程安全
+     */
+    public static final class Encoder {
+
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final DeflaterOutputStream deflaterOut;
+        private final ReportBinaryCodec.Writer writer;
+        private final Map<AuditRule, Integer> ruleIds = new IdentityHashMap<>();
+        private int files;
+
+        private Encoder(OutputStream out) throws IOException {
+            // 同步刷新：每个文件的记录写完即可被对端解码
+            this.deflaterOut = new DeflaterOutputStream(out, deflater, 8192, true);
+            this.writer = new ReportBinaryCodec.Writer(new DataOutputStream(new BufferedOutputStream(deflaterOut,
+                    8192)));
+            writer.data.writeInt(MAGIC);
+            writer.writeVarInt(VERSION);
+        }
+
+        public void write(ShardFileResult result) throws IOException {
+            writer.writeVarInt(TAG_FILE);
+            writer.writeVarInt(result.getFileIndex());
+            List<SqlFragment> fragments = result.getFragments() != null ? result.getFragments() : List.of();
+            Map<SqlFragment, Integer> fragmentIds = new IdentityHashMap<>();
+            writer.writeVarInt(fragments.size());
+            for (SqlFragment fragment : fragments) {
+                fragmentIds.putIfAbsent(fragment, fragmentIds.size());
+                writer.writeFragment(fragment);
+            }
+            List<Violation> violations = result.getViolations() != null ? result.getViolations() : List.of();
+            writer.writeVarInt(violations.size());
+            for (int i = 0; i < violations.size(); i++) {
+                Violation v = violations.get(i);
+                writeRule(v.getRule());
+                Integer fragment = v.getSqlFragment() != null ? fragmentIds.get(v.getSqlFragment()) : null;
+                if (v.getSqlFragment() != null && fragment == null) {
+                    throw new IllegalArgumentException("违规引用的片段不属于该文件");
+                }
+                writer.writeVarInt(fragment == null ? 0 : fragment + 1);
+                writer.writeString(v.getMessage());
+                writer.writeString(v.getSuggestion());
+                writer.writeString(v.getExampleSql());
+                writer.writeString(v.getMatchedText());
+                writer.writeVarInt(result.getSuppressedBefore() != null ? result.getSuppressedBefore()[i] : 0);
+            }
+            writer.writeVarInt(result.getSuppressedAfter());
+            writer.data.writeBoolean(result.isTruncated());
+            files++;
+            writer.data.flush();
+        }
+
+        /**
+         * 写出结束标记并结束压缩流
+         */
+        public void finish() throws IOException {
+            try {
+                writer.writeVarInt(TAG_END);
+                writer.writeVarInt(files);
+                writer.data.flush();
+                deflaterOut.finish();
+                deflaterOut.flush();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void writeRule(AuditRule rule) throws IOException {
+            if (rule == null) {
+                writer.writeVarInt(0);
+                return;
+            }
+            Integer existing = ruleIds.get(rule);
+            if (existing != null) {
+                writer.writeVarInt(existing * 2 + 1);
+                return;
+            }
+            ruleIds.put(rule, ruleIds.size());
+            writer.writeVarInt(2);
+            writer.writeRule(rule);
+        }
+    }
+}
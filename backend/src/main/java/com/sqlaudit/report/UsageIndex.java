@@ -0,0 +1,361 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.rule.StatementUsage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 整个仓库的表 / 列用法倒排索引：表 → 语句、表.列 → 语句，附带读写与过滤标志
+ * <p>
+ * 扫描时对每条 SQL 片段提取一次（见 {@link StatementUsage}），随报告一起保存。语句按扫描顺序编号，
+ * 倒排表是按编号升序的 int 数组，每项为 {@code 编号 << 2 | 标志位}，不为每条记录创建对象；
+ * 查询只做有序数组的过滤、求交和求差。语句本身只保留定位信息（文件、行号、语句 ID、类型），文件路径去重存放。
+ */
+public final class UsageIndex {
+
+    /** 访问方式过滤 */
+    public enum Access {
+        ANY, READ, WRITE
+    }
+
+    private static final int FLAG_BITS = 2;
+
+    private final String[] files;
+    private final int[] fileOf;
+    private final int[] lineOf;
+    private final String[] statementIds;
+    private final String[] statementTypes;
+    /** 表名 → 倒排表 */
+    private final Map<String, int[]> tables;
+    /** 表名.列名 → 倒排表 */
+    private final Map<String, int[]> columns;
+
+    private UsageIndex(String[] files, int[] fileOf, int[] lineOf, String[] statementIds, String[] statementTypes,
+            Map<String, int[]> tables, Map<String, int[]> columns) {
+        this.files = files;
+        this.fileOf = fileOf;
+        this.lineOf = lineOf;
+        this.statementIds = statementIds;
+        this.statementTypes = statementTypes;
+        this.tables = tables;
+        this.columns = columns;
+    }
+
+    /**
+     * 语句定位信息
+     *
+     * @param write 按表查询时表示该语句是否写入这张表；按列查询时表示是否给该列赋值
+     */
+    public record StatementRef(String file, int line, String statementId, String statementType, boolean write) {
+    }
+
+    /**
+     * 表的用法统计
+     */
+    public record TableUsage(String table, int statements, int writes) {
+    }
+
+    /**
+     * 查询条件；table 必填，其余可选
+     *
+     * @param column        只要引用了该列的语句
+     * @param filteredBy    只要在条件中按该列过滤的语句
+     * @param notFilteredBy 只要没有按该列过滤的语句（如"访问 t_order 却没按 tenant_id 过滤"）
+     */
+    public record UsageQuery(String table, String column, Access access, String filteredBy, String notFilteredBy) {
+    }
+
+    public record UsagePage(int total, List<StatementRef> items) {
+    }
+
+    public static UsageIndex build(List<SqlFragment> fragments) {
+        Builder builder = new Builder(fragments.size());
+        for (SqlFragment fragment : fragments) {
+            builder.add(fragment);
+        }
+        return builder.build();
+    }
+
+    public int statementCount() {
+        return fileOf.length;
+    }
+
+    /**
+     * 全部表的用法统计，按表名排序
+     */
+    public List<TableUsage> tables() {
+        List<TableUsage> result = new ArrayList<>(tables.size());
+        new TreeMap<>(tables).forEach((table, postings) -> {
+            int writes = 0;
+            for (int entry : postings) {
+                if ((entry & StatementUsage.WRITE) != 0) {
+                    writes++;
+                }
+            }
+            result.add(new TableUsage(table, postings.length, writes));
+        });
+        return result;
+    }
+
+    /**
+     * 表中被引用过的列，按列名排序
+     */
+    public List<String> columns(String table) {
+        String prefix = normalizeTable(table) + ".";
+        List<String> result = new ArrayList<>();
+        for (String key : columns.keySet()) {
+            if (key.startsWith(prefix)) {
+                result.add(key.substring(prefix.length()));
+            }
+        }
+        result.sort(null);
+        return result;
+    }
+
+    public UsagePage query(UsageQuery query, int offset, int limit) {
+        if (query.table() == null || query.table().isBlank()) {
+            throw new IllegalArgumentException("请指定表名 (table)");
+        }
+        String table = normalizeTable(query.table());
+        int[] postings = query.column() != null && !query.column().isBlank()
+                ? columnPostings(table, query.column())
+                : tables.getOrDefault(table, new int[0]);
+        Access access = query.access() != null ? query.access() : Access.ANY;
+        int[] matched = new int[postings.length];
+        int count = 0;
+        for (int entry : postings) {
+            boolean write = (entry & StatementUsage.WRITE) != 0;
+            if (access == Access.ANY || (access == Access.WRITE) == write) {
+                matched[count++] = entry;
+            }
+        }
+        if (query.filteredBy() != null && !query.filteredBy().isBlank()) {
+            count = retain(matched, count, columnPostings(table, query.filteredBy()), true);
+        }
+        if (query.notFilteredBy() != null && !query.notFilteredBy().isBlank()) {
+            count = retain(matched, count, columnPostings(table, query.notFilteredBy()), false);
+        }
+
+        int from = Math.max(0, Math.min(offset, count));
+        int to = Math.min(count, from + Math.max(0, limit));
+        List<StatementRef> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            int id = matched[i] >>> FLAG_BITS;
+            items.add(new StatementRef(files[fileOf[id]], lineOf[id], statementIds[id], statementTypes[id],
+                    (matched[i] & StatementUsage.WRITE) != 0));
+        }
+        return new UsagePage(count, items);
+    }
+
+    /**
+     * 粗略内存占用，供报告存储估算预算
+     */
+    public long estimatedBytes() {
+        long bytes = 256 + fileOf.length * 24L;
+        for (String file : files) {
+            bytes += 40L + file.length();
+        }
+        for (int[] postings : tables.values()) {
+            bytes += 64 + postings.length * 4L;
+        }
+        for (Map.Entry<String, int[]> entry : columns.entrySet()) {
+            bytes += 64 + entry.getKey().length() + entry.getValue().length * 4L;
+        }
+        return bytes;
+    }
+
+    private int[] columnPostings(String table, String column) {
+        return columns.getOrDefault(table + "." + normalize(column), new int[0]);
+    }
+
+    /**
+     * 按语句编号与另一倒排表求交（keep=true，且要求对方带过滤标志）或求差（keep=false），结果原地写回
+     */
+    private static int retain(int[] entries, int count, int[] filters, boolean keep) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            int id = entries[i] >>> FLAG_BITS;
+            while (j < filters.length && filters[j] >>> FLAG_BITS < id) {
+                j++;
+            }
+            boolean filtered = j < filters.length && filters[j] >>> FLAG_BITS == id
+                    && (filters[j] & StatementUsage.FILTER) != 0;
+            if (filtered == keep) {
+                entries[kept++] = entries[i];
+            }
+        }
+        return kept;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().replace("\"", "").replace("`", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 表名与索引中一致，按去掉 schema 的短名查找
+     */
+    private static String normalizeTable(String name) {
+        String table = normalize(name);
+        int dot = table.lastIndexOf('.');
+        return dot >= 0 ? table.substring(dot + 1) : table;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(files.length);
+        for (String file : files) {
+            out.writeUTF(file);
+        }
+        out.writeInt(fileOf.length);
+        for (int i = 0; i < fileOf.length; i++) {
+            out.writeInt(fileOf[i]);
+            out.writeInt(lineOf[i]);
+            writeNullable(out, statementIds[i]);
+            writeNullable(out, statementTypes[i]);
+        }
+        writePostings(out, tables);
+        writePostings(out, columns);
+    }
+
+    static UsageIndex read(DataInputStream in) throws IOException {
+        String[] files = new String[in.readInt()];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = in.readUTF();
+        }
+        int statements = in.readInt();
+        int[] fileOf = new int[statements];
+        int[] lineOf = new int[statements];
+        String[] statementIds = new String[statements];
+        String[] statementTypes = new String[statements];
+        Map<String, String> types = new HashMap<>();
+        for (int i = 0; i < statements; i++) {
+            fileOf[i] = in.readInt();
+            lineOf[i] = in.readInt();
+            statementIds[i] = readNullable(in);
+            String type = readNullable(in);
+            statementTypes[i] = type != null ? types.computeIfAbsent(type, t -> t) : null;
+        }
+        return new UsageIndex(files, fileOf, lineOf, statementIds, statementTypes, readPostings(in), readPostings(in));
+    }
+
+    /** 倒排表按差值写出，deflate 后接近变长编码的体积 */
+    private static void writePostings(DataOutputStream out, Map<String, int[]> postings) throws IOException {
+        out.writeInt(postings.size());
+        for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+            out.writeUTF(entry.getKey());
+            int[] list = entry.getValue();
+            out.writeInt(list.length);
+            int previous = 0;
+            for (int value : list) {
+                out.writeInt(value - previous);
+                previous = value;
+            }
+        }
+    }
+
+    private static Map<String, int[]> readPostings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, int[]> postings = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = in.readUTF();
+            int[] list = new int[in.readInt()];
+            int previous = 0;
+            for (int j = 0; j < list.length; j++) {
+                previous += in.readInt();
+                list[j] = previous;
+            }
+            postings.put(key, list);
+        }
+        return postings;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class Builder {
+
+        private final Map<String, Integer> fileIds = new HashMap<>();
+        private final List<String> files = new ArrayList<>();
+        private final Map<String, String> types = new HashMap<>();
+        private final int[] fileOf;
+        private final int[] lineOf;
+        private final String[] statementIds;
+        private final String[] statementTypes;
+        private final Map<String, IntList> tables = new HashMap<>();
+        private final Map<String, IntList> columns = new HashMap<>();
+        private int next;
+
+        private Builder(int capacity) {
+            fileOf = new int[capacity];
+            lineOf = new int[capacity];
+            statementIds = new String[capacity];
+            statementTypes = new String[capacity];
+        }
+
+        void add(SqlFragment fragment) {
+            int id = next++;
+            String file = fragment.getRelativePath() != null ? fragment.getRelativePath() : fragment.getFilePath();
+            fileOf[id] = fileIds.computeIfAbsent(file != null ? file : "", f -> {
+                files.add(f);
+                return files.size() - 1;
+            });
+            lineOf[id] = fragment.getLineNumber();
+            statementIds[id] = fragment.getStatementId();
+            String type = fragment.getStatementType();
+            statementTypes[id] = type != null ? types.computeIfAbsent(type, t -> t) : null;
+
+            StatementUsage.Usage usage = StatementUsage.extract(fragment.sqlTextView());
+            usage.tables().forEach((table, flags) ->
+                    tables.computeIfAbsent(table, k -> new IntList()).add(id << FLAG_BITS | flags));
+            usage.columns().forEach((table, byColumn) -> byColumn.forEach((column, flags) ->
+                    columns.computeIfAbsent(table + "." + column, k -> new IntList()).add(id << FLAG_BITS | flags)));
+        }
+
+        UsageIndex build() {
+            return new UsageIndex(files.toArray(String[]::new), fileOf, lineOf, statementIds, statementTypes,
+                    trim(tables), trim(columns));
+        }
+
+        private static Map<String, int[]> trim(Map<String, IntList> lists) {
+            Map<String, int[]> result = new HashMap<>(lists.size() * 2);
+            lists.forEach((key, list) -> result.put(key, list.toArray()));
+            return result;
+        }
+    }
+
+    /** 可增长的 int 数组，避免装箱 */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.util.Digests;
+
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 违规指纹：规则 ID + namespace + statementId + 规范化后的匹配文本
+ * <p>
+ * 不包含文件路径和行号，因此在调整代码位置、增删其他语句后仍保持稳定。
+ * SQL 脚本的 statementId 由行号生成（如 SELECT_L12），这类片段改用规范化后的 SQL 文本定位。
+ */
+public final class ViolationFingerprint {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String SQL_SCRIPT_NAMESPACE = "sql-script";
+
+    private ViolationFingerprint() {
+    }
+
+    public static String of(Violation violation) {
+        AuditRule rule = violation.getRule();
+        SqlFragment fragment = violation.getSqlFragment();
+        String ruleId = rule != null ? rule.getId() : null;
+        String namespace = fragment != null ? fragment.getNamespace() : null;
+        String statement = null;
+        if (fragment != null) {
+            statement = SQL_SCRIPT_NAMESPACE.equals(namespace)
+                    ? normalizeSql(fragment.sqlTextView())
+                    : fragment.getStatementId();
+        }
+        return hash(ruleId, namespace, statement, normalizeSql(violation.getMatchedText()));
+    }
+
+    /**
+     * 语句指纹：规范化后 SQL 文本的哈希，字面量不同的同一语句得到相同指纹
+     */
+    public static String ofStatement(CharSequence sql) {
+        return hash(normalizeSql(sql));
+    }
+
+    /**
+     * 规范化 SQL 文本：字面量替换为 ?，合并空白，统一大写
+     */
+    public static String normalizeSql(CharSequence sql) {
+        if (sql == null) {
+            return "";
+        }
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return normalized.toUpperCase(Locale.ROOT);
+    }
+
+    private static String hash(String... parts) {
+        MessageDigest digest = Digests.sha256();
+        for (String part : parts) {
+            Digests.update(digest, part);
+        }
+        // 取前 16 字节（128 位），对几十万级条目的碰撞概率可忽略
+        return Digests.hex(digest, 16);
+    }
+}
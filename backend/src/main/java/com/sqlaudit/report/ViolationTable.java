@@ -0,0 +1,387 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 列式存储的违规列表
+ * <p>
+ * 每条违规只占几个 int：规则、片段、严重等级三列保存字典下标，描述 / 修复建议 / 示例改写按取值去重后存下标，
+ * 匹配文本追加到共享的 char 数组，只记录起止位置。计数、分面分组、排序直接在这些数组上进行；
+ * 只有 {@link #get(int)}（接口返回、导出等边缘位置）才临时构造 {@link Violation} 对象。
+ * <p>
+ * 仅支持追加，不支持删除和替换；非线程安全。
+ */
+public final class ViolationTable extends AbstractList<Violation> implements RandomAccess {
+
+    /** 严重等级列中"无规则 / 无等级"的取值，排在所有等级之后 */
+    public static final int UNKNOWN_SEVERITY = AuditRule.Severity.values().length;
+
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<AuditRule> rules = new ArrayList<>();
+    private final List<SqlFragment> fragments = new ArrayList<>();
+    private final List<String> texts = new ArrayList<>();
+    /** 追加时使用的反查表；{@link #trimToSize()} 后释放，再次追加时按需重建 */
+    private Map<AuditRule, Integer> ruleIds = new IdentityHashMap<>();
+    private Map<SqlFragment, Integer> fragmentIds = new IdentityHashMap<>();
+    private Map<String, Integer> textIds = new HashMap<>();
+
+    private int size;
+    private int[] ruleColumn;
+    private int[] fragmentColumn;
+    private int[] severityColumn;
+    private int[] messageColumn;
+    private int[] suggestionColumn;
+    private int[] exampleColumn;
+    private int[] matchStart;
+    /** 匹配文本长度；-1 表示 null */
+    private int[] matchLength;
+    private char[] arena;
+    private int arenaLength;
+
+    public ViolationTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ViolationTable(int capacity) {
+        int initial = Math.max(1, capacity);
+        ruleColumn = new int[initial];
+        fragmentColumn = new int[initial];
+        severityColumn = new int[initial];
+        messageColumn = new int[initial];
+        suggestionColumn = new int[initial];
+        exampleColumn = new int[initial];
+        matchStart = new int[initial];
+        matchLength = new int[initial];
+        arena = new char[initial * 32];
+    }
+
+    /**
+     * 转换为列式存储；本身已是列式存储时原样返回
+     */
+    public static ViolationTable of(List<Violation> violations) {
+        if (violations instanceof ViolationTable table) {
+            return table;
+        }
+        List<Violation> source = violations != null ? violations : List.of();
+        ViolationTable table = new ViolationTable(source.size());
+        for (Violation v : source) {
+            table.add(v);
+        }
+        return table;
+    }
+
+    @Override
+    public boolean add(Violation v) {
+        return add(v.getRule(), v.getSqlFragment(), v.getMessage(), v.getSuggestion(), v.getExampleSql(),
+                v.getMatchedText());
+    }
+
+    /**
+     * 直接按字段追加，不经过 {@link Violation} 对象
+     */
+    public boolean add(AuditRule rule, SqlFragment fragment, String message, String suggestion, String exampleSql,
+            String matchedText) {
+        ensureCapacity(size + 1);
+        ruleColumn[size] = rule != null ? internRule(rule) : NONE;
+        fragmentColumn[size] = fragment != null ? internFragment(fragment) : NONE;
+        severityColumn[size] = rule != null && rule.getSeverity() != null
+                ? rule.getSeverity().ordinal()
+                : UNKNOWN_SEVERITY;
+        messageColumn[size] = internText(message);
+        suggestionColumn[size] = internText(suggestion);
+        exampleColumn[size] = internText(exampleSql);
+        if (matchedText == null) {
+            matchStart[size] = 0;
+            matchLength[size] = NONE;
+        } else {
+            matchStart[size] = arenaLength;
+            matchLength[size] = matchedText.length();
+            appendToArena(matchedText);
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Violation get(int index) {
+        checkIndex(index);
+        return Violation.builder()
+                .rule(rule(index))
+                .sqlFragment(fragment(index))
+                .message(text(messageColumn[index]))
+                .suggestion(text(suggestionColumn[index]))
+                .exampleSql(text(exampleColumn[index]))
+                .matchedText(matchedText(index))
+                .build();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** 第 index 条违规的规则在 {@link #rules()} 中的下标，无规则时为 -1 */
+    public int ruleId(int index) {
+        checkIndex(index);
+        return ruleColumn[index];
+    }
+
+    /** 第 index 条违规的片段在 {@link #fragments()} 中的下标，无片段时为 -1 */
+    public int fragmentId(int index) {
+        checkIndex(index);
+        return fragmentColumn[index];
+    }
+
+    /** 第 index 条违规的严重等级序号，无等级时为 {@link #UNKNOWN_SEVERITY} */
+    public int severity(int index) {
+        checkIndex(index);
+        return severityColumn[index];
+    }
+
+    public AuditRule rule(int index) {
+        int id = ruleId(index);
+        return id == NONE ? null : rules.get(id);
+    }
+
+    public SqlFragment fragment(int index) {
+        int id = fragmentId(index);
+        return id == NONE ? null : fragments.get(id);
+    }
+
+    public String message(int index) {
+        checkIndex(index);
+        return text(messageColumn[index]);
+    }
+
+    public String suggestion(int index) {
+        checkIndex(index);
+        return text(suggestionColumn[index]);
+    }
+
+    public String exampleSql(int index) {
+        checkIndex(index);
+        return text(exampleColumn[index]);
+    }
+
+    public String matchedText(int index) {
+        checkIndex(index);
+        int length = matchLength[index];
+        return length == NONE ? null : new String(arena, matchStart[index], length);
+    }
+
+    /** 规则字典（按首次出现顺序，同一实例只出现一次） */
+    public List<AuditRule> rules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /** 片段字典（按首次出现顺序，同一实例只出现一次） */
+    public List<SqlFragment> fragments() {
+        return Collections.unmodifiableList(fragments);
+    }
+
+    /**
+     * 按严重等级计数，下标为等级序号，最后一格为无等级
+     */
+    public int[] countBySeverity() {
+        int[] counts = new int[UNKNOWN_SEVERITY + 1];
+        for (int i = 0; i < size; i++) {
+            counts[severityColumn[i]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * 收缩各列到实际大小并释放追加用的反查表；报告定稿（存入报告存储）后调用
+     */
+    public void trimToSize() {
+        ruleColumn = Arrays.copyOf(ruleColumn, size);
+        fragmentColumn = Arrays.copyOf(fragmentColumn, size);
+        severityColumn = Arrays.copyOf(severityColumn, size);
+        messageColumn = Arrays.copyOf(messageColumn, size);
+        suggestionColumn = Arrays.copyOf(suggestionColumn, size);
+        exampleColumn = Arrays.copyOf(exampleColumn, size);
+        matchStart = Arrays.copyOf(matchStart, size);
+        matchLength = Arrays.copyOf(matchLength, size);
+        arena = Arrays.copyOf(arena, arenaLength);
+        ruleIds = null;
+        fragmentIds = null;
+        textIds = null;
+    }
+
+    /**
+     * 粗略内存占用：各列数组、文本字典与匹配文本区；规则、片段对象由报告中的其他部分共享，不计入
+     */
+    public long estimatedBytes() {
+        long bytes = 256 + 8L * 4 * ruleColumn.length + 2L * arena.length;
+        for (String text : texts) {
+            bytes += 40L + text.length();
+        }
+        bytes += 8L * (rules.size() + fragments.size());
+        if (textIds != null) {
+            bytes += 48L * texts.size();
+        }
+        return bytes;
+    }
+
+    /**
+     * 按列写出：条数、八个 int 列、匹配文本区、文本字典；规则与片段只写下标，由调用方按
+     * {@link #rules()} / {@link #fragments()} 的顺序另行保存
+     */
+    void writeColumns(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int[] column : new int[][] {ruleColumn, fragmentColumn, severityColumn, messageColumn, suggestionColumn,
+                exampleColumn, matchStart, matchLength}) {
+            for (int i = 0; i < size; i++) {
+                out.writeInt(column[i]);
+            }
+        }
+        out.writeInt(arenaLength);
+        for (int i = 0; i < arenaLength; i++) {
+            out.writeChar(arena[i]);
+        }
+        out.writeInt(texts.size());
+        for (String text : texts) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 从 {@link #writeColumns} 写出的字节读回列式存储，各列整块复制，不逐条构造对象；读取后缓冲区位置移到末尾
+     *
+     * @param rules     写出时的规则字典，顺序一致
+     * @param fragments 写出时的片段字典，顺序一致
+     */
+    static ViolationTable readColumns(ByteBuffer in, List<AuditRule> rules, List<SqlFragment> fragments) {
+        int size = in.getInt();
+        ViolationTable table = new ViolationTable(1);
+        table.ruleColumn = readInts(in, size);
+        table.fragmentColumn = readInts(in, size);
+        table.severityColumn = readInts(in, size);
+        table.messageColumn = readInts(in, size);
+        table.suggestionColumn = readInts(in, size);
+        table.exampleColumn = readInts(in, size);
+        table.matchStart = readInts(in, size);
+        table.matchLength = readInts(in, size);
+        int arenaLength = in.getInt();
+        table.arena = new char[arenaLength];
+        in.asCharBuffer().get(table.arena);
+        in.position(in.position() + arenaLength * Character.BYTES);
+        table.arenaLength = arenaLength;
+        int textCount = in.getInt();
+        for (int i = 0; i < textCount; i++) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            table.texts.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        table.rules.addAll(rules);
+        table.fragments.addAll(fragments);
+        table.size = size;
+        // 各列已是实际大小，只需释放反查表，追加时再按需重建
+        table.ruleIds = null;
+        table.fragmentIds = null;
+        table.textIds = null;
+        return table;
+    }
+
+    private static int[] readInts(ByteBuffer in, int count) {
+        int[] column = new int[count];
+        in.asIntBuffer().get(column);
+        in.position(in.position() + count * Integer.BYTES);
+        return column;
+    }
+
+    private int internRule(AuditRule rule) {
+        if (ruleIds == null) {
+            ruleIds = reverse(rules, new IdentityHashMap<>());
+        }
+        return ruleIds.computeIfAbsent(rule, r -> {
+            rules.add(r);
+            return rules.size() - 1;
+        });
+    }
+
+    private int internFragment(SqlFragment fragment) {
+        if (fragmentIds == null) {
+            fragmentIds = reverse(fragments, new IdentityHashMap<>());
+        }
+        return fragmentIds.computeIfAbsent(fragment, f -> {
+            fragments.add(f);
+            return fragments.size() - 1;
+        });
+    }
+
+    private int internText(String text) {
+        if (text == null) {
+            return NONE;
+        }
+        if (textIds == null) {
+            textIds = reverse(texts, new HashMap<>());
+        }
+        return textIds.computeIfAbsent(text, t -> {
+            texts.add(t);
+            return texts.size() - 1;
+        });
+    }
+
+    private String text(int id) {
+        return id == NONE ? null : texts.get(id);
+    }
+
+    private void appendToArena(String text) {
+        int required = arenaLength + text.length();
+        if (required > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(required, arena.length + (arena.length >> 1) + 16));
+        }
+        text.getChars(0, text.length(), arena, arenaLength);
+        arenaLength = required;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ruleColumn.length) {
+            return;
+        }
+        int capacity = Math.max(required, ruleColumn.length + (ruleColumn.length >> 1) + 1);
+        ruleColumn = Arrays.copyOf(ruleColumn, capacity);
+        fragmentColumn = Arrays.copyOf(fragmentColumn, capacity);
+        severityColumn = Arrays.copyOf(severityColumn, capacity);
+        messageColumn = Arrays.copyOf(messageColumn, capacity);
+        suggestionColumn = Arrays.copyOf(suggestionColumn, capacity);
+        exampleColumn = Arrays.copyOf(exampleColumn, capacity);
+        matchStart = Arrays.copyOf(matchStart, capacity);
+        matchLength = Arrays.copyOf(matchLength, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    private static <T> Map<T, Integer> reverse(List<T> values, Map<T, Integer> target) {
+        for (int i = 0; i < values.size(); i++) {
+            target.putIfAbsent(values.get(i), i);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,219 @@
+package com.sqlaudit.report.exporter;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Excel (.xlsx) 报告导出
+ * <p>
+ * 使用 SXSSFWorkbook 流式写入：内存中只保留 {@link #ROW_WINDOW} 行，其余行刷到临时文件，
+ * 因此几十万条违规也只占用常量内存。包含汇总、违规明细、按规则透视三个工作表。
+ */
+@Component
+public class ExcelReportExporter implements ReportExporter {
+
+    private static final int ROW_WINDOW = 200;
+    private static final int MAX_CELL_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+    private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private static final String[] VIOLATION_HEADERS = {
+            "严重等级", "规则ID", "规则名称", "章节", "分类", "文件", "行号",
+            "语句ID", "语句类型", "说明", "修复建议", "匹配内容", "SQL"
+    };
+    private static final String[] PIVOT_HEADERS = {
+            "规则ID", "规则名称", "严重等级", "章节", "分类", "违规数", "涉及文件数"
+    };
+
+    @Override
+    public String format() {
+        return "xlsx";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    }
+
+    @Override
+    public String fileExtension() {
+        return "xlsx";
+    }
+
+    @Override
+    public boolean compressible() {
+        return false;
+    }
+
+    @Override
+    public void write(ScanReport report, OutputStream out) throws IOException {
+        // close() 同时删除刷出行的临时文件
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW)) {
+            workbook.setCompressTempFiles(true);
+            CellStyle headerStyle = headerStyle(workbook);
+            Sheet summary = workbook.createSheet("汇总");
+            Map<String, RuleStats> pivot = writeViolations(workbook, report, headerStyle);
+            writeSummary(summary, report, headerStyle);
+            writePivot(workbook.createSheet("规则透视"), pivot, headerStyle);
+            workbook.write(out);
+        }
+    }
+
+    private void writeSummary(Sheet sheet, ScanReport report, CellStyle headerStyle) {
+        Object[][] rows = {
+                {"扫描范围", report.getRepoPath()},
+                {"扫描时间", report.getScanTime() != null ? report.getScanTime().toString() : ""},
+                {"扫描文件总数", report.getTotalFiles()},
+                {"SQL 语句总数", report.getTotalStatements()},
+                {"违规总数", report.getTotalViolations()},
+                {"错误 (ERROR)", report.getErrorCount()},
+                {"警告 (WARNING)", report.getWarningCount()},
+                {"提示 (INFO)", report.getInfoCount()},
+                {"基线忽略数", report.getBaselineSuppressed()},
+                {"结果是否截断", report.isLimitReached() ? "是" : "否"},
+        };
+        for (int i = 0; i < rows.length; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue(String.valueOf(rows[i][0]));
+            row.getCell(0).setCellStyle(headerStyle);
+            setValue(row, 1, rows[i][1]);
+        }
+        sheet.setColumnWidth(0, 20 * 256);
+        sheet.setColumnWidth(1, 80 * 256);
+    }
+
+    /**
+     * 写出违规明细（超过单表行数上限时自动续写到新工作表），同时累计按规则的透视数据
+     */
+    private Map<String, RuleStats> writeViolations(SXSSFWorkbook workbook, ScanReport report, CellStyle headerStyle) {
+        Map<String, RuleStats> pivot = new LinkedHashMap<>();
+        List<Violation> violations = report.getViolations() != null ? report.getViolations() : List.of();
+
+        int sheetNo = 1;
+        SXSSFSheet sheet = createViolationSheet(workbook, sheetNo, headerStyle);
+        int rowNum = 1;
+        for (FileSortedViolations.FileGroup group : FileSortedViolations.of(violations)) {
+            for (Violation v : group.violations()) {
+                if (rowNum >= MAX_ROWS_PER_SHEET) {
+                    sheet = createViolationSheet(workbook, ++sheetNo, headerStyle);
+                    rowNum = 1;
+                }
+                AuditRule rule = v.getRule();
+                SqlFragment fragment = v.getSqlFragment();
+                Row row = sheet.createRow(rowNum++);
+                setValue(row, 0, rule != null && rule.getSeverity() != null ? rule.getSeverity().name() : "");
+                setValue(row, 1, rule != null ? rule.getId() : null);
+                setValue(row, 2, rule != null ? rule.getName() : null);
+                setValue(row, 3, rule != null ? rule.getSection() : null);
+                setValue(row, 4, rule != null ? rule.getCategory() : null);
+                setValue(row, 5, group.path());
+                setValue(row, 6, fragment != null ? fragment.getLineNumber() : null);
+                setValue(row, 7, fragment != null ? fragment.getStatementId() : null);
+                setValue(row, 8, fragment != null ? fragment.getStatementType() : null);
+                setValue(row, 9, v.getMessage());
+                setValue(row, 10, v.getSuggestion());
+                setValue(row, 11, v.getMatchedText());
+                setValue(row, 12, fragment != null ? fragment.getSqlText() : null);
+
+                String ruleKey = rule != null && rule.getId() != null ? rule.getId() : "unknown";
+                pivot.computeIfAbsent(ruleKey, k -> new RuleStats(rule)).add(group.path());
+            }
+        }
+        return pivot;
+    }
+
+    private SXSSFSheet createViolationSheet(SXSSFWorkbook workbook, int sheetNo, CellStyle headerStyle) {
+        SXSSFSheet sheet = workbook.createSheet(sheetNo == 1 ? "违规明细" : "违规明细 (" + sheetNo + ")");
+        writeHeader(sheet, VIOLATION_HEADERS, headerStyle);
+        sheet.createFreezePane(0, 1);
+        int[] widths = {10, 22, 30, 8, 12, 40, 8, 24, 10, 50, 50, 30, 80};
+        for (int i = 0; i < widths.length; i++) {
+            sheet.setColumnWidth(i, widths[i] * 256);
+        }
+        return sheet;
+    }
+
+    private void writePivot(Sheet sheet, Map<String, RuleStats> pivot, CellStyle headerStyle) {
+        writeHeader(sheet, PIVOT_HEADERS, headerStyle);
+        int rowNum = 1;
+        for (Map.Entry<String, RuleStats> entry : pivot.entrySet()) {
+            AuditRule rule = entry.getValue().rule;
+            Row row = sheet.createRow(rowNum++);
+            setValue(row, 0, entry.getKey());
+            setValue(row, 1, rule != null ? rule.getName() : null);
+            setValue(row, 2, rule != null && rule.getSeverity() != null ? rule.getSeverity().name() : "");
+            setValue(row, 3, rule != null ? rule.getSection() : null);
+            setValue(row, 4, rule != null ? rule.getCategory() : null);
+            setValue(row, 5, entry.getValue().count);
+            setValue(row, 6, entry.getValue().files.size());
+        }
+        int[] widths = {22, 40, 10, 8, 12, 10, 12};
+        for (int i = 0; i < widths.length; i++) {
+            sheet.setColumnWidth(i, widths[i] * 256);
+        }
+    }
+
+    private void writeHeader(Sheet sheet, String[] headers, CellStyle headerStyle) {
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            header.createCell(i).setCellValue(headers[i]);
+            header.getCell(i).setCellStyle(headerStyle);
+        }
+    }
+
+    private CellStyle headerStyle(SXSSFWorkbook workbook) {
+        Font font = workbook.createFont();
+        font.setBold(true);
+        CellStyle style = workbook.createCellStyle();
+        style.setFont(font);
+        return style;
+    }
+
+    private void setValue(Row row, int col, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number number) {
+            row.createCell(col).setCellValue(number.doubleValue());
+            return;
+        }
+        String text = value.toString();
+        if (text.length() > MAX_CELL_LENGTH) {
+            text = text.substring(0, MAX_CELL_LENGTH - 3) + "...";
+        }
+        row.createCell(col).setCellValue(text);
+    }
+
+    /** 单条规则的透视统计 */
+    private static final class RuleStats {
+        private final AuditRule rule;
+        private final Set<String> files = new HashSet<>();
+        private int count;
+
+        private RuleStats(AuditRule rule) {
+            this.rule = rule;
+        }
+
+        private void add(String file) {
+            count++;
+            files.add(file);
+        }
+    }
+}
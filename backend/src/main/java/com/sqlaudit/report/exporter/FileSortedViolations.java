@@ -0,0 +1,149 @@
+package com.sqlaudit.report.exporter;
+
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.report.ViolationTable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 按文件路径排序的违规视图
+ * <p>
+ * 只维护一个下标数组（扫描结果本身已按文件有序时连数组都不需要），
+ * 按文件逐组迭代，每组是原列表上的只读视图，不复制、不重新分组违规对象。
+ */
+public final class FileSortedViolations implements Iterable<FileSortedViolations.FileGroup> {
+
+    static final String UNKNOWN_PATH = "unknown";
+
+    private final List<Violation> violations;
+    /** 排序后的下标；为 null 表示原列表已按路径有序 */
+    private final int[] order;
+
+    private FileSortedViolations(List<Violation> violations, int[] order) {
+        this.violations = violations;
+        this.order = order;
+    }
+
+    public static FileSortedViolations of(List<Violation> violations) {
+        List<Violation> source = violations != null ? violations : List.of();
+        if (isSortedByPath(source)) {
+            return new FileSortedViolations(source, null);
+        }
+        Integer[] boxed = new Integer[source.size()];
+        for (int i = 0; i < boxed.length; i++) {
+            boxed[i] = i;
+        }
+        // TimSort 稳定排序，同一文件内保持原有顺序
+        Arrays.sort(boxed, Comparator.comparing(i -> rowPath(source, i)));
+        int[] order = new int[boxed.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = boxed[i];
+        }
+        return new FileSortedViolations(source, order);
+    }
+
+    public static String pathOf(Violation v) {
+        return pathOf(v != null ? v.getSqlFragment() : null);
+    }
+
+    private static String pathOf(SqlFragment fragment) {
+        if (fragment != null) {
+            String path = fragment.getRelativePath();
+            if (path != null && !path.isBlank()) {
+                return path;
+            }
+        }
+        return UNKNOWN_PATH;
+    }
+
+    /**
+     * 第 row 条违规的文件路径；列式存储直接读片段列，不构造违规对象
+     */
+    private static String rowPath(List<Violation> source, int row) {
+        return source instanceof ViolationTable table ? pathOf(table.fragment(row)) : pathOf(source.get(row));
+    }
+
+    public int size() {
+        return violations.size();
+    }
+
+    private Violation at(int position) {
+        return violations.get(order == null ? position : order[position]);
+    }
+
+    private String pathAt(int position) {
+        return rowPath(violations, order == null ? position : order[position]);
+    }
+
+    @Override
+    public Iterator<FileGroup> iterator() {
+        return new Iterator<>() {
+            private int cursor = 0;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < violations.size();
+            }
+
+            @Override
+            public FileGroup next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int start = cursor;
+                String path = pathAt(start);
+                int end = start + 1;
+                while (end < violations.size() && path.equals(pathAt(end))) {
+                    end++;
+                }
+                cursor = end;
+                return new FileGroup(path, new RangeView(start, end));
+            }
+        };
+    }
+
+    private static boolean isSortedByPath(List<Violation> violations) {
+        String previous = null;
+        for (int i = 0; i < violations.size(); i++) {
+            String path = rowPath(violations, i);
+            if (previous != null && previous.compareTo(path) > 0) {
+                return false;
+            }
+            previous = path;
+        }
+        return true;
+    }
+
+    private final class RangeView extends AbstractList<Violation> {
+        private final int start;
+        private final int end;
+
+        private RangeView(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Violation get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return at(start + index);
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+
+    /** 同一文件的一组违规 */
+    public record FileGroup(String path, List<Violation> violations) {
+    }
+}
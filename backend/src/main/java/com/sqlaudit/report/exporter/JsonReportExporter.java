@@ -0,0 +1,47 @@
+package com.sqlaudit.report.exporter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqlaudit.model.ScanReport;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JSON 报告导出：通过 JsonGenerator 直接写出，不生成完整字节数组
+ */
+@Component
+public class JsonReportExporter implements ReportExporter {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonReportExporter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String format() {
+        return "json";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/json;charset=UTF-8";
+    }
+
+    @Override
+    public String fileExtension() {
+        return "json";
+    }
+
+    @Override
+    public void write(ScanReport report, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (generator) {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(generator, report);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.sqlaudit.report.exporter;
+
+import com.sqlaudit.model.IndexAdvice;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.StatementStats;
+import com.sqlaudit.model.Violation;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Markdown 报告导出：按文件逐组流式写出
+ */
+@Component
+public class MarkdownReportExporter implements ReportExporter {
+
+    @Override
+    public String format() {
+        return "markdown";
+    }
+
+    @Override
+    public String contentType() {
+        return "text/markdown;charset=UTF-8";
+    }
+
+    @Override
+    public String fileExtension() {
+        return "md";
+    }
+
+    @Override
+    public void write(ScanReport report, OutputStream out) throws IOException {
+        Writer md = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        md.append("# SQL 审计规范审查报告\n\n");
+        md.append("**扫描时间:** ").append(String.valueOf(report.getScanTime() != null ? report.getScanTime() : LocalDateTime.now())).append("\n");
+        md.append("**扫描范围:** `").append(escapeInlineCode(scanScope(report))).append("`\n\n");
+
+        if (report.isLimitReached()) {
+            md.append("> ⚠️ **警告：扫描结果被截断**\n");
+            md.append("> 检测到极多违规项，为保证系统性能，仅保存并展示前 ")
+                    .append(String.valueOf(report.getTotalViolations()))
+                    .append(" 条。建议缩小扫描范围或优化当前规则集。\n\n");
+        }
+
+        md.append("## 📊 统计摘要\n");
+        md.append("- **扫描文件总数:** ").append(String.valueOf(report.getTotalFiles())).append("\n");
+        md.append("- **SQL 语句总数:** ").append(String.valueOf(report.getTotalStatements())).append("\n");
+        md.append("- **违规总数:** ").append(String.valueOf(report.getTotalViolations()))
+                .append(" (❌ 错误: ").append(String.valueOf(report.getErrorCount()))
+                .append(", ⚠️ 警告: ").append(String.valueOf(report.getWarningCount()))
+                .append(", ℹ️ 提示: ").append(String.valueOf(report.getInfoCount()))
+                .append(")\n\n");
+        writeIndexAdvice(md, report.getIndexAdvice());
+
+        List<Violation> violations = report.getViolations() != null ? report.getViolations() : List.of();
+        if (violations.isEmpty()) {
+            md.append("✅ **恭喜！所有 SQL 语句均符合规范**\n");
+            md.flush();
+            return;
+        }
+
+        md.append("## 🚫 违规详情\n\n");
+        for (FileSortedViolations.FileGroup group : FileSortedViolations.of(violations)) {
+            md.append("### 📄 `").append(escapeInlineCode(group.path())).append("` (")
+                    .append(String.valueOf(group.violations().size())).append(" 项)\n\n");
+            for (Violation v : group.violations()) {
+                writeViolation(md, v);
+            }
+        }
+
+        List<String> files = report.getScannedFiles() != null ? report.getScannedFiles() : List.of();
+        md.append("## 📁 扫描文件列表\n\n");
+        for (String file : files) {
+            md.append("- `").append(escapeInlineCode(file)).append("`\n");
+        }
+        md.flush();
+    }
+
+    private void writeIndexAdvice(Writer md, IndexAdvice advice) throws IOException {
+        if (advice == null || advice.getRecommendations() == null || advice.getRecommendations().isEmpty()) {
+            return;
+        }
+        md.append("## 🗂 索引建议\n\n");
+        md.append("| 表 | 索引列 | ").append(advice.isWeightedByExecutions() ? "执行次数" : "语句数")
+                .append(" | 依据 | 示例 |\n");
+        md.append("|---|---|---|---|---|\n");
+        for (IndexAdvice.Recommendation recommendation : advice.getRecommendations()) {
+            md.append("| `").append(escapeInlineCode(recommendation.getTable())).append("` | `")
+                    .append(escapeInlineCode(String.join(", ", recommendation.getColumns()))).append("` | ")
+                    .append(String.valueOf(recommendation.getWeight())).append(" | ")
+                    .append(orEmpty(recommendation.getReason())).append(" | ")
+                    .append(escapeTableCell(String.join("<br>", recommendation.getExamples()))).append(" |\n");
+        }
+        md.append("\n");
+    }
+
+    private void writeViolation(Writer md, Violation v) throws IOException {
+        String section = v.getRule() != null && v.getRule().getSection() != null
+                ? "§" + v.getRule().getSection() + " "
+                : "";
+        String severity = v.getRule() != null && v.getRule().getSeverity() != null
+                ? v.getRule().getSeverity().name()
+                : "UNKNOWN";
+        String ruleName = v.getRule() != null && v.getRule().getName() != null
+                ? v.getRule().getName()
+                : "未命名规则";
+        String statementType = v.getSqlFragment() != null && v.getSqlFragment().getStatementType() != null
+                ? v.getSqlFragment().getStatementType().toUpperCase()
+                : "UNKNOWN";
+        String statementId = v.getSqlFragment() != null && notBlank(v.getSqlFragment().getStatementId())
+                ? v.getSqlFragment().getStatementId()
+                : "unknown";
+        int lineNumber = v.getSqlFragment() != null ? v.getSqlFragment().getLineNumber() : 0;
+
+        md.append("**[").append(severity).append("]** ").append(section).append(ruleName).append("\n");
+        md.append("- **位置:** 行 ").append(String.valueOf(lineNumber)).append(" (")
+                .append(statementType).append(" #").append(statementId).append(")\n");
+        md.append("- **说明:** ").append(orEmpty(v.getMessage())).append("\n");
+        StatementStats stats = v.getSqlFragment() != null ? v.getSqlFragment().getRuntimeStats() : null;
+        if (stats != null) {
+            md.append("- **运行时开销:** ").append(String.format(Locale.ROOT,
+                    "执行 %d 次，累计 %.1f ms，最长 %.1f ms", stats.getExecutions(), stats.getTotalTimeMs(),
+                    stats.getMaxTimeMs()));
+            if (stats.getMatchScore() < 1.0) {
+                md.append(String.format(Locale.ROOT, "（相似度匹配 %.0f%%）", stats.getMatchScore() * 100));
+            }
+            md.append("\n");
+        }
+        if (notBlank(v.getSuggestion())) {
+            md.append("- **修复建议:** ").append(v.getSuggestion()).append("\n");
+        }
+        if (notBlank(v.getExampleSql())) {
+            md.append("- **示例改写 SQL（需人工确认）:**\n\n");
+            md.append("```sql\n").append(v.getExampleSql()).append("\n```\n");
+        }
+        if (notBlank(v.getMatchedText())) {
+            md.append("- **匹配内容:** `")
+                    .append(escapeInlineCode(v.getMatchedText().replace("\n", " ")))
+                    .append("`\n");
+        }
+        md.append("\n");
+    }
+
+    private String scanScope(ScanReport report) {
+        return notBlank(report.getRepoPath()) ? report.getRepoPath() : "SQL 脚本上传模式";
+    }
+
+    private String escapeInlineCode(String text) {
+        return orEmpty(text).replace("`", "\\`");
+    }
+
+    private String escapeTableCell(String text) {
+        return orEmpty(text).replace("|", "\\|");
+    }
+
+    private String orEmpty(String text) {
+        return text == null ? "" : text;
+    }
+
+    private boolean notBlank(String text) {
+        return text != null && !text.isBlank();
+    }
+}
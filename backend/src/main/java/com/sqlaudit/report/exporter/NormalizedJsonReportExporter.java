@@ -0,0 +1,48 @@
+package com.sqlaudit.report.exporter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.report.ReportNormalizer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 规范化 JSON 导出：规则表 + 片段表 + 按下标引用的违规记录，适合大报告归档与传输
+ */
+@Component
+public class NormalizedJsonReportExporter implements ReportExporter {
+
+    private final ObjectMapper objectMapper;
+
+    public NormalizedJsonReportExporter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String format() {
+        return "normalized";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/json;charset=UTF-8";
+    }
+
+    @Override
+    public String fileExtension() {
+        return "normalized.json";
+    }
+
+    @Override
+    public void write(ScanReport report, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (generator) {
+            objectMapper.writeValue(generator, ReportNormalizer.normalize(report));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.sqlaudit.report.exporter;
+
+import com.sqlaudit.model.ScanReport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 报告导出器接口
+ * <p>
+ * 每种导出格式一个实现，直接向输出流写出内容，不在内存中拼装完整文档。
+ */
+public interface ReportExporter {
+
+    /**
+     * 导出格式名称，对应 /api/report/export/{format}
+     */
+    String format();
+
+    /**
+     * 响应 Content-Type
+     */
+    String contentType();
+
+    /**
+     * 导出文件扩展名（不含点）
+     */
+    String fileExtension();
+
+    /**
+     * 输出内容是否适合再做 gzip 传输压缩（已压缩的格式如 xlsx 应返回 false）
+     */
+    default boolean compressible() {
+        return true;
+    }
+
+    /**
+     * 将报告写入输出流。实现方不应关闭 {@code out}。
+     */
+    void write(ScanReport report, OutputStream out) throws IOException;
+}
@@ -0,0 +1,257 @@
+package com.sqlaudit.report.exporter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SARIF 2.1.0 导出，供代码扫描平台（Code Scanning 看板等）导入
+ * <p>
+ * 规则表只收集报告中实际出现的规则；结果按文件逐组流式写出。
+ */
+@Component
+public class SarifReportExporter implements ReportExporter {
+
+    private static final String SARIF_SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+    private static final String SARIF_VERSION = "2.1.0";
+    private static final String TOOL_NAME = "sql-audit";
+    private static final String SRC_ROOT = "%SRCROOT%";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final ObjectMapper objectMapper;
+
+    public SarifReportExporter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String format() {
+        return "sarif";
+    }
+
+    @Override
+    public String contentType() {
+        return "application/sarif+json;charset=UTF-8";
+    }
+
+    @Override
+    public String fileExtension() {
+        return "sarif";
+    }
+
+    @Override
+    public void write(ScanReport report, OutputStream out) throws IOException {
+        List<Violation> violations = report.getViolations() != null ? report.getViolations() : List.of();
+        Map<String, Integer> ruleIndex = new LinkedHashMap<>();
+        Map<String, AuditRule> rules = new LinkedHashMap<>();
+        for (Violation v : violations) {
+            AuditRule rule = v.getRule();
+            if (rule != null && rule.getId() != null && !rules.containsKey(rule.getId())) {
+                ruleIndex.put(rule.getId(), rules.size());
+                rules.put(rule.getId(), rule);
+            }
+        }
+
+        JsonGenerator g = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (g) {
+            g.writeStartObject();
+            g.writeStringField("$schema", SARIF_SCHEMA);
+            g.writeStringField("version", SARIF_VERSION);
+            g.writeArrayFieldStart("runs");
+            g.writeStartObject();
+
+            writeTool(g, rules.values());
+            writeOriginalUriBaseIds(g, report);
+
+            g.writeArrayFieldStart("results");
+            for (FileSortedViolations.FileGroup group : FileSortedViolations.of(violations)) {
+                for (Violation v : group.violations()) {
+                    writeResult(g, v, group.path(), ruleIndex);
+                }
+            }
+            g.writeEndArray();
+
+            g.writeEndObject();
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+    }
+
+    private void writeTool(JsonGenerator g, Iterable<AuditRule> rules) throws IOException {
+        g.writeObjectFieldStart("tool");
+        g.writeObjectFieldStart("driver");
+        g.writeStringField("name", TOOL_NAME);
+        g.writeArrayFieldStart("rules");
+        for (AuditRule rule : rules) {
+            g.writeStartObject();
+            g.writeStringField("id", rule.getId());
+            if (rule.getName() != null) {
+                g.writeStringField("name", rule.getName());
+                g.writeObjectFieldStart("shortDescription");
+                g.writeStringField("text", rule.getName());
+                g.writeEndObject();
+            }
+            if (rule.getDescription() != null) {
+                g.writeObjectFieldStart("fullDescription");
+                g.writeStringField("text", rule.getDescription());
+                g.writeEndObject();
+            }
+            g.writeObjectFieldStart("defaultConfiguration");
+            g.writeStringField("level", level(rule.getSeverity()));
+            g.writeEndObject();
+            g.writeObjectFieldStart("properties");
+            if (rule.getSection() != null) {
+                g.writeStringField("section", rule.getSection());
+            }
+            if (rule.getCategory() != null) {
+                g.writeStringField("category", rule.getCategory());
+            }
+            if (rule.getCheckerName() != null) {
+                g.writeStringField("checker", rule.getCheckerName());
+            }
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+        g.writeEndObject();
+        g.writeEndObject();
+    }
+
+    private void writeOriginalUriBaseIds(JsonGenerator g, ScanReport report) throws IOException {
+        String repoPath = report.getRepoPath();
+        if (repoPath == null || repoPath.isBlank()) {
+            return;
+        }
+        String uri;
+        try {
+            Path root = Path.of(repoPath);
+            if (!root.isAbsolute()) {
+                return;
+            }
+            uri = root.toUri().toString();
+        } catch (InvalidPathException e) {
+            return;
+        }
+        g.writeObjectFieldStart("originalUriBaseIds");
+        g.writeObjectFieldStart(SRC_ROOT);
+        g.writeStringField("uri", uri.endsWith("/") ? uri : uri + "/");
+        g.writeEndObject();
+        g.writeEndObject();
+    }
+
+    private void writeResult(JsonGenerator g, Violation v, String path, Map<String, Integer> ruleIndex)
+            throws IOException {
+        AuditRule rule = v.getRule();
+        SqlFragment fragment = v.getSqlFragment();
+
+        g.writeStartObject();
+        if (rule != null && rule.getId() != null) {
+            g.writeStringField("ruleId", rule.getId());
+            g.writeNumberField("ruleIndex", ruleIndex.get(rule.getId()));
+        }
+        g.writeStringField("level", level(rule != null ? rule.getSeverity() : null));
+        g.writeObjectFieldStart("message");
+        g.writeStringField("text", v.getMessage() != null ? v.getMessage() : "");
+        g.writeEndObject();
+
+        g.writeArrayFieldStart("locations");
+        g.writeStartObject();
+        g.writeObjectFieldStart("physicalLocation");
+        g.writeObjectFieldStart("artifactLocation");
+        g.writeStringField("uri", encodePath(path.replace('\\', '/')));
+        g.writeStringField("uriBaseId", SRC_ROOT);
+        g.writeEndObject();
+        g.writeObjectFieldStart("region");
+        g.writeNumberField("startLine", Math.max(1, fragment != null ? fragment.getLineNumber() : 1));
+        if (v.getMatchedText() != null) {
+            g.writeObjectFieldStart("snippet");
+            g.writeStringField("text", v.getMatchedText());
+            g.writeEndObject();
+        }
+        g.writeEndObject();
+        g.writeEndObject();
+        if (fragment != null && fragment.getStatementId() != null) {
+            g.writeArrayFieldStart("logicalLocations");
+            g.writeStartObject();
+            g.writeStringField("name", fragment.getStatementId());
+            g.writeStringField("fullyQualifiedName", fragment.getNamespace() != null
+                    ? fragment.getNamespace() + "." + fragment.getStatementId()
+                    : fragment.getStatementId());
+            g.writeStringField("kind", "function");
+            g.writeEndObject();
+            g.writeEndArray();
+        }
+        g.writeEndObject();
+        g.writeEndArray();
+
+        if (v.getSuggestion() != null) {
+            g.writeObjectFieldStart("properties");
+            g.writeStringField("suggestion", v.getSuggestion());
+            g.writeEndObject();
+        }
+        g.writeEndObject();
+    }
+
+    /**
+     * 逐段百分号编码相对路径（UTF-8），与 originalUriBaseIds 中 {@link Path#toUri()} 的编码保持一致；
+     * 分隔符 {@code /} 原样保留
+     */
+    static String encodePath(String path) {
+        StringBuilder sb = null;
+        int firstSlash = path.indexOf('/');
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            // 首段中的冒号需编码，避免相对引用被误认作 scheme（RFC 3986 §4.2）
+            boolean colonAllowed = c == ':' && firstSlash >= 0 && i > firstSlash;
+            if (c == '/' || colonAllowed || isUnreserved(c)) {
+                if (sb != null) {
+                    sb.append(c);
+                }
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(path.length() + 16).append(path, 0, i);
+            }
+            int end = Character.isHighSurrogate(c) && i + 1 < path.length() ? i + 2 : i + 1;
+            for (byte b : path.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                sb.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            i = end - 1;
+        }
+        return sb != null ? sb.toString() : path;
+    }
+
+    /**
+     * RFC 3986 路径段中无需编码的字符（冒号另行判断）
+     */
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || "-._~!$&'()*+,;=@".indexOf(c) >= 0;
+    }
+
+    private String level(AuditRule.Severity severity) {
+        if (severity == null) {
+            return "warning";
+        }
+        return switch (severity) {
+            case ERROR -> "error";
+            case WARNING -> "warning";
+            case INFO -> "note";
+        };
+    }
+}
@@ -0,0 +1,699 @@
+package com.sqlaudit.rule;
+
+import com.sqlaudit.report.ViolationFingerprint;
+import com.sqlaudit.util.Digests;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.h2.jdbcx.JdbcDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * EXPLAIN 回放：把表结构目录建到内嵌的 H2 内存库（PostgreSQL 兼容模式）中，对语句执行 EXPLAIN 并从执行计划中找出全表扫描
+ * <p>
+ * 库里只有表和索引、没有数据。H2 估算代价时给每张表的行数加了固定偏移，有可用索引的条件总会走索引，
+ * 所以计划中出现的全表扫描说明确实没有能用上的索引；表的实际大小由导入的行数统计判断。
+ * 语句里的 ? 和 MyBatis 参数按 H2 推断出的类型绑定占位值。计划按语句指纹（字面量归一后的文本）缓存，
+ * 缓存按最近使用淘汰，条数有上限；批量解释时在连接池上并行执行。实例关闭后内存库随之销毁，正在进行的批量解释先执行完。
+ * <p>
+ * 语句来自上传的仓库和 lint 请求，不可信：只接受单条 SELECT / UPDATE / DELETE（文本中字面量与注释以外不得有分号），
+ * 且由只有 SELECT 权限的非管理员用户执行，H2 中需要管理员权限的 CREATE ALIAS、RUNSCRIPT、LINK 等都无法使用。
+ * H2 在预编译时就会对常量表达式求值（EXPLAIN 也一样），所以字面量先统一替换为 ? 再预编译，执行时另有超时。
+ */
+public final class ExplainReplay implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExplainReplay.class);
+
+    private static final AtomicInteger DATABASE_NO = new AtomicInteger();
+    private static final String DEFAULT_SCHEMA = "public";
+    private static final String REPLAY_USER = "replay";
+    private static final Set<String> EXPLAINABLE = Set.of("select", "with", "update", "delete");
+    private static final Pattern MYBATIS_PARAM = Pattern.compile("[#$]\\{[^}]*}");
+    private static final Pattern POSITIONAL_PARAM = Pattern.compile("\\$\\d+");
+    private static final Pattern QUOTED_IDENTIFIER = Pattern.compile("[\"`]([^\"`]+)[\"`]");
+    /** 计划中的表访问；注释里的子查询副本不带引号，不会重复计数 */
+    private static final Pattern TABLE_ACCESS = Pattern.compile("\\b(?:FROM|JOIN|UPDATE)\\s+\"[^\"]+\"\\.\"[^\"]+\"");
+    /** 计划注释中的访问方式: schema.表.tableScan，或 schema.索引 后跟条件（无条件即整个索引扫描） */
+    private static final Pattern ACCESS_COMMENT = Pattern.compile(
+            "/\\*\\s*([\\w$]+)\\.([\\w$]+)(\\.tableScan)?\\s*(:|\\*/)");
+    private static final String INDEX_SORTED = "/* index sorted */";
+    /** 批量解释整体的等待上限；超时未完成的语句记为失败，不再在扫描线程上重试 */
+    private static final long BATCH_TIMEOUT_MINUTES = 5;
+
+    private final SchemaCatalog catalog;
+    /** 建库、授权与关闭用的管理员连接；EXPLAIN 只走非管理员连接池 */
+    private final JdbcDataSource admin;
+    private final JdbcConnectionPool pool;
+    private final ExecutorService executor;
+    private final long largeTableRows;
+    private final int queryTimeoutSeconds;
+    /** H2 中的 schema.表 → 目录表名 */
+    private final Map<String, String> tableNames = new HashMap<>();
+    /** H2 中的 schema.索引 → 目录表名 */
+    private final Map<String, String> indexTables = new HashMap<>();
+    /** access-order 的 LinkedHashMap，超出上限时淘汰最久未用的计划；所有访问在 plans 上同步 */
+    private final LinkedHashMap<String, Plan> plans;
+    private volatile Map<String, Long> rowCounts = Map.of();
+    /** 正在进行的批量解释数；关闭时若仍有批量解释，推迟到最后一个结束再销毁内存库。在 this 上同步 */
+    private int activeBatches;
+    private boolean closed;
+
+    /**
+     * 执行计划摘要
+     *
+     * @param scannedTables 全表扫描的表（目录表名），按计划中出现的顺序
+     * @param join          计划中是否有多张表（连接、子查询）
+     * @param error         EXPLAIN 失败时的原因；语句无法在 H2 中解析时（方言、动态 SQL 片段等）不做判断
+     */
+    public record Plan(List<String> scannedTables, boolean join, String error) {
+
+        static Plan failed(String error) {
+            return new Plan(List.of(), false, error);
+        }
+
+        public boolean failed() {
+            return error != null;
+        }
+    }
+
+    private ExplainReplay(SchemaCatalog catalog, JdbcDataSource admin, JdbcConnectionPool pool, int poolSize,
+            long largeTableRows, int maxCachedPlans, int queryTimeoutSeconds) {
+        this.catalog = catalog;
+        this.admin = admin;
+        this.pool = pool;
+        this.largeTableRows = largeTableRows;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        int capacity = Math.max(1, maxCachedPlans);
+        this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Plan> eldest) {
+                return size() > capacity;
+            }
+        };
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, "explain-replay-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 创建内存库并按目录建表、建索引
+     *
+     * @param poolSize            连接池大小，即并行 EXPLAIN 的线程数
+     * @param largeTableRows      行数达到该值的表视为大表；没有行数统计的表一律视为大表
+     * @param maxCachedPlans      最多缓存的执行计划数
+     * @param queryTimeoutSeconds 单条 EXPLAIN 的执行超时（秒）
+     */
+    public static ExplainReplay open(SchemaCatalog catalog, int poolSize, long largeTableRows, int maxCachedPlans,
+            int queryTimeoutSeconds) throws SQLException {
+        int size = Math.max(1, poolSize);
+        String name = "jdbc:h2:mem:sql-audit-explain-" + DATABASE_NO.incrementAndGet();
+        // 库级设置只在管理员建库时指定；URL 中不带 INIT 等会执行语句的参数，非管理员连接只能打开已存在的库
+        JdbcDataSource admin = new JdbcDataSource();
+        admin.setURL(name + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        admin.setUser("sa");
+        admin.setPassword(UUID.randomUUID().toString());
+        String replayPassword = UUID.randomUUID().toString();
+        JdbcConnectionPool pool = JdbcConnectionPool.create(name + ";IFEXISTS=TRUE", REPLAY_USER, replayPassword);
+        pool.setMaxConnections(size);
+        ExplainReplay replay = new ExplainReplay(catalog, admin, pool, size, largeTableRows, maxCachedPlans,
+                Math.max(1, queryTimeoutSeconds));
+        try {
+            replay.createSchema(replayPassword);
+        } catch (SQLException | RuntimeException e) {
+            replay.close();
+            throw e;
+        }
+        return replay;
+    }
+
+    public SchemaCatalog catalog() {
+        return catalog;
+    }
+
+    public long largeTableRows() {
+        return largeTableRows;
+    }
+
+    /**
+     * 回放配置（表结构、大表阈值、行数统计）的摘要
+     */
+    public String fingerprint() {
+        MessageDigest digest = Digests.sha256();
+        Digests.update(digest, catalog.fingerprint());
+        Digests.update(digest, largeTableRows);
+        Digests.update(digest, new TreeMap<>(rowCounts));
+        return Digests.hex(digest);
+    }
+
+    /**
+     * 设置各表行数（表名不区分大小写，可带 schema）；不影响已缓存的计划
+     */
+    public void setRowCounts(Map<String, Long> rowCounts) {
+        Map<String, Long> normalized = new HashMap<>();
+        if (rowCounts != null) {
+            rowCounts.forEach((table, rows) -> normalized.put(SchemaCatalog.normalize(table), rows));
+        }
+        this.rowCounts = normalized;
+    }
+
+    /**
+     * 表的行数统计，先按目录表名再按短名查找；没有统计时返回 -1
+     */
+    public long rowCount(String table) {
+        Map<String, Long> counts = rowCounts;
+        Long rows = counts.get(table);
+        if (rows == null) {
+            int dot = table.lastIndexOf('.');
+            rows = dot >= 0 ? counts.get(table.substring(dot + 1)) : null;
+        }
+        return rows != null ? rows : -1;
+    }
+
+    /**
+     * 是否为大表：有统计时按阈值判断，没有统计时视为大表
+     */
+    public boolean isLarge(String table) {
+        long rows = rowCount(table);
+        return rows < 0 || rows >= largeTableRows;
+    }
+
+    /**
+     * 获取单条语句的执行计划，未缓存时在当前线程执行 EXPLAIN
+     */
+    public Plan explain(CharSequence sql) {
+        String key = ViolationFingerprint.ofStatement(sql);
+        Plan plan = cachedPlan(key);
+        if (plan == null) {
+            plan = cache(key, run(sql));
+        }
+        return plan;
+    }
+
+    /**
+     * 批量解释：按指纹去重、跳过已缓存的语句，其余在连接池上并行执行，全部完成或超时后返回
+     * <p>
+     * 执行期间实例被关闭（如重新导入表结构）时，内存库保留到本批结束；已关闭的实例不再解释。
+     */
+    public void explainAll(Collection<? extends CharSequence> sqls) {
+        Map<String, CharSequence> pending = new LinkedHashMap<>();
+        for (CharSequence sql : sqls) {
+            String key = ViolationFingerprint.ofStatement(sql);
+            if (cachedPlan(key) == null) {
+                pending.putIfAbsent(key, sql);
+            }
+        }
+        if (pending.isEmpty() || !beginBatch()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<CompletableFuture<Void>> futures = new ArrayList<>(pending.size());
+            for (Map.Entry<String, CharSequence> entry : pending.entrySet()) {
+                futures.add(CompletableFuture.runAsync(() -> cache(entry.getKey(), run(entry.getValue())), executor));
+            }
+            awaitBatch(futures, pending.keySet());
+            log.info("EXPLAIN 回放: {} 条语句, 耗时 {} ms", pending.size(), System.currentTimeMillis() - start);
+        } finally {
+            endBatch();
+        }
+    }
+
+    public int cachedPlans() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    /**
+     * 关闭实例；仍有批量解释在执行时，内存库在最后一批结束后销毁
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (activeBatches > 0) {
+                return;
+            }
+        }
+        shutdown();
+    }
+
+    private synchronized boolean beginBatch() {
+        if (closed) {
+            return false;
+        }
+        activeBatches++;
+        return true;
+    }
+
+    private void endBatch() {
+        synchronized (this) {
+            if (--activeBatches > 0 || !closed) {
+                return;
+            }
+        }
+        shutdown();
+    }
+
+    private void awaitBatch(List<CompletableFuture<Void>> futures, Collection<String> keys) {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .get(BATCH_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            return;
+        } catch (TimeoutException e) {
+            log.warn("EXPLAIN 回放超过 {} 分钟未完成，其余语句不做判断", BATCH_TIMEOUT_MINUTES);
+        } catch (ExecutionException | CancellationException e) {
+            log.warn("EXPLAIN 回放失败: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        futures.forEach(future -> future.cancel(true));
+        for (String key : keys) {
+            if (cachedPlan(key) == null) {
+                cache(key, Plan.failed("EXPLAIN 未在限定时间内完成"));
+            }
+        }
+    }
+
+    private Plan cachedPlan(String key) {
+        synchronized (plans) {
+            return plans.get(key);
+        }
+    }
+
+    /**
+     * 放入缓存；已有计划（并发解释的同一语句）时保留已有的
+     */
+    private Plan cache(String key, Plan plan) {
+        synchronized (plans) {
+            Plan existing = plans.putIfAbsent(key, plan);
+            return existing != null ? existing : plan;
+        }
+    }
+
+    private void shutdown() {
+        executor.shutdownNow();
+        try (Connection connection = admin.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {
+            log.debug("关闭 EXPLAIN 回放库失败: {}", e.getMessage());
+        }
+        pool.dispose();
+    }
+
+    private void createSchema(String replayPassword) throws SQLException {
+        int tables = 0;
+        int indexNo = 0;
+        try (Connection connection = admin.getConnection(); Statement statement = connection.createStatement()) {
+            Set<String> schemas = new LinkedHashSet<>();
+            schemas.add(DEFAULT_SCHEMA);
+            for (SchemaCatalog.Table table : catalog.tables()) {
+                String[] name = splitName(table.name());
+                if (name == null) {
+                    continue;
+                }
+                // 只见到 CREATE INDEX 的表没有列定义，用索引键列补齐
+                Set<String> columns = new LinkedHashSet<>(table.columns());
+                table.indexes().forEach(columns::addAll);
+                if (columns.isEmpty()) {
+                    continue;
+                }
+                if (!DEFAULT_SCHEMA.equals(name[0]) && schemas.add(name[0])) {
+                    statement.execute("CREATE SCHEMA IF NOT EXISTS " + quote(name[0]));
+                }
+                String qualified = quote(name[0]) + "." + quote(name[1]);
+                StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(qualified).append(" (");
+                int i = 0;
+                for (String column : columns) {
+                    ddl.append(i++ > 0 ? ", " : "").append(quote(column)).append(' ')
+                            .append(h2Type(table.columnTypes().get(column)));
+                }
+                try {
+                    statement.execute(ddl.append(')').toString());
+                } catch (SQLException e) {
+                    log.debug("EXPLAIN 回放库建表失败 {}: {}", table.name(), e.getMessage());
+                    continue;
+                }
+                tables++;
+                tableNames.put(name[0] + "." + name[1], table.name());
+                for (List<String> keys : table.indexes()) {
+                    String index = "ix_" + (++indexNo);
+                    List<String> quoted = keys.stream().map(ExplainReplay::quote).toList();
+                    statement.execute("CREATE INDEX " + quote(index) + " ON " + qualified
+                            + " (" + String.join(", ", quoted) + ")");
+                    indexTables.put(name[0] + "." + index, table.name());
+                }
+            }
+            // EXPLAIN 只需要 SELECT 权限，UPDATE / DELETE 的计划同样可以解释
+            statement.execute("CREATE USER " + quote(REPLAY_USER) + " PASSWORD '" + replayPassword + "'");
+            for (String schema : schemas) {
+                statement.execute("GRANT SELECT ON SCHEMA " + quote(schema) + " TO " + quote(REPLAY_USER));
+            }
+        }
+        log.info("EXPLAIN 回放库已建立: {} 张表, {} 个索引", tables, indexNo);
+    }
+
+    private Plan run(CharSequence sql) {
+        String h2Sql = toH2Sql(sql);
+        String rejected = checkExplainable(h2Sql);
+        if (rejected != null) {
+            return Plan.failed(rejected);
+        }
+        String statementSql = "EXPLAIN " + h2Sql;
+        try (Connection connection = pool.getConnection();
+                PreparedStatement statement = connection.prepareStatement(statementSql)) {
+            statement.setQueryTimeout(queryTimeoutSeconds);
+            bindDummies(statement);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? parse(rs.getString(1)) : Plan.failed("EXPLAIN 没有返回结果");
+            }
+        } catch (SQLException | RuntimeException e) {
+            String message = String.valueOf(e.getMessage());
+            int newline = message.indexOf('\n');
+            return Plan.failed(newline > 0 ? message.substring(0, newline) : message);
+        }
+    }
+
+    private Plan parse(String plan) {
+        Matcher access = TABLE_ACCESS.matcher(plan);
+        int accesses = 0;
+        while (access.find()) {
+            accesses++;
+        }
+        boolean sorted = plan.contains(INDEX_SORTED);
+        Set<String> scanned = new LinkedHashSet<>();
+        Matcher comment = ACCESS_COMMENT.matcher(plan);
+        while (comment.find()) {
+            String name = comment.group(1) + "." + comment.group(2);
+            if (comment.group(3) != null) {
+                String table = tableNames.get(name);
+                if (table != null) {
+                    scanned.add(table);
+                }
+            } else if ("*/".equals(comment.group(4)) && !sorted) {
+                // 没有条件的索引访问是按索引顺序读完整张表；用于排序（配合 LIMIT 提前结束）的除外
+                String table = indexTables.get(name);
+                if (table != null) {
+                    scanned.add(table);
+                }
+            }
+        }
+        return new Plan(List.copyOf(scanned), accesses > 1, null);
+    }
+
+    /**
+     * 转为 H2 可执行的文本：参数和字面量统一为 ?，反引号改为双引号，带引号的标识符转小写以匹配建表时的名称
+     */
+    private static String toH2Sql(CharSequence sql) {
+        String text = MYBATIS_PARAM.matcher(sql).replaceAll("?");
+        text = POSITIONAL_PARAM.matcher(text).replaceAll("?");
+        text = replaceLiterals(text);
+        Matcher quoted = QUOTED_IDENTIFIER.matcher(text);
+        StringBuilder out = new StringBuilder(text.length());
+        while (quoted.find()) {
+            quoted.appendReplacement(out,
+                    Matcher.quoteReplacement(quote(quoted.group(1).toLowerCase(Locale.ROOT))));
+        }
+        quoted.appendTail(out);
+        int end = out.length();
+        while (end > 0 && (out.charAt(end - 1) == ';' || Character.isWhitespace(out.charAt(end - 1)))) {
+            end--;
+        }
+        return out.substring(0, end);
+    }
+
+    /**
+     * 字符串（'...'、$$...$$）与数字字面量替换为 ?，注释替换为空格，带引号的标识符原样保留
+     * <p>
+     * 词法与 {@link #checkExplainable} 相同；遇到未闭合的字面量或注释时其余文本原样保留，由检查拒绝。
+     */
+    private static String replaceLiterals(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int i = 0;
+        int n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+            int end;
+            String replacement;
+            if (c == '\'') {
+                end = closingQuote(sql, i, c);
+                replacement = "?";
+            } else if (c == '"' || c == '`') {
+                end = closingQuote(sql, i, c);
+                replacement = end < 0 ? null : sql.substring(i, end);
+            } else if (c == '$' && sql.startsWith("$$", i)) {
+                int close = sql.indexOf("$$", i + 2);
+                end = close < 0 ? -1 : close + 2;
+                replacement = "?";
+            } else if (sql.startsWith("--", i) || sql.startsWith("//", i)) {
+                int newline = sql.indexOf('\n', i);
+                end = newline < 0 ? n : newline + 1;
+                replacement = " ";
+            } else if (sql.startsWith("/*", i)) {
+                end = closingComment(sql, i);
+                replacement = " ";
+            } else if (Character.isDigit(c)) {
+                end = numberEnd(sql, i);
+                replacement = "?";
+            } else if (Character.isLetter(c) || c == '_') {
+                end = i;
+                while (end < n && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_'
+                        || sql.charAt(end) == '$')) {
+                    end++;
+                }
+                replacement = sql.substring(i, end);
+            } else {
+                end = i + 1;
+                replacement = String.valueOf(c);
+            }
+            if (end < 0) {
+                return out.append(sql, i, n).toString();
+            }
+            out.append(replacement);
+            i = end;
+        }
+        return out.toString();
+    }
+
+    /**
+     * 数字字面量（整数、小数、科学计数法）结束的位置
+     */
+    private static int numberEnd(String sql, int start) {
+        int i = digitsEnd(sql, start);
+        if (i + 1 < sql.length() && sql.charAt(i) == '.' && Character.isDigit(sql.charAt(i + 1))) {
+            i = digitsEnd(sql, i + 1);
+        }
+        if (i < sql.length() && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (exponent < sql.length() && (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < sql.length() && Character.isDigit(sql.charAt(exponent))) {
+                i = digitsEnd(sql, exponent);
+            }
+        }
+        return i;
+    }
+
+    private static int digitsEnd(String sql, int start) {
+        int i = start;
+        while (i < sql.length() && Character.isDigit(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 检查语句是否为可以解释的单条 SELECT / UPDATE / DELETE，不可以时返回原因
+     * <p>
+     * 按 H2 的词法跳过字面量（'...'、"..."、$$...$$）和注释（--、//、可嵌套的块注释）：H2 会依次执行分号后的每条语句，
+     * 其余位置出现分号即拒绝；未闭合的字面量或注释也拒绝，避免与 H2 的切分不一致。
+     */
+    private static String checkExplainable(String sql) {
+        String keyword = null;
+        int i = 0;
+        int n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+            int end;
+            if (c == '\'' || c == '"') {
+                end = closingQuote(sql, i, c);
+            } else if (c == '$' && sql.startsWith("$$", i)) {
+                int close = sql.indexOf("$$", i + 2);
+                end = close < 0 ? -1 : close + 2;
+            } else if (sql.startsWith("--", i) || sql.startsWith("//", i)) {
+                int newline = sql.indexOf('\n', i);
+                end = newline < 0 ? n : newline + 1;
+            } else if (sql.startsWith("/*", i)) {
+                end = closingComment(sql, i);
+            } else if (c == ';') {
+                return "语句中包含多条 SQL，不做 EXPLAIN";
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                // 标识符与数字整体跳过：其中的 $ 不是 $$ 字面量的开始
+                int start = i;
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_'
+                        || sql.charAt(i) == '$')) {
+                    i++;
+                }
+                String word = sql.substring(start, i);
+                if (word.contains("$$")) {
+                    return "语句中有无法识别的 $$ 字面量，不做 EXPLAIN";
+                }
+                if (keyword == null) {
+                    keyword = word.toLowerCase(Locale.ROOT);
+                    if (!EXPLAINABLE.contains(keyword)) {
+                        return "只解释 SELECT / UPDATE / DELETE 语句";
+                    }
+                }
+                continue;
+            } else {
+                i++;
+                continue;
+            }
+            if (end < 0) {
+                return "语句中有未闭合的字面量或注释，不做 EXPLAIN";
+            }
+            i = end;
+        }
+        return keyword != null ? null : "只解释 SELECT / UPDATE / DELETE 语句";
+    }
+
+    /**
+     * 引号内重复两次表示转义；返回闭合引号之后的位置，未闭合时返回 -1
+     */
+    private static int closingQuote(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static int closingComment(String sql, int start) {
+        int depth = 0;
+        int i = start;
+        while (i + 1 < sql.length()) {
+            if (sql.startsWith("/*", i)) {
+                depth++;
+                i += 2;
+            } else if (sql.startsWith("*/", i)) {
+                if (--depth == 0) {
+                    return i + 2;
+                }
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 按参数推断出的类型绑定占位值；推断不出类型的绑定 NULL（EXPLAIN 只看计划，不求值）
+     */
+    private static void bindDummies(PreparedStatement statement) throws SQLException {
+        ParameterMetaData metaData = statement.getParameterMetaData();
+        for (int i = 1; i <= metaData.getParameterCount(); i++) {
+            switch (metaData.getParameterType(i)) {
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> statement.setLong(i, 1L);
+                case Types.NUMERIC, Types.DECIMAL, Types.REAL, Types.FLOAT, Types.DOUBLE ->
+                        statement.setBigDecimal(i, BigDecimal.ONE);
+                case Types.BOOLEAN, Types.BIT -> statement.setBoolean(i, true);
+                case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.CLOB, Types.NCHAR, Types.NVARCHAR ->
+                        statement.setString(i, "1");
+                case Types.DATE -> statement.setObject(i, LocalDate.of(2000, 1, 1));
+                case Types.TIME -> statement.setObject(i, LocalTime.NOON);
+                case Types.TIMESTAMP -> statement.setObject(i, LocalDateTime.of(2000, 1, 1, 0, 0));
+                case Types.TIMESTAMP_WITH_TIMEZONE ->
+                        statement.setObject(i, OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+                default -> statement.setObject(i, null);
+            }
+        }
+    }
+
+    /**
+     * 目录中的声明类型映射为 H2 类型；未知类型按字符串处理
+     */
+    private static String h2Type(String declared) {
+        if (declared == null) {
+            return "VARCHAR";
+        }
+        return switch (declared) {
+            case "int", "integer", "int4", "mediumint", "serial", "serial4" -> "INTEGER";
+            case "bigint", "int8", "bigserial", "serial8" -> "BIGINT";
+            case "smallint", "int2", "tinyint", "smallserial" -> "SMALLINT";
+            case "numeric", "decimal", "number", "money", "dec" -> "NUMERIC";
+            case "real", "float4" -> "REAL";
+            case "float", "float8", "double" -> "DOUBLE PRECISION";
+            case "bool", "boolean", "bit" -> "BOOLEAN";
+            case "date" -> "DATE";
+            case "time", "timetz" -> "TIME";
+            case "timestamp", "timestamptz", "datetime" -> "TIMESTAMP";
+            default -> "VARCHAR";
+        };
+    }
+
+    /**
+     * 目录表名拆为 schema 和表名；不带 schema 的归入默认 schema，多级限定名（库.schema.表）不支持
+     */
+    private static String[] splitName(String name) {
+        String[] parts = name.split("\\.");
+        return switch (parts.length) {
+            case 1 -> new String[]{DEFAULT_SCHEMA, parts[0]};
+            case 2 -> parts;
+            default -> null;
+        };
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,343 @@
+package com.sqlaudit.rule;
+
+import com.sqlaudit.util.CharSequences;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 从 SELECT / UPDATE / DELETE 中提取 WHERE 和 JOIN ... ON 里可走索引的条件列，并借助表结构目录解析到具体的表
+ * <p>
+ * 只识别"列 运算符"形式的条件（=、&lt;、&gt;、&lt;=、&gt;=、IN、BETWEEN、前缀 LIKE），
+ * 包在函数里的列、否定条件和前置 % 的 LIKE 本身就用不上索引，不计入。
+ * 带表别名的列按别名解析；不带别名的列在只涉及一张表时归属该表，否则归属目录中唯一含有该列的表。
+ * 目录为空时不核对表和列是否存在，表按语句中出现的去掉 schema 的短名记录。
+ */
+public final class PredicateColumns {
+
+    private static final Set<String> COMPARISONS = Set.of("=", "<", ">", "<=", ">=", "in", "between", "like");
+    /** 不能作为表别名的关键字 */
+    private static final Set<String> KEYWORDS = Set.of(
+            "where", "on", "join", "inner", "left", "right", "full", "outer", "cross", "natural", "using",
+            "group", "order", "having", "limit", "offset", "union", "intersect", "except", "set", "returning",
+            "window", "for", "fetch", "as", "select", "from", "and", "or", "not", "values", "lateral");
+    private static final Set<String> SORT_MODIFIERS = Set.of("asc", "desc", "nulls", "first", "last");
+    /** 结束条件上下文的关键字 */
+    private static final Set<String> CLAUSE_END = Set.of(
+            "group", "order", "having", "limit", "offset", "union", "intersect", "except", "returning", "window",
+            "fetch", "join", "inner", "left", "right", "full", "cross", "natural", "set", "select", "values");
+
+    private PredicateColumns() {
+    }
+
+    /**
+     * 条件列
+     *
+     * @param table    目录中的表名
+     * @param equality 是否为等值条件（= 或 IN）
+     */
+    public record Predicate(String table, String column, boolean equality) {
+    }
+
+    /**
+     * 排序列
+     *
+     * @param table 目录中的表名
+     */
+    public record SortColumn(String table, String column) {
+    }
+
+    /**
+     * 语句的可索引列：条件列与最外层 ORDER BY 的排序列
+     *
+     * @param orderBy 排序列，遇到表达式、函数或无法解析的列时截断（其后的列无法借助索引排序）
+     */
+    public record Access(List<Predicate> predicates, List<SortColumn> orderBy) {
+    }
+
+    /**
+     * 提取条件列，按出现顺序返回；表不在目录中的列忽略
+     */
+    public static List<Predicate> extract(CharSequence sql, SchemaCatalog catalog) {
+        return analyze(sql, catalog).predicates();
+    }
+
+    /**
+     * 同时提取条件列与排序列
+     */
+    public static Access analyze(CharSequence sql, SchemaCatalog catalog) {
+        List<String> tokens = tokenize(sql);
+        Map<String, String> aliases = new HashMap<>();
+        List<String> tables = new ArrayList<>();
+        collectTables(tokens, catalog, aliases, tables);
+        if (tables.isEmpty()) {
+            return new Access(List.of(), List.of());
+        }
+
+        List<Predicate> predicates = new ArrayList<>();
+        Deque<Boolean> outer = new ArrayDeque<>();
+        boolean inCondition = false;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            switch (token) {
+                case "(" -> {
+                    outer.push(inCondition);
+                    continue;
+                }
+                case ")" -> {
+                    inCondition = !outer.isEmpty() && outer.pop();
+                    continue;
+                }
+                case "where", "on" -> {
+                    inCondition = true;
+                    continue;
+                }
+                default -> {
+                    if (CLAUSE_END.contains(token)) {
+                        inCondition = false;
+                        continue;
+                    }
+                }
+            }
+            if (!inCondition || !isIdentifier(token) || KEYWORDS.contains(token) || i + 1 >= tokens.size()) {
+                continue;
+            }
+            String op = tokens.get(i + 1);
+            // 包在函数里的列（如 lower(name) = ?）后面跟的是 ")"，不会走到这里
+            if (!COMPARISONS.contains(op)) {
+                continue;
+            }
+            if ("like".equals(op) && i + 2 < tokens.size() && tokens.get(i + 2).startsWith("'%")) {
+                continue;
+            }
+            boolean equality = "=".equals(op) || "in".equals(op);
+            add(predicates, token, equality, aliases, tables, catalog);
+            // a.x = b.y：右侧带限定名的列同样是连接条件列
+            if ("=".equals(op) && i + 2 < tokens.size()) {
+                String right = tokens.get(i + 2);
+                boolean call = i + 3 < tokens.size() && "(".equals(tokens.get(i + 3));
+                if (isIdentifier(right) && right.indexOf('.') > 0 && !call) {
+                    add(predicates, right, true, aliases, tables, catalog);
+                }
+            }
+        }
+        return new Access(predicates, orderBy(tokens, aliases, tables, catalog));
+    }
+
+    private static void add(List<Predicate> predicates, String reference, boolean equality,
+            Map<String, String> aliases, List<String> tables, SchemaCatalog catalog) {
+        String[] resolved = resolve(reference, aliases, tables, catalog);
+        if (resolved != null) {
+            predicates.add(new Predicate(resolved[0], resolved[1], equality));
+        }
+    }
+
+    /**
+     * 最外层（不在括号内）的 ORDER BY 列，逐项读到第一个不是普通列的排序项为止
+     */
+    private static List<SortColumn> orderBy(List<String> tokens, Map<String, String> aliases, List<String> tables,
+            SchemaCatalog catalog) {
+        int depth = 0;
+        int start = -1;
+        for (int i = 0; i + 1 < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if ("(".equals(token)) {
+                depth++;
+            } else if (")".equals(token)) {
+                depth--;
+            } else if (depth == 0 && "order".equals(token) && "by".equals(tokens.get(i + 1))) {
+                start = i + 2;
+            }
+        }
+        if (start < 0) {
+            return List.of();
+        }
+        List<SortColumn> columns = new ArrayList<>();
+        int i = start;
+        while (i < tokens.size()) {
+            String token = tokens.get(i);
+            String next = i + 1 < tokens.size() ? tokens.get(i + 1) : "";
+            if (!isIdentifier(token) || KEYWORDS.contains(token) || "(".equals(next)) {
+                break;
+            }
+            String[] resolved = resolve(token, aliases, tables, catalog);
+            if (resolved == null) {
+                break;
+            }
+            columns.add(new SortColumn(resolved[0], resolved[1]));
+            i++;
+            while (i < tokens.size() && SORT_MODIFIERS.contains(tokens.get(i))) {
+                i++;
+            }
+            if (i >= tokens.size() || !",".equals(tokens.get(i))) {
+                break;
+            }
+            i++;
+        }
+        return columns;
+    }
+
+    /**
+     * 解析列引用所属的表
+     *
+     * @return {表名, 列名}；无法确定或目录中没有该列时返回 null
+     */
+    private static String[] resolve(String reference, Map<String, String> aliases, List<String> tables,
+            SchemaCatalog catalog) {
+        int dot = reference.lastIndexOf('.');
+        String table;
+        String column;
+        if (dot >= 0) {
+            String qualifier = reference.substring(0, dot);
+            column = reference.substring(dot + 1);
+            table = aliases.get(qualifier);
+        } else {
+            column = reference;
+            table = resolveUnqualified(column, tables, catalog);
+        }
+        if (table == null) {
+            return null;
+        }
+        // 目录里有列定义时，不认识的名字（rownum 等伪列、拼写不一致）不算条件列
+        SchemaCatalog.Table definition = catalog.table(table);
+        if (definition == null || definition.columns().isEmpty() || definition.hasColumn(column)) {
+            return new String[] {table, column};
+        }
+        return null;
+    }
+
+    private static String resolveUnqualified(String column, List<String> tables, SchemaCatalog catalog) {
+        if (tables.size() == 1) {
+            return tables.get(0);
+        }
+        String owner = null;
+        for (String table : tables) {
+            SchemaCatalog.Table definition = catalog.table(table);
+            if (definition != null && definition.hasColumn(column)) {
+                if (owner != null && !owner.equals(table)) {
+                    return null;
+                }
+                owner = table;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * 登记 FROM / JOIN / UPDATE 后的表及别名；FROM 后的逗号列表逐个登记，子查询跳过
+     */
+    private static void collectTables(List<String> tokens, SchemaCatalog catalog, Map<String, String> aliases,
+            List<String> tables) {
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (!"from".equals(token) && !"join".equals(token) && !"update".equals(token)) {
+                continue;
+            }
+            int j = i + 1;
+            while (j < tokens.size()) {
+                String name = tokens.get(j);
+                if (!isIdentifier(name) || KEYWORDS.contains(name)) {
+                    break;
+                }
+                j++;
+                String alias = null;
+                if (j < tokens.size() && "as".equals(tokens.get(j))) {
+                    j++;
+                }
+                if (j < tokens.size() && isIdentifier(tokens.get(j)) && !KEYWORDS.contains(tokens.get(j))) {
+                    alias = tokens.get(j++);
+                }
+                SchemaCatalog.Table table = catalog.table(name);
+                int dot = name.lastIndexOf('.');
+                String tableName = table != null ? table.name()
+                        : catalog.isEmpty() ? name.substring(dot + 1) : null;
+                if (tableName != null) {
+                    if (!tables.contains(tableName)) {
+                        tables.add(tableName);
+                    }
+                    aliases.put(name, tableName);
+                    if (dot >= 0) {
+                        aliases.put(name.substring(dot + 1), tableName);
+                    }
+                    if (alias != null) {
+                        aliases.put(alias, tableName);
+                    }
+                }
+                if (!"from".equals(token) || j >= tokens.size() || !",".equals(tokens.get(j))) {
+                    break;
+                }
+                j++;
+            }
+        }
+    }
+
+    private static boolean isIdentifier(String token) {
+        char c = token.charAt(0);
+        return Character.isLetter(c) || c == '_';
+    }
+
+    /**
+     * 切分为小写词元：标识符（含 a.b 限定名，去掉引号）、字符串字面量（保留引号以便识别 LIKE 前缀）、
+     * 运算符和标点；MyBatis 参数与数字统一为 ?
+     */
+    static List<String> tokenize(CharSequence sql) {
+        List<String> tokens = new ArrayList<>();
+        int n = sql.length();
+        int i = 0;
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if ((c == '#' || c == '$') && i + 1 < n && sql.charAt(i + 1) == '{') {
+                int end = CharSequences.indexOf(sql, '}', i);
+                i = end < 0 ? n : end + 1;
+                tokens.add("?");
+            } else if (c == '\'') {
+                int end = i + 1;
+                while (end < n && (sql.charAt(end) != '\'' || (end + 1 < n && sql.charAt(end + 1) == '\''))) {
+                    end += sql.charAt(end) == '\'' ? 2 : 1;
+                }
+                tokens.add(sql.subSequence(i, Math.min(end + 1, n)).toString());
+                i = end + 1;
+            } else if (Character.isLetter(c) || c == '_' || c == '"' || c == '`') {
+                StringBuilder name = new StringBuilder();
+                while (i < n) {
+                    char d = sql.charAt(i);
+                    if (d == '"' || d == '`') {
+                        int end = CharSequences.indexOf(sql, d, i + 1);
+                        end = end < 0 ? n : end;
+                        name.append(sql, i + 1, end);
+                        i = end + 1;
+                    } else if (Character.isLetterOrDigit(d) || d == '_' || d == '$' || d == '.') {
+                        name.append(d);
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (!name.isEmpty()) {
+                    tokens.add(name.toString().toLowerCase(Locale.ROOT));
+                }
+            } else if (Character.isDigit(c)) {
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add("?");
+            } else if ((c == '<' || c == '>' || c == '!') && i + 1 < n
+                    && (sql.charAt(i + 1) == '=' || (c == '<' && sql.charAt(i + 1) == '>'))) {
+                tokens.add(sql.subSequence(i, i + 2).toString());
+                i += 2;
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,374 @@
+package com.sqlaudit.rule;
+
+import com.sqlaudit.util.Digests;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 表结构目录：从 DDL（CREATE TABLE / CREATE INDEX / ALTER TABLE ... ADD）中提取表 → 列 → 索引键
+ * <p>
+ * 表名、列名统一小写，去掉双引号和反引号。表同时按全名（含 schema）和不含 schema 的短名登记，
+ * 查找均为哈希查找；每张表预先算好全部索引的前导列集合，判断条件列能否用上索引是 O(1) 操作。
+ * 实例不可变，可在多个扫描线程间共享。
+ */
+public final class SchemaCatalog {
+
+    private static final SchemaCatalog EMPTY = new SchemaCatalog(Map.of(), List.of(), 0);
+
+    private static final Pattern QUOTED_IDENTIFIER = Pattern.compile("[\"`]([^\"`]+)[\"`]");
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+            "^\\s*CREATE\\s+(?:OR\\s+REPLACE\\s+)?(?:(?:GLOBAL|LOCAL)\\s+)?(?:(?:TEMPORARY|TEMP|UNLOGGED)\\s+)?"
+                    + "TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?([\\w.$]+)\\s*\\(",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "^\\s*CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(?:CONCURRENTLY\\s+)?(?:IF\\s+NOT\\s+EXISTS\\s+)?(?:[\\w.$]+\\s+)?"
+                    + "ON\\s+(?:ONLY\\s+)?([\\w.$]+)\\s*(?:USING\\s+\\w+\\s*)?\\(",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ALTER_TABLE = Pattern.compile(
+            "^\\s*ALTER\\s+TABLE\\s+(?:IF\\s+EXISTS\\s+)?(?:ONLY\\s+)?([\\w.$]+)\\s+",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CONSTRAINT_PREFIX = Pattern.compile(
+            "^CONSTRAINT\\s+[\\w$]+\\s+", Pattern.CASE_INSENSITIVE);
+    /** 表级索引定义: PRIMARY KEY (...)、UNIQUE [KEY|INDEX] [name] (...)、KEY|INDEX [name] (...) */
+    private static final Pattern TABLE_INDEX = Pattern.compile(
+            "^(?:PRIMARY\\s+KEY|UNIQUE(?:\\s+(?:KEY|INDEX))?|KEY|INDEX)\\s*(?:[\\w$]+\\s*)?(?:USING\\s+\\w+\\s*)?\\(",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern NON_COLUMN_ELEMENT = Pattern.compile(
+            "^(?:FOREIGN\\s+KEY|CHECK|EXCLUDE|FULLTEXT|SPATIAL|LIKE|PERIOD|PARTITION)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INLINE_PRIMARY_KEY = Pattern.compile("\\bPRIMARY\\s+KEY\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INLINE_UNIQUE = Pattern.compile("\\bUNIQUE\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ADD_COLUMN = Pattern.compile("^ADD\\s+(?:COLUMN\\s+)?(?:IF\\s+NOT\\s+EXISTS\\s+)?",
+            Pattern.CASE_INSENSITIVE);
+    /** 索引键元素：列名，可带 MySQL 前缀长度 name(20)，其后可跟排序、操作符类等修饰 */
+    private static final Pattern KEY_COLUMN = Pattern.compile("^([\\w$]+)\\s*(?:\\(\\s*\\d+\\s*\\))?(?:\\s+.*)?$",
+            Pattern.DOTALL);
+    private static final Pattern TYPE_PARAMETERS = Pattern.compile("\\s*\\d+\\s*(?:,\\s*\\d+\\s*)?");
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][\\w$]*");
+
+    /** 全名和短名到表的映射 */
+    private final Map<String, Table> tables;
+    /** 按 DDL 中首次出现的顺序排列的全部表 */
+    private final List<Table> tableList;
+    private final int indexCount;
+    /** 内容摘要，首次使用时计算 */
+    private volatile String fingerprint;
+
+    private SchemaCatalog(Map<String, Table> tables, List<Table> tableList, int indexCount) {
+        this.tables = tables;
+        this.tableList = tableList;
+        this.indexCount = indexCount;
+    }
+
+    public static SchemaCatalog empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 表定义
+     *
+     * @param name           小写表名（含 schema 时为全名）
+     * @param columns        列名；只见到 CREATE INDEX 而没有 CREATE TABLE 时为空
+     * @param indexes        各索引的键列（主键、唯一约束和普通索引），表达式列之后的部分不计入
+     * @param leadingColumns 全部索引的前导列
+     * @param columnTypes    列 → 声明类型的首个单词（小写，如 bigint、varchar），不含长度精度
+     */
+    public record Table(String name, Set<String> columns, List<List<String>> indexes, Set<String> leadingColumns,
+            Map<String, String> columnTypes) {
+
+        public boolean hasColumn(String column) {
+            return columns.contains(column);
+        }
+
+        /**
+         * 条件列中是否有某个索引的前导列
+         */
+        public boolean hasIndexLeadingWithAny(Set<String> predicateColumns) {
+            for (String column : predicateColumns) {
+                if (leadingColumns.contains(column)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public boolean isEmpty() {
+        return tableList.isEmpty();
+    }
+
+    public int tableCount() {
+        return tableList.size();
+    }
+
+    public List<Table> tables() {
+        return tableList;
+    }
+
+    public int indexCount() {
+        return indexCount;
+    }
+
+    /**
+     * 目录内容（表、列、列类型、索引）的摘要，内容相同的目录摘要相同；空目录返回空串
+     */
+    public String fingerprint() {
+        String result = fingerprint;
+        if (result == null) {
+            if (tableList.isEmpty()) {
+                result = "";
+            } else {
+                MessageDigest digest = Digests.sha256();
+                for (Table table : tableList) {
+                    Digests.update(digest, table.name());
+                    Digests.update(digest, new TreeSet<>(table.columns()));
+                    Digests.update(digest, new TreeMap<>(table.columnTypes()));
+                    Digests.update(digest, table.indexes());
+                }
+                result = Digests.hex(digest);
+            }
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * 按表名查找，先按全名再按去掉 schema 的短名；名称可带引号、大小写不限
+     */
+    public Table table(String name) {
+        if (name == null || tables.isEmpty()) {
+            return null;
+        }
+        String key = normalize(name);
+        Table table = tables.get(key);
+        if (table == null) {
+            int dot = key.lastIndexOf('.');
+            if (dot >= 0) {
+                table = tables.get(key.substring(dot + 1));
+            }
+        }
+        return table;
+    }
+
+    static String normalize(String identifier) {
+        return QUOTED_IDENTIFIER.matcher(identifier.trim()).replaceAll("$1").toLowerCase(Locale.ROOT);
+    }
+
+    public static final class Builder {
+
+        private final Map<String, MutableTable> tables = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * 登记一条 DDL 语句；不是建表、建索引或 ALTER TABLE ADD 的语句忽略，返回是否识别
+         */
+        public boolean addStatement(String sql) {
+            if (sql == null || sql.isBlank()) {
+                return false;
+            }
+            String ddl = QUOTED_IDENTIFIER.matcher(sql).replaceAll("$1");
+            Matcher matcher = CREATE_TABLE.matcher(ddl);
+            if (matcher.find()) {
+                String body = parenthesized(ddl, matcher.end() - 1);
+                if (body == null) {
+                    return false;
+                }
+                MutableTable table = table(matcher.group(1));
+                for (String element : splitTopLevel(body)) {
+                    addTableElement(table, element);
+                }
+                return true;
+            }
+            matcher = CREATE_INDEX.matcher(ddl);
+            if (matcher.find()) {
+                String body = parenthesized(ddl, matcher.end() - 1);
+                if (body == null) {
+                    return false;
+                }
+                table(matcher.group(1)).addIndex(keyColumns(body));
+                return true;
+            }
+            matcher = ALTER_TABLE.matcher(ddl);
+            if (matcher.find()) {
+                boolean recognized = false;
+                for (String action : splitTopLevel(ddl.substring(matcher.end()))) {
+                    Matcher add = ADD_COLUMN.matcher(action);
+                    if (add.find()) {
+                        addTableElement(table(matcher.group(1)), action.substring(add.end()));
+                        recognized = true;
+                    }
+                }
+                return recognized;
+            }
+            return false;
+        }
+
+        public SchemaCatalog build() {
+            Map<String, Integer> shortNames = new HashMap<>();
+            for (String name : tables.keySet()) {
+                int dot = name.lastIndexOf('.');
+                if (dot >= 0) {
+                    shortNames.merge(name.substring(dot + 1), 1, Integer::sum);
+                }
+            }
+            Map<String, Table> index = new HashMap<>(tables.size() * 4);
+            List<Table> tableList = new ArrayList<>(tables.size());
+            int indexCount = 0;
+            for (Map.Entry<String, MutableTable> entry : tables.entrySet()) {
+                String name = entry.getKey();
+                MutableTable mutable = entry.getValue();
+                Set<String> leading = new HashSet<>();
+                for (List<String> keys : mutable.indexes) {
+                    leading.add(keys.get(0));
+                }
+                indexCount += mutable.indexes.size();
+                Table table = new Table(name, Set.copyOf(mutable.columns), List.copyOf(mutable.indexes),
+                        Set.copyOf(leading), Map.copyOf(mutable.columnTypes));
+                index.put(name, table);
+                tableList.add(table);
+                int dot = name.lastIndexOf('.');
+                // 多个 schema 下有同名表时短名有歧义，只能按全名查找
+                if (dot >= 0) {
+                    String shortName = name.substring(dot + 1);
+                    if (shortNames.get(shortName) == 1 && !tables.containsKey(shortName)) {
+                        index.put(shortName, table);
+                    }
+                }
+            }
+            return new SchemaCatalog(index, List.copyOf(tableList), indexCount);
+        }
+
+        private MutableTable table(String name) {
+            return tables.computeIfAbsent(normalize(name), k -> new MutableTable());
+        }
+
+        private static void addTableElement(MutableTable table, String element) {
+            String text = CONSTRAINT_PREFIX.matcher(element.trim()).replaceFirst("");
+            Matcher index = TABLE_INDEX.matcher(text);
+            if (index.find()) {
+                String body = parenthesized(text, index.end() - 1);
+                // 形如 key varchar(64) 的是名为 key 的列，括号内是类型参数
+                if (body == null || !TYPE_PARAMETERS.matcher(body).matches()) {
+                    if (body != null) {
+                        table.addIndex(keyColumns(body));
+                    }
+                    return;
+                }
+            }
+            if (NON_COLUMN_ELEMENT.matcher(text).find()) {
+                return;
+            }
+            Matcher column = IDENTIFIER.matcher(text);
+            if (!column.lookingAt()) {
+                return;
+            }
+            String name = column.group().toLowerCase(Locale.ROOT);
+            table.columns.add(name);
+            String definition = text.substring(column.end());
+            Matcher type = IDENTIFIER.matcher(definition.trim());
+            if (type.lookingAt()) {
+                table.columnTypes.put(name, type.group().toLowerCase(Locale.ROOT));
+            }
+            if (INLINE_PRIMARY_KEY.matcher(definition).find() || INLINE_UNIQUE.matcher(definition).find()) {
+                table.addIndex(List.of(name));
+            }
+        }
+
+        /**
+         * 索引键列；遇到表达式（函数索引等）即停止，只保留其前面的列
+         */
+        private static List<String> keyColumns(String body) {
+            List<String> keys = new ArrayList<>();
+            for (String element : splitTopLevel(body)) {
+                Matcher matcher = KEY_COLUMN.matcher(element.trim());
+                if (!matcher.matches()) {
+                    break;
+                }
+                keys.add(matcher.group(1).toLowerCase(Locale.ROOT));
+            }
+            return keys;
+        }
+    }
+
+    private static final class MutableTable {
+
+        final Set<String> columns = new LinkedHashSet<>();
+        final Map<String, String> columnTypes = new HashMap<>();
+        final List<List<String>> indexes = new ArrayList<>();
+
+        void addIndex(List<String> keys) {
+            if (!keys.isEmpty() && !indexes.contains(keys)) {
+                indexes.add(List.copyOf(keys));
+            }
+        }
+    }
+
+    /**
+     * 取 open 处左括号到与之匹配的右括号之间的内容；括号不配对时返回 null
+     */
+    private static String parenthesized(String text, int open) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = open; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            } else if (!inString && c == '(') {
+                depth++;
+            } else if (!inString && c == ')' && --depth == 0) {
+                return text.substring(open + 1, i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按不在括号和字符串内的逗号拆分
+     */
+    private static List<String> splitTopLevel(String text) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean inString = false;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            } else if (!inString && c == '(') {
+                depth++;
+            } else if (!inString && c == ')') {
+                depth--;
+            } else if (!inString && depth == 0 && c == ',') {
+                addPart(parts, text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        addPart(parts, text.substring(start));
+        return parts;
+    }
+
+    private static void addPart(List<String> parts, String part) {
+        String trimmed = part.trim();
+        if (!trimmed.isEmpty()) {
+            parts.add(trimmed);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.sqlaudit.rule;
+
+import com.sqlaudit.util.CharSequences;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 从单条语句的词元中提取用到的表和列，以及读写方式，供用法倒排索引使用
+ * <p>
+ * 表名统一为去掉 schema 的小写短名。INSERT / UPDATE / DELETE / MERGE / TRUNCATE 的目标表记为写，其余为读；
+ * UPDATE SET 左侧和 INSERT 列清单中的列记为写，WHERE / ON / HAVING 中的列记为过滤。
+ * 带限定名的列按表名或别名解析；不带限定名的列在语句只涉及一张表时归属该表，涉及多张表时归属每张表
+ * （宁可多算，避免"没有按某列过滤"之类的查询误报）。子查询的派生表别名、CTE 名不计为表。
+ */
+public final class StatementUsage {
+
+    /** 表：写入；列：被赋值（UPDATE SET、INSERT 列清单） */
+    public static final int WRITE = 1;
+    /** 列：出现在 WHERE / ON / HAVING 条件中 */
+    public static final int FILTER = 2;
+
+    private static final Set<String> TABLE_INTRODUCERS = Set.of("from", "join", "update", "into", "using", "table");
+    private static final Set<String> KEYWORDS = Set.of(
+            "select", "from", "where", "and", "or", "not", "in", "is", "null", "like", "ilike", "between", "exists",
+            "case", "when", "then", "else", "end", "as", "on", "join", "inner", "left", "right", "full", "outer",
+            "cross", "natural", "group", "by", "order", "asc", "desc", "nulls", "first", "last", "limit", "offset",
+            "having", "union", "all", "distinct", "insert", "into", "values", "value", "update", "set", "delete",
+            "merge", "using", "matched", "returning", "with", "recursive", "true", "false", "interval", "lateral",
+            "fetch", "next", "rows", "row", "only", "for", "share", "nowait", "skip", "locked", "window", "over",
+            "partition", "except", "intersect", "escape", "similar", "to", "any", "some", "array", "default",
+            "conflict", "do", "nothing", "duplicate", "key", "ignore", "truncate", "table", "cascade", "restrict",
+            "if", "current_date", "current_time", "current_timestamp", "localtime", "localtimestamp", "unknown",
+            "replace", "minus", "connect", "start", "prior", "level", "rownum", "sysdate", "dual", "no", "of");
+    /** 结束条件上下文的关键字 */
+    private static final Set<String> CLAUSE_END = Set.of(
+            "group", "order", "limit", "offset", "union", "intersect", "except", "returning", "window", "fetch",
+            "join", "inner", "left", "right", "full", "cross", "natural", "set", "select", "values", "for");
+
+    private StatementUsage() {
+    }
+
+    /**
+     * 提取结果
+     *
+     * @param tables  表名 → 标志位（{@link #WRITE}）
+     * @param columns 表名 → (列名 → 标志位（{@link #WRITE}、{@link #FILTER}）)；列只在被引用时出现
+     */
+    public record Usage(Map<String, Integer> tables, Map<String, Map<String, Integer>> columns) {
+    }
+
+    public static Usage extract(CharSequence sql) {
+        if (sql == null || CharSequences.isBlank(sql)) {
+            return new Usage(Map.of(), Map.of());
+        }
+        List<String> tokens = PredicateColumns.tokenize(sql);
+        Set<String> ctes = collectCteNames(tokens);
+        Map<String, Integer> tables = new LinkedHashMap<>();
+        Map<String, String> aliases = new HashMap<>();
+        Set<String> derived = new HashSet<>();
+        Set<Integer> tablePositions = new HashSet<>();
+        collectTables(tokens, ctes, tables, aliases, derived, tablePositions);
+
+        Map<String, Map<String, Integer>> columns = new LinkedHashMap<>();
+        if (tables.isEmpty()) {
+            return new Usage(tables, columns);
+        }
+        Deque<Boolean> outer = new ArrayDeque<>();
+        boolean inCondition = false;
+        boolean inSet = false;
+        // INSERT INTO t (列清单) 所在的括号深度，-1 表示不在列清单中
+        int insertColumnsDepth = -1;
+        String writeTarget = null;
+        for (Map.Entry<String, Integer> table : tables.entrySet()) {
+            if ((table.getValue() & WRITE) != 0) {
+                writeTarget = table.getKey();
+                break;
+            }
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            switch (token) {
+                case "(" -> {
+                    outer.push(inCondition);
+                    if (i > 0 && tablePositions.contains(i - 1) && isInsertTarget(tokens, i - 1)) {
+                        insertColumnsDepth = outer.size();
+                    }
+                    continue;
+                }
+                case ")" -> {
+                    if (outer.size() == insertColumnsDepth) {
+                        insertColumnsDepth = -1;
+                    }
+                    inCondition = !outer.isEmpty() && outer.pop();
+                    continue;
+                }
+                case "where", "on", "having" -> {
+                    inCondition = true;
+                    inSet = false;
+                    continue;
+                }
+                case "set" -> {
+                    inSet = true;
+                    inCondition = false;
+                    continue;
+                }
+                default -> {
+                    if (CLAUSE_END.contains(token) || "from".equals(token)) {
+                        inCondition = false;
+                        inSet = false;
+                    }
+                }
+            }
+            if (!isIdentifier(token) || KEYWORDS.contains(token) || tablePositions.contains(i)
+                    || ctes.contains(token)) {
+                continue;
+            }
+            String previous = i > 0 ? tokens.get(i - 1) : "";
+            String next = i + 1 < tokens.size() ? tokens.get(i + 1) : "";
+            // 函数名、别名定义、类型转换（::type）都不是列
+            if ("(".equals(next) || "as".equals(previous)
+                    || (":".equals(previous) && i > 1 && ":".equals(tokens.get(i - 2)))) {
+                continue;
+            }
+            // 被赋值的列只属于写入目标表
+            if (writeTarget != null && (insertColumnsDepth > 0 || (inSet && "=".equals(next) && outer.isEmpty()))) {
+                int dot = token.lastIndexOf('.');
+                merge(columns, writeTarget, dot >= 0 ? token.substring(dot + 1) : token, WRITE);
+                continue;
+            }
+            addColumn(columns, token, inCondition ? FILTER : 0, tables, aliases, derived);
+        }
+        return new Usage(tables, columns);
+    }
+
+    private static void addColumn(Map<String, Map<String, Integer>> columns, String reference, int flags,
+            Map<String, Integer> tables, Map<String, String> aliases, Set<String> derived) {
+        int dot = reference.lastIndexOf('.');
+        if (dot == reference.length() - 1) {
+            // t.* 之类
+            return;
+        }
+        if (dot >= 0) {
+            String qualifier = reference.substring(0, dot);
+            String table = aliases.get(qualifier);
+            if (table == null) {
+                int qualifierDot = qualifier.lastIndexOf('.');
+                table = aliases.get(qualifierDot >= 0 ? qualifier.substring(qualifierDot + 1) : qualifier);
+            }
+            if (table != null && !derived.contains(qualifier)) {
+                merge(columns, table, reference.substring(dot + 1), flags);
+            }
+            return;
+        }
+        if (aliases.containsKey(reference) || derived.contains(reference)) {
+            return;
+        }
+        for (String table : tables.keySet()) {
+            merge(columns, table, reference, flags);
+        }
+    }
+
+    private static void merge(Map<String, Map<String, Integer>> columns, String table, String column, int flags) {
+        columns.computeIfAbsent(table, k -> new LinkedHashMap<>()).merge(column, flags, (a, b) -> a | b);
+    }
+
+    /**
+     * 登记 FROM / JOIN / UPDATE / INTO / USING / TABLE 后的表及别名；FROM 后的逗号列表逐个登记
+     */
+    private static void collectTables(List<String> tokens, Set<String> ctes, Map<String, Integer> tables,
+            Map<String, String> aliases, Set<String> derived, Set<Integer> positions) {
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (!TABLE_INTRODUCERS.contains(token)) {
+                continue;
+            }
+            int j = i + 1;
+            while (j < tokens.size()) {
+                String name = tokens.get(j);
+                if ("(".equals(name)) {
+                    // 派生表：跳过括号，记下其别名以免被当作表或列的限定名
+                    j = skipParenthesized(tokens, j);
+                    String alias = aliasAt(tokens, j);
+                    if (alias != null) {
+                        derived.add(alias);
+                        j += "as".equals(tokens.get(j)) ? 2 : 1;
+                    }
+                } else if (isIdentifier(name) && !KEYWORDS.contains(name)) {
+                    positions.add(j);
+                    j++;
+                    String alias = aliasAt(tokens, j);
+                    if (alias != null) {
+                        j += "as".equals(tokens.get(j)) ? 2 : 1;
+                    }
+                    if (!ctes.contains(name)) {
+                        String table = shortName(name);
+                        tables.merge(table, isWriteIntroducer(tokens, i) ? WRITE : 0, (a, b) -> a | b);
+                        aliases.put(name, table);
+                        aliases.put(table, table);
+                        if (alias != null) {
+                            aliases.put(alias, table);
+                        }
+                    } else if (alias != null) {
+                        derived.add(alias);
+                    }
+                } else {
+                    break;
+                }
+                if (!"from".equals(token) || j >= tokens.size() || !",".equals(tokens.get(j))) {
+                    break;
+                }
+                j++;
+            }
+        }
+    }
+
+    private static String aliasAt(List<String> tokens, int j) {
+        if (j >= tokens.size()) {
+            return null;
+        }
+        int k = "as".equals(tokens.get(j)) ? j + 1 : j;
+        if (k < tokens.size() && isIdentifier(tokens.get(k)) && !KEYWORDS.contains(tokens.get(k))) {
+            return tokens.get(k);
+        }
+        return null;
+    }
+
+    /**
+     * INSERT INTO、UPDATE、DELETE FROM、MERGE INTO、TRUNCATE [TABLE] 引入的是写入目标
+     */
+    private static boolean isWriteIntroducer(List<String> tokens, int i) {
+        String token = tokens.get(i);
+        String previous = i > 0 ? tokens.get(i - 1) : "";
+        return switch (token) {
+            case "update" -> !"for".equals(previous) && !"do".equals(previous) && !"key".equals(previous);
+            case "into" -> "insert".equals(previous) || "merge".equals(previous) || "replace".equals(previous);
+            case "from" -> "delete".equals(previous);
+            case "table" -> "truncate".equals(previous);
+            default -> false;
+        };
+    }
+
+    private static boolean isInsertTarget(List<String> tokens, int position) {
+        return position > 0 && "into".equals(tokens.get(position - 1)) && isWriteIntroducer(tokens, position - 1);
+    }
+
+    /**
+     * WITH 子句定义的 CTE 名（name AS ( 或 name(列...) AS (）
+     */
+    private static Set<String> collectCteNames(List<String> tokens) {
+        Set<String> names = new HashSet<>();
+        for (int i = 1; i + 1 < tokens.size(); i++) {
+            String previous = tokens.get(i - 1);
+            if (("with".equals(previous) || "recursive".equals(previous) || ",".equals(previous))
+                    && isIdentifier(tokens.get(i)) && "as".equals(tokens.get(i + 1))
+                    && i + 2 < tokens.size() && "(".equals(tokens.get(i + 2))) {
+                names.add(tokens.get(i));
+            }
+        }
+        return names;
+    }
+
+    private static int skipParenthesized(List<String> tokens, int open) {
+        int depth = 0;
+        for (int i = open; i < tokens.size(); i++) {
+            if ("(".equals(tokens.get(i))) {
+                depth++;
+            } else if (")".equals(tokens.get(i)) && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return tokens.size();
+    }
+
+    private static String shortName(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1) : name;
+    }
+
+    private static boolean isIdentifier(String token) {
+        char c = token.charAt(0);
+        return Character.isLetter(c) || c == '_';
+    }
+}
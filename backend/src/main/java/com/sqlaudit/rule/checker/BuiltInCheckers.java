@@ -0,0 +1,40 @@
+package com.sqlaudit.rule.checker;
+
+import java.util.List;
+
+/**
+ * 内置检查器清单，供不经过 Spring 容器装配的场景（命令行、JDBC 代理）使用
+ * <p>
+ * 新增检查器时需同步登记到这里（有单元测试校验与 {@code @Component} 扫描结果一致）。
+ */
+public final class BuiltInCheckers {
+
+    private BuiltInCheckers() {
+    }
+
+    public static List<SqlChecker> all() {
+        return List.of(
+                new CountUsageChecker(),
+                new DeleteTruncateChecker(),
+                new ExplainPlanChecker(),
+                new ImplicitJoinChecker(),
+                new IndexHintChecker(),
+                new InListSizeChecker(),
+                new JoinTableCountChecker(),
+                new KeywordCaseChecker(),
+                new LikePercentStartChecker(),
+                new LockTableChecker(),
+                new NoSelectStarChecker(),
+                new NotEqualOpsChecker(),
+                new NullComparisonChecker(),
+                new RequireLimitChecker(),
+                new RequireWhereChecker(),
+                new SchemaPrefixChecker(),
+                new SqlInjectionRiskChecker(),
+                new SubqueryDepthChecker(),
+                new SubqueryInTargetChecker(),
+                new UnionAllChecker(),
+                new UpdateLimitChecker(),
+                new WhereFunctionChecker());
+    }
+}
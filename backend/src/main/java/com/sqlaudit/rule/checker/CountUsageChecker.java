@@ -25,7 +25,7 @@ public class CountUsageChecker implements SqlChecker {
         if (!"select".equalsIgnoreCase(fragment.getStatementType())) {
             return CheckResult.pass();
         }
-        Matcher matcher = COUNT_PATTERN.matcher(fragment.getSqlText());
+        Matcher matcher = COUNT_PATTERN.matcher(fragment.sqlTextView());
         if (matcher.find()) {
             return CheckResult.fail(
                     "检测到 count() 调用，大表资源消耗大，请评估是否必要",
@@ -0,0 +1,98 @@
+package com.sqlaudit.rule.checker;
+
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.rule.ExplainReplay;
+import com.sqlaudit.rule.ExplainReplay.Plan;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 执行计划检查：在内嵌库中 EXPLAIN 语句，计划对大表做全表扫描，或连接查询中的表没有可用索引时告警
+ * <p>
+ * 依赖 {@link ExplainReplay}，未启用 EXPLAIN 回放（默认）时不做判断。整批扫描前通过 {@link #prepare} 并行获取计划，
+ * 逐条检查时直接命中缓存。
+ */
+@Component
+public class ExplainPlanChecker implements SqlChecker {
+
+    private volatile ExplainReplay replay;
+
+    @Override
+    public String name() {
+        return "EXPLAIN_PLAN";
+    }
+
+    public ExplainReplay getReplay() {
+        return replay;
+    }
+
+    /**
+     * 替换回放实例，旧实例随即关闭；传 null 即停用
+     */
+    public void setReplay(ExplainReplay replay) {
+        ExplainReplay previous = this.replay;
+        this.replay = replay;
+        if (previous != null && previous != replay) {
+            previous.close();
+        }
+    }
+
+    @Override
+    public String configFingerprint() {
+        ExplainReplay current = replay;
+        return current != null ? current.fingerprint() : "";
+    }
+
+    @Override
+    public void prepare(List<SqlFragment> fragments) {
+        ExplainReplay current = replay;
+        if (current != null) {
+            current.explainAll(fragments.stream()
+                    .filter(ExplainPlanChecker::explainable)
+                    .map(SqlFragment::sqlTextView)
+                    .toList());
+        }
+    }
+
+    @Override
+    public CheckResult check(SqlFragment fragment) {
+        ExplainReplay current = replay;
+        if (current == null || !explainable(fragment)) {
+            return CheckResult.pass();
+        }
+        Plan plan = current.explain(fragment.sqlTextView());
+        if (plan.failed() || plan.scannedTables().isEmpty()) {
+            return CheckResult.pass();
+        }
+
+        StringBuilder message = new StringBuilder();
+        StringBuilder matched = new StringBuilder();
+        for (String table : plan.scannedTables()) {
+            if (!current.isLarge(table)) {
+                continue;
+            }
+            if (!message.isEmpty()) {
+                message.append("；");
+                matched.append("; ");
+            }
+            long rows = current.rowCount(table);
+            message.append("表 ").append(table);
+            if (rows >= 0) {
+                message.append("（约 ").append(rows).append(" 行）");
+            }
+            message.append(plan.join() ? " 在连接查询中全表扫描，连接列或过滤列上缺少可用索引" : " 全表扫描");
+            matched.append(table);
+        }
+        if (message.isEmpty()) {
+            return CheckResult.pass();
+        }
+        return CheckResult.warn("执行计划显示" + message, matched.toString());
+    }
+
+    private static boolean explainable(SqlFragment fragment) {
+        String type = fragment.getStatementType();
+        return fragment.sqlTextView() != null && ("select".equalsIgnoreCase(type)
+                || "update".equalsIgnoreCase(type) || "delete".equalsIgnoreCase(type));
+    }
+}
@@ -22,7 +22,7 @@ public class ImplicitJoinChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        Matcher matcher = IMPLICIT_JOIN.matcher(fragment.getSqlText());
+        Matcher matcher = IMPLICIT_JOIN.matcher(fragment.sqlTextView());
         if (matcher.find()) {
             return CheckResult.fail(
                     "禁止使用逗号分隔的隐式 JOIN，应使用 INNER JOIN/LEFT JOIN 等显式连接",
@@ -23,7 +23,7 @@ public class InListSizeChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        Matcher matcher = IN_LIST.matcher(fragment.getSqlText());
+        Matcher matcher = IN_LIST.matcher(fragment.sqlTextView());
         while (matcher.find()) {
             String content = matcher.group(1);
             // 跳过子查询
@@ -0,0 +1,91 @@
+package com.sqlaudit.rule.checker;
+
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.rule.PredicateColumns;
+import com.sqlaudit.rule.PredicateColumns.Predicate;
+import com.sqlaudit.rule.SchemaCatalog;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 查询条件应能命中索引：WHERE / JOIN ... ON 中某张表的条件列都不是该表任何索引的前导列时告警
+ * <p>
+ * 依赖导入的表结构目录（{@link SchemaCatalog}）；未导入或语句涉及的表不在目录中时不做判断。
+ */
+@Component
+public class IndexHintChecker implements SqlChecker {
+
+    private static final Pattern WHERE_OR_JOIN = Pattern.compile("where|join", Pattern.CASE_INSENSITIVE);
+
+    private volatile SchemaCatalog catalog = SchemaCatalog.empty();
+
+    @Override
+    public String name() {
+        return "INDEX_HINT";
+    }
+
+    public SchemaCatalog getCatalog() {
+        return catalog;
+    }
+
+    public void setCatalog(SchemaCatalog catalog) {
+        this.catalog = catalog != null ? catalog : SchemaCatalog.empty();
+    }
+
+    @Override
+    public String configFingerprint() {
+        return catalog.fingerprint();
+    }
+
+    @Override
+    public CheckResult check(SqlFragment fragment) {
+        SchemaCatalog current = catalog;
+        String type = fragment.getStatementType();
+        if (current.isEmpty() || type == null) {
+            return CheckResult.pass();
+        }
+        if (!"select".equalsIgnoreCase(type) && !"update".equalsIgnoreCase(type) && !"delete".equalsIgnoreCase(type)) {
+            return CheckResult.pass();
+        }
+        CharSequence sql = fragment.sqlTextView();
+        if (!WHERE_OR_JOIN.matcher(sql).find()) {
+            return CheckResult.pass();
+        }
+
+        List<Predicate> predicates = PredicateColumns.extract(sql, current);
+        if (predicates.isEmpty()) {
+            return CheckResult.pass();
+        }
+        Map<String, Set<String>> columnsByTable = new LinkedHashMap<>();
+        for (Predicate predicate : predicates) {
+            columnsByTable.computeIfAbsent(predicate.table(), k -> new LinkedHashSet<>()).add(predicate.column());
+        }
+
+        StringBuilder message = new StringBuilder();
+        StringBuilder matched = new StringBuilder();
+        for (Map.Entry<String, Set<String>> entry : columnsByTable.entrySet()) {
+            SchemaCatalog.Table table = current.table(entry.getKey());
+            if (table.hasIndexLeadingWithAny(entry.getValue())) {
+                continue;
+            }
+            String columns = String.join(", ", entry.getValue());
+            if (!message.isEmpty()) {
+                message.append("；");
+                matched.append("; ");
+            }
+            message.append("表 ").append(table.name()).append(" 的条件列 ").append(columns)
+                    .append(table.indexes().isEmpty() ? " 所在表没有任何索引" : " 不是任何索引的前导列");
+            matched.append(table.name()).append('(').append(columns).append(')');
+        }
+        if (message.isEmpty()) {
+            return CheckResult.pass();
+        }
+        return CheckResult.warn(message + "，可能导致全表扫描", matched.toString());
+    }
+}
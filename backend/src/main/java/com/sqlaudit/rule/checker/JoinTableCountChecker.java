@@ -23,7 +23,7 @@ public class JoinTableCountChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        String sql = fragment.getSqlText();
+        CharSequence sql = fragment.sqlTextView();
         int joinCount = 0;
         Matcher joinMatcher = JOIN_PATTERN.matcher(sql);
         while (joinMatcher.find()) joinCount++;
@@ -13,6 +13,8 @@ import java.util.regex.Pattern;
 @Component
 public class KeywordCaseChecker implements SqlChecker {
 
+    private static final Pattern QUOTED = Pattern.compile("'[^']*'");
+
     private static final Set<String> KEYWORDS = Set.of(
             "select", "from", "where", "and", "or", "not", "in",
             "insert", "into", "values", "update", "set", "delete",
@@ -34,10 +36,8 @@ public class KeywordCaseChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        String sql = fragment.getSqlText();
-
         // 排除引号内的内容
-        String strippedSql = sql.replaceAll("'[^']*'", "''");
+        String strippedSql = QUOTED.matcher(fragment.sqlTextView()).replaceAll("''");
 
         Matcher matcher = WORD_PATTERN.matcher(strippedSql);
         while (matcher.find()) {
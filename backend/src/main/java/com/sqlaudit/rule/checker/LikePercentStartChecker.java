@@ -22,7 +22,7 @@ public class LikePercentStartChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        Matcher matcher = LIKE_PERCENT.matcher(fragment.getSqlText());
+        Matcher matcher = LIKE_PERCENT.matcher(fragment.sqlTextView());
         if (matcher.find()) {
             return CheckResult.fail(
                     "LIKE 查询 '%' 在首位将导致全表扫描，无法利用索引",
@@ -3,12 +3,17 @@ package com.sqlaudit.rule.checker;
 import com.sqlaudit.model.SqlFragment;
 import org.springframework.stereotype.Component;
 
+import java.util.regex.Pattern;
+
 /**
  * 3.4.3 【Must】禁止使用 LOCK TABLE 语句加锁，仅允许使用 SELECT .. FOR UPDATE
  */
 @Component
 public class LockTableChecker implements SqlChecker {
 
+    private static final Pattern LOCK_TABLE = Pattern.compile("lock table",
+            Pattern.LITERAL | Pattern.CASE_INSENSITIVE);
+
     @Override
     public String name() {
         return "LOCK_TABLE";
@@ -16,7 +21,7 @@ public class LockTableChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        if (fragment.getSqlText().toLowerCase().contains("lock table")) {
+        if (LOCK_TABLE.matcher(fragment.sqlTextView()).find()) {
             return CheckResult.fail(
                     "禁止使用 LOCK TABLE 手动锁表，仅允许使用 SELECT .. FOR UPDATE",
                     "LOCK TABLE"
@@ -26,7 +26,7 @@ public class NoSelectStarChecker implements SqlChecker {
         if (!"select".equalsIgnoreCase(fragment.getStatementType())) {
             return CheckResult.pass();
         }
-        Matcher matcher = SELECT_STAR.matcher(fragment.getSqlText());
+        Matcher matcher = SELECT_STAR.matcher(fragment.sqlTextView());
         if (matcher.find()) {
             return CheckResult.fail(
                     "禁止使用 SELECT *，请明确指定需要查询的列",
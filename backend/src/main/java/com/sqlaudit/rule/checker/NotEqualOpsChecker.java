@@ -22,7 +22,7 @@ public class NotEqualOpsChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        Matcher matcher = NEG_OPS.matcher(fragment.getSqlText());
+        Matcher matcher = NEG_OPS.matcher(fragment.sqlTextView());
         if (matcher.find()) {
             return CheckResult.fail(
                     "检测到负向操作符 '" + matcher.group(1) + "'，可能无法利用索引",
@@ -22,7 +22,7 @@ public class NullComparisonChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        Matcher matcher = NULL_COMPARE.matcher(fragment.getSqlText());
+        Matcher matcher = NULL_COMPARE.matcher(fragment.sqlTextView());
         if (matcher.find()) {
             return CheckResult.fail(
                     "禁止使用比较操作符判断 NULL，必须使用 IS NULL 或 IS NOT NULL",
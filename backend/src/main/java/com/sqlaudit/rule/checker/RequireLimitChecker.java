@@ -16,6 +16,11 @@ public class RequireLimitChecker implements SqlChecker {
             Pattern.CASE_INSENSITIVE
     );
 
+    private static final Pattern COUNT_QUERY = Pattern.compile(
+            ".*\\bSELECT\\s+COUNT\\s*\\(.*",
+            Pattern.CASE_INSENSITIVE
+    );
+
     @Override
     public String name() {
         return "REQUIRE_LIMIT";
@@ -26,17 +31,17 @@ public class RequireLimitChecker implements SqlChecker {
         if (!"select".equalsIgnoreCase(fragment.getStatementType())) {
             return CheckResult.pass();
         }
-        String sql = fragment.getSqlText();
+        CharSequence sql = fragment.sqlTextView();
 
         // 跳过 count 查询
-        if (sql.toUpperCase().matches(".*\\bSELECT\\s+COUNT\\s*\\(.*")) {
+        if (COUNT_QUERY.matcher(sql).matches()) {
             return CheckResult.pass();
         }
 
         if (!LIMIT_PATTERN.matcher(sql).find()) {
             return CheckResult.fail(
                     "SELECT 查询建议添加 LIMIT 限制，避免大数据量查询影响性能",
-                    sql.length() > 80 ? sql.substring(0, 80) + "..." : sql
+                    sql.length() > 80 ? sql.subSequence(0, 80) + "..." : sql.toString()
             );
         }
         return CheckResult.pass();
@@ -29,13 +29,13 @@ public class RequireWhereChecker implements SqlChecker {
     @Override
     public CheckResult check(SqlFragment fragment) {
         String type = fragment.getStatementType();
-        String sql = fragment.getSqlText();
+        CharSequence sql = fragment.sqlTextView();
 
         if ("update".equalsIgnoreCase(type)) {
             if (UPDATE_WITHOUT_WHERE.matcher(sql).find()) {
                 return CheckResult.fail(
                         "UPDATE 语句必须包含 WHERE 子句，防止全表更新",
-                        sql.length() > 100 ? sql.substring(0, 100) + "..." : sql
+                        sql.length() > 100 ? sql.subSequence(0, 100) + "..." : sql.toString()
                 );
             }
         }
@@ -44,7 +44,7 @@ public class RequireWhereChecker implements SqlChecker {
             if (DELETE_WITHOUT_WHERE.matcher(sql).find()) {
                 return CheckResult.fail(
                         "DELETE 语句必须包含 WHERE 子句，防止全表删除",
-                        sql.length() > 100 ? sql.substring(0, 100) + "..." : sql
+                        sql.length() > 100 ? sql.subSequence(0, 100) + "..." : sql.toString()
                 );
             }
         }
@@ -33,7 +33,7 @@ public class SchemaPrefixChecker implements SqlChecker {
         if (type == null)
             return CheckResult.pass();
 
-        Matcher matcher = TABLE_PATTERN.matcher(fragment.getSqlText());
+        Matcher matcher = TABLE_PATTERN.matcher(fragment.sqlTextView());
         while (matcher.find()) {
             String tableName = matcher.group(1);
             if (!IGNORED_TABLES.contains(tableName.toLowerCase())) {
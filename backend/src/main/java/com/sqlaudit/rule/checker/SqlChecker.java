@@ -2,6 +2,8 @@ package com.sqlaudit.rule.checker;
 
 import com.sqlaudit.model.SqlFragment;
 
+import java.util.List;
+
 /**
  * SQL 规则检查器接口
  */
@@ -17,6 +19,19 @@ public interface SqlChecker {
      */
     CheckResult check(SqlFragment fragment);
 
+    /**
+     * 批量检查前的预处理：检查器可借此一次性准备整批片段所需的数据（如并行获取执行计划），默认不做任何事
+     */
+    default void prepare(List<SqlFragment> fragments) {
+    }
+
+    /**
+     * 影响检查结果的外部配置（如表结构、EXPLAIN 回放库）的摘要，配置相同时摘要相同；没有外部配置的检查器返回空串
+     */
+    default String configFingerprint() {
+        return "";
+    }
+
     record CheckResult(boolean violated, String message, String matchedText) {
         public static CheckResult pass() {
             return new CheckResult(false, null, null);
@@ -21,7 +21,7 @@ public class SqlInjectionRiskChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        Matcher matcher = DOLLAR_PATTERN.matcher(fragment.getSqlText());
+        Matcher matcher = DOLLAR_PATTERN.matcher(fragment.sqlTextView());
         if (matcher.find()) {
             return CheckResult.fail(
                     "存在 SQL 注入风险：使用了 ${} 字符串拼接，建议使用 #{} 参数绑定",
@@ -19,7 +19,7 @@ public class SubqueryDepthChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        String sql = fragment.getSqlText();
+        CharSequence sql = fragment.sqlTextView();
         int maxDepth = computeMaxSubqueryDepth(sql);
 
         if (maxDepth > 2) {
@@ -34,15 +34,14 @@ public class SubqueryDepthChecker implements SqlChecker {
      * 通过跟踪括号深度来计算最大子查询嵌套层级。
      * 每次在括号内遇到 SELECT 关键字，认为进入一层子查询。
      */
-    private int computeMaxSubqueryDepth(String sql) {
-        String upper = sql.toUpperCase();
+    private int computeMaxSubqueryDepth(CharSequence sql) {
         int parenDepth = 0;
         int maxSubqueryDepth = 0;
         int currentSubqueryDepth = 0;
         boolean inString = false;
         char stringChar = 0;
 
-        for (int i = 0; i < upper.length(); i++) {
+        for (int i = 0; i < sql.length(); i++) {
             char c = sql.charAt(i);
 
             // Handle string literals
@@ -62,10 +61,10 @@ public class SubqueryDepthChecker implements SqlChecker {
                 parenDepth++;
                 // Check if this opens a subquery: look for SELECT after (
                 int j = i + 1;
-                while (j < upper.length() && Character.isWhitespace(upper.charAt(j)))
+                while (j < sql.length() && Character.isWhitespace(sql.charAt(j)))
                     j++;
-                if (j + 5 < upper.length() && upper.substring(j, j + 6).equals("SELECT")
-                        && (j + 6 >= upper.length() || !Character.isLetterOrDigit(upper.charAt(j + 6)))) {
+                if (startsWithSelect(sql, j)
+                        && (j + 6 >= sql.length() || !Character.isLetterOrDigit(sql.charAt(j + 6)))) {
                     currentSubqueryDepth++;
                     maxSubqueryDepth = Math.max(maxSubqueryDepth, currentSubqueryDepth);
                 }
@@ -80,4 +79,16 @@ public class SubqueryDepthChecker implements SqlChecker {
         }
         return maxSubqueryDepth;
     }
+
+    private static boolean startsWithSelect(CharSequence sql, int start) {
+        if (start + 6 > sql.length()) {
+            return false;
+        }
+        for (int k = 0; k < 6; k++) {
+            if (Character.toUpperCase(sql.charAt(start + k)) != "SELECT".charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -24,7 +24,7 @@ public class SubqueryInTargetChecker implements SqlChecker {
             return CheckResult.pass();
         }
 
-        String sql = fragment.getSqlText();
+        CharSequence sql = fragment.sqlTextView();
         // 简单分割 FROM，取第一部分作为目标列区域
         // 注意：这种分割对于嵌套子查询可能不准确，但作为静态扫描足够覆盖大多数情况
         String[] parts = FROM_PATTERN.split(sql, 2);
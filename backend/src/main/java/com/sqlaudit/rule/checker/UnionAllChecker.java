@@ -22,7 +22,7 @@ public class UnionAllChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        Matcher matcher = UNION_WITHOUT_ALL.matcher(fragment.getSqlText());
+        Matcher matcher = UNION_WITHOUT_ALL.matcher(fragment.sqlTextView());
         if (matcher.find()) {
             return CheckResult.fail(
                     "检测到 UNION，如无需去重请使用 UNION ALL 以提升性能",
@@ -24,7 +24,7 @@ public class UpdateLimitChecker implements SqlChecker {
         if (!"update".equalsIgnoreCase(fragment.getStatementType())) {
             return CheckResult.pass();
         }
-        if (LIMIT_PATTERN.matcher(fragment.getSqlText()).find()) {
+        if (LIMIT_PATTERN.matcher(fragment.sqlTextView()).find()) {
             return CheckResult.fail(
                     "OpenGauss 不支持在 UPDATE 语句中使用 LIMIT，应使用 WHERE 条件明确目标行",
                     "LIMIT in UPDATE"
@@ -16,6 +16,8 @@ public class WhereFunctionChecker implements SqlChecker {
             "where\\s+.*\\b\\w+\\s*\\([^)]+\\)\\s*(=|>|<|!=|<>|like|in)\\b",
             Pattern.CASE_INSENSITIVE);
 
+    private static final Pattern WHERE_KEYWORD = Pattern.compile("where", Pattern.CASE_INSENSITIVE);
+
     @Override
     public String name() {
         return "WHERE_FUNCTION";
@@ -23,8 +25,8 @@ public class WhereFunctionChecker implements SqlChecker {
 
     @Override
     public CheckResult check(SqlFragment fragment) {
-        String sql = fragment.getSqlText();
-        if (!sql.toUpperCase().contains("WHERE")) {
+        CharSequence sql = fragment.sqlTextView();
+        if (!WHERE_KEYWORD.matcher(sql).find()) {
             return CheckResult.pass();
         }
         Matcher matcher = WHERE_FUNC.matcher(sql);
@@ -0,0 +1,154 @@
+package com.sqlaudit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqlaudit.model.Baseline;
+import com.sqlaudit.model.ReportDiff;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.report.ViolationFingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 基线抑制与报告比对服务
+ * <p>
+ * 全部基于违规指纹的哈希集合，生成、比对均为线性时间。
+ */
+@Service
+public class BaselineService {
+
+    private static final Logger log = LoggerFactory.getLogger(BaselineService.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final ObjectMapper objectMapper;
+
+    public BaselineService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 以报告中的全部违规生成基线
+     */
+    public Baseline createBaseline(ScanReport report) {
+        List<Violation> violations = violationsOf(report);
+        List<Baseline.Entry> entries = new ArrayList<>(violations.size());
+        Set<String> seen = new HashSet<>();
+        for (Violation v : violations) {
+            String fingerprint = ViolationFingerprint.of(v);
+            if (!seen.add(fingerprint)) {
+                continue;
+            }
+            entries.add(Baseline.Entry.builder()
+                    .fingerprint(fingerprint)
+                    .ruleId(v.getRule() != null ? v.getRule().getId() : null)
+                    .file(v.getSqlFragment() != null ? v.getSqlFragment().getRelativePath() : null)
+                    .statementId(v.getSqlFragment() != null ? v.getSqlFragment().getStatementId() : null)
+                    .build());
+        }
+        return Baseline.builder()
+                .version(FORMAT_VERSION)
+                .createdAt(LocalDateTime.now())
+                .repoPath(report.getRepoPath())
+                .entries(entries)
+                .build();
+    }
+
+    public void writeBaseline(Baseline baseline, OutputStream out) throws IOException {
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(out, baseline);
+    }
+
+    public Baseline readBaseline(InputStream in) throws IOException {
+        Baseline baseline = objectMapper.readValue(in, Baseline.class);
+        if (baseline.getVersion() > FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的基线文件版本: " + baseline.getVersion());
+        }
+        return baseline;
+    }
+
+    /**
+     * 读取本地基线文件
+     */
+    public Baseline loadBaseline(Path path) {
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("基线文件不存在: " + path);
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            Baseline baseline = readBaseline(in);
+            log.info("加载基线文件 {}，共 {} 条指纹", path,
+                    baseline.getEntries() != null ? baseline.getEntries().size() : 0);
+            return baseline;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无法读取基线文件: " + path + " (" + e.getMessage() + ")", e);
+        }
+    }
+
+    public Set<String> fingerprints(Baseline baseline) {
+        List<Baseline.Entry> entries = baseline.getEntries() != null ? baseline.getEntries() : List.of();
+        Set<String> fingerprints = new HashSet<>(Math.max(16, entries.size() * 2));
+        for (Baseline.Entry entry : entries) {
+            if (entry.getFingerprint() != null) {
+                fingerprints.add(entry.getFingerprint());
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * 比较两份报告：head 中新增的违规与 base 中已修复的违规
+     */
+    public ReportDiff diff(ScanReport base, ScanReport head) {
+        List<Violation> baseViolations = violationsOf(base);
+        List<Violation> headViolations = violationsOf(head);
+
+        String[] baseKeys = new String[baseViolations.size()];
+        Set<String> baseFingerprints = new HashSet<>(Math.max(16, baseKeys.length * 2));
+        for (int i = 0; i < baseKeys.length; i++) {
+            baseKeys[i] = ViolationFingerprint.of(baseViolations.get(i));
+            baseFingerprints.add(baseKeys[i]);
+        }
+
+        Set<String> headFingerprints = new HashSet<>(Math.max(16, headViolations.size() * 2));
+        List<Violation> added = new ArrayList<>();
+        int unchanged = 0;
+        for (Violation v : headViolations) {
+            String fingerprint = ViolationFingerprint.of(v);
+            headFingerprints.add(fingerprint);
+            if (baseFingerprints.contains(fingerprint)) {
+                unchanged++;
+            } else {
+                added.add(v);
+            }
+        }
+
+        List<Violation> fixed = new ArrayList<>();
+        for (int i = 0; i < baseKeys.length; i++) {
+            if (!headFingerprints.contains(baseKeys[i])) {
+                fixed.add(baseViolations.get(i));
+            }
+        }
+
+        return ReportDiff.builder()
+                .addedCount(added.size())
+                .fixedCount(fixed.size())
+                .unchangedCount(unchanged)
+                .added(added)
+                .fixed(fixed)
+                .build();
+    }
+
+    private List<Violation> violationsOf(ScanReport report) {
+        return report != null && report.getViolations() != null ? report.getViolations() : List.of();
+    }
+}
@@ -0,0 +1,154 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.parser.SqlLogParser;
+import com.sqlaudit.rule.ExplainReplay;
+import com.sqlaudit.rule.SchemaCatalog;
+import com.sqlaudit.rule.checker.ExplainPlanChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * EXPLAIN 回放服务：启用后，每次导入表结构都在内嵌库中重建表和索引，供 EXPLAIN_PLAN 检查器获取执行计划
+ * <p>
+ * 默认关闭（sql-audit.explain.enabled）。行数统计用于区分大表和小表，格式为每行"表名,行数"（逗号或制表符分隔，
+ * 可直接使用 {@code SELECT relname, reltuples FROM pg_class} 的导出结果），第二列不是数字的行（表头等）跳过；
+ * 没有统计的表一律视为大表。
+ */
+@Service
+public class ExplainReplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExplainReplayService.class);
+
+    private final ExplainPlanChecker explainPlanChecker;
+    private final SchemaCatalogService schemaCatalogService;
+    private final long largeTableRows;
+    private final int poolSize;
+    private final int maxCachedPlans;
+    private final int timeoutSeconds;
+
+    private volatile boolean enabled;
+    private volatile Map<String, Long> rowCounts = Map.of();
+
+    public ExplainReplayService(ExplainPlanChecker explainPlanChecker, SchemaCatalogService schemaCatalogService,
+            @Value("${sql-audit.explain.enabled:false}") boolean enabled,
+            @Value("${sql-audit.explain.large-table-rows:10000}") long largeTableRows,
+            @Value("${sql-audit.explain.pool-size:4}") int poolSize,
+            @Value("${sql-audit.explain.max-cached-plans:20000}") int maxCachedPlans,
+            @Value("${sql-audit.explain.timeout-seconds:5}") int timeoutSeconds,
+            @Value("${sql-audit.explain.row-counts:}") String rowCountsPath) {
+        this.explainPlanChecker = explainPlanChecker;
+        this.schemaCatalogService = schemaCatalogService;
+        this.enabled = enabled;
+        this.largeTableRows = largeTableRows;
+        this.poolSize = poolSize;
+        this.maxCachedPlans = maxCachedPlans;
+        this.timeoutSeconds = timeoutSeconds;
+        if (rowCountsPath != null && !rowCountsPath.isBlank()) {
+            try {
+                importRowCounts(Path.of(rowCountsPath.trim()));
+            } catch (IOException | RuntimeException e) {
+                log.warn("启动时导入行数统计失败: {}", e.getMessage());
+            }
+        }
+        schemaCatalogService.addListener(this::rebuild);
+        schemaCatalogService.current().ifPresent(snapshot -> rebuild(snapshot.catalog()));
+    }
+
+    /**
+     * 当前状态
+     *
+     * @param active      回放库是否已建立（已启用且导入了表结构）
+     * @param rowCounts   已导入行数统计的表数
+     * @param cachedPlans 已缓存的执行计划数
+     */
+    public record Status(boolean enabled, boolean active, long largeTableRows, int rowCounts, int cachedPlans) {
+    }
+
+    public Status status() {
+        ExplainReplay replay = explainPlanChecker.getReplay();
+        return new Status(enabled, replay != null, largeTableRows, rowCounts.size(),
+                replay != null ? replay.cachedPlans() : 0);
+    }
+
+    /**
+     * 启用或停用 EXPLAIN 回放；启用时若已导入表结构立即建库
+     */
+    public synchronized Status setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            rebuild(schemaCatalogService.current().map(SchemaCatalogService.Snapshot::catalog)
+                    .orElse(SchemaCatalog.empty()));
+        }
+        return status();
+    }
+
+    public Map<String, Long> importRowCounts(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("行数统计文件不存在: " + path);
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return importRowCounts(in, path.getFileName().toString());
+        }
+    }
+
+    /**
+     * 导入行数统计并替换当前统计，不关闭传入的流
+     */
+    public Map<String, Long> importRowCounts(InputStream in, String sourceName) throws IOException {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(SqlLogParser.openReader(in, sourceName));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.split("[,\t]");
+            if (fields.length < 2 || line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String table = fields[0].trim().replace("\"", "");
+            try {
+                double rows = Double.parseDouble(fields[1].trim().replace("\"", ""));
+                if (!table.isEmpty() && rows >= 0) {
+                    counts.put(table, (long) rows);
+                }
+            } catch (NumberFormatException e) {
+                // 表头或非统计行
+            }
+        }
+        if (counts.isEmpty()) {
+            throw new IllegalArgumentException("未在 " + sourceName + " 中找到\"表名,行数\"格式的统计");
+        }
+        rowCounts = Map.copyOf(counts);
+        ExplainReplay replay = explainPlanChecker.getReplay();
+        if (replay != null) {
+            replay.setRowCounts(rowCounts);
+        }
+        log.info("导入行数统计: {}, {} 张表", sourceName, counts.size());
+        return counts;
+    }
+
+    private synchronized void rebuild(SchemaCatalog catalog) {
+        if (!enabled || catalog.isEmpty()) {
+            explainPlanChecker.setReplay(null);
+            return;
+        }
+        try {
+            ExplainReplay replay = ExplainReplay.open(catalog, poolSize, largeTableRows, maxCachedPlans,
+                    timeoutSeconds);
+            replay.setRowCounts(rowCounts);
+            explainPlanChecker.setReplay(replay);
+        } catch (SQLException e) {
+            log.warn("建立 EXPLAIN 回放库失败: {}", e.getMessage());
+            explainPlanChecker.setReplay(null);
+        }
+    }
+}
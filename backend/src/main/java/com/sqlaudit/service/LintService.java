@@ -0,0 +1,112 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.LintResult;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.SqlScriptParser;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * 单条 SQL 的轻量检查，供 IDE 插件、审查机器人等交互式场景调用
+ * <p>
+ * 不构建 {@link com.sqlaudit.model.ScanReport}，也不写入报告存储；每个线程复用一份 SQL 片段对象和违规缓冲区，
+ * 检查过程中不生成改写示例 SQL，单次调用只分配返回结果本身。
+ */
+@Service
+public class LintService {
+
+    /** 单条语句长度上限（字符） */
+    static final int MAX_SQL_LENGTH = 64 * 1024;
+
+    private static final String LINT_SOURCE = "lint";
+
+    private final RuleService ruleService;
+    private final SqlScriptParser sqlScriptParser;
+    private final ThreadLocal<LintContext> contexts = ThreadLocal.withInitial(LintContext::new);
+
+    public LintService(RuleService ruleService, SqlScriptParser sqlScriptParser) {
+        this.ruleService = ruleService;
+        this.sqlScriptParser = sqlScriptParser;
+    }
+
+    /**
+     * @param sql           单条 SQL 语句，末尾分号可有可无
+     * @param statementType 语句类型（select / update 等），为空时自动识别，不在 {@link SqlScriptParser#STATEMENT_TYPES} 内时拒绝
+     */
+    public LintResult lint(String sql, String statementType) {
+        String text = stripTrailingSemicolons(sql);
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("请提供需要检查的 SQL");
+        }
+        if (text.length() > MAX_SQL_LENGTH) {
+            throw new IllegalArgumentException("SQL 长度超过上限 " + MAX_SQL_LENGTH + " 字符，请使用 /api/scan/sql 上传脚本");
+        }
+        String type;
+        if (statementType == null || statementType.isBlank()) {
+            type = sqlScriptParser.detectStatementType(text).toLowerCase(Locale.ROOT);
+        } else {
+            type = statementType.trim().toLowerCase(Locale.ROOT);
+            if (!SqlScriptParser.STATEMENT_TYPES.contains(type)) {
+                throw new IllegalArgumentException("不支持的语句类型: " + statementType.trim()
+                        + "，可选值: " + String.join(" / ", new TreeSet<>(SqlScriptParser.STATEMENT_TYPES)));
+            }
+        }
+
+        LintContext context = contexts.get();
+        SqlFragment fragment = context.fragment;
+        fragment.setStatementType(type);
+        fragment.setStatementId(type);
+        fragment.setSqlText(text);
+        List<Violation> buffer = context.violations;
+        try {
+            ruleService.checkSql(fragment, false, buffer);
+            List<LintResult.Item> items = new ArrayList<>(buffer.size());
+            for (Violation v : buffer) {
+                AuditRule rule = v.getRule();
+                items.add(new LintResult.Item(rule.getId(), rule.getName(), rule.getSeverity(), rule.getCategory(),
+                        v.getMessage(), v.getSuggestion(), v.getMatchedText()));
+            }
+            return new LintResult(type, items);
+        } finally {
+            // 不持有调用方的 SQL 文本与违规对象，避免线程复用时长期引用
+            buffer.clear();
+            fragment.setSqlText(null);
+        }
+    }
+
+    private static String stripTrailingSemicolons(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        int end = sql.length();
+        while (end > 0 && (sql.charAt(end - 1) == ';' || Character.isWhitespace(sql.charAt(end - 1)))) {
+            end--;
+        }
+        int start = 0;
+        while (start < end && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.substring(start, end);
+    }
+
+    /**
+     * 每个请求线程独享的可复用状态
+     */
+    private static final class LintContext {
+
+        private final SqlFragment fragment = SqlFragment.builder()
+                .filePath(LINT_SOURCE)
+                .relativePath(LINT_SOURCE)
+                .namespace(LINT_SOURCE)
+                .lineNumber(1)
+                .build();
+
+        private final List<Violation> violations = new ArrayList<>();
+    }
+}
@@ -0,0 +1,220 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.AuditRule.Severity;
+import com.sqlaudit.model.ScanOptions;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.StatementStats;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.SqlLogParser;
+import com.sqlaudit.parser.SqlLogParser.LogFormat;
+import com.sqlaudit.parser.SqlLogParser.LogStatement;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.report.IndexAdvisor;
+import com.sqlaudit.report.ViolationFingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 数据库日志审查服务：流式读取慢查询日志 / 语句统计，按指纹合并后执行规则检查
+ * <p>
+ * 内存占用与不同语句的数量成正比，与日志文件大小无关；违规按所在语句的执行次数从高到低排列。
+ * 违规上限与索引建议使用的表结构取自扫描选项，与仓库扫描相同。
+ */
+@Service
+public class LogAuditService {
+
+    private static final Logger log = LoggerFactory.getLogger(LogAuditService.class);
+
+    /** 合并的不同语句数上限，超出后新出现的语句只计数不审查 */
+    static final int MAX_DISTINCT_STATEMENTS = 100_000;
+
+    private final SqlLogParser logParser;
+    private final SqlScriptParser sqlScriptParser;
+    private final RuleService ruleService;
+
+    public LogAuditService(SqlLogParser logParser, SqlScriptParser sqlScriptParser, RuleService ruleService) {
+        this.logParser = logParser;
+        this.sqlScriptParser = sqlScriptParser;
+        this.ruleService = ruleService;
+    }
+
+    /**
+     * 审查服务器本地的日志文件，支持 .gz 压缩文件
+     */
+    public ScanReport audit(Path logFile, LogFormat format) throws IOException {
+        return audit(logFile, format, ScanOptions.defaults());
+    }
+
+    public ScanReport audit(Path logFile, LogFormat format, ScanOptions options) throws IOException {
+        if (!Files.isRegularFile(logFile)) {
+            throw new IllegalArgumentException("日志文件不存在: " + logFile);
+        }
+        try (InputStream in = Files.newInputStream(logFile)) {
+            return audit(in, logFile.getFileName().toString(), format, options);
+        }
+    }
+
+    public ScanReport audit(InputStream in, String sourceName, LogFormat format) throws IOException {
+        return audit(in, sourceName, format, ScanOptions.defaults());
+    }
+
+    /**
+     * 审查日志流；不关闭传入的流
+     *
+     * @param sourceName 日志来源名称（通常为文件名），写入片段的 namespace 与 relativePath
+     * @param options    违规上限与表结构；日志自带执行次数，选项中的运行时统计不使用
+     */
+    public ScanReport audit(InputStream in, String sourceName, LogFormat format, ScanOptions options)
+            throws IOException {
+        ScanOptions scanOptions = options != null ? options : ScanOptions.defaults();
+        int maxViolations = scanOptions.effectiveMaxViolations();
+        String name = sourceName == null || sourceName.isBlank() ? "db-log" : sourceName;
+        log.info("开始审查数据库日志: {}", name);
+
+        Map<String, Aggregate> statements = new HashMap<>();
+        long[] counters = new long[2]; // [0] 语句总数, [1] 超出上限未合并的语句数
+        long lines = logParser.parse(SqlLogParser.openReader(in, name), name, format, statement -> {
+            counters[0] += statement.calls();
+            String fingerprint = ViolationFingerprint.ofStatement(statement.sql());
+            Aggregate aggregate = statements.get(fingerprint);
+            if (aggregate == null) {
+                if (statements.size() >= MAX_DISTINCT_STATEMENTS) {
+                    counters[1] += statement.calls();
+                    return;
+                }
+                aggregate = new Aggregate(fingerprint, statement);
+                statements.put(fingerprint, aggregate);
+            }
+            aggregate.add(statement);
+        });
+        log.info("读取 {} 行日志, {} 次语句执行, {} 种不同语句", lines, counters[0], statements.size());
+
+        List<String> notices = new ArrayList<>();
+        notices.add(String.format("共读取 %d 行日志，%d 次语句执行，合并为 %d 种不同语句（字面量规范化后）。",
+                lines, counters[0], statements.size()));
+        if (counters[1] > 0) {
+            notices.add("不同语句数超过上限 " + MAX_DISTINCT_STATEMENTS + "，另有 " + counters[1] + " 次执行未纳入审查。");
+        }
+
+        // 按执行次数排序后检查，违规列表天然按影响面排列，达到上限时保留的也是最常执行的语句
+        List<Aggregate> ranked = new ArrayList<>(statements.values());
+        ranked.sort(Comparator.comparingLong(Aggregate::executions).reversed()
+                .thenComparing(Comparator.comparingDouble(Aggregate::totalTimeMs).reversed()));
+
+        List<Violation> violations = new ArrayList<>();
+        boolean limitReached = false;
+        // 日志中的语句自带执行次数，索引建议按执行次数加权，且不受违规上限影响
+        IndexAdvisor advisor = new IndexAdvisor(scanOptions.getSchemaCatalog(), null);
+        for (Aggregate aggregate : ranked) {
+            SqlFragment fragment = aggregate.toFragment(name, sqlScriptParser);
+            advisor.add(fragment);
+            if (limitReached) {
+                continue;
+            }
+            List<Violation> found = ruleService.checkSql(fragment);
+            if (violations.size() + found.size() > maxViolations) {
+                limitReached = true;
+                continue;
+            }
+            violations.addAll(found);
+        }
+        if (limitReached) {
+            notices.add("违规数量达到上限 " + maxViolations + "，仅保留执行次数最多的语句上的违规。");
+        }
+
+        return ScanReport.builder()
+                .repoPath(name)
+                .scanTime(LocalDateTime.now())
+                .totalFiles(1)
+                .totalStatements(statements.size())
+                .totalViolations(violations.size())
+                .errorCount(count(violations, Severity.ERROR))
+                .warningCount(count(violations, Severity.WARNING))
+                .infoCount(count(violations, Severity.INFO))
+                .violations(violations)
+                .scannedFiles(List.of(name))
+                .notices(List.copyOf(notices))
+                .limitReached(limitReached)
+                .indexAdvice(advisor.advise())
+                .build();
+    }
+
+    private static int count(List<Violation> violations, Severity severity) {
+        int count = 0;
+        for (Violation v : violations) {
+            if (v.getRule().getSeverity() == severity) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 同一指纹语句的合并统计；只保留首次出现的 SQL 原文
+     */
+    private static final class Aggregate {
+
+        private final String fingerprint;
+        private final String sql;
+        private final int firstLine;
+        private long executions;
+        private double totalTimeMs;
+        private double maxTimeMs;
+        private long rows;
+
+        private Aggregate(String fingerprint, LogStatement first) {
+            this.fingerprint = fingerprint;
+            this.sql = first.sql();
+            this.firstLine = first.line();
+        }
+
+        void add(LogStatement statement) {
+            executions += statement.calls();
+            totalTimeMs += statement.totalTimeMs();
+            maxTimeMs = Math.max(maxTimeMs, statement.maxTimeMs());
+            rows += statement.rows();
+        }
+
+        long executions() {
+            return executions;
+        }
+
+        double totalTimeMs() {
+            return totalTimeMs;
+        }
+
+        SqlFragment toFragment(String sourceName, SqlScriptParser sqlScriptParser) {
+            String type = sqlScriptParser.detectStatementType(sql);
+            return SqlFragment.builder()
+                    .filePath(sourceName)
+                    .relativePath(sourceName)
+                    .statementId(type + "_" + fingerprint.substring(0, 12))
+                    .statementType(type.toLowerCase(Locale.ROOT).intern())
+                    .sqlText(sql)
+                    .lineNumber(firstLine)
+                    .namespace(sourceName)
+                    .runtimeStats(StatementStats.builder()
+                            .fingerprint(fingerprint)
+                            .executions(executions)
+                            .totalTimeMs(totalTimeMs)
+                            .maxTimeMs(maxTimeMs)
+                            .rows(rows)
+                            .build())
+                    .build();
+        }
+    }
+}
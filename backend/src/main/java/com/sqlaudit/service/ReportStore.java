@@ -0,0 +1,306 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.report.ReportBinaryCodec;
+import com.sqlaudit.report.ReportIndex;
+import com.sqlaudit.report.ViolationTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 扫描报告存储：按报告 ID 保存每次扫描的结果，替代原先全局唯一的"最近一次报告"
+ * <p>
+ * 内存中按 LRU 顺序保留报告及其违规索引，预估占用超过预算时淘汰最久未访问的报告；
+ * 配置了溢出目录时，被淘汰的报告以 {@link ReportBinaryCodec} 编码写入磁盘，再次访问时读回内存。
+ */
+@Service
+public class ReportStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportStore.class);
+
+    private static final Pattern REPORT_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final String SPILL_SUFFIX = ".sqar";
+
+    private final long memoryBudgetBytes;
+    private final Path spillDir;
+    private final int spillMaxReports;
+
+    /** access-order 的 LinkedHashMap，迭代顺序即 LRU 顺序；所有访问在 this 上同步 */
+    private final LinkedHashMap<String, StoredReport> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    /** 已写入溢出目录的报告 ID，按写入先后排列，超出上限时删除最早的 */
+    private final Set<String> spilled = new LinkedHashSet<>();
+    /** 已从内存淘汰、正在写盘的报告，写完前仍可从这里读到 */
+    private final Map<String, StoredReport> spilling = new ConcurrentHashMap<>();
+
+    public ReportStore(@Value("${sql-audit.report-store.memory-budget-mb:256}") long memoryBudgetMb,
+            @Value("${sql-audit.report-store.spill-dir:}") String spillDir,
+            @Value("${sql-audit.report-store.spill-max-reports:200}") int spillMaxReports) {
+        this.memoryBudgetBytes = Math.max(1, memoryBudgetMb) * 1024 * 1024;
+        this.spillDir = spillDir == null || spillDir.isBlank() ? null : Path.of(spillDir.trim());
+        this.spillMaxReports = Math.max(1, spillMaxReports);
+        if (this.spillDir != null) {
+            initSpillDir();
+        }
+    }
+
+    /**
+     * 保存报告并分配报告 ID（写回报告的 reportId 字段），同时构建违规索引
+     */
+    public StoredReport put(ScanReport report) {
+        String reportId = UUID.randomUUID().toString();
+        report.setReportId(reportId);
+        StoredReport stored = new StoredReport(reportId, report, columnarIndex(report),
+                estimateBytes(report));
+        List<StoredReport> evicted = admit(stored);
+        spill(evicted);
+        return stored;
+    }
+
+    /**
+     * 按报告原有的 ID 放回存储（如从扫描历史还原），之后可按同一 ID 查询与导出；该 ID 已在存储中时返回已有的报告
+     */
+    public StoredReport restore(ScanReport report) {
+        String reportId = report.getReportId();
+        if (reportId == null || !REPORT_ID.matcher(reportId).matches()) {
+            throw new IllegalArgumentException("报告 ID 无效: " + reportId);
+        }
+        Optional<StoredReport> existing = get(reportId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        StoredReport stored = new StoredReport(reportId, report, columnarIndex(report),
+                estimateBytes(report));
+        spill(admit(stored));
+        return stored;
+    }
+
+    public Optional<StoredReport> get(String reportId) {
+        if (reportId == null || !REPORT_ID.matcher(reportId).matches()) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            StoredReport stored = memory.get(reportId);
+            if (stored != null) {
+                return Optional.of(stored);
+            }
+        }
+        StoredReport pending = spilling.get(reportId);
+        if (pending != null) {
+            return Optional.of(pending);
+        }
+        return load(reportId);
+    }
+
+    public Optional<ScanReport> getReport(String reportId) {
+        return get(reportId).map(StoredReport::report);
+    }
+
+    /**
+     * 报告中的违规统一转为列式存储后再建索引，内存中不保留逐条的违规对象
+     */
+    private static ReportIndex columnarIndex(ScanReport report) {
+        ViolationTable table = ViolationTable.of(report.getViolations());
+        table.trimToSize();
+        report.setViolations(table);
+        return ReportIndex.build(table);
+    }
+
+    /**
+     * 报告的粗略内存占用：违规记录对象、各自的文本字段，以及按实例去重后的 SQL 片段
+     * <p>
+     * 列式存储的违规按列数组与文本字典计算，另加索引中每条违规的分面编码与排序数组项。
+     */
+    static long estimateBytes(ScanReport report) {
+        List<Violation> violations = report.getViolations() != null ? report.getViolations() : List.of();
+        long bytes = 1024;
+        Set<SqlFragment> fragments = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (violations instanceof ViolationTable table) {
+            bytes += table.estimatedBytes() + violations.size() * 40L;
+            fragments.addAll(table.fragments());
+        } else {
+            // 对象头、字段引用与索引中每条违规的 BitSet 位、排序数组项
+            bytes += violations.size() * 160L;
+            for (Violation v : violations) {
+                bytes += textBytes(v.getMessage()) + textBytes(v.getSuggestion()) + textBytes(v.getMatchedText());
+                if (v.getSqlFragment() != null) {
+                    fragments.add(v.getSqlFragment());
+                }
+            }
+        }
+        for (SqlFragment fragment : fragments) {
+            bytes += 96 + textBytes(fragment.getSqlText()) + textBytes(fragment.getStatementId());
+        }
+        if (report.getScannedFiles() != null) {
+            for (String file : report.getScannedFiles()) {
+                bytes += textBytes(file);
+            }
+        }
+        if (report.getUsageIndex() != null) {
+            bytes += report.getUsageIndex().estimatedBytes();
+        }
+        if (report.getNearDuplicates() != null) {
+            bytes += report.getNearDuplicates().estimatedBytes();
+        }
+        return bytes;
+    }
+
+    private static long textBytes(String text) {
+        return text == null ? 0 : 40L + text.length();
+    }
+
+    private synchronized List<StoredReport> admit(StoredReport stored) {
+        memory.put(stored.reportId(), stored);
+        memoryBytes += stored.estimatedBytes();
+        List<StoredReport> evicted = new ArrayList<>();
+        Iterator<StoredReport> it = memory.values().iterator();
+        // 至少保留刚放入的这一份，即使它本身已超过预算
+        while (memoryBytes > memoryBudgetBytes && memory.size() > 1 && it.hasNext()) {
+            StoredReport eldest = it.next();
+            if (eldest == stored) {
+                continue;
+            }
+            it.remove();
+            memoryBytes -= eldest.estimatedBytes();
+            evicted.add(eldest);
+        }
+        if (!evicted.isEmpty()) {
+            log.info("报告存储超出内存预算，淘汰 {} 份报告，当前占用约 {} KB", evicted.size(), memoryBytes / 1024);
+            if (spillDir != null) {
+                for (StoredReport report : evicted) {
+                    spilling.put(report.reportId(), report);
+                }
+            }
+        }
+        return evicted;
+    }
+
+    private void spill(List<StoredReport> evicted) {
+        if (spillDir == null) {
+            return;
+        }
+        for (StoredReport stored : evicted) {
+            try {
+                boolean alreadyOnDisk;
+                synchronized (this) {
+                    alreadyOnDisk = spilled.contains(stored.reportId());
+                }
+                if (!alreadyOnDisk) {
+                    writeSpillFile(stored);
+                    List<String> expired = markSpilled(stored.reportId());
+                    for (String reportId : expired) {
+                        Files.deleteIfExists(spillFile(reportId));
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("报告 {} 写入溢出目录失败，已丢弃", stored.reportId(), e);
+            } finally {
+                spilling.remove(stored.reportId());
+            }
+        }
+    }
+
+    private void writeSpillFile(StoredReport stored) throws IOException {
+        Path target = spillFile(stored.reportId());
+        Path tmp = spillDir.resolve(stored.reportId() + SPILL_SUFFIX + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            ReportBinaryCodec.write(stored.report(), out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private synchronized List<String> markSpilled(String reportId) {
+        spilled.add(reportId);
+        List<String> expired = new ArrayList<>();
+        Iterator<String> it = spilled.iterator();
+        while (spilled.size() > spillMaxReports && it.hasNext()) {
+            expired.add(it.next());
+            it.remove();
+        }
+        return expired;
+    }
+
+    private Optional<StoredReport> load(String reportId) {
+        if (spillDir == null) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            if (!spilled.contains(reportId)) {
+                return Optional.empty();
+            }
+        }
+        ScanReport report;
+        try (InputStream in = Files.newInputStream(spillFile(reportId))) {
+            report = ReportBinaryCodec.read(in);
+        } catch (IOException e) {
+            log.warn("从溢出目录读取报告 {} 失败", reportId, e);
+            return Optional.empty();
+        }
+        StoredReport stored = new StoredReport(reportId, report, columnarIndex(report),
+                estimateBytes(report));
+        synchronized (this) {
+            // 并发读回同一份报告时以先放入内存的为准
+            StoredReport existing = memory.get(reportId);
+            if (existing != null) {
+                return Optional.of(existing);
+            }
+        }
+        // 磁盘文件保留，下次被淘汰时无需重写
+        spill(admit(stored));
+        return Optional.of(stored);
+    }
+
+    private Path spillFile(String reportId) {
+        return spillDir.resolve(reportId + SPILL_SUFFIX);
+    }
+
+    /**
+     * 溢出文件只在本进程内有效，启动时清理上次运行遗留的文件
+     */
+    private void initSpillDir() {
+        try {
+            Files.createDirectories(spillDir);
+            try (var files = Files.list(spillDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(SPILL_SUFFIX) || name.endsWith(SPILL_SUFFIX + ".tmp")) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+            log.info("报告存储溢出目录: {}", spillDir.toAbsolutePath());
+        } catch (IOException e) {
+            throw new IllegalStateException("无法初始化报告溢出目录: " + spillDir, e);
+        }
+    }
+
+    /**
+     * 存储中的报告及其违规索引，二者一起构建以保证一致
+     */
+    public record StoredReport(String reportId, ScanReport report, ReportIndex index, long estimatedBytes) {
+    }
+}
@@ -0,0 +1,364 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.AuditRule.RuleSource;
+import com.sqlaudit.model.AuditRule.RuleType;
+import com.sqlaudit.model.AuditRule.Severity;
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.util.Digests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * 规则包缓存：按 Word 文档内容的 SHA-256 保存解析后的自定义规则
+ * <p>
+ * 每个规则包以紧凑的二进制格式写入本地目录（&lt;id&gt;.pack），启动时全部载入并恢复上次启用的规则包，
+ * 重启后自定义规则不再丢失。再次上传内容相同的文档时直接启用缓存中的规则包，不再用 POI 解析文档；
+ * 正则在导入时编译校验，启用时连同已编译的 Pattern 一起交给 {@link RuleService}，首次扫描无需再编译。
+ * 未配置目录时只在内存中缓存。
+ */
+@Service
+public class RulePackStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RulePackStore.class);
+
+    private static final int MAGIC = 0x53515250; // "SQRP"
+    private static final int VERSION = 1;
+    private static final String PACK_SUFFIX = ".pack";
+    private static final String ACTIVE_FILE = "active";
+
+    private final RuleService ruleService;
+    private final WordRuleParser wordRuleParser;
+    private final Path dir;
+    private final int maxPacks;
+
+    /** 规则包 ID 到规则包，按导入顺序排列；所有访问在 this 上同步 */
+    private final Map<String, RulePack> packs = new LinkedHashMap<>();
+    private String activeId;
+
+    public RulePackStore(RuleService ruleService, WordRuleParser wordRuleParser,
+            @Value("${sql-audit.rule-packs.dir:}") String dir,
+            @Value("${sql-audit.rule-packs.max-packs:50}") int maxPacks) {
+        this.ruleService = ruleService;
+        this.wordRuleParser = wordRuleParser;
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir.trim());
+        this.maxPacks = Math.max(1, maxPacks);
+        if (this.dir != null) {
+            loadAll();
+        }
+    }
+
+    /**
+     * 规则包
+     *
+     * @param id              文档内容的 SHA-256（十六进制）
+     * @param name            上传时的文件名
+     * @param patterns        导入时预编译的正则，键为规则的 pattern
+     * @param invalidPatterns 无法编译的正则数，这些规则检查时会被跳过
+     */
+    public record RulePack(String id, String name, LocalDateTime createdAt, List<AuditRule> rules,
+            Map<String, Pattern> patterns, int invalidPatterns) {
+    }
+
+    /**
+     * @param cached 是否命中已有规则包（未重新解析文档）
+     */
+    public record ImportResult(RulePack pack, boolean cached) {
+    }
+
+    /**
+     * 导入 Word 文档并启用其中的规则；内容已导入过时直接启用缓存的规则包
+     */
+    public synchronized ImportResult importDocument(byte[] content, String fileName) {
+        String id = Digests.sha256Hex(content);
+        RulePack pack = packs.get(id);
+        boolean cached = pack != null;
+        if (!cached) {
+            List<AuditRule> rules = wordRuleParser.parse(new ByteArrayInputStream(content));
+            pack = compile(id, fileName, LocalDateTime.now(), rules);
+            packs.put(id, pack);
+            persist(pack);
+        }
+        activate(pack);
+        if (!cached) {
+            // 先启用再淘汰：原先启用的规则包此时可被淘汰，新导入的规则包不会被淘汰
+            evictOldest(id);
+        }
+        log.info("{}规则包 {} ({}): {} 条规则", cached ? "命中缓存，启用" : "导入并启用", id.substring(0, 12), fileName,
+                pack.rules().size());
+        return new ImportResult(pack, cached);
+    }
+
+    public synchronized List<RulePack> list() {
+        List<RulePack> result = new ArrayList<>(packs.values());
+        result.sort(Comparator.comparing(RulePack::createdAt).reversed());
+        return result;
+    }
+
+    public synchronized Optional<RulePack> get(String id) {
+        return Optional.ofNullable(packs.get(id));
+    }
+
+    public synchronized Optional<String> activeId() {
+        return Optional.ofNullable(activeId);
+    }
+
+    /**
+     * 启用指定规则包，替换当前自定义规则；规则包不存在时返回 empty
+     */
+    public synchronized Optional<RulePack> activate(String id) {
+        RulePack pack = packs.get(id);
+        if (pack != null) {
+            activate(pack);
+        }
+        return Optional.ofNullable(pack);
+    }
+
+    /**
+     * 停用当前规则包并清除自定义规则，重启后也不再恢复
+     */
+    public synchronized void deactivate() {
+        ruleService.clearCustomRules();
+        activeId = null;
+        writeActive();
+    }
+
+    /**
+     * 删除规则包；删除的是当前启用的规则包时同时清除自定义规则
+     */
+    public synchronized boolean delete(String id) {
+        RulePack removed = packs.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        if (id.equals(activeId)) {
+            deactivate();
+        }
+        if (dir != null) {
+            try {
+                Files.deleteIfExists(dir.resolve(id + PACK_SUFFIX));
+            } catch (IOException e) {
+                log.warn("删除规则包文件失败: {}", e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void activate(RulePack pack) {
+        ruleService.activateCustomRules(pack.rules(), pack.patterns());
+        if (!pack.id().equals(activeId)) {
+            activeId = pack.id();
+            writeActive();
+        }
+    }
+
+    /** 超出数量上限时淘汰最早导入、未启用且不是 keepId 的规则包 */
+    private void evictOldest(String keepId) {
+        while (packs.size() > maxPacks) {
+            String oldest = null;
+            for (String id : packs.keySet()) {
+                if (!id.equals(activeId) && !id.equals(keepId)) {
+                    oldest = id;
+                    break;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            delete(oldest);
+        }
+    }
+
+    private static RulePack compile(String id, String name, LocalDateTime createdAt, List<AuditRule> rules) {
+        Map<String, Pattern> patterns = new HashMap<>();
+        int invalid = 0;
+        for (AuditRule rule : rules) {
+            if (rule.getType() == RuleType.REGEX && rule.getPattern() != null
+                    && !patterns.containsKey(rule.getPattern())) {
+                Pattern pattern = RuleService.compileRulePattern(rule.getPattern());
+                if (pattern != null) {
+                    patterns.put(rule.getPattern(), pattern);
+                } else {
+                    invalid++;
+                    log.warn("规则 {} 的正则无效: {}", rule.getId(), rule.getPattern());
+                }
+            }
+        }
+        return new RulePack(id, name, createdAt, List.copyOf(rules), Map.copyOf(patterns), invalid);
+    }
+
+    // ---- 持久化 ----
+
+    private void loadAll() {
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            log.warn("无法创建规则包目录 {}，规则包仅缓存在内存中: {}", dir, e.getMessage());
+            return;
+        }
+        List<RulePack> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + PACK_SUFFIX)) {
+            for (Path file : files) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                    loaded.add(read(in));
+                } catch (IOException | RuntimeException e) {
+                    log.warn("跳过无法读取的规则包 {}: {}", file.getFileName(), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("读取规则包目录失败: {}", e.getMessage());
+        }
+        loaded.sort(Comparator.comparing(RulePack::createdAt));
+        loaded.forEach(pack -> packs.put(pack.id(), pack));
+
+        Path active = dir.resolve(ACTIVE_FILE);
+        if (Files.isRegularFile(active)) {
+            try {
+                RulePack pack = packs.get(Files.readString(active).trim());
+                if (pack != null) {
+                    ruleService.activateCustomRules(pack.rules(), pack.patterns());
+                    activeId = pack.id();
+                }
+            } catch (IOException e) {
+                log.warn("读取启用的规则包失败: {}", e.getMessage());
+            }
+        }
+        log.info("从 {} 载入 {} 个规则包{}", dir, packs.size(),
+                activeId != null ? "，已恢复启用规则包 " + activeId.substring(0, 12) : "");
+    }
+
+    private void persist(RulePack pack) {
+        if (dir == null) {
+            return;
+        }
+        Path target = dir.resolve(pack.id() + PACK_SUFFIX);
+        Path tmp = dir.resolve(pack.id() + PACK_SUFFIX + ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                write(pack, out);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 规则包仍在内存中可用，只是重启后需要重新上传
+            log.warn("写入规则包 {} 失败: {}", pack.id(), e.getMessage());
+        }
+    }
+
+    private void writeActive() {
+        if (dir == null) {
+            return;
+        }
+        try {
+            Path active = dir.resolve(ACTIVE_FILE);
+            if (activeId == null) {
+                Files.deleteIfExists(active);
+            } else {
+                Files.writeString(active, activeId);
+            }
+        } catch (IOException e) {
+            log.warn("记录启用的规则包失败: {}", e.getMessage());
+        }
+    }
+
+    static void write(RulePack pack, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        writeString(data, pack.id());
+        writeString(data, pack.name());
+        data.writeLong(pack.createdAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        data.writeInt(pack.rules().size());
+        for (AuditRule rule : pack.rules()) {
+            writeString(data, rule.getId());
+            writeString(data, rule.getName());
+            writeString(data, rule.getDescription());
+            data.writeByte(rule.getSeverity() != null ? rule.getSeverity().ordinal() : -1);
+            data.writeByte(rule.getType() != null ? rule.getType().ordinal() : -1);
+            writeString(data, rule.getPattern());
+            writeString(data, rule.getCheckerName());
+            writeString(data, rule.getSection());
+            writeString(data, rule.getCategory());
+            data.writeByte(rule.getSource() != null ? rule.getSource().ordinal() : -1);
+        }
+        data.flush();
+    }
+
+    static RulePack read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("不是有效的规则包文件");
+        }
+        String id = readString(data);
+        String name = readString(data);
+        LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(data.readLong()),
+                ZoneId.systemDefault());
+        int count = data.readInt();
+        List<AuditRule> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rules.add(AuditRule.builder()
+                    .id(readString(data))
+                    .name(readString(data))
+                    .description(readString(data))
+                    .severity(enumOf(Severity.values(), data.readByte()))
+                    .type(enumOf(RuleType.values(), data.readByte()))
+                    .pattern(readString(data))
+                    .checkerName(readString(data))
+                    .section(readString(data))
+                    .category(readString(data))
+                    .source(enumOf(RuleSource.values(), data.readByte()))
+                    .build());
+        }
+        return compile(id, name, createdAt, rules);
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static <E> E enumOf(E[] values, byte ordinal) {
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    }
+}
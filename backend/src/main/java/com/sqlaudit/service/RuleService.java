@@ -7,11 +7,13 @@ import com.sqlaudit.model.Violation;
 import com.sqlaudit.parser.WordRuleParser;
 import com.sqlaudit.rule.checker.SqlChecker;
 import com.sqlaudit.rule.checker.SqlChecker.CheckResult;
+import com.sqlaudit.util.Digests;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Matcher;
@@ -93,20 +95,108 @@ public class RuleService {
                 return parsed;
         }
 
+        /**
+         * 启用已解析好的自定义规则（如规则包缓存中的规则），替换当前自定义规则
+         *
+         * @param compiled 预编译的正则，键为规则的 pattern；缺失的在首次匹配时再编译
+         */
+        public void activateCustomRules(List<AuditRule> rules, Map<String, Pattern> compiled) {
+                customRules.clear();
+                patternCache.clear();
+                patternCache.putAll(compiled);
+                customRules.addAll(rules);
+        }
+
+        /**
+         * 按规则检查时使用的选项编译自定义规则的正则，无效的正则返回 null
+         */
+        public static Pattern compileRulePattern(String pattern) {
+                try {
+                        return Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+                } catch (java.util.regex.PatternSyntaxException e) {
+                        return null;
+                }
+        }
+
         public void clearCustomRules() {
                 customRules.clear();
                 patternCache.clear();
         }
 
+        /**
+         * 当前规则集（内置与自定义规则）及所用检查器外部配置（表结构、EXPLAIN 回放）的摘要；
+         * 分布式扫描中 worker 据此确认与协调节点按同一套规则检查
+         */
+        public String configFingerprint() {
+                MessageDigest digest = Digests.sha256();
+                Set<String> checkers = new TreeSet<>();
+                for (AuditRule rule : getAllRules()) {
+                        Digests.update(digest, rule);
+                        if (rule.getType() == RuleType.BUILT_IN && rule.getCheckerName() != null) {
+                                checkers.add(rule.getCheckerName());
+                        }
+                }
+                for (String name : checkers) {
+                        SqlChecker checker = checkerMap.get(name);
+                        Digests.update(digest, name);
+                        Digests.update(digest, checker != null ? checker.configFingerprint() : null);
+                }
+                return Digests.hex(digest);
+        }
+
+        /**
+         * 整批检查前把片段交给各检查器预处理，之后逐条 checkSql 时可直接命中检查器的缓存
+         */
+        public void prepare(List<SqlFragment> fragments) {
+                for (SqlChecker checker : checkerMap.values()) {
+                        try {
+                                checker.prepare(fragments);
+                        } catch (Exception e) {
+                                log.warn("检查器 {} 预处理失败: {}", checker.name(), e.getMessage());
+                        }
+                }
+        }
+
         public List<Violation> checkSql(SqlFragment fragment) {
                 List<Violation> violations = new ArrayList<>();
-                for (AuditRule rule : getAllRules()) {
+                checkSql(fragment, true, violations);
+                return violations;
+        }
+
+        /**
+         * 检查单条 SQL，违规追加到调用方提供的列表（可复用），不额外分配规则列表
+         *
+         * @param withExampleSql 是否生成改写示例 SQL；交互式 lint 场景不需要，可省去多次正则改写
+         * @param sink           示例 SQL 在本片段全部规则检查完后写回新增的违规，按下标读取须返回同一对象
+         */
+        public void checkSql(SqlFragment fragment, boolean withExampleSql, List<Violation> sink) {
+                int first = sink.size();
+                for (AuditRule rule : defaultRules) {
                         Violation v = applyRule(rule, fragment);
                         if (v != null) {
-                                violations.add(v);
+                                sink.add(v);
+                        }
+                }
+                for (AuditRule rule : customRules) {
+                        Violation v = applyRule(rule, fragment);
+                        if (v != null) {
+                                sink.add(v);
+                        }
+                }
+                if (withExampleSql && sink.size() > first) {
+                        // 检查器读取的是文本视图；改写示例需要字符串，有违规时才解码一次，各条违规共用
+                        String sql = fragment.getSqlText();
+                        for (int i = first; i < sink.size(); i++) {
+                                Violation v = sink.get(i);
+                                try {
+                                        v.setExampleSql(v.getRule().getType() == RuleType.REGEX
+                                                        ? buildRegexExampleSql(v.getRule(), sql, v.getMatchedText())
+                                                        : buildExampleSql(v.getRule(), sql, fragment, v.getMatchedText()));
+                                } catch (Exception e) {
+                                        log.warn("生成规则 {} 的示例 SQL 时出错: {}", v.getRule().getId(), e.getMessage());
+                                }
                         }
                 }
-                return violations;
         }
 
         private Violation applyRule(AuditRule rule, SqlFragment fragment) {
@@ -123,7 +213,6 @@ public class RuleService {
                                                                 .sqlFragment(fragment)
                                                                 .message(result.message())
                                                                 .suggestion(buildSuggestion(rule, fragment, result))
-                                                                .exampleSql(buildExampleSql(rule, fragment, result))
                                                                 .matchedText(result.matchedText())
                                                                 .build();
                                         }
@@ -135,14 +224,13 @@ public class RuleService {
                                         Pattern pattern = patternCache.computeIfAbsent(
                                                         rule.getPattern(),
                                                         p -> Pattern.compile(p, Pattern.CASE_INSENSITIVE));
-                                        Matcher matcher = pattern.matcher(fragment.getSqlText());
+                                        Matcher matcher = pattern.matcher(fragment.sqlTextView());
                                         if (matcher.find()) {
                                                 yield Violation.builder()
                                                                 .rule(rule)
                                                                 .sqlFragment(fragment)
                                                                 .message("匹配到禁止使用的模式: " + rule.getDescription())
                                                                 .suggestion(buildRegexSuggestion(rule, matcher.group()))
-                                                                .exampleSql(buildRegexExampleSql(rule, fragment, matcher.group()))
                                                                 .matchedText(matcher.group())
                                                                 .build();
                                         }
@@ -183,18 +271,19 @@ public class RuleService {
                         case "SUBQUERY_DEPTH" -> "降低子查询嵌套层级（建议 <= 2），可用 CTE（`WITH`）分层表达业务逻辑。";
                         case "SCHEMA_PREFIX" -> "为表/函数引用补充 schema 前缀（如 `public.user_info`），减少对象解析歧义和额外开销。";
                         case "SQL_INJECTION_RISK" -> "将 MyBatis `${}` 字符串拼接改为 `#{}` 参数绑定；若必须拼接标识符，请做白名单校验。";
+                        case "INDEX_HINT" -> "为选择性高的条件列建立索引，或改用已有索引的前导列过滤；复合索引只有前导列出现在条件中时才能使用。";
+                        case "EXPLAIN_PLAN" -> "为扫描表的过滤列或连接列建立索引（连接时被驱动表的连接列尤其需要），或增加能命中已有索引的条件；确需扫描全表的批处理语句可加入基线。";
                         case "KEYWORD_UPPERCASE" -> "统一 SQL 关键字大小写风格（推荐大写，如 `SELECT`, `FROM`, `WHERE`），并在格式化工具中固化规则。";
                         default -> buildGenericSuggestion(rule, fragment);
                 };
         }
 
-        private String buildExampleSql(AuditRule rule, SqlFragment fragment, CheckResult result) {
+        private String buildExampleSql(AuditRule rule, String sql, SqlFragment fragment, String matchedText) {
                 String checkerName = rule.getCheckerName();
                 if (checkerName == null || checkerName.isBlank()) {
-                        return buildGenericExampleSql(fragment, result);
+                        return buildGenericExampleSql(sql, matchedText);
                 }
 
-                String sql = fragment.getSqlText();
                 if (sql == null || sql.isBlank()) {
                         return null;
                 }
@@ -212,20 +301,20 @@ public class RuleService {
                         case "SCHEMA_PREFIX" -> rewriteSchemaPrefix(sql);
                         case "KEYWORD_UPPERCASE" -> rewriteKeywordUppercase(sql);
                         case "LOCK_TABLE" -> rewriteLockTable(sql);
-                        case "IMPLICIT_JOIN" -> rewriteImplicitJoin(sql, result == null ? null : result.matchedText());
-                        case "NOT_EQUAL_OPS" -> rewriteNotEqualOps(sql, result == null ? null : result.matchedText());
+                        case "IMPLICIT_JOIN" -> rewriteImplicitJoin(sql, matchedText);
+                        case "NOT_EQUAL_OPS" -> rewriteNotEqualOps(sql, matchedText);
                         case "IN_LIST_SIZE" -> rewriteInListSize(sql);
                         case "COUNT_USAGE" -> rewriteCountUsage(sql);
-                        case "WHERE_FUNCTION" -> rewriteWhereFunction(sql, result == null ? null : result.matchedText());
+                        case "WHERE_FUNCTION" -> rewriteWhereFunction(sql, matchedText);
                         case "SUBQUERY_IN_TARGET" -> rewriteSubqueryTarget(sql);
                         case "SUBQUERY_DEPTH" -> rewriteSubqueryDepth(sql);
                         case "JOIN_TABLE_COUNT" -> rewriteJoinTableCount(sql);
-                        default -> buildGenericExampleSql(fragment, result);
+                        case "INDEX_HINT" -> rewriteIndexHint(sql, matchedText);
+                        default -> buildGenericExampleSql(sql, matchedText);
                 };
         }
 
-        private String buildRegexExampleSql(AuditRule rule, SqlFragment fragment, String matchedText) {
-                String sql = fragment.getSqlText();
+        private String buildRegexExampleSql(AuditRule rule, String sql, String matchedText) {
                 if (sql == null || sql.isBlank()) {
                         return null;
                 }
@@ -468,13 +557,33 @@ public class RuleService {
                                 + ensureSemicolon(sql);
         }
 
-        private String buildGenericExampleSql(SqlFragment fragment, CheckResult result) {
-                String sql = fragment.getSqlText();
+        /**
+         * matchedText 形如 "t_user(phone, status); t_order(user_id)"，为每张表的首个条件列给出建索引示例
+         */
+        private String rewriteIndexHint(String sql, String matchedText) {
+                StringBuilder ddl = new StringBuilder("-- 示例：为条件列建立索引（请结合列的选择性和写入负载确认）\n");
+                if (matchedText != null) {
+                        for (String part : matchedText.split(";\\s*")) {
+                                int open = part.indexOf('(');
+                                if (open <= 0 || !part.endsWith(")")) {
+                                        continue;
+                                }
+                                String table = part.substring(0, open);
+                                String column = part.substring(open + 1, part.length() - 1).split(",\\s*")[0];
+                                ddl.append("CREATE INDEX idx_").append(table.substring(table.lastIndexOf('.') + 1))
+                                                .append('_').append(column).append(" ON ").append(table)
+                                                .append(" (").append(column).append(");\n");
+                        }
+                }
+                return ddl.append("\n-- 原 SQL\n").append(ensureSemicolon(sql)).toString();
+        }
+
+        private String buildGenericExampleSql(String sql, String matchedText) {
                 if (sql == null || sql.isBlank()) {
                         return null;
                 }
                 return "-- 示例改写（请结合业务语义人工确认）\n"
-                                + "-- 当前命中: " + sanitizeInlineComment(result == null ? null : result.matchedText()) + "\n"
+                                + "-- 当前命中: " + sanitizeInlineComment(matchedText) + "\n"
                                 + ensureSemicolon(sql);
         }
 
@@ -581,6 +690,22 @@ public class RuleService {
                                 .severity(Severity.WARNING).type(RuleType.BUILT_IN)
                                 .checkerName("IN_LIST_SIZE").source(RuleSource.DEFAULT).build());
 
+                // 需导入表结构（DDL）后才生效
+                rules.add(AuditRule.builder()
+                                .id("OG_INDEX_HINT").section("索引").category("WHERE子句")
+                                .name("查询条件应命中索引")
+                                .description("WHERE / JOIN 条件列中应至少有一列是索引的前导列，否则可能全表扫描（需导入表结构）")
+                                .severity(Severity.WARNING).type(RuleType.BUILT_IN)
+                                .checkerName("INDEX_HINT").source(RuleSource.DEFAULT).build());
+
+                // 需导入表结构并启用 EXPLAIN 回放后才生效
+                rules.add(AuditRule.builder()
+                                .id("OG_EXPLAIN_PLAN").section("索引").category("WHERE子句")
+                                .name("执行计划不应全表扫描大表")
+                                .description("按表结构在内嵌库中 EXPLAIN，大表全表扫描或连接表缺少索引时告警（需导入表结构并启用 EXPLAIN 回放）")
+                                .severity(Severity.WARNING).type(RuleType.BUILT_IN)
+                                .checkerName("EXPLAIN_PLAN").source(RuleSource.DEFAULT).build());
+
                 // ========== 3.4 SELECT ==========
                 rules.add(AuditRule.builder()
                                 .id("OG_3_4_1").section("3.4.1").category("SELECT")
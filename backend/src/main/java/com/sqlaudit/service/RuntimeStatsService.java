@@ -0,0 +1,134 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.StatementStats;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.SqlLogParser;
+import com.sqlaudit.parser.SqlLogParser.LogFormat;
+import com.sqlaudit.report.RuntimeStatsIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 运行时统计关联服务：导入 pg_stat_statements 风格的语句统计快照，扫描完成后为违规片段标注生产环境开销
+ * <p>
+ * 快照 CSV 需包含 query 列，可选 calls、total_exec_time（或 total_time）、max_exec_time、rows 列。
+ * 同一时刻只保留最近一次导入的快照；报告查询接口可按 sort=impact 以累计耗时排序。
+ */
+@Service
+public class RuntimeStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(RuntimeStatsService.class);
+
+    private final SqlLogParser logParser;
+
+    private volatile Snapshot snapshot;
+
+    public RuntimeStatsService(SqlLogParser logParser) {
+        this.logParser = logParser;
+    }
+
+    public Snapshot importSnapshot(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("统计文件不存在: " + file);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return importSnapshot(in, file.getFileName().toString());
+        }
+    }
+
+    /**
+     * 导入统计快照并替换当前快照；不关闭传入的流
+     */
+    public Snapshot importSnapshot(InputStream in, String sourceName) throws IOException {
+        RuntimeStatsIndex.Builder builder = RuntimeStatsIndex.builder();
+        long[] totalCalls = new long[1];
+        logParser.parse(SqlLogParser.openReader(in, sourceName), sourceName, LogFormat.CSV_STATS, statement -> {
+            totalCalls[0] += statement.calls();
+            builder.add(statement.sql(), statement.calls(), statement.totalTimeMs(), statement.maxTimeMs(),
+                    statement.rows());
+        });
+        Snapshot imported = new Snapshot(sourceName, builder.build(), totalCalls[0], LocalDateTime.now());
+        snapshot = imported;
+        log.info("导入运行时统计快照: {}, {} 种语句, {} 次执行", sourceName, imported.statements(), totalCalls[0]);
+        return imported;
+    }
+
+    public Optional<Snapshot> current() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    public void clear() {
+        snapshot = null;
+    }
+
+    /**
+     * 用当前快照标注报告；未导入快照时不做任何处理
+     */
+    public void annotate(ScanReport report) {
+        Snapshot current = snapshot;
+        if (current != null && report != null) {
+            annotate(report, current);
+        }
+    }
+
+    /**
+     * 为报告中每个有违规的片段查找运行时统计（已带统计的片段，如日志审查结果，保持不变），并追加关联结果提示
+     *
+     * @return 关联成功的片段数
+     */
+    public static int annotate(ScanReport report, Snapshot snapshot) {
+        List<Violation> violations = report.getViolations() != null ? report.getViolations() : List.of();
+        Map<SqlFragment, Boolean> seen = new IdentityHashMap<>();
+        int fragments = 0;
+        int matched = 0;
+        int similar = 0;
+        for (Violation v : violations) {
+            SqlFragment fragment = v.getSqlFragment();
+            if (fragment == null || fragment.getRuntimeStats() != null || seen.put(fragment, Boolean.TRUE) != null) {
+                continue;
+            }
+            fragments++;
+            StatementStats stats = snapshot.index().match(fragment.sqlTextView());
+            if (stats != null) {
+                fragment.setRuntimeStats(stats);
+                matched++;
+                if (stats.getMatchScore() < 1.0) {
+                    similar++;
+                }
+            }
+        }
+        if (fragments > 0) {
+            List<String> notices = new ArrayList<>(report.getNotices() != null ? report.getNotices() : List.of());
+            notices.add(String.format("已关联运行时统计 %s：%d 条违规语句中 %d 条找到执行记录（其中 %d 条为相似度匹配）。",
+                    snapshot.source(), fragments, matched, similar));
+            report.setNotices(List.copyOf(notices));
+        }
+        return matched;
+    }
+
+    /**
+     * 已导入的统计快照
+     *
+     * @param totalCalls 快照中全部语句的累计执行次数
+     */
+    public record Snapshot(String source, RuntimeStatsIndex index, long totalCalls, LocalDateTime importedAt) {
+
+        public int statements() {
+            return index.size();
+        }
+    }
+}
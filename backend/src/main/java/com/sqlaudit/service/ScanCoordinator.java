@@ -0,0 +1,577 @@
+package com.sqlaudit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqlaudit.model.ScanOptions;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.ShardFileResult;
+import com.sqlaudit.model.ShardRequest;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.report.ShardResultCodec;
+import com.sqlaudit.report.ViolationTable;
+import com.sqlaudit.service.ScanService.CheckOutcome;
+import com.sqlaudit.service.ScanService.ScanPlan;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式扫描协调节点：把一次仓库扫描按文件大小切成均衡的分片，分发给多个 worker 进程，再合并为一份报告
+ * <p>
+ * 文件发现在本节点完成；worker 通过 /api/shard/scan 解析分片内的文件并执行规则检查，逐个文件流式传回结果。
+ * 分片数为 worker 数的若干倍，先完成的 worker 继续领取剩余分片。worker 连接失败、返回错误或结果流中断时，
+ * 该 worker 在本次扫描中不再领取分片，未完成的分片重新分配给其他 worker；重试次数用尽或全部 worker 不可用时，
+ * 剩余分片在本节点扫描。结果流超过 idle-timeout 没有新数据（worker 卡住）同样按失败处理。
+ * <p>
+ * 分片请求带有本节点规则集与表结构配置的摘要，worker 配置不一致时拒绝执行（409），该 worker 不参与本次扫描，
+ * 分片不计失败次数，交给其他 worker 或本节点。worker 繁忙（429）时分片同样不计失败、放回队列，该 worker 按
+ * Retry-After 等待后继续领取；持续繁忙超过 shard-timeout 才不再使用。
+ * <p>
+ * 合并按原始文件顺序重放各文件的检查结果，违规上限与基线抑制计数与单机扫描完全一致；
+ * 用法索引、近似重复与索引建议在合并后的全部片段上计算。
+ */
+@Service
+public class ScanCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanCoordinator.class);
+
+    private static final String SHARD_PATH = "/api/shard/scan";
+    /** 看门狗检查结果流是否空闲的间隔 */
+    private static final long IDLE_CHECK_MILLIS = 500;
+    /** worker 返回 429 但没有给出 Retry-After 时的等待时间 */
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    private final ScanService scanService;
+    private final ObjectMapper objectMapper;
+    private final List<URI> workers;
+    private final int shardsPerWorker;
+    private final int maxAttempts;
+    private final Duration shardTimeout;
+    private final Duration idleTimeout;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService watchdog;
+
+    public ScanCoordinator(ScanService scanService, ObjectMapper objectMapper,
+            @Value("${sql-audit.cluster.workers:}") String workers,
+            @Value("${sql-audit.cluster.shards-per-worker:4}") int shardsPerWorker,
+            @Value("${sql-audit.cluster.max-attempts:3}") int maxAttempts,
+            @Value("${sql-audit.cluster.shard-timeout-seconds:600}") long shardTimeoutSeconds,
+            @Value("${sql-audit.cluster.idle-timeout-seconds:120}") long idleTimeoutSeconds) {
+        this.scanService = scanService;
+        this.objectMapper = objectMapper;
+        this.workers = parseWorkers(workers);
+        this.shardsPerWorker = Math.max(1, shardsPerWorker);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.shardTimeout = Duration.ofSeconds(Math.max(1, shardTimeoutSeconds));
+        this.idleTimeout = Duration.ofSeconds(Math.max(1, idleTimeoutSeconds));
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "shard-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!this.workers.isEmpty()) {
+            log.info("分布式扫描: {} 个 worker {}，每个 worker {} 个分片", this.workers.size(), this.workers,
+                    this.shardsPerWorker);
+        }
+    }
+
+    /**
+     * 是否配置了 worker；未配置时扫描在本节点执行
+     */
+    public boolean isEnabled() {
+        return !workers.isEmpty();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 分片
+     *
+     * @param files 分片内文件在扫描计划中的下标，升序
+     * @param bytes 分片内文件总字节数
+     */
+    record Shard(int id, int[] files, long bytes) {
+    }
+
+    /**
+     * 按扫描计划分发扫描并合并结果；未配置 worker 或没有文件时直接在本节点扫描
+     */
+    public ScanReport scan(ScanPlan plan, ScanOptions options) {
+        List<File> files = plan.mapperFiles();
+        if (workers.isEmpty() || files.isEmpty()) {
+            return scanService.scan(plan, options);
+        }
+        ScanOptions scanOptions = options != null ? options : ScanOptions.defaults();
+        long[] sizes = files.stream().mapToLong(File::length).toArray();
+        List<Shard> shards = partition(sizes, workers.size() * shardsPerWorker);
+        log.info("分布式扫描 {}: {} 个文件切分为 {} 个分片，分发给 {} 个 worker", plan.resolvedRepoPath(), files.size(),
+                shards.size(), workers.size());
+
+        ShardFileResult[] results = new ShardFileResult[files.size()];
+        ShardQueue queue = new ShardQueue(shards, maxAttempts);
+        String fingerprint = scanService.ruleFingerprint();
+        List<URI> mismatched = new CopyOnWriteArrayList<>();
+        List<URI> busy = new CopyOnWriteArrayList<>();
+        List<Thread> dispatchers = new ArrayList<>();
+        for (URI worker : workers) {
+            Thread thread = new Thread(() -> dispatch(worker, queue, plan, scanOptions, fingerprint, mismatched,
+                    busy, results),
+                    "shard-dispatch-" + worker.getAuthority());
+            thread.setDaemon(true);
+            thread.start();
+            dispatchers.add(thread);
+        }
+        try {
+            for (Thread thread : dispatchers) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            dispatchers.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("分布式扫描被中断", e);
+        }
+
+        List<Shard> leftovers = queue.leftovers();
+        for (Shard shard : leftovers) {
+            log.warn("分片 {}（{} 个文件）改由本节点扫描", shard.id(), shard.files().length);
+            try {
+                scanService.scanShard(plan.repoRoot(), shardFiles(plan, shard), scanOptions,
+                        result -> store(results, shard, result));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        List<String> notices = new ArrayList<>(plan.notices());
+        if (!mismatched.isEmpty()) {
+            notices.add("worker " + mismatched + " 的规则、规则包或表结构配置与协调节点不一致，未参与本次扫描。");
+        }
+        if (!busy.isEmpty()) {
+            notices.add("worker " + busy + " 持续繁忙超过 " + shardTimeout.toSeconds() + " 秒，未继续参与本次扫描。");
+        }
+        if (queue.reassigned() > 0 || !leftovers.isEmpty()) {
+            notices.add("分布式扫描中有 " + queue.reassigned() + " 个分片因 worker 故障重新分配，"
+                    + leftovers.size() + " 个分片由协调节点自行扫描。");
+        }
+        return merge(plan, results, scanOptions, notices);
+    }
+
+    /**
+     * 单个 worker 的分发循环：领取分片直到全部完成；失败或配置不一致时归还分片并退出，本次扫描不再使用该 worker。
+     * worker 繁忙时归还分片、按 Retry-After 等待后继续，只有连续繁忙超过 shard-timeout 才退出
+     */
+    private void dispatch(URI worker, ShardQueue queue, ScanPlan plan, ScanOptions options, String fingerprint,
+            List<URI> mismatched, List<URI> busy, ShardFileResult[] results) {
+        long busySince = 0;
+        while (true) {
+            Shard shard;
+            try {
+                shard = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (shard == null) {
+                return;
+            }
+            try {
+                List<ShardFileResult> received = send(worker, plan, shard, options, fingerprint);
+                for (ShardFileResult result : received) {
+                    store(results, shard, result);
+                }
+                queue.complete(shard);
+                busySince = 0;
+                log.debug("worker {} 完成分片 {}（{} 个文件）", worker, shard.id(), shard.files().length);
+            } catch (WorkerBusyException e) {
+                queue.release(shard);
+                long now = System.nanoTime();
+                busySince = busySince != 0 ? busySince : now;
+                long remaining = shardTimeout.toNanos() - (now - busySince);
+                if (remaining <= 0) {
+                    log.warn("worker {} 持续繁忙超过 {} 秒，不再参与本次扫描", worker, shardTimeout.toSeconds());
+                    busy.add(worker);
+                    return;
+                }
+                log.debug("worker {} 繁忙，{} 秒后重试: {}", worker, e.retryAfter.toSeconds(), e.getMessage());
+                try {
+                    TimeUnit.NANOSECONDS.sleep(Math.min(e.retryAfter.toNanos(), remaining));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } catch (ConfigMismatchException e) {
+                log.warn("worker {} 的配置与协调节点不一致，不参与本次扫描: {}", worker, e.getMessage());
+                mismatched.add(worker);
+                queue.release(shard);
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("worker {} 执行分片 {} 失败，分片将重新分配: {}", worker, shard.id(), e.toString());
+                queue.fail(shard);
+                return;
+            } catch (InterruptedException e) {
+                queue.fail(shard);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 把分片发给 worker 并读取完整的结果流；结果不完整或超过 idle-timeout 没有新数据时抛出异常，已收到的部分一并丢弃
+     */
+    private List<ShardFileResult> send(URI worker, ScanPlan plan, Shard shard, ScanOptions options,
+            String fingerprint) throws IOException, InterruptedException {
+        List<String> relativeFiles = new ArrayList<>(shard.files().length);
+        for (File file : shardFiles(plan, shard)) {
+            relativeFiles.add(plan.repoRoot().relativize(file.toPath()).toString());
+        }
+        ShardRequest request = ShardRequest.builder()
+                .repoRoot(plan.repoRoot().toString())
+                .files(relativeFiles)
+                .maxViolations(options.effectiveMaxViolations())
+                .baselineFingerprints(options.getBaselineFingerprints())
+                .offHeapSqlText(options.isOffHeapSqlText())
+                .ruleFingerprint(fingerprint)
+                .build();
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(worker + SHARD_PATH))
+                .timeout(shardTimeout)
+                .header("Content-Type", "application/json")
+                // 结果为二进制流，拒绝（409 / 429 等）时为 JSON 错误信息
+                .header("Accept", "application/octet-stream, application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(request)))
+                .build();
+        HttpResponse<InputStream> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+        // 请求超时只约束等待响应头；之后由看门狗在结果流长时间没有数据时关闭它，使阻塞的读取抛出异常
+        try (IdleGuardedStream body = new IdleGuardedStream(response.body())) {
+            ScheduledFuture<?> check = watchdog.scheduleWithFixedDelay(() -> body.closeIfIdle(idleTimeout),
+                    IDLE_CHECK_MILLIS, IDLE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            try {
+                return readResults(response, body, shard);
+            } catch (IOException e) {
+                if (body.expired()) {
+                    throw new IOException("worker 超过 " + idleTimeout.toSeconds() + " 秒没有返回数据", e);
+                }
+                throw e;
+            } finally {
+                check.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 读取并校验结果流：409 表示 worker 配置不一致，429 表示 worker 繁忙，其他非 200 状态及不完整的结果流均为失败
+     */
+    private static List<ShardFileResult> readResults(HttpResponse<?> response, InputStream body, Shard shard)
+            throws IOException {
+        int status = response.statusCode();
+        if (status != 200) {
+            String error = new String(body.readNBytes(1024), StandardCharsets.UTF_8);
+            if (status == 409) {
+                throw new ConfigMismatchException(error);
+            }
+            if (status == 429) {
+                throw new WorkerBusyException(error, retryAfter(response));
+            }
+            throw new IOException("worker 返回 " + status + ": " + error);
+        }
+        List<ShardFileResult> received = new ArrayList<>(shard.files().length);
+        ShardResultCodec.read(body, received::add);
+        boolean[] seen = new boolean[shard.files().length];
+        for (ShardFileResult result : received) {
+            int index = result.getFileIndex();
+            if (index < 0 || index >= seen.length || seen[index]) {
+                throw new IOException("分片结果的文件下标无效: " + index);
+            }
+            seen[index] = true;
+        }
+        if (received.size() != seen.length) {
+            throw new IOException("分片结果缺少文件: 收到 " + received.size() + "，应为 " + seen.length);
+        }
+        return received;
+    }
+
+    /**
+     * 按原始文件顺序合并：与单机扫描的检查循环相同，先累计基线抑制数，再判断违规上限
+     */
+    private ScanReport merge(ScanPlan plan, ShardFileResult[] results, ScanOptions options, List<String> notices) {
+        int maxViolations = options.effectiveMaxViolations();
+        List<SqlFragment> allFragments = new ArrayList<>();
+        ViolationTable violations = new ViolationTable();
+        int suppressed = 0;
+        boolean limitReached = false;
+        for (ShardFileResult result : results) {
+            allFragments.addAll(result.getFragments());
+            if (limitReached) {
+                continue;
+            }
+            List<Violation> fileViolations = result.getViolations();
+            for (int i = 0; i < fileViolations.size(); i++) {
+                suppressed += result.getSuppressedBefore()[i];
+                if (violations.size() >= maxViolations) {
+                    limitReached = true;
+                    break;
+                }
+                violations.add(fileViolations.get(i));
+            }
+            if (!limitReached) {
+                suppressed += result.getSuppressedAfter();
+                // worker 在此文件达到分片内上限：被截掉的违规必然排在全局前 maxViolations 条之后
+                limitReached = result.isTruncated();
+            }
+        }
+        log.info("分布式扫描合并完成: {} 条 SQL 语句，{} 条违规", allFragments.size(), violations.size());
+        return scanService.buildReport(plan, allFragments,
+                new CheckOutcome(violations, limitReached, suppressed, maxViolations), notices, options);
+    }
+
+    /**
+     * 按文件大小切分分片：文件从大到小依次放入当前总字节数最小的分片（LPT），分片内文件按原始顺序排列
+     */
+    static List<Shard> partition(long[] sizes, int shardCount) {
+        int count = Math.max(1, Math.min(shardCount, sizes.length));
+        Integer[] order = new Integer[sizes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> sizes[i]).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        long[] bytes = new long[count];
+        List<List<Integer>> members = new ArrayList<>(count);
+        PriorityQueue<Integer> lightest = new PriorityQueue<>(Comparator.comparingLong((Integer s) -> bytes[s])
+                .thenComparing(Comparator.naturalOrder()));
+        for (int s = 0; s < count; s++) {
+            members.add(new ArrayList<>());
+            lightest.add(s);
+        }
+        for (int file : order) {
+            int s = lightest.poll();
+            members.get(s).add(file);
+            bytes[s] += sizes[file];
+            lightest.add(s);
+        }
+        List<Shard> shards = new ArrayList<>(count);
+        for (int s = 0; s < count; s++) {
+            int[] files = members.get(s).stream().mapToInt(Integer::intValue).sorted().toArray();
+            if (files.length > 0) {
+                shards.add(new Shard(s, files, bytes[s]));
+            }
+        }
+        return shards;
+    }
+
+    private static List<File> shardFiles(ScanPlan plan, Shard shard) {
+        List<File> files = new ArrayList<>(shard.files().length);
+        for (int index : shard.files()) {
+            files.add(plan.mapperFiles().get(index));
+        }
+        return files;
+    }
+
+    private static void store(ShardFileResult[] results, Shard shard, ShardFileResult result) {
+        // 不同分片的文件互不重叠，各线程写入不同下标；线程结束前的 join 保证主线程可见
+        results[shard.files()[result.getFileIndex()]] = result;
+    }
+
+    /**
+     * 429 响应的 Retry-After（秒）；缺失或不是秒数时取默认值
+     */
+    private static Duration retryAfter(HttpResponse<?> response) {
+        long seconds = DEFAULT_RETRY_AFTER_SECONDS;
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value != null) {
+            try {
+                seconds = Math.max(1, Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                log.debug("无法识别的 Retry-After: {}", value);
+            }
+        }
+        return Duration.ofSeconds(seconds);
+    }
+
+    private static List<URI> parseWorkers(String workers) {
+        List<URI> result = new ArrayList<>();
+        if (workers == null) {
+            return result;
+        }
+        for (String worker : workers.split(",")) {
+            String trimmed = worker.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(URI.create(trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed));
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * 待分发的分片；所有方法在本对象上同步
+     */
+    private static final class ShardQueue {
+
+        private final Deque<Shard> pending;
+        private final List<Shard> local = new ArrayList<>();
+        private final Map<Integer, Integer> attempts = new HashMap<>();
+        private final int maxAttempts;
+        private int inFlight;
+        private int reassigned;
+
+        ShardQueue(List<Shard> shards, int maxAttempts) {
+            this.pending = new ArrayDeque<>(shards);
+            this.maxAttempts = maxAttempts;
+        }
+
+        /**
+         * 领取一个分片；暂无可领取但仍有分片在执行时等待（执行失败的分片会被归还），全部完成时返回 null
+         */
+        synchronized Shard take() throws InterruptedException {
+            while (pending.isEmpty() && inFlight > 0) {
+                wait();
+            }
+            Shard shard = pending.poll();
+            if (shard != null) {
+                inFlight++;
+            }
+            return shard;
+        }
+
+        synchronized void complete(Shard shard) {
+            inFlight--;
+            notifyAll();
+        }
+
+        /**
+         * 归还失败的分片：重试次数未用尽时放回队首，否则留给协调节点自行扫描
+         */
+        synchronized void fail(Shard shard) {
+            inFlight--;
+            int failures = attempts.merge(shard.id(), 1, Integer::sum);
+            if (failures >= maxAttempts) {
+                local.add(shard);
+            } else {
+                pending.addFirst(shard);
+                reassigned++;
+            }
+            notifyAll();
+        }
+
+        /**
+         * 归还未执行的分片（worker 配置不一致或繁忙），不计失败次数
+         */
+        synchronized void release(Shard shard) {
+            inFlight--;
+            pending.addFirst(shard);
+            notifyAll();
+        }
+
+        /**
+         * 所有 worker 退出后仍未完成的分片
+         */
+        synchronized List<Shard> leftovers() {
+            List<Shard> result = new ArrayList<>(local);
+            result.addAll(pending);
+            return result;
+        }
+
+        synchronized int reassigned() {
+            return reassigned;
+        }
+    }
+
+    /**
+     * worker 的规则或表结构配置与协调节点不一致
+     */
+    private static final class ConfigMismatchException extends IOException {
+
+        ConfigMismatchException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * worker 繁忙，拒绝了分片（429）
+     */
+    private static final class WorkerBusyException extends IOException {
+
+        private final Duration retryAfter;
+
+        WorkerBusyException(String message, Duration retryAfter) {
+            super(message);
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    /**
+     * 记录最后一次读到数据时间的结果流；看门狗发现空闲超时时关闭底层流，阻塞中的读取随即抛出异常
+     */
+    private static final class IdleGuardedStream extends FilterInputStream {
+
+        private volatile long lastActivity = System.nanoTime();
+        private volatile boolean expired;
+
+        IdleGuardedStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            lastActivity = System.nanoTime();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            lastActivity = System.nanoTime();
+            return n;
+        }
+
+        void closeIfIdle(Duration timeout) {
+            if (!expired && System.nanoTime() - lastActivity > timeout.toNanos()) {
+                expired = true;
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    log.debug("关闭空闲结果流失败: {}", e.toString());
+                }
+            }
+        }
+
+        boolean expired() {
+            return expired;
+        }
+    }
+}
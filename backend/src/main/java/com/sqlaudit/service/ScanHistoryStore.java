@@ -0,0 +1,235 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.report.HistorySegment;
+import com.sqlaudit.report.HistorySegment.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * 扫描历史：每次扫描完成后写入一个 {@link HistorySegment} 分段文件（&lt;reportId&gt;.sqah），重启后仍可查询
+ * <p>
+ * 启动时只读取各文件头部建立内存目录，历史列表与趋势统计完全基于头部；打开某次扫描时才映射对应文件。
+ * 保留策略按条数与天数两个上限，写入新记录后与启动时各执行一次。未配置目录时不记录历史。
+ */
+@Service
+public class ScanHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanHistoryStore.class);
+
+    private static final Pattern REPORT_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final String SEGMENT_SUFFIX = ".sqah";
+
+    private final Path dir;
+    private final int maxScans;
+    private final int maxAgeDays;
+
+    /** 报告 ID 到头部；所有访问在 this 上同步 */
+    private final Map<String, Header> headers = new HashMap<>();
+
+    public ScanHistoryStore(@Value("${sql-audit.history.dir:}") String dir,
+            @Value("${sql-audit.history.max-scans:500}") int maxScans,
+            @Value("${sql-audit.history.max-age-days:90}") int maxAgeDays) {
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir.trim());
+        this.maxScans = Math.max(1, maxScans);
+        this.maxAgeDays = Math.max(1, maxAgeDays);
+        if (this.dir != null) {
+            loadHeaders();
+        }
+    }
+
+    /**
+     * 单次扫描在趋势中的数据点
+     */
+    public record TrendPoint(String reportId, LocalDateTime scanTime, int totalViolations, int errorCount,
+            int warningCount, int infoCount) {
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    /**
+     * 记录一次已完成的扫描；报告须已由 {@link ReportStore} 分配报告 ID。写入失败只记录日志，不影响扫描结果
+     */
+    public void record(ScanReport report) {
+        if (dir == null || report.getReportId() == null) {
+            return;
+        }
+        Path target = segmentFile(report.getReportId());
+        Path tmp = dir.resolve(report.getReportId() + SEGMENT_SUFFIX + ".tmp");
+        try {
+            HistorySegment.write(report, tmp);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Header header = HistorySegment.readHeader(target);
+            synchronized (this) {
+                headers.put(header.reportId(), header);
+            }
+            applyRetention();
+        } catch (IOException e) {
+            log.warn("扫描 {} 写入历史失败", report.getReportId(), e);
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // 临时文件下次启动时清理
+            }
+        }
+    }
+
+    /**
+     * 按扫描时间倒序列出历史
+     *
+     * @param days     只列出最近若干天，0 表示不限
+     * @param repoPath 只列出该仓库的扫描，为空时不限
+     */
+    public synchronized List<Header> list(int days, String repoPath) {
+        LocalDateTime since = days > 0 ? LocalDateTime.now().minusDays(days) : null;
+        List<Header> result = new ArrayList<>();
+        for (Header header : headers.values()) {
+            if (since != null && (header.scanTime() == null || header.scanTime().isBefore(since))) {
+                continue;
+            }
+            if (repoPath != null && !repoPath.isBlank() && !repoPath.trim().equals(header.repoPath())) {
+                continue;
+            }
+            result.add(header);
+        }
+        result.sort(newestFirst());
+        return result;
+    }
+
+    /**
+     * 各次扫描的违规数趋势，按扫描时间正序；只使用启动时读取的头部，不打开分段文件
+     */
+    public List<TrendPoint> trend(int days, String repoPath) {
+        List<Header> selected = list(days, repoPath);
+        List<TrendPoint> points = new ArrayList<>(selected.size());
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            Header header = selected.get(i);
+            points.add(new TrendPoint(header.reportId(), header.scanTime(), header.totalViolations(),
+                    header.errorCount(), header.warningCount(), header.infoCount()));
+        }
+        return points;
+    }
+
+    public synchronized Optional<Header> header(String reportId) {
+        return Optional.ofNullable(headers.get(reportId));
+    }
+
+    /**
+     * 映射指定扫描的分段文件；不存在时返回 empty
+     */
+    public Optional<HistorySegment> open(String reportId) throws IOException {
+        if (!contains(reportId)) {
+            return Optional.empty();
+        }
+        return Optional.of(HistorySegment.open(segmentFile(reportId)));
+    }
+
+    public boolean delete(String reportId) {
+        synchronized (this) {
+            if (!contains(reportId)) {
+                return false;
+            }
+            headers.remove(reportId);
+        }
+        deleteSegment(reportId);
+        return true;
+    }
+
+    private synchronized boolean contains(String reportId) {
+        return reportId != null && REPORT_ID.matcher(reportId).matches() && headers.containsKey(reportId);
+    }
+
+    /**
+     * 删除超过保留天数的记录，再按条数上限删除最早的记录
+     */
+    private void applyRetention() {
+        List<String> expired = new ArrayList<>();
+        synchronized (this) {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(maxAgeDays);
+            List<Header> ordered = new ArrayList<>(headers.values());
+            ordered.sort(newestFirst());
+            for (int i = 0; i < ordered.size(); i++) {
+                Header header = ordered.get(i);
+                boolean tooOld = header.scanTime() == null || header.scanTime().isBefore(cutoff);
+                if (tooOld || i >= maxScans) {
+                    expired.add(header.reportId());
+                    headers.remove(header.reportId());
+                }
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.info("扫描历史按保留策略删除 {} 条记录", expired.size());
+        }
+        expired.forEach(this::deleteSegment);
+    }
+
+    private void deleteSegment(String reportId) {
+        try {
+            Files.deleteIfExists(segmentFile(reportId));
+        } catch (IOException e) {
+            log.warn("删除扫描历史 {} 失败", reportId, e);
+        }
+    }
+
+    private Path segmentFile(String reportId) {
+        return dir.resolve(reportId + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 启动时读取全部分段文件的头部；无法解析的文件跳过，遗留的临时文件删除
+     */
+    private void loadHeaders() {
+        try {
+            Files.createDirectories(dir);
+            try (var files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                        Files.deleteIfExists(file);
+                    } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                        loadHeader(file, name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("无法初始化扫描历史目录: " + dir, e);
+        }
+        applyRetention();
+        log.info("扫描历史目录: {}，已载入 {} 条记录", dir.toAbsolutePath(), headers.size());
+    }
+
+    private void loadHeader(Path file, String reportId) {
+        try {
+            Header header = HistorySegment.readHeader(file);
+            if (!reportId.equals(header.reportId())) {
+                log.warn("扫描历史文件 {} 与记录的报告 ID 不一致，已跳过", file);
+                return;
+            }
+            headers.put(reportId, header);
+        } catch (IOException e) {
+            log.warn("无法读取扫描历史文件 {}，已跳过", file, e);
+        }
+    }
+
+    private static Comparator<Header> newestFirst() {
+        return Comparator.comparing(Header::scanTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                .reversed();
+    }
+}
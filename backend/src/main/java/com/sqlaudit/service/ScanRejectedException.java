@@ -0,0 +1,18 @@
+package com.sqlaudit.service;
+
+/**
+ * 扫描调度器饱和（并发已满、队列已满或预估内存不足）时拒绝新扫描
+ */
+public class ScanRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ScanRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,150 @@
+package com.sqlaudit.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 扫描调度器：限制并发扫描数与排队长度，并按预估内存做准入控制
+ * <p>
+ * 扫描在独立线程池中执行，不占用 Web 请求线程；调度器饱和时抛出 {@link ScanRejectedException}，
+ * 由控制器转换为 HTTP 429 + Retry-After。
+ */
+@Service
+public class ScanScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanScheduler.class);
+
+    /** DOM 解析 + 片段 + 违规对象相对源文件字节数的放大系数（经验值） */
+    private static final long BYTES_AMPLIFICATION = 12;
+    /** 每个文件的固定开销（DOM 元数据、片段与路径对象等） */
+    private static final long PER_FILE_OVERHEAD = 32 * 1024;
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 5;
+
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrent;
+    private final double heapFraction;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicInteger activeOrQueued = new AtomicInteger();
+    /** 最近扫描耗时的指数滑动平均（毫秒），用于估算 Retry-After */
+    private final AtomicLong avgDurationMillis = new AtomicLong(-1);
+
+    public ScanScheduler(@Value("${sql-audit.scan.max-concurrent:2}") int maxConcurrent,
+            @Value("${sql-audit.scan.queue-capacity:4}") int queueCapacity,
+            @Value("${sql-audit.scan.heap-fraction:0.6}") double heapFraction) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.heapFraction = heapFraction;
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.maxConcurrent, this.maxConcurrent,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "scan-worker-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("扫描调度器: 最大并发 {}, 队列容量 {}, 堆内存占比上限 {}", this.maxConcurrent, queueCapacity, heapFraction);
+    }
+
+    /**
+     * 预估一次扫描的内存占用（字节）
+     */
+    public static long estimateBytes(int fileCount, long totalBytes) {
+        return totalBytes * BYTES_AMPLIFICATION + (long) fileCount * PER_FILE_OVERHEAD;
+    }
+
+    /**
+     * 提交扫描任务
+     *
+     * @param fileCount  发现阶段得到的文件数
+     * @param totalBytes 发现阶段得到的文件总字节数
+     * @throws ScanRejectedException 并发/队列已满，或预估内存超出可用堆
+     */
+    public <T> CompletableFuture<T> submit(int fileCount, long totalBytes, Supplier<T> task) {
+        long estimate = estimateBytes(fileCount, totalBytes);
+        admit(estimate);
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        activeOrQueued.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    release(estimate);
+                    recordDuration(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(estimate);
+            throw new ScanRejectedException("扫描任务过多，请稍后重试", retryAfterSeconds());
+        }
+        return future;
+    }
+
+    private void admit(long estimate) {
+        Runtime rt = Runtime.getRuntime();
+        long budget = (long) (rt.maxMemory() * heapFraction);
+        while (true) {
+            long reserved = reservedBytes.get();
+            // 没有其他扫描在跑时总是放行，避免单个超大扫描永远无法执行
+            if (reserved > 0) {
+                long freeHeap = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+                if (reserved + estimate > budget || estimate > freeHeap) {
+                    log.warn("扫描准入被拒绝: 预估 {} MB, 已预留 {} MB, 预算 {} MB, 空闲堆 {} MB",
+                            mb(estimate), mb(reserved), mb(budget), mb(freeHeap));
+                    throw new ScanRejectedException("服务器内存繁忙，当前扫描预计占用 " + mb(estimate)
+                            + " MB，请稍后重试", retryAfterSeconds());
+                }
+            }
+            if (reservedBytes.compareAndSet(reserved, reserved + estimate)) {
+                return;
+            }
+        }
+    }
+
+    private void release(long estimate) {
+        reservedBytes.addAndGet(-estimate);
+        activeOrQueued.decrementAndGet();
+    }
+
+    private void recordDuration(long millis) {
+        avgDurationMillis.updateAndGet(prev -> prev < 0 ? millis : (prev * 7 + millis) / 8);
+    }
+
+    /**
+     * 估算排在前面的任务完成所需时间
+     */
+    long retryAfterSeconds() {
+        long avg = avgDurationMillis.get();
+        if (avg < 0) {
+            return DEFAULT_RETRY_AFTER_SECONDS;
+        }
+        long waves = Math.max(1, (activeOrQueued.get() + maxConcurrent - 1) / maxConcurrent);
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(avg * waves) + 1);
+    }
+
+    private static long mb(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
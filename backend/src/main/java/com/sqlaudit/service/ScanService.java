@@ -1,11 +1,21 @@
 package com.sqlaudit.service;
 
+import com.sqlaudit.model.IndexAdvice;
+import com.sqlaudit.model.ScanOptions;
 import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.ShardFileResult;
+import com.sqlaudit.model.ShardRequest;
 import com.sqlaudit.model.SqlFragment;
 import com.sqlaudit.model.Violation;
 import com.sqlaudit.model.AuditRule.Severity;
 import com.sqlaudit.parser.MyBatisMapperParser;
 import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.parser.SqlTextArena;
+import com.sqlaudit.report.IndexAdvisor;
+import com.sqlaudit.report.NearDuplicates;
+import com.sqlaudit.report.UsageIndex;
+import com.sqlaudit.report.ViolationFingerprint;
+import com.sqlaudit.report.ViolationTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -18,7 +28,6 @@ import java.time.LocalDateTime;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 代码仓库扫描服务
@@ -35,7 +44,6 @@ public class ScanService {
     private final MyBatisMapperParser mapperParser;
     private final SqlScriptParser sqlScriptParser;
     private final RuleService ruleService;
-    private final AtomicReference<ScanReport> lastScanReport = new AtomicReference<>();
 
     public ScanService(MyBatisMapperParser mapperParser, SqlScriptParser sqlScriptParser, RuleService ruleService) {
         this.mapperParser = mapperParser;
@@ -43,7 +51,6 @@ public class ScanService {
         this.ruleService = ruleService;
     }
 
-    private static final int MAX_VIOLATIONS = 1000;
     private static final Pattern WINDOWS_DRIVE_PATH = Pattern.compile("^[A-Za-z]:[\\\\/].*");
     private static final Pattern WSL_UNC_PATH = Pattern.compile("^//wsl(?:\\$|\\.localhost)/[^/]+(/.*)?$",
             Pattern.CASE_INSENSITIVE);
@@ -52,10 +59,21 @@ public class ScanService {
      * 扫描指定路径下的 Java 项目
      */
     public ScanReport scan(String repoPath) {
+        return scan(repoPath, ScanOptions.defaults());
+    }
+
+    public ScanReport scan(String repoPath, ScanOptions options) {
+        return scan(plan(repoPath), options);
+    }
+
+    /**
+     * 扫描前置阶段：解析路径并发现 Mapper 文件，统计文件数与总字节数，供调度器做准入评估
+     */
+    public ScanPlan plan(String repoPath) {
         List<String> notices = new ArrayList<>();
         String resolvedRepoPath = normalizeRepoPath(repoPath, notices);
 
-        File repoDir = new File(resolvedRepoPath);
+        File repoDir = new File(resolvedRepoPath).getAbsoluteFile();
         if (!repoDir.exists() || !repoDir.isDirectory()) {
             throw new IllegalArgumentException("路径不存在或不是目录: " + resolvedRepoPath);
         }
@@ -71,70 +89,181 @@ public class ScanService {
         // 1. 查找所有 MyBatis XML 文件
         List<File> mapperFiles = new ArrayList<>();
         findMapperFiles(repoDir, mapperFiles, new HashSet<>());
-        log.info("找到 {} 个 MyBatis Mapper 文件", mapperFiles.size());
+        long totalBytes = 0;
+        for (File file : mapperFiles) {
+            totalBytes += file.length();
+        }
+        log.info("找到 {} 个 MyBatis Mapper 文件, 共 {} 字节", mapperFiles.size(), totalBytes);
         if (mapperFiles.isEmpty()) {
             notices.add("未发现 MyBatis Mapper XML 文件，请确认目录路径正确，或确认 XML 文件包含 <mapper> 根节点。");
         }
+        return new ScanPlan(resolvedRepoPath, repoRoot, List.copyOf(mapperFiles), totalBytes, notices);
+    }
 
-        // 2. 解析 SQL 片段
+    /**
+     * 按已发现的文件执行解析与规则检查
+     */
+    public ScanReport scan(ScanPlan plan, ScanOptions options) {
+        Path repoRoot = plan.repoRoot();
+        List<File> mapperFiles = plan.mapperFiles();
+        List<String> notices = new ArrayList<>(plan.notices());
+
+        // 2. 解析 SQL 片段；SQL 文本存入本次扫描共享的文本区，相同文本只存一份
+        SqlTextArena arena = options != null && options.isOffHeapSqlText()
+                ? SqlTextArena.offHeap()
+                : SqlTextArena.onHeap();
         List<SqlFragment> allFragments = new ArrayList<>();
         for (File file : mapperFiles) {
-            List<SqlFragment> fragments = mapperParser.parse(file, repoRoot);
+            List<SqlFragment> fragments = mapperParser.parse(file, repoRoot, arena);
             allFragments.addAll(fragments);
         }
-        log.info("提取了 {} 条 SQL 语句", allFragments.size());
+        log.info("提取了 {} 条 SQL 语句，去重后 {} 条文本，文本区 {} KB（去重前 {} KB）", allFragments.size(),
+                arena.textCount(), arena.storedBytes() / 1024, arena.requestedBytes() / 1024);
 
         // 3. 执行规则检查
-        List<Violation> allViolations = new ArrayList<>();
-        boolean limitReached = false;
-        for (SqlFragment fragment : allFragments) {
-            if (limitReached)
-                break;
-            List<Violation> violations = ruleService.checkSql(fragment);
-            for (Violation v : violations) {
-                if (allViolations.size() >= MAX_VIOLATIONS) {
-                    limitReached = true;
-                    break;
-                }
-                allViolations.add(v);
-            }
-        }
+        CheckOutcome outcome = checkFragments(allFragments, options);
+
+        // 4. 构建报告
+        return buildReport(plan, allFragments, outcome, notices, options);
+    }
+
+    /**
+     * 由全部片段与检查结果构建报告；单机扫描与分布式扫描合并分片结果后共用
+     */
+    ScanReport buildReport(ScanPlan plan, List<SqlFragment> allFragments, CheckOutcome outcome, List<String> notices,
+            ScanOptions options) {
+        ViolationTable allViolations = outcome.violations();
+        boolean limitReached = outcome.limitReached();
         if (limitReached) {
-            log.warn("违规数量达到上限 {}，停止进一步扫描", MAX_VIOLATIONS);
+            log.warn("违规数量达到上限 {}，停止进一步扫描", outcome.maxViolations());
         } else {
             log.info("发现 {} 条违规", allViolations.size());
         }
+        if (outcome.suppressedCount() > 0) {
+            log.info("基线抑制了 {} 条已有违规", outcome.suppressedCount());
+            notices.add("已按基线文件忽略 " + outcome.suppressedCount() + " 条已有违规，报告中仅包含新增违规。");
+        }
 
-        // 4. 构建报告
-        long errorCount = allViolations.stream()
-                .filter(v -> v.getRule().getSeverity() == Severity.ERROR).count();
-        long warningCount = allViolations.stream()
-                .filter(v -> v.getRule().getSeverity() == Severity.WARNING).count();
-        long infoCount = allViolations.stream()
-                .filter(v -> v.getRule().getSeverity() == Severity.INFO).count();
-
-        List<String> scannedFiles = mapperFiles.stream()
+        int[] severityCounts = allViolations.countBySeverity();
+        Path repoRoot = plan.repoRoot();
+        List<String> scannedFiles = plan.mapperFiles().stream()
                 .map(f -> repoRoot.relativize(f.toPath()).toString())
                 .toList();
 
         ScanReport report = ScanReport.builder()
-                .repoPath(resolvedRepoPath)
+                .repoPath(plan.resolvedRepoPath())
                 .scanTime(LocalDateTime.now())
-                .totalFiles(mapperFiles.size())
+                .totalFiles(plan.fileCount())
                 .totalStatements(allFragments.size())
                 .totalViolations(allViolations.size())
-                .errorCount((int) errorCount)
-                .warningCount((int) warningCount)
-                .infoCount((int) infoCount)
+                .errorCount(severityCounts[Severity.ERROR.ordinal()])
+                .warningCount(severityCounts[Severity.WARNING.ordinal()])
+                .infoCount(severityCounts[Severity.INFO.ordinal()])
                 .violations(allViolations)
                 .scannedFiles(scannedFiles)
                 .notices(List.copyOf(notices))
                 .limitReached(limitReached)
+                .baselineSuppressed(outcome.suppressedCount())
+                .usageIndex(UsageIndex.build(allFragments))
+                .nearDuplicates(NearDuplicates.find(allFragments))
+                .indexAdvice(adviseIndexes(allFragments, options))
                 .build();
-        lastScanReport.set(report);
+        // 文本区随本次扫描丢弃，报告中保留的片段复制出独立的 SQL 文本
+        allViolations.fragments().forEach(SqlFragment::detachSqlText);
         return report;
     }
 
+    /**
+     * 扫描一个分片（分布式扫描的 worker 端）：解析全部文件后执行规则检查，每检查完一个文件即交给 sink
+     * <p>
+     * 违规上限与单机扫描相同，按分片内的违规数计算：合并时只取全局前 maxViolations 条，分片内超出上限的部分
+     * 一定排在其后，无需检查。
+     */
+    public void scanShard(Path repoRoot, List<File> files, ScanOptions options, ShardSink sink) throws IOException {
+        ScanOptions scanOptions = options != null ? options : ScanOptions.defaults();
+        Set<String> baseline = scanOptions.getBaselineFingerprints() != null
+                ? scanOptions.getBaselineFingerprints()
+                : Set.of();
+        int maxViolations = scanOptions.effectiveMaxViolations();
+        SqlTextArena arena = scanOptions.isOffHeapSqlText() ? SqlTextArena.offHeap() : SqlTextArena.onHeap();
+        List<List<SqlFragment>> fragmentsByFile = new ArrayList<>(files.size());
+        List<SqlFragment> allFragments = new ArrayList<>();
+        for (File file : files) {
+            List<SqlFragment> fragments = mapperParser.parse(file, repoRoot, arena);
+            fragmentsByFile.add(fragments);
+            allFragments.addAll(fragments);
+        }
+        ruleService.prepare(allFragments);
+
+        int keptTotal = 0;
+        boolean truncated = false;
+        for (int fileIndex = 0; fileIndex < files.size(); fileIndex++) {
+            List<SqlFragment> fragments = fragmentsByFile.get(fileIndex);
+            List<Violation> kept = new ArrayList<>();
+            List<Integer> suppressedBefore = new ArrayList<>();
+            int suppressed = 0;
+            for (SqlFragment fragment : fragments) {
+                if (truncated)
+                    break;
+                for (Violation v : ruleService.checkSql(fragment)) {
+                    if (!baseline.isEmpty() && baseline.contains(ViolationFingerprint.of(v))) {
+                        suppressed++;
+                        continue;
+                    }
+                    if (keptTotal >= maxViolations) {
+                        truncated = true;
+                        break;
+                    }
+                    kept.add(v);
+                    suppressedBefore.add(suppressed);
+                    suppressed = 0;
+                    keptTotal++;
+                }
+            }
+            sink.accept(ShardFileResult.builder()
+                    .fileIndex(fileIndex)
+                    .fragments(fragments)
+                    .violations(kept)
+                    .suppressedBefore(suppressedBefore.stream().mapToInt(Integer::intValue).toArray())
+                    .suppressedAfter(suppressed)
+                    .truncated(truncated)
+                    .build());
+        }
+    }
+
+    /**
+     * 把分片请求中的相对路径解析为仓库内的文件；路径越出仓库根目录或文件不存在时抛出 {@link IllegalArgumentException}
+     */
+    public List<File> resolveShardFiles(ShardRequest request) {
+        if (request.getRepoRoot() == null || request.getRepoRoot().isBlank()) {
+            throw new IllegalArgumentException("请提供仓库根目录 (repoRoot)");
+        }
+        Path repoRoot = Path.of(request.getRepoRoot()).toAbsolutePath().normalize();
+        List<File> files = new ArrayList<>();
+        for (String relative : request.getFiles() != null ? request.getFiles() : List.<String>of()) {
+            Path file = repoRoot.resolve(relative).normalize();
+            if (!file.startsWith(repoRoot) || !Files.isRegularFile(file)) {
+                throw new IllegalArgumentException("分片文件不存在或不在仓库内: " + relative);
+            }
+            files.add(file.toFile());
+        }
+        return files;
+    }
+
+    /**
+     * 本节点规则集与检查器配置的摘要（见 {@link RuleService#configFingerprint()}），随分片请求发给 worker 比对
+     */
+    public String ruleFingerprint() {
+        return ruleService.configFingerprint();
+    }
+
+    /**
+     * 接收分片中逐个文件的扫描结果
+     */
+    public interface ShardSink {
+        void accept(ShardFileResult result) throws IOException;
+    }
+
     /**
      * 审查上传的 SQL 脚本内容
      *
@@ -147,6 +276,14 @@ public class ScanService {
     }
 
     public ScanReport scanSqlContent(String sqlContent, String fileName, List<String> initialNotices) {
+        return scanSqlContent(sqlContent, fileName, initialNotices, ScanOptions.defaults());
+    }
+
+    /**
+     * 按扫描选项审查 SQL 脚本：违规上限、基线与仓库扫描相同，索引建议使用选项中的表结构和运行时统计
+     */
+    public ScanReport scanSqlContent(String sqlContent, String fileName, List<String> initialNotices,
+            ScanOptions options) {
         log.info("开始审查 SQL 脚本: {}", fileName);
         List<String> notices = new ArrayList<>();
         if (initialNotices != null) {
@@ -158,33 +295,17 @@ public class ScanService {
         log.info("从 {} 中提取了 {} 条 SQL 语句", fileName, fragments.size());
 
         // 2. 执行规则检查
-        List<Violation> allViolations = new ArrayList<>();
-        boolean limitReached = false;
-        for (SqlFragment fragment : fragments) {
-            if (limitReached)
-                break;
-            List<Violation> violations = ruleService.checkSql(fragment);
-            for (Violation v : violations) {
-                if (allViolations.size() >= MAX_VIOLATIONS) {
-                    limitReached = true;
-                    break;
-                }
-                allViolations.add(v);
-            }
-        }
+        CheckOutcome outcome = checkFragments(fragments, options);
+        ViolationTable allViolations = outcome.violations();
+        boolean limitReached = outcome.limitReached();
         if (limitReached) {
-            log.warn("SQL脚本违规数量达到上限 {}，停止进一步扫描", MAX_VIOLATIONS);
+            log.warn("SQL脚本违规数量达到上限 {}，停止进一步扫描", outcome.maxViolations());
         } else {
             log.info("发现 {} 条违规", allViolations.size());
         }
 
         // 3. 构建报告
-        long errorCount = allViolations.stream()
-                .filter(v -> v.getRule().getSeverity() == Severity.ERROR).count();
-        long warningCount = allViolations.stream()
-                .filter(v -> v.getRule().getSeverity() == Severity.WARNING).count();
-        long infoCount = allViolations.stream()
-                .filter(v -> v.getRule().getSeverity() == Severity.INFO).count();
+        int[] severityCounts = allViolations.countBySeverity();
 
         ScanReport report = ScanReport.builder()
                 .repoPath(fileName)
@@ -192,26 +313,67 @@ public class ScanService {
                 .totalFiles(1)
                 .totalStatements(fragments.size())
                 .totalViolations(allViolations.size())
-                .errorCount((int) errorCount)
-                .warningCount((int) warningCount)
-                .infoCount((int) infoCount)
+                .errorCount(severityCounts[Severity.ERROR.ordinal()])
+                .warningCount(severityCounts[Severity.WARNING.ordinal()])
+                .infoCount(severityCounts[Severity.INFO.ordinal()])
                 .violations(allViolations)
                 .scannedFiles(List.of(fileName))
                 .notices(List.copyOf(notices))
                 .limitReached(limitReached)
+                .baselineSuppressed(outcome.suppressedCount())
+                .usageIndex(UsageIndex.build(fragments))
+                .nearDuplicates(NearDuplicates.find(fragments))
+                .indexAdvice(adviseIndexes(fragments, options))
                 .build();
-        lastScanReport.set(report);
         return report;
     }
 
-    public Optional<ScanReport> getLastScanReport() {
-        return Optional.ofNullable(lastScanReport.get());
+    /**
+     * 汇总全部片段的索引建议；聚合器可合并，按片段并行累加
+     */
+    private IndexAdvice adviseIndexes(List<SqlFragment> fragments, ScanOptions options) {
+        ScanOptions scanOptions = options != null ? options : ScanOptions.defaults();
+        return fragments.parallelStream()
+                .collect(() -> new IndexAdvisor(scanOptions.getSchemaCatalog(), scanOptions.getRuntimeStats()),
+                        IndexAdvisor::add, IndexAdvisor::merge)
+                .advise();
     }
 
-    public void cacheLastScanReport(ScanReport report) {
-        if (report != null) {
-            lastScanReport.set(report);
+    /**
+     * 对片段逐条执行规则检查；命中基线指纹的违规在此处直接跳过，不占用违规上限
+     * <p>
+     * 每个片段的违规对象检查完即写入列式的 {@link ViolationTable}，不在内存中长期保留。
+     */
+    private CheckOutcome checkFragments(List<SqlFragment> fragments, ScanOptions options) {
+        Set<String> baseline = options != null && options.getBaselineFingerprints() != null
+                ? options.getBaselineFingerprints()
+                : Set.of();
+        int maxViolations = options != null ? options.effectiveMaxViolations() : ScanOptions.DEFAULT_MAX_VIOLATIONS;
+        ruleService.prepare(fragments);
+        ViolationTable allViolations = new ViolationTable();
+        boolean limitReached = false;
+        int suppressed = 0;
+        for (SqlFragment fragment : fragments) {
+            if (limitReached)
+                break;
+            List<Violation> violations = ruleService.checkSql(fragment);
+            for (Violation v : violations) {
+                if (!baseline.isEmpty() && baseline.contains(ViolationFingerprint.of(v))) {
+                    suppressed++;
+                    continue;
+                }
+                if (allViolations.size() >= maxViolations) {
+                    limitReached = true;
+                    break;
+                }
+                allViolations.add(v);
+            }
         }
+        return new CheckOutcome(allViolations, limitReached, suppressed, maxViolations);
+    }
+
+    record CheckOutcome(ViolationTable violations, boolean limitReached, int suppressedCount,
+            int maxViolations) {
     }
 
     /**
@@ -294,6 +456,17 @@ public class ScanService {
         return path;
     }
 
+    /**
+     * 扫描计划：发现阶段的结果
+     */
+    public record ScanPlan(String resolvedRepoPath, Path repoRoot, List<File> mapperFiles, long totalBytes,
+            List<String> notices) {
+
+        public int fileCount() {
+            return mapperFiles.size();
+        }
+    }
+
     private boolean isLikelyWsl() {
         if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")) {
             return false;
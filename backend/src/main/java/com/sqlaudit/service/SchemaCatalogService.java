@@ -0,0 +1,156 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.parser.SqlLogParser;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.rule.SchemaCatalog;
+import com.sqlaudit.rule.checker.IndexHintChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 表结构目录服务：从 DDL 脚本或 schema 导出文件构建 {@link SchemaCatalog}，供 INDEX_HINT 检查器判断条件列能否命中索引
+ * <p>
+ * 支持单个 .sql 文件（可为 .gz）或包含 .sql 文件的目录（递归，按路径排序后依次读入，后出现的 ALTER / CREATE INDEX
+ * 补充到先前的表上）。同一时刻只保留最近一次导入的目录；配置 sql-audit.schema.ddl-path 时启动即导入。
+ */
+@Service
+public class SchemaCatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaCatalogService.class);
+
+    private final IndexHintChecker indexHintChecker;
+    private final SqlScriptParser scriptParser;
+
+    private final List<Consumer<SchemaCatalog>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+
+    public SchemaCatalogService(IndexHintChecker indexHintChecker, SqlScriptParser scriptParser,
+            @Value("${sql-audit.schema.ddl-path:}") String ddlPath) {
+        this.indexHintChecker = indexHintChecker;
+        this.scriptParser = scriptParser;
+        if (ddlPath != null && !ddlPath.isBlank()) {
+            try {
+                importDdl(Path.of(ddlPath.trim()));
+            } catch (IOException | RuntimeException e) {
+                log.warn("启动时导入表结构失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param statements 识别出的 DDL 语句数
+     */
+    public record Snapshot(String source, SchemaCatalog catalog, int statements, LocalDateTime importedAt) {
+    }
+
+    public Snapshot importDdl(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(path)) {
+                files = walk.filter(Files::isRegularFile)
+                        .filter(p -> isDdlFile(p.getFileName().toString()))
+                        .sorted()
+                        .toList();
+            }
+            SchemaCatalog.Builder builder = SchemaCatalog.builder();
+            int statements = 0;
+            for (Path file : files) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    statements += addScript(builder, in, file.getFileName().toString());
+                }
+            }
+            return replace(path.toString(), builder.build(), statements);
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("DDL 文件或目录不存在: " + path);
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return importDdl(in, path.getFileName().toString());
+        }
+    }
+
+    /**
+     * 导入 DDL 脚本并替换当前目录；不关闭传入的流
+     */
+    public Snapshot importDdl(InputStream in, String sourceName) throws IOException {
+        SchemaCatalog.Builder builder = SchemaCatalog.builder();
+        int statements = addScript(builder, in, sourceName);
+        return replace(sourceName, builder.build(), statements);
+    }
+
+    public Optional<Snapshot> current() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    public void clear() {
+        snapshot = null;
+        indexHintChecker.setCatalog(SchemaCatalog.empty());
+        notifyListeners(SchemaCatalog.empty());
+    }
+
+    /**
+     * 登记表结构变更的监听器（导入新目录或清除时回调，清除时收到空目录）
+     */
+    public void addListener(Consumer<SchemaCatalog> listener) {
+        listeners.add(listener);
+    }
+
+    private int addScript(SchemaCatalog.Builder builder, InputStream in, String name) throws IOException {
+        // 语句拆分需要完整脚本；reader 不关闭，由调用方关闭底层流
+        Reader reader = SqlLogParser.openReader(in, name);
+        StringWriter content = new StringWriter();
+        reader.transferTo(content);
+        int recognized = 0;
+        for (SqlFragment fragment : scriptParser.parse(content.toString(), name)) {
+            String type = fragment.getStatementType();
+            if (("create".equals(type) || "alter".equals(type)) && builder.addStatement(fragment.getSqlText())) {
+                recognized++;
+            }
+        }
+        return recognized;
+    }
+
+    private Snapshot replace(String source, SchemaCatalog catalog, int statements) {
+        if (catalog.isEmpty()) {
+            throw new IllegalArgumentException("未在 " + source + " 中找到 CREATE TABLE / CREATE INDEX 语句");
+        }
+        Snapshot imported = new Snapshot(source, catalog, statements, LocalDateTime.now());
+        snapshot = imported;
+        indexHintChecker.setCatalog(catalog);
+        log.info("导入表结构: {}, {} 张表, {} 个索引", source, catalog.tableCount(), catalog.indexCount());
+        notifyListeners(catalog);
+        return imported;
+    }
+
+    private void notifyListeners(SchemaCatalog catalog) {
+        for (Consumer<SchemaCatalog> listener : listeners) {
+            try {
+                listener.accept(catalog);
+            } catch (RuntimeException e) {
+                log.warn("表结构变更通知失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isDdlFile(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".sql") || lower.endsWith(".sql.gz");
+    }
+}
@@ -0,0 +1,48 @@
+package com.sqlaudit.util;
+
+/**
+ * CharSequence 上的常用查找：分词器直接读取扫描文本区的视图时使用，String 走原生实现
+ */
+public final class CharSequences {
+
+    private CharSequences() {
+    }
+
+    public static int indexOf(CharSequence text, char c, int from) {
+        if (text instanceof String s) {
+            return s.indexOf(c, from);
+        }
+        for (int i = Math.max(from, 0); i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static int indexOf(CharSequence text, String target, int from) {
+        if (text instanceof String s) {
+            return s.indexOf(target, from);
+        }
+        int last = text.length() - target.length();
+        outer:
+        for (int i = Math.max(from, 0); i <= last; i++) {
+            for (int k = 0; k < target.length(); k++) {
+                if (text.charAt(i + k) != target.charAt(k)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    public static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+package com.sqlaudit.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 摘要的统一入口：配置摘要（规则集、表结构等）逐段写入，段之间以 0 字节分隔；
+ * 文件、规则包等整段内容直接计算。结果均为十六进制字符串
+ */
+public final class Digests {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private Digests() {
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    public static void update(MessageDigest digest, Object part) {
+        if (part != null) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    public static String hex(MessageDigest digest) {
+        return HEX.formatHex(digest.digest());
+    }
+
+    /**
+     * 只取摘要的前 bytes 个字节
+     */
+    public static String hex(MessageDigest digest, int bytes) {
+        return HEX.formatHex(digest.digest(), 0, bytes);
+    }
+
+    public static String sha256Hex(byte[] content) {
+        return HEX.formatHex(sha256().digest(content));
+    }
+
+    /**
+     * 读完整个输入流计算摘要，不关闭流
+     */
+    public static String sha256Hex(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[65536];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            digest.update(buffer, 0, read);
+        }
+        return HEX.formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,96 @@
+package com.sqlaudit.cli;
+
+import com.sqlaudit.report.exporter.ReportExporter;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import com.sqlaudit.rule.checker.SqlChecker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlAuditCliTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldRegisterEveryCheckerAndExporterComponent() {
+        Set<String> scannedCheckers = scan(SqlChecker.class, "com.sqlaudit.rule.checker");
+        Set<String> cliCheckers = BuiltInCheckers.all().stream()
+                .map(c -> c.getClass().getName()).collect(Collectors.toSet());
+        assertEquals(scannedCheckers, cliCheckers);
+
+        CliComponents components = new CliComponents();
+        Set<String> cliExporters = CliComponents.exportFormats().stream()
+                .map(f -> components.exporter(f).orElseThrow().getClass().getName())
+                .collect(Collectors.toSet());
+        assertEquals(scan(ReportExporter.class, "com.sqlaudit.report.exporter"), cliExporters);
+    }
+
+    @Test
+    void shouldExitWithViolationCodeDependingOnThreshold() throws Exception {
+        Path script = tempDir.resolve("change.sql");
+        // 只触发 WARNING（缺少 Schema 前缀、缺少 LIMIT），不触发 ERROR
+        Files.writeString(script, "SELECT id FROM t_user WHERE id = 1;");
+
+        assertEquals(SqlAuditCli.EXIT_OK, run(script.toString()).code());
+        Result warning = run("--fail-on", "warning", script.toString());
+        assertEquals(SqlAuditCli.EXIT_VIOLATIONS, warning.code());
+        assertTrue(warning.out().contains("change.sql:1: [WARNING]"));
+    }
+
+    @Test
+    void shouldWriteExportToFileAndRejectBadArguments() throws Exception {
+        Path report = tempDir.resolve("out/report.sarif");
+        Result result = run("-f", "sarif", "-o", report.toString(), "--fail-on", "none",
+                "src/test/resources/test-mapper");
+        assertEquals(SqlAuditCli.EXIT_OK, result.code());
+        assertTrue(Files.readString(report).contains("\"2.1.0\""));
+
+        assertEquals(SqlAuditCli.EXIT_ERROR, run("--unknown", "x").code());
+        assertEquals(SqlAuditCli.EXIT_ERROR, run("-f", "xlsx", "src/test/resources/test-mapper").code());
+        assertEquals(SqlAuditCli.EXIT_ERROR, run(tempDir.resolve("missing").toString()).code());
+    }
+
+    @Test
+    void shouldApplyScanOptionsToLogAudit() throws Exception {
+        Path log = Files.writeString(tempDir.resolve("postgresql.log"), """
+                2026-10-01 10:00:00.000 CST [1] LOG:  duration: 1.0 ms  statement: SELECT * FROM t_order WHERE user_id = 1
+                2026-10-01 10:00:01.000 CST [2] LOG:  duration: 1.0 ms  statement: DELETE FROM t_log
+                """);
+        String all = run("--log", "-f", "json", "--fail-on", "none", log.toString()).out();
+        assertTrue(all.contains("\"limitReached\" : false"), all);
+        String capped = run("--log", "--max-violations", "1", "-f", "json", "--fail-on", "none", log.toString()).out();
+        assertTrue(capped.contains("\"limitReached\" : true"), capped);
+    }
+
+    private static Set<String> scan(Class<?> type, String basePackage) {
+        ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+        provider.addIncludeFilter(new AssignableTypeFilter(type));
+        return provider.findCandidateComponents(basePackage).stream()
+                .map(BeanDefinition::getBeanClassName)
+                .collect(Collectors.toSet());
+    }
+
+    private static Result run(String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int code = SqlAuditCli.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        return new Result(code, out.toString(StandardCharsets.UTF_8));
+    }
+
+    private record Result(int code, String out) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.sqlaudit.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.service.BaselineService;
+import com.sqlaudit.service.ReportStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ReportControllerTest {
+
+    private static final int VIOLATIONS = 7;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReportStore reportStore = new ReportStore(64, "", 10);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new ReportController(reportStore, new BaselineService(objectMapper)))
+            .setControllerAdvice(new ApiExceptionHandler())
+            .build();
+
+    @Test
+    void shouldPageViolationsWithCursor() throws Exception {
+        String reportId = reportStore.put(report()).reportId();
+
+        Set<String> messages = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/api/report/violations").param("reportId", reportId)
+                    .param("severity", "warning").param("sort", "file").param("limit", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode body = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(4))
+                    .andReturn().getResponse().getContentAsString());
+            body.get("items").forEach(item -> {
+                assertEquals("R2", item.at("/rule/id").asText());
+                assertTrue(messages.add(item.get("message").asText()), "同一条违规不应出现在两页");
+            });
+            cursor = body.get("nextCursor").isNull() ? null : body.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(2, pages);
+        assertEquals(Set.of("m1", "m3", "m5", "m6"), messages);
+    }
+
+    @Test
+    void shouldRejectInvalidCursorAndSort() throws Exception {
+        String reportId = reportStore.put(report()).reportId();
+        String fileCursor = objectMapper.readTree(mockMvc.perform(get("/api/report/violations")
+                        .param("reportId", reportId).param("sort", "file").param("limit", "1"))
+                .andReturn().getResponse().getContentAsString()).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/report/violations").param("reportId", reportId).param("cursor", "%%not-base64"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+        // 游标与排序方式不匹配
+        mockMvc.perform(get("/api/report/violations").param("reportId", reportId)
+                        .param("sort", "rule").param("cursor", fileCursor))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/report/violations").param("reportId", reportId).param("sort", "random"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownReport() throws Exception {
+        String unknown = UUID.randomUUID().toString();
+        mockMvc.perform(get("/api/report/violations").param("reportId", unknown))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").exists());
+        mockMvc.perform(get("/api/report/facets").param("reportId", unknown))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/report/facets"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldCountFacets() throws Exception {
+        String reportId = reportStore.put(report()).reportId();
+
+        mockMvc.perform(get("/api/report/facets").param("reportId", reportId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(VIOLATIONS))
+                .andExpect(jsonPath("$.facets.severity.ERROR").value(3))
+                .andExpect(jsonPath("$.facets.severity.WARNING").value(4))
+                .andExpect(jsonPath("$.facets.file['order/OrderMapper.xml']").value(4))
+                .andExpect(jsonPath("$.facets.statementType.select").value(VIOLATIONS));
+
+        // severity 分面不受自身过滤影响，其余分面受其限制
+        mockMvc.perform(get("/api/report/facets").param("reportId", reportId)
+                        .param("severity", "ERROR").param("pathPrefix", "order/"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.facets.severity.ERROR").value(3))
+                .andExpect(jsonPath("$.facets.severity.WARNING").value(1))
+                .andExpect(jsonPath("$.facets.ruleId.R1").value(3))
+                .andExpect(jsonPath("$.facets.ruleId.R2").doesNotExist())
+                .andExpect(jsonPath("$.facets.file['order/OrderMapper.xml']").value(3))
+                .andExpect(jsonPath("$.facets.file['user/UserMapper.xml']").doesNotExist());
+    }
+
+    private static ScanReport report() {
+        AuditRule error = AuditRule.builder().id("R1").severity(AuditRule.Severity.ERROR).build();
+        AuditRule warning = AuditRule.builder().id("R2").severity(AuditRule.Severity.WARNING).build();
+        List<Violation> violations = new ArrayList<>();
+        for (int i = 0; i < VIOLATIONS; i++) {
+            SqlFragment fragment = SqlFragment.builder()
+                    .relativePath(i % 2 == 0 ? "order/OrderMapper.xml" : "user/UserMapper.xml")
+                    .namespace("ns")
+                    .statementId("s" + i)
+                    .statementType("select")
+                    .lineNumber(i + 1)
+                    .build();
+            violations.add(Violation.builder()
+                    .rule(i % 2 == 0 && i < 6 ? error : warning)
+                    .sqlFragment(fragment)
+                    .message("m" + i)
+                    .build());
+        }
+        return ScanReport.builder().violations(violations).totalViolations(VIOLATIONS).build();
+    }
+}
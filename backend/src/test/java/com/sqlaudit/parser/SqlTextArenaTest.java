@@ -0,0 +1,115 @@
+package com.sqlaudit.parser;
+
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.report.ReportNormalizer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlTextArenaTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldDeduplicateTextsAndExposeViews() {
+        for (SqlTextArena arena : List.of(SqlTextArena.onHeap(), SqlTextArena.offHeap())) {
+            SqlTextArena.Text first = arena.store("SELECT id FROM t_user WHERE name = ?");
+            SqlTextArena.Text same = arena.store(new String("SELECT id FROM t_user WHERE name = ?"));
+            SqlTextArena.Text chinese = arena.store("SELECT id FROM t_user WHERE name = '张三'");
+
+            assertSame(first, same);
+            assertEquals(2, arena.textCount());
+            assertEquals(arena.storedBytes() + first.length(), arena.requestedBytes());
+            assertTrue(first.isAscii());
+            assertFalse(chinese.isAscii());
+            assertEquals("SELECT id FROM t_user WHERE name = '张三'", chinese.toString());
+            assertEquals('张', chinese.charAt(chinese.length() - 3));
+
+            Matcher matcher = Pattern.compile("FROM\\s+(\\w+)").matcher(first);
+            assertTrue(matcher.find());
+            assertEquals("t_user", matcher.group(1));
+            assertEquals("t_user", first.subSequence(15, 21).toString());
+            assertThrows(IndexOutOfBoundsException.class, () -> first.charAt(first.length()));
+        }
+    }
+
+    @Test
+    void shouldGrowAcrossChunksAndRehash() {
+        SqlTextArena arena = SqlTextArena.onHeap();
+        String large = "SELECT " + "c, ".repeat(SqlTextArena.CHUNK_SIZE / 3) + "id FROM t";
+        SqlTextArena.Text big = arena.store(large);
+        for (int i = 0; i < 5000; i++) {
+            arena.store("SELECT * FROM t_" + i);
+        }
+        assertEquals(large, big.toString());
+        assertEquals("SELECT * FROM t_4321", arena.store("SELECT * FROM t_4321").toString());
+        assertEquals(5001, arena.textCount());
+    }
+
+    @Test
+    void shouldCompareStoredFragmentsByArenaSlot() {
+        SqlTextArena arena = SqlTextArena.offHeap();
+        SqlFragment first = storedFragment(arena, "SELECT * FROM t_user");
+        SqlFragment same = storedFragment(arena, "SELECT * FROM t_user");
+        SqlFragment other = storedFragment(arena, "SELECT * FROM t_order");
+
+        assertEquals(first, same);
+        assertEquals(first.hashCode(), same.hashCode());
+        // 其余字段相同、仅 SQL 不同的片段不相等，报告归一化时各占一项
+        assertNotEquals(first, other);
+        assertEquals(2, ReportNormalizer.normalize(ScanReport.builder()
+                .violations(List.of(violation(first), violation(same), violation(other)))
+                .build()).getFragments().size());
+    }
+
+    @Test
+    void shouldParseIntoArenaAndDetach() throws Exception {
+        File file = tempDir.resolve("UserMapper.xml").toFile();
+        Files.writeString(file.toPath(), """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <mapper namespace="com.example.UserMapper">
+                    <select id="findAll">SELECT * FROM t_user</select>
+                    <select id="findAllAgain">SELECT * FROM t_user</select>
+                </mapper>
+                """);
+        MyBatisMapperParser parser = new MyBatisMapperParser();
+        SqlTextArena arena = SqlTextArena.onHeap();
+        List<SqlFragment> stored = parser.parse(file, tempDir, arena);
+        List<SqlFragment> plain = parser.parse(file, tempDir);
+
+        assertEquals(plain.stream().map(SqlFragment::getSqlText).toList(),
+                stored.stream().map(SqlFragment::getSqlText).toList());
+        assertNotEquals(plain.get(0), stored.get(0));
+        assertEquals(1, arena.textCount());
+        assertSame(stored.get(0).sqlTextView(), stored.get(1).sqlTextView());
+        assertSame(stored.get(0).getRelativePath(), parser.parse(file, tempDir, arena).get(0).getRelativePath());
+
+        SqlFragment fragment = stored.get(0);
+        fragment.detachSqlText();
+        assertNull(fragment.getStoredSqlText());
+        assertInstanceOf(String.class, fragment.sqlTextView());
+        assertEquals("SELECT * FROM t_user", fragment.getSqlText());
+        stored.get(1).detachSqlText();
+        assertEquals(plain, stored);
+    }
+
+    private static SqlFragment storedFragment(SqlTextArena arena, String sql) {
+        return SqlFragment.builder().relativePath("a.sql").statementId("s1").statementType("select")
+                .lineNumber(1).storedSqlText(arena.store(sql)).build();
+    }
+
+    private static Violation violation(SqlFragment fragment) {
+        return Violation.builder().sqlFragment(fragment).message("m").build();
+    }
+}
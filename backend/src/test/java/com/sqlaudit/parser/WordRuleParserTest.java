@@ -0,0 +1,78 @@
+package com.sqlaudit.parser;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.AuditRule.RuleType;
+import com.sqlaudit.model.AuditRule.Severity;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordRuleParserTest {
+
+    private final WordRuleParser parser = new WordRuleParser();
+
+    @Test
+    void shouldExtractTableRowsBeforeParagraphsAndSkipHeadings() throws Exception {
+        byte[] docx;
+        try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            XWPFParagraph heading = document.createParagraph();
+            heading.setStyle("Heading1");
+            heading.createRun().setText("第三章 SQL 编写规范");
+
+            XWPFTable table = document.createTable(3, 3);
+            fill(table.getRow(0), "编号", "规则描述", "等级");
+            fill(table.getRow(1), "R-01", "禁止使用 select * 查询", "错误");
+            fill(table.getRow(2), "R-02", "禁止使用 'NOLOGGING'", "提示");
+            // 单元格内的多个段落拼接为一条描述
+            table.getRow(2).getCell(1).addParagraph().createRun().setText(" 关键字");
+
+            XWPFRun run = document.createParagraph().createRun();
+            run.setText("1.");
+            run.addTab();
+            run.setText("【警告】UPDATE 语句必须带 WHERE 条件");
+
+            XWPFParagraph listItem = document.createParagraph();
+            listItem.setNumID(BigInteger.ONE);
+            listItem.createRun().setText("对 'DBLINK' 的引用需评审");
+
+            document.createParagraph().createRun().setText("本章适用于全部业务系统");
+            document.write(out);
+            docx = out.toByteArray();
+        }
+
+        List<AuditRule> rules = parser.parse(new ByteArrayInputStream(docx));
+
+        assertEquals(List.of("R-01", "R-02", "CUSTOM_P1", "CUSTOM_P2"), rules.stream().map(AuditRule::getId).toList());
+        assertEquals(Severity.ERROR, rules.get(0).getSeverity());
+        assertEquals("NO_SELECT_STAR", rules.get(0).getCheckerName());
+        assertEquals("禁止使用 'NOLOGGING' 关键字", rules.get(1).getDescription());
+        assertEquals(Severity.INFO, rules.get(1).getSeverity());
+        assertEquals(RuleType.REGEX, rules.get(1).getType());
+        assertEquals(Severity.WARNING, rules.get(2).getSeverity());
+        assertEquals("REQUIRE_WHERE", rules.get(2).getCheckerName());
+        assertEquals("对 'DBLINK' 的引用需评审", rules.get(3).getDescription());
+    }
+
+    @Test
+    void shouldRejectNonDocxInput() {
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> parser.parse(new ByteArrayInputStream("not a docx".getBytes())));
+        assertTrue(e.getMessage().startsWith("无法解析上传的 Word 文档"));
+    }
+
+    private static void fill(XWPFTableRow row, String... cells) {
+        for (int i = 0; i < cells.length; i++) {
+            row.getCell(i).setText(cells[i]);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.IndexAdvice;
+import com.sqlaudit.model.IndexAdvice.Recommendation;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.StatementStats;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.rule.SchemaCatalog;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexAdvisorTest {
+
+    private static final List<SqlFragment> FRAGMENTS = List.of(
+            fragment(10, "listOrders", "SELECT o.id, o.amount FROM t_order o WHERE o.tenant_id = #{tenantId} "
+                    + "AND o.status = #{status} ORDER BY o.created_at DESC LIMIT 20", 0),
+            fragment(20, "countOrders", "SELECT count(*) FROM t_order WHERE tenant_id = ? AND status IN (1, 2)", 0),
+            fragment(30, "recentOrders", "SELECT id FROM t_order WHERE tenant_id = ? AND created_at >= ?", 0),
+            fragment(40, "findUser", "SELECT id FROM t_user WHERE id = #{id}", 0),
+            fragment(50, "findByPhone", "SELECT id FROM t_user WHERE phone = #{phone} OR lower(name) = ?", 0),
+            fragment(60, "orderUsers", "SELECT u.name FROM t_user u JOIN t_order o ON o.user_id = u.id "
+                    + "WHERE o.amount > 100 ORDER BY u.name", 0));
+
+    @Test
+    void shouldAggregateColumnsAndRankCompositeIndexes() {
+        IndexAdvice advice = adviseAll(SchemaCatalog.empty());
+        assertFalse(advice.isWeightedByExecutions());
+
+        IndexAdvice.ColumnUsage tenant = advice.getColumns().get(0);
+        assertEquals("t_order", tenant.getTable());
+        assertEquals("tenant_id", tenant.getColumn());
+        assertEquals(3, tenant.getEquality());
+        IndexAdvice.ColumnUsage createdAt = column(advice, "t_order", "created_at");
+        assertEquals(1, createdAt.getRange());
+        assertEquals(1, createdAt.getOrderBy());
+
+        // (tenant_id, status) 是 (tenant_id, status, created_at) 的前缀，并入后者；按 id 等值查 t_user 视为主键已覆盖
+        Recommendation top = advice.getRecommendations().get(0);
+        assertEquals(List.of("tenant_id", "status", "created_at"), top.getColumns());
+        assertEquals(2, top.getStatements());
+        assertEquals("等值 tenant_id, status；排序 created_at", top.getReason());
+        assertEquals("CREATE INDEX idx_t_order_tenant_id_status_created_at ON t_order (tenant_id, status, created_at);",
+                top.getDdl());
+        assertEquals(List.of("OrderMapper.xml:10 listOrders", "OrderMapper.xml:20 countOrders"), top.getExamples());
+        assertEquals(List.of(
+                        List.of("tenant_id", "status", "created_at"),
+                        List.of("tenant_id", "created_at"),
+                        List.of("user_id", "amount"),
+                        List.of("phone")),
+                advice.getRecommendations().stream().map(Recommendation::getColumns).toList());
+    }
+
+    @Test
+    void shouldMergeShardsIntoSameResult() {
+        IndexAdvisor left = new IndexAdvisor(SchemaCatalog.empty(), null);
+        IndexAdvisor right = new IndexAdvisor(SchemaCatalog.empty(), null);
+        for (int i = 0; i < FRAGMENTS.size(); i++) {
+            (i % 2 == 0 ? left : right).add(FRAGMENTS.get(i));
+        }
+        IndexAdvice merged = left.merge(right).advise();
+        IndexAdvice whole = adviseAll(SchemaCatalog.empty());
+        assertEquals(whole.getColumns(), merged.getColumns());
+        assertEquals(whole.getRecommendations().stream().map(Recommendation::getColumns).toList(),
+                merged.getRecommendations().stream().map(Recommendation::getColumns).toList());
+    }
+
+    @Test
+    void shouldSkipExistingIndexesAndWeightByExecutions() {
+        SchemaCatalog.Builder builder = SchemaCatalog.builder();
+        new SqlScriptParser().parse("""
+                CREATE TABLE t_order (id bigint PRIMARY KEY, tenant_id bigint, user_id bigint, status int,
+                    amount decimal(10, 2), created_at timestamp);
+                CREATE INDEX idx_order_tenant_created ON t_order (tenant_id, created_at);
+                CREATE TABLE t_user (id bigint PRIMARY KEY, name varchar(64), phone varchar(20));
+                """, "schema.sql").forEach(fragment -> builder.addStatement(fragment.getSqlText()));
+        IndexAdvice advice = adviseAll(builder.build());
+        List<List<String>> columns = advice.getRecommendations().stream().map(Recommendation::getColumns).toList();
+        assertFalse(columns.contains(List.of("tenant_id", "created_at")));
+        assertTrue(columns.contains(List.of("tenant_id", "status", "created_at")));
+
+        IndexAdvisor weighted = new IndexAdvisor(SchemaCatalog.empty(), null);
+        weighted.add(fragment(10, "hot", "SELECT id FROM t_user WHERE phone = ?", 5000));
+        weighted.add(fragment(20, "cold", "SELECT id FROM t_user WHERE name = ? AND phone = ?", 3));
+        IndexAdvice byCalls = weighted.advise();
+        assertTrue(byCalls.isWeightedByExecutions());
+        Recommendation top = byCalls.getRecommendations().get(0);
+        // phone 等值频度更高，排在前面，(phone) 并入 (phone, name)
+        assertEquals(List.of("phone", "name"), top.getColumns());
+        assertEquals(5003, top.getWeight());
+    }
+
+    private static IndexAdvice adviseAll(SchemaCatalog catalog) {
+        IndexAdvisor advisor = new IndexAdvisor(catalog, null);
+        FRAGMENTS.forEach(advisor::add);
+        return advisor.advise();
+    }
+
+    private static IndexAdvice.ColumnUsage column(IndexAdvice advice, String table, String column) {
+        return advice.getColumns().stream()
+                .filter(c -> c.getTable().equals(table) && c.getColumn().equals(column))
+                .findFirst().orElseThrow();
+    }
+
+    private static SqlFragment fragment(int line, String id, String sql, long executions) {
+        return SqlFragment.builder().relativePath("OrderMapper.xml").lineNumber(line).statementId(id)
+                .statementType("select").sqlText(sql)
+                .runtimeStats(executions > 0 ? StatementStats.builder().executions(executions).build() : null)
+                .build();
+    }
+}
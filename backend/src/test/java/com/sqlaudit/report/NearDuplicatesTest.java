@@ -0,0 +1,86 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.report.NearDuplicates.Cluster;
+import com.sqlaudit.report.NearDuplicates.Member;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicatesTest {
+
+    private static final List<SqlFragment> FRAGMENTS = List.of(
+            fragment("OrderMapper.xml", 10, "findPaid",
+                    "SELECT o.id, o.user_id, o.amount, o.status, o.created_at FROM t_order o "
+                            + "WHERE o.tenant_id = #{tenantId} AND o.status = 'PAID' ORDER BY o.created_at DESC"),
+            fragment("UserMapper.xml", 10, "findById", "SELECT id, name FROM t_user WHERE id = #{id}"),
+            fragment("ReportMapper.xml", 30, "paidOrders",
+                    "select o.id, o.user_id, o.amount, o.status, o.created_at from t_order o\n"
+                            + "  where o.tenant_id = ? and o.status = 'CLOSED' order by o.created_at desc"),
+            fragment("AdminMapper.xml", 5, "paidOrdersLimited",
+                    "SELECT o.id, o.user_id, o.amount, o.status, o.created_at FROM t_order o "
+                            + "WHERE o.tenant_id = #{tenantId} AND o.status = 'PAID' ORDER BY o.created_at DESC LIMIT 100"),
+            fragment("AdminMapper.xml", 20, "getUser", "select id, name from t_user where id = ?"),
+            fragment("AdminMapper.xml", 30, "deleteUser", "DELETE FROM t_user WHERE id = #{id}"),
+            fragment("AdminMapper.xml", 40, "ping", "SELECT 1"),
+            fragment("AdminMapper.xml", 50, "ping2", "SELECT 1"));
+
+    private final NearDuplicates duplicates = NearDuplicates.find(FRAGMENTS);
+
+    @Test
+    void shouldClusterNearDuplicateStatements() {
+        List<Cluster> clusters = duplicates.clusters();
+        assertEquals(2, clusters.size());
+
+        Cluster orders = clusters.get(0);
+        assertEquals(List.of("findPaid", "paidOrders", "paidOrdersLimited"), statementIds(orders));
+        assertTrue(orders.similarity() >= NearDuplicates.DEFAULT_THRESHOLD && orders.similarity() < 1.0);
+        assertTrue(orders.sql().startsWith("SELECT o.id"));
+
+        // 只有参数写法、大小写不同，形状相同
+        Cluster users = clusters.get(1);
+        assertEquals(List.of("findById", "getUser"), statementIds(users));
+        assertEquals(1.0, users.similarity());
+        assertEquals(new Member("AdminMapper.xml", 20, "getUser", "select"), users.members().get(1));
+
+        assertEquals(1, duplicates.page(0, 3, 0, 10).total());
+        assertEquals(List.of(users), duplicates.page(0.99, 2, 0, 10).items());
+        assertEquals(List.of(users), duplicates.page(0, 2, 1, 10).items());
+    }
+
+    @Test
+    void shouldApplyThreshold() {
+        // 只有字面量不同的两条形状相同；多了 LIMIT 的那条达不到 0.95
+        NearDuplicates strict = NearDuplicates.find(FRAGMENTS, 0.95);
+        assertEquals(List.of(List.of("findPaid", "paidOrders"), List.of("findById", "getUser")),
+                strict.clusters().stream().map(NearDuplicatesTest::statementIds).toList());
+        assertThrows(IllegalArgumentException.class, () -> NearDuplicates.find(FRAGMENTS, 0));
+    }
+
+    @Test
+    void shouldSurviveBinaryCodecRoundTrip() throws Exception {
+        ScanReport report = ScanReport.builder().violations(List.of()).nearDuplicates(duplicates).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportBinaryCodec.write(report, out);
+
+        NearDuplicates restored = ReportBinaryCodec.read(new ByteArrayInputStream(out.toByteArray()))
+                .getNearDuplicates();
+        assertEquals(duplicates.clusters(), restored.clusters());
+        assertEquals(FRAGMENTS.size(), restored.statementCount());
+        assertNull(ReportBinaryCodec.read(new ByteArrayInputStream(out.toByteArray())).getUsageIndex());
+    }
+
+    private static List<String> statementIds(Cluster cluster) {
+        return cluster.members().stream().map(Member::statementId).toList();
+    }
+
+    private static SqlFragment fragment(String file, int line, String id, String sql) {
+        return SqlFragment.builder().relativePath(file).lineNumber(line).statementId(id)
+                .statementType(sql.substring(0, sql.indexOf(' ')).toLowerCase()).sqlText(sql).build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.AuditRule.Severity;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.report.ReportIndex.Facet;
+import com.sqlaudit.report.ReportIndex.FacetCounts;
+import com.sqlaudit.report.ReportIndex.SortKey;
+import com.sqlaudit.report.ReportIndex.ViolationFilter;
+import com.sqlaudit.report.ReportIndex.ViolationPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportIndexTest {
+
+    private final AuditRule error = AuditRule.builder().id("R_ERR").severity(Severity.ERROR).build();
+    private final AuditRule warn = AuditRule.builder().id("R_WARN").severity(Severity.WARNING).build();
+
+    @Test
+    void shouldFilterAndPaginateWithCursor() {
+        List<Violation> violations = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            String file = (i % 2 == 0 ? "order/" : "user/") + "Mapper" + (i % 5) + ".xml";
+            violations.add(violation(i % 3 == 0 ? error : warn, file, i));
+        }
+        ReportIndex index = ReportIndex.build(violations);
+
+        ViolationFilter warnings = new ViolationFilter(Set.of("warning"), null, null, null, null);
+        List<Violation> collected = new ArrayList<>();
+        String cursor = null;
+        do {
+            ViolationPage page = index.query(warnings, SortKey.FILE, cursor, 4);
+            assertEquals(16, page.total());
+            collected.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(16, collected.size());
+        assertTrue(collected.stream().allMatch(v -> v.getRule() == warn));
+        for (int i = 1; i < collected.size(); i++) {
+            assertTrue(collected.get(i - 1).getSqlFragment().getRelativePath()
+                    .compareTo(collected.get(i).getSqlFragment().getRelativePath()) <= 0);
+        }
+    }
+
+    @Test
+    void shouldCountFacetsIgnoringOwnFacetFilter() {
+        ReportIndex index = ReportIndex.build(List.of(
+                violation(error, "order/OrderMapper.xml", 1),
+                violation(warn, "order/OrderMapper.xml", 2),
+                violation(warn, "user/UserMapper.xml", 3)));
+
+        FacetCounts counts = index.facetCounts(
+                new ViolationFilter(Set.of("ERROR"), null, "order/", null, null));
+
+        assertEquals(1, counts.total());
+        // severity 分面不受自身过滤影响，但受路径前缀限制
+        assertEquals(1, counts.facets().get(Facet.SEVERITY).get("ERROR"));
+        assertEquals(1, counts.facets().get(Facet.SEVERITY).get("WARNING"));
+        // file 分面不受路径前缀影响，但受严重等级限制
+        assertEquals(1, counts.facets().get(Facet.FILE).get("order/OrderMapper.xml"));
+        assertNull(counts.facets().get(Facet.FILE).get("user/UserMapper.xml"));
+    }
+
+    @Test
+    void shouldReusePrecomputedCountsForUnfilteredFacets() {
+        ReportIndex index = ReportIndex.build(List.of(
+                violation(error, "order/OrderMapper.xml", 1),
+                violation(warn, "order/OrderMapper.xml", 2),
+                violation(warn, "user/UserMapper.xml", 3)));
+
+        FacetCounts none = index.facetCounts(ViolationFilter.none());
+        assertEquals(3, none.total());
+        assertEquals(Map.of("ERROR", 1, "WARNING", 2), none.facets().get(Facet.SEVERITY));
+        assertEquals(Map.of("order/OrderMapper.xml", 2, "user/UserMapper.xml", 1), none.facets().get(Facet.FILE));
+        assertSame(none.facets().get(Facet.RULE), index.facetCounts(null).facets().get(Facet.RULE));
+
+        // 只按严重等级过滤：severity 分面除自身外无条件，复用构建时的计数；其余分面重新计算
+        FacetCounts errors = index.facetCounts(new ViolationFilter(Set.of("ERROR"), null, null, null, null));
+        assertEquals(1, errors.total());
+        assertSame(none.facets().get(Facet.SEVERITY), errors.facets().get(Facet.SEVERITY));
+        assertEquals(Map.of("order/OrderMapper.xml", 1), errors.facets().get(Facet.FILE));
+    }
+
+    @Test
+    void shouldRejectCursorFromOtherSort() {
+        ReportIndex index = ReportIndex.build(List.of(
+                violation(error, "a.xml", 1), violation(warn, "b.xml", 2)));
+        String cursor = index.query(ViolationFilter.none(), SortKey.FILE, null, 1).nextCursor();
+        assertNotNull(cursor);
+        assertThrows(IllegalArgumentException.class,
+                () -> index.query(ViolationFilter.none(), SortKey.RULE, cursor, 1));
+    }
+
+    private Violation violation(AuditRule rule, String file, int line) {
+        return Violation.builder()
+                .rule(rule)
+                .sqlFragment(SqlFragment.builder().relativePath(file).lineNumber(line)
+                        .namespace("ns").statementType("select").build())
+                .message("m" + line)
+                .build();
+    }
+}
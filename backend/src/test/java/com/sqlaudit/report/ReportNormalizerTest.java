@@ -0,0 +1,54 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.NormalizedReport;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportNormalizerTest {
+
+    @Test
+    void shouldDeduplicateRulesAndFragmentsAndRoundTrip() {
+        AuditRule selectStar = AuditRule.builder().id("OG_3_4_1").severity(AuditRule.Severity.ERROR).build();
+        AuditRule limit = AuditRule.builder().id("OG_3_4_LIMIT").severity(AuditRule.Severity.WARNING).build();
+        SqlFragment findAll = SqlFragment.builder().relativePath("UserMapper.xml").statementId("findAll")
+                .sqlText("SELECT * FROM t_user").build();
+        // 模拟前端回传：与 findAll 值相同但不是同一实例
+        SqlFragment findAllCopy = SqlFragment.builder().relativePath("UserMapper.xml").statementId("findAll")
+                .sqlText("SELECT * FROM t_user").build();
+        SqlFragment findOne = SqlFragment.builder().relativePath("UserMapper.xml").statementId("findOne")
+                .sqlText("SELECT * FROM t_user WHERE id = ?").build();
+
+        List<Violation> violations = List.of(
+                Violation.builder().rule(selectStar).sqlFragment(findAll).message("a").build(),
+                Violation.builder().rule(limit).sqlFragment(findAllCopy).message("b").build(),
+                Violation.builder().rule(selectStar).sqlFragment(findOne).message("c").build(),
+                Violation.builder().message("d").build());
+        ScanReport report = ScanReport.builder()
+                .repoPath("/repo").scanTime(LocalDateTime.now())
+                .totalViolations(violations.size())
+                .violations(violations)
+                .limitReached(true)
+                .baselineSuppressed(12)
+                .build();
+
+        NormalizedReport normalized = ReportNormalizer.normalize(report);
+        assertEquals(12, normalized.getBaselineSuppressed());
+        assertTrue(normalized.isLimitReached());
+        assertEquals(2, normalized.getRules().size());
+        assertEquals(2, normalized.getFragments().size());
+        assertEquals(-1, normalized.getViolations().get(3).getRule());
+        assertEquals(-1, normalized.getViolations().get(3).getFragment());
+
+        ScanReport restored = ReportNormalizer.denormalize(normalized);
+        assertEquals(report, restored);
+        assertEquals(12, restored.getBaselineSuppressed());
+    }
+}
@@ -0,0 +1,92 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.report.UsageIndex.Access;
+import com.sqlaudit.report.UsageIndex.StatementRef;
+import com.sqlaudit.report.UsageIndex.TableUsage;
+import com.sqlaudit.report.UsageIndex.UsageQuery;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsageIndexTest {
+
+    private static final List<SqlFragment> FRAGMENTS = List.of(
+            fragment("OrderMapper.xml", 10, "findById", "select",
+                    "SELECT o.id, o.amount FROM public.t_order o WHERE o.tenant_id = #{tenantId} AND o.id = #{id}"),
+            fragment("OrderMapper.xml", 20, "findByUser", "select",
+                    "SELECT o.id, u.name FROM t_order o JOIN t_user u ON u.id = o.user_id WHERE u.name = #{name}"),
+            fragment("OrderMapper.xml", 30, "updateAmount", "update",
+                    "UPDATE t_order SET amount = #{amount}, updated_at = now() WHERE id = #{id}"),
+            fragment("OrderMapper.xml", 40, "insert", "insert",
+                    "INSERT INTO `t_order` (id, tenant_id, amount) VALUES (#{id}, #{tenantId}, #{amount})"),
+            fragment("ReportMapper.xml", 5, "archive", "insert",
+                    "INSERT INTO t_order_archive (id, amount) SELECT id, amount FROM t_order WHERE created_at < ?"),
+            fragment("ReportMapper.xml", 15, "stats", "select",
+                    "WITH recent AS (SELECT user_id FROM t_order WHERE tenant_id = ?) "
+                            + "SELECT count(*) FROM recent r, t_user u WHERE u.id = r.user_id"));
+
+    private final UsageIndex index = UsageIndex.build(FRAGMENTS);
+
+    @Test
+    void shouldIndexTablesWithReadWriteFlags() {
+        assertEquals(List.of(
+                new TableUsage("t_order", 6, 2),
+                new TableUsage("t_order_archive", 1, 1),
+                new TableUsage("t_user", 2, 0)), index.tables());
+        assertEquals(List.of("amount", "created_at", "id", "tenant_id", "updated_at", "user_id"),
+                index.columns("T_ORDER"));
+
+        List<StatementRef> writers = index.query(new UsageQuery("t_order", null, Access.WRITE, null, null), 0, 10)
+                .items();
+        assertEquals(List.of("updateAmount", "insert"), writers.stream().map(StatementRef::statementId).toList());
+        assertTrue(writers.get(0).write());
+    }
+
+    @Test
+    void shouldFindStatementsByColumnAndMissingFilter() {
+        // 访问 t_order 却没有按 tenant_id 过滤
+        UsageIndex.UsagePage unfiltered = index.query(
+                new UsageQuery("public.t_order", null, Access.ANY, null, "tenant_id"), 0, 10);
+        assertEquals(List.of("findByUser", "updateAmount", "insert", "archive"),
+                unfiltered.items().stream().map(StatementRef::statementId).toList());
+        assertEquals(4, unfiltered.total());
+
+        assertEquals(List.of("findById", "stats"), ids(new UsageQuery("t_order", null, Access.READ, "tenant_id", null)));
+        // 给 amount 赋值的语句
+        assertEquals(List.of("updateAmount", "insert"), index.query(
+                new UsageQuery("t_order", "amount", Access.WRITE, null, null), 0, 10)
+                .items().stream().map(StatementRef::statementId).toList());
+        assertEquals(List.of("findByUser"), ids(new UsageQuery("t_user", "name", Access.ANY, "name", null)));
+
+        UsageIndex.UsagePage page = index.query(new UsageQuery("t_order", null, Access.ANY, null, null), 4, 10);
+        assertEquals(6, page.total());
+        assertEquals(new StatementRef("ReportMapper.xml", 5, "archive", "insert", false), page.items().get(0));
+    }
+
+    @Test
+    void shouldSurviveBinaryCodecRoundTrip() throws Exception {
+        ScanReport report = ScanReport.builder().violations(List.of()).usageIndex(index).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportBinaryCodec.write(report, out);
+
+        UsageIndex restored = ReportBinaryCodec.read(new ByteArrayInputStream(out.toByteArray())).getUsageIndex();
+        assertEquals(index.tables(), restored.tables());
+        UsageQuery query = new UsageQuery("t_order", null, Access.ANY, null, "tenant_id");
+        assertEquals(index.query(query, 0, 10), restored.query(query, 0, 10));
+    }
+
+    private List<String> ids(UsageQuery query) {
+        return index.query(query, 0, 10).items().stream().map(StatementRef::statementId).toList();
+    }
+
+    private static SqlFragment fragment(String file, int line, String id, String type, String sql) {
+        return SqlFragment.builder().relativePath(file).lineNumber(line).statementId(id).statementType(type)
+                .sqlText(sql).build();
+    }
+}
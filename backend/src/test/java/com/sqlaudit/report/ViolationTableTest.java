@@ -0,0 +1,111 @@
+package com.sqlaudit.report;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.AuditRule.Severity;
+import com.sqlaudit.model.ScanOptions;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.MyBatisMapperParser;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.report.ReportIndex.SortKey;
+import com.sqlaudit.report.ReportIndex.ViolationFilter;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import com.sqlaudit.service.RuleService;
+import com.sqlaudit.service.ScanService;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViolationTableTest {
+
+    private final AuditRule error = AuditRule.builder().id("R_ERR").severity(Severity.ERROR).build();
+    private final AuditRule warn = AuditRule.builder().id("R_WARN").severity(Severity.WARNING).build();
+
+    @Test
+    void shouldStoreColumnsAndMaterializeOnDemand() {
+        SqlFragment order = fragment("OrderMapper.xml", 10);
+        SqlFragment user = fragment("UserMapper.xml", 5);
+        List<Violation> violations = List.of(
+                violation(error, order, "禁止 SELECT *", "SELECT *"),
+                violation(warn, order, "缺少 LIMIT", null),
+                violation(error, user, "禁止 SELECT *", "select *"),
+                violation(null, null, null, ""));
+
+        ViolationTable table = ViolationTable.of(violations);
+        assertEquals(violations, table);
+        assertSame(table, ViolationTable.of(table));
+        assertEquals(List.of(error, warn), table.rules());
+        assertEquals(List.of(order, user), table.fragments());
+        assertSame(order, table.get(1).getSqlFragment());
+        assertEquals(1, table.fragmentId(2));
+        assertEquals(-1, table.ruleId(3));
+        assertEquals(ViolationTable.UNKNOWN_SEVERITY, table.severity(3));
+        assertNull(table.matchedText(1));
+        assertEquals("", table.matchedText(3));
+        assertArrayEquals(new int[] {2, 1, 0, 1}, table.countBySeverity());
+
+        // 收缩后仍可继续追加，反查表按需重建，字典不重复
+        table.trimToSize();
+        table.add(violation(warn, user, "缺少 LIMIT", "LIMIT"));
+        assertEquals(5, table.size());
+        assertEquals(2, table.rules().size());
+        assertEquals("LIMIT", table.get(4).getMatchedText());
+        assertThrows(IndexOutOfBoundsException.class, () -> table.get(5));
+        assertThrows(UnsupportedOperationException.class, () -> table.remove(0));
+    }
+
+    @Test
+    void shouldIndexAndRoundTripWithoutViolationObjects() throws Exception {
+        List<Violation> violations = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            violations.add(violation(i % 3 == 0 ? error : warn, fragment("Mapper" + (i % 4) + ".xml", 30 - i),
+                    "问题 " + (i % 2), "m" + i));
+        }
+        ReportIndex objects = ReportIndex.build(violations);
+        ReportIndex columns = ReportIndex.build(ViolationTable.of(violations));
+        for (SortKey sortKey : SortKey.values()) {
+            assertEquals(objects.query(ViolationFilter.none(), sortKey, null, 30).items(),
+                    columns.query(ViolationFilter.none(), sortKey, null, 30).items(), sortKey.name());
+        }
+        assertEquals(objects.facetCounts(ViolationFilter.none()), columns.facetCounts(ViolationFilter.none()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportBinaryCodec.write(ScanReport.builder().violations(ViolationTable.of(violations)).build(), out);
+        List<Violation> restored = ReportBinaryCodec.read(new ByteArrayInputStream(out.toByteArray())).getViolations();
+        assertInstanceOf(ViolationTable.class, restored);
+        assertEquals(violations, restored);
+    }
+
+    @Test
+    void shouldHonorConfiguredViolationLimit() {
+        ScanService scanService = new ScanService(new MyBatisMapperParser(), new SqlScriptParser(),
+                new RuleService(BuiltInCheckers.all(), new WordRuleParser()));
+        ScanReport full = scanService.scan("src/test/resources/test-mapper", ScanOptions.defaults());
+        assertInstanceOf(ViolationTable.class, full.getViolations());
+        assertEquals(full.getTotalViolations(), full.getErrorCount() + full.getWarningCount() + full.getInfoCount());
+        assertFalse(full.isLimitReached());
+
+        ScanReport limited = scanService.scan("src/test/resources/test-mapper",
+                ScanOptions.builder().maxViolations(3).build());
+        assertTrue(limited.isLimitReached());
+        assertEquals(3, limited.getTotalViolations());
+        assertEquals(full.getViolations().subList(0, 3), limited.getViolations());
+    }
+
+    private static SqlFragment fragment(String file, int line) {
+        return SqlFragment.builder().relativePath(file).lineNumber(line).statementId("s" + line)
+                .statementType("select").sqlText("SELECT * FROM t").build();
+    }
+
+    private static Violation violation(AuditRule rule, SqlFragment fragment, String message, String matched) {
+        return Violation.builder().rule(rule).sqlFragment(fragment).message(message).suggestion(message)
+                .matchedText(matched).build();
+    }
+}
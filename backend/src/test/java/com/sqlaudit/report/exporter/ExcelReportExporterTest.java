@@ -0,0 +1,134 @@
+package com.sqlaudit.report.exporter;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.util.TempFileCreationStrategy;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcelReportExporterTest {
+
+    private static final int VIOLATIONS = 450;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<File> tempFiles = new ArrayList<>();
+
+    @AfterEach
+    void restoreTempFileStrategy() {
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy());
+    }
+
+    @Test
+    void shouldWriteAllSheetsAndDeleteFlushedRows() throws IOException {
+        // 记录 SXSSF 刷出行时创建的临时文件
+        TempFileCreationStrategy delegate = new DefaultTempFileCreationStrategy(tempDir.toFile());
+        TempFile.setTempFileCreationStrategy(new TempFileCreationStrategy() {
+            @Override
+            public File createTempFile(String prefix, String suffix) throws IOException {
+                File file = delegate.createTempFile(prefix, suffix);
+                tempFiles.add(file);
+                return file;
+            }
+
+            @Override
+            public File createTempDirectory(String prefix) throws IOException {
+                return delegate.createTempDirectory(prefix);
+            }
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExcelReportExporter().write(report(), out);
+
+        assertTrue(tempFiles.stream().anyMatch(f -> f.getName().startsWith("poi-sxssf-sheet")), tempFiles.toString());
+        assertTrue(tempFiles.stream().noneMatch(File::exists), "写出后应删除临时文件");
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals("汇总", workbook.getSheetName(0));
+            assertEquals("违规明细", workbook.getSheetName(1));
+            assertEquals("规则透视", workbook.getSheetName(2));
+
+            Sheet summary = workbook.getSheet("汇总");
+            assertEquals("违规总数", summary.getRow(4).getCell(0).getStringCellValue());
+            assertEquals(VIOLATIONS, (int) summary.getRow(4).getCell(1).getNumericCellValue());
+            assertEquals("是", summary.getRow(9).getCell(1).getStringCellValue());
+
+            Sheet details = workbook.getSheet("违规明细");
+            assertEquals("严重等级", details.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(VIOLATIONS, details.getLastRowNum());
+            // 按文件路径排序，文件内保持原顺序；前面的行早已超出行窗口被刷到临时文件
+            assertRow(details.getRow(1), "ERROR", "R1", "mapper/F0.xml", "m0");
+            assertRow(details.getRow(150), "WARNING", "R2", "mapper/F0.xml", "m447");
+            assertRow(details.getRow(151), "WARNING", "R2", "mapper/F1.xml", "m1");
+            assertRow(details.getRow(VIOLATIONS), "WARNING", "R2", "mapper/F2.xml", "m449");
+            assertEquals(10, (int) details.getRow(1).getCell(6).getNumericCellValue());
+            String longSql = details.getRow(1).getCell(12).getStringCellValue();
+            assertEquals(32767, longSql.length());
+            assertTrue(longSql.endsWith("..."));
+            assertEquals("SELECT 1", details.getRow(151).getCell(12).getStringCellValue());
+
+            Sheet pivot = workbook.getSheet("规则透视");
+            assertEquals(2, pivot.getLastRowNum());
+            for (int i = 1; i <= 2; i++) {
+                Row row = pivot.getRow(i);
+                assertEquals("R" + i, row.getCell(0).getStringCellValue());
+                assertEquals(VIOLATIONS / 2, (int) row.getCell(5).getNumericCellValue());
+                assertEquals(3, (int) row.getCell(6).getNumericCellValue());
+            }
+        }
+    }
+
+    private static void assertRow(Row row, String severity, String ruleId, String path, String message) {
+        assertEquals(severity, row.getCell(0).getStringCellValue());
+        assertEquals(ruleId, row.getCell(1).getStringCellValue());
+        assertEquals(path, row.getCell(5).getStringCellValue());
+        assertEquals(message, row.getCell(9).getStringCellValue());
+    }
+
+    private static ScanReport report() {
+        AuditRule error = AuditRule.builder().id("R1").name("规则一").severity(AuditRule.Severity.ERROR).build();
+        AuditRule warning = AuditRule.builder().id("R2").name("规则二").severity(AuditRule.Severity.WARNING).build();
+        List<Violation> violations = new ArrayList<>();
+        for (int i = 0; i < VIOLATIONS; i++) {
+            SqlFragment fragment = SqlFragment.builder()
+                    .relativePath("mapper/F" + i % 3 + ".xml")
+                    .lineNumber(10 + i)
+                    .sqlText(i == 0 ? "SELECT " + "x".repeat(40_000) : "SELECT 1")
+                    .build();
+            violations.add(Violation.builder()
+                    .rule(i % 2 == 0 ? error : warning)
+                    .sqlFragment(fragment)
+                    .message("m" + i)
+                    .build());
+        }
+        return ScanReport.builder()
+                .repoPath("/repo")
+                .totalViolations(VIOLATIONS)
+                .errorCount(VIOLATIONS / 2)
+                .warningCount(VIOLATIONS / 2)
+                .violations(violations)
+                .limitReached(true)
+                .build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.sqlaudit.report.exporter;
+
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSortedViolationsTest {
+
+    @Test
+    void shouldGroupByPathInSortedOrderKeepingOriginalOrderWithinFile() {
+        List<Violation> violations = List.of(
+                violation("b/OrderMapper.xml", "m1"),
+                violation("a/UserMapper.xml", "m2"),
+                violation("b/OrderMapper.xml", "m3"),
+                violation(null, "m4"),
+                violation("a/UserMapper.xml", "m5"));
+
+        List<String> paths = new ArrayList<>();
+        List<String> messages = new ArrayList<>();
+        for (FileSortedViolations.FileGroup group : FileSortedViolations.of(violations)) {
+            paths.add(group.path() + ":" + group.violations().size());
+            group.violations().forEach(v -> messages.add(v.getMessage()));
+        }
+
+        assertEquals(List.of("a/UserMapper.xml:2", "b/OrderMapper.xml:2", "unknown:1"), paths);
+        assertEquals(List.of("m2", "m5", "m1", "m3", "m4"), messages);
+    }
+
+    @Test
+    void shouldHandleEmptyAndNullLists() {
+        assertFalse(FileSortedViolations.of(null).iterator().hasNext());
+        assertFalse(FileSortedViolations.of(List.of()).iterator().hasNext());
+    }
+
+    private Violation violation(String relativePath, String message) {
+        return Violation.builder()
+                .sqlFragment(SqlFragment.builder().relativePath(relativePath).build())
+                .message(message)
+                .build();
+    }
+}
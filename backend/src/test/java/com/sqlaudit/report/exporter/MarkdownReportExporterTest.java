@@ -0,0 +1,92 @@
+package com.sqlaudit.report.exporter;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarkdownReportExporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldWriteViolationsGroupedByFile() throws IOException {
+        AuditRule rule = AuditRule.builder().id("R1").name("禁止 SELECT *").section("3.4.1")
+                .severity(AuditRule.Severity.ERROR).build();
+        List<Violation> violations = List.of(
+                violation(rule, "mapper/B.xml", 7, "selectB", "m1"),
+                violation(rule, "mapper/A`1.xml", 3, "selectA", "m0"),
+                violation(rule, "mapper/B.xml", 9, "selectC", "m2"));
+        ScanReport report = ScanReport.builder()
+                .repoPath("/repo")
+                .scanTime(LocalDateTime.of(2026, 1, 2, 3, 4, 5))
+                .totalFiles(2)
+                .totalStatements(10)
+                .totalViolations(3)
+                .errorCount(3)
+                .violations(violations)
+                .scannedFiles(List.of("mapper/A`1.xml", "mapper/B.xml"))
+                .limitReached(true)
+                .build();
+
+        List<String> lines = writeAndRead(report);
+
+        assertEquals("# SQL 审计规范审查报告", lines.get(0));
+        assertTrue(lines.contains("**扫描时间:** 2026-01-02T03:04:05"), lines.toString());
+        assertTrue(lines.contains("**扫描范围:** `/repo`"));
+        assertTrue(lines.contains("> ⚠️ **警告：扫描结果被截断**"));
+        assertTrue(lines.contains("- **违规总数:** 3 (❌ 错误: 3, ⚠️ 警告: 0, ℹ️ 提示: 0)"));
+
+        // 按文件路径排序，文件内保持原顺序；反引号转义
+        int a = lines.indexOf("### 📄 `mapper/A\\`1.xml` (1 项)");
+        int b = lines.indexOf("### 📄 `mapper/B.xml` (2 项)");
+        assertTrue(a > 0 && b > a, lines.toString());
+        assertEquals("**[ERROR]** §3.4.1 禁止 SELECT *", lines.get(a + 2));
+        assertEquals("- **位置:** 行 3 (SELECT #selectA)", lines.get(a + 3));
+        assertTrue(lines.indexOf("- **说明:** m1") < lines.indexOf("- **说明:** m2"));
+        assertTrue(lines.indexOf("- **说明:** m1") > b);
+
+        int files = lines.indexOf("## 📁 扫描文件列表");
+        assertEquals(List.of("- `mapper/A\\`1.xml`", "- `mapper/B.xml`"), lines.subList(files + 2, files + 4));
+    }
+
+    @Test
+    void shouldWriteCongratulationsWhenClean() throws IOException {
+        List<String> lines = writeAndRead(ScanReport.builder().violations(List.of()).build());
+
+        assertTrue(lines.contains("**扫描范围:** `SQL 脚本上传模式`"));
+        assertEquals("✅ **恭喜！所有 SQL 语句均符合规范**", lines.get(lines.size() - 1));
+        assertFalse(lines.contains("## 🚫 违规详情"));
+    }
+
+    private List<String> writeAndRead(ScanReport report) throws IOException {
+        Path file = tempDir.resolve("report.md");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            new MarkdownReportExporter().write(report, out);
+        }
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+
+    private static Violation violation(AuditRule rule, String path, int line, String statementId, String message) {
+        SqlFragment fragment = SqlFragment.builder()
+                .relativePath(path)
+                .lineNumber(line)
+                .statementId(statementId)
+                .statementType("select")
+                .build();
+        return Violation.builder().rule(rule).sqlFragment(fragment).message(message).build();
+    }
+}
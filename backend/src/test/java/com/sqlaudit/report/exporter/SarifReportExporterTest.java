@@ -0,0 +1,104 @@
+package com.sqlaudit.report.exporter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SarifReportExporterTest {
+
+    private static final List<String> PATHS = List.of(
+            "mapper/UserMapper.xml",
+            "mapper/用户 映射#1.xml",
+            "sql/100%/a:b.sql");
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldWriteResultsWithEncodedArtifactUris() throws IOException {
+        Path root = tempDir.resolve("my repo#1");
+        Path file = tempDir.resolve("report.sarif");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            new SarifReportExporter(objectMapper).write(report(root), out);
+        }
+
+        JsonNode sarif = objectMapper.readTree(file.toFile());
+        assertEquals("2.1.0", sarif.get("version").asText());
+        JsonNode run = sarif.get("runs").get(0);
+        JsonNode rules = run.at("/tool/driver/rules");
+        assertEquals(2, rules.size());
+        assertEquals("R1", rules.get(0).get("id").asText());
+        assertEquals("error", rules.get(0).at("/defaultConfiguration/level").asText());
+        assertEquals("note", rules.get(1).at("/defaultConfiguration/level").asText());
+
+        String base = run.at("/originalUriBaseIds/%SRCROOT%/uri").asText();
+        assertTrue(base.endsWith("/"), base);
+        JsonNode results = run.get("results");
+        assertEquals(PATHS.size(), results.size());
+        for (int i = 0; i < PATHS.size(); i++) {
+            JsonNode result = results.get(i);
+            JsonNode location = result.at("/locations/0/physicalLocation");
+            String uri = location.at("/artifactLocation/uri").asText();
+            assertEquals("%SRCROOT%", location.at("/artifactLocation/uriBaseId").asText());
+            assertTrue(uri.chars().allMatch(c -> c < 0x80 && c != ' ' && c != '#'), uri);
+            // 相对 URI 与基准 URI 拼接、解码后应还原为原始文件路径
+            assertEquals(root + "/" + PATHS.get(i), URI.create(base).resolve(uri).getPath());
+            assertEquals(i + 1, location.at("/region/startLine").asInt());
+            assertEquals("m" + i, result.at("/message/text").asText());
+        }
+        assertEquals("mapper/%E7%94%A8%E6%88%B7%20%E6%98%A0%E5%B0%84%231.xml",
+                results.get(1).at("/locations/0/physicalLocation/artifactLocation/uri").asText());
+        assertEquals(root.resolve(PATHS.get(2)).toUri(), URI.create(base).resolve(
+                results.get(2).at("/locations/0/physicalLocation/artifactLocation/uri").asText()));
+        assertEquals("sql/100%25/a:b.sql",
+                results.get(2).at("/locations/0/physicalLocation/artifactLocation/uri").asText());
+    }
+
+    @Test
+    void shouldKeepPlainPathsUnchanged() {
+        assertEquals("mapper/a-b_c.d~e.xml", SarifReportExporter.encodePath("mapper/a-b_c.d~e.xml"));
+        assertEquals("%F0%9F%93%84.sql", SarifReportExporter.encodePath("📄.sql"));
+        assertEquals("c%3Ad.sql", SarifReportExporter.encodePath("c:d.sql"));
+    }
+
+    private static ScanReport report(Path root) {
+        AuditRule error = AuditRule.builder().id("R1").name("规则一").severity(AuditRule.Severity.ERROR).build();
+        AuditRule info = AuditRule.builder().id("R2").name("规则二").severity(AuditRule.Severity.INFO).build();
+        List<Violation> violations = new ArrayList<>();
+        for (int i = 0; i < PATHS.size(); i++) {
+            SqlFragment fragment = SqlFragment.builder()
+                    .relativePath(PATHS.get(i))
+                    .statementId("s" + i)
+                    .namespace("ns")
+                    .lineNumber(i + 1)
+                    .build();
+            violations.add(Violation.builder()
+                    .rule(i == 0 ? error : info)
+                    .sqlFragment(fragment)
+                    .message("m" + i)
+                    .build());
+        }
+        return ScanReport.builder()
+                .repoPath(root.toString())
+                .totalViolations(violations.size())
+                .violations(violations)
+                .build();
+    }
+}
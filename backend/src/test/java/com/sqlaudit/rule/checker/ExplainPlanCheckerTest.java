@@ -0,0 +1,195 @@
+package com.sqlaudit.rule.checker;
+
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.parser.MyBatisMapperParser;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.rule.ExplainReplay;
+import com.sqlaudit.rule.checker.SqlChecker.CheckResult;
+import com.sqlaudit.service.ExplainReplayService;
+import com.sqlaudit.service.SchemaCatalogService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExplainPlanCheckerTest {
+
+    private static final String DDL = """
+            CREATE TABLE public.t_user (
+                id bigint PRIMARY KEY,
+                username varchar(64) NOT NULL,
+                phone varchar(20),
+                status int,
+                created_at timestamp
+            );
+            CREATE INDEX idx_user_status ON public.t_user (status, created_at);
+            CREATE TABLE `t_order` (
+              `id` bigint NOT NULL,
+              `user_id` bigint NOT NULL,
+              `amount` decimal(10, 2),
+              PRIMARY KEY (`id`)
+            ) ENGINE=InnoDB;
+            CREATE TABLE t_dict (code varchar(32), label varchar(64));
+            """;
+
+    private final ExplainPlanChecker checker = new ExplainPlanChecker();
+    private ExplainReplayService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SchemaCatalogService schema = new SchemaCatalogService(new IndexHintChecker(), new SqlScriptParser(), null);
+        service = new ExplainReplayService(checker, schema, true, 10000, 2, 20000, 5, null);
+        schema.importDdl(new ByteArrayInputStream(DDL.getBytes(StandardCharsets.UTF_8)), "schema.sql");
+        service.importRowCounts(new ByteArrayInputStream(
+                "relname,reltuples\nt_user,2500000\nt_order,8e6\nt_dict,40\n".getBytes(StandardCharsets.UTF_8)),
+                "rows.csv");
+    }
+
+    @AfterEach
+    void tearDown() {
+        checker.setReplay(null);
+    }
+
+    @Test
+    void shouldFlagFullScansOnLargeTables() {
+        assertFalse(check("SELECT id, username FROM t_user WHERE id = #{id}").violated());
+        assertFalse(check("UPDATE public.t_user SET phone = ? WHERE status = ? AND created_at > ?").violated());
+        // 小表全表扫描不告警
+        assertFalse(check("SELECT label FROM t_dict WHERE code = 'A'").violated());
+        // H2 无法解析的语句（方言、残缺的动态 SQL）跳过
+        assertFalse(check("SELECT id FROM t_user WHERE id = ANY(#{ids}::bigint[]) FOR NO KEY UPDATE SKIP").violated());
+
+        CheckResult phone = check("SELECT id FROM t_user WHERE phone = #{phone}");
+        assertTrue(phone.violated());
+        assertEquals("public.t_user", phone.matchedText());
+        assertTrue(phone.message().contains("约 2500000 行"));
+
+        CheckResult delete = check("DELETE FROM `T_ORDER` WHERE amount > 100;");
+        assertEquals("t_order", delete.matchedText());
+    }
+
+    @Test
+    void shouldFlagJoinWithoutIndexOnJoinColumn() {
+        assertFalse(check("SELECT u.username FROM t_order o JOIN t_user u ON u.id = o.user_id WHERE o.id = ?")
+                .violated());
+
+        CheckResult join = check("SELECT o.amount FROM t_user u JOIN t_order o ON o.user_id = u.id WHERE u.id = ?");
+        assertTrue(join.violated());
+        assertEquals("t_order", join.matchedText());
+        assertTrue(join.message().contains("连接查询"));
+    }
+
+    @Test
+    void shouldExplainBatchInParallelAndCachePerFingerprint() {
+        List<SqlFragment> fragments = List.of(
+                fragment("SELECT id FROM t_user WHERE phone = '13800000000'"),
+                fragment("SELECT id FROM t_user WHERE phone = '13900000000'"),
+                fragment("SELECT id FROM t_user WHERE id = 1"),
+                fragment("INSERT INTO t_dict (code, label) VALUES ('A', 'a')"));
+        checker.prepare(fragments);
+
+        ExplainReplay replay = checker.getReplay();
+        assertEquals(2, replay.cachedPlans());
+        assertTrue(checker.check(fragments.get(1)).violated());
+        assertEquals(2, replay.cachedPlans());
+        assertEquals(2, service.status().cachedPlans());
+
+        service.setEnabled(false);
+        assertNull(checker.getReplay());
+        assertFalse(checker.check(fragments.get(0)).violated());
+    }
+
+    @Test
+    void shouldRefuseStatementsBeyondSingleQuery(@TempDir Path dir) throws Exception {
+        Path mapper = dir.resolve("EvilMapper.xml");
+        Files.writeString(mapper, """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <mapper namespace="com.example.EvilMapper">
+                    <select id="evil" resultType="User">
+                        SELECT id FROM t_user WHERE phone = #{phone};
+                        CREATE ALIAS pwn AS 'String pwn() { System.setProperty("sql-audit.pwned", "1"); return ""; }';
+                        CALL pwn();
+                        CREATE TABLE t_pwned (id int)
+                    </select>
+                    <select id="hidden" resultType="User">
+                        SELECT id FROM t_user WHERE phone = 'a\' /* ; */ ; CREATE TABLE t_pwned (id int)
+                    </select>
+                </mapper>
+                """);
+        List<SqlFragment> fragments = new MyBatisMapperParser().parse(mapper.toFile(), dir);
+        assertEquals(2, fragments.size());
+        checker.prepare(fragments);
+        for (SqlFragment fragment : fragments) {
+            assertFalse(checker.check(fragment).violated());
+        }
+        ExplainReplay replay = checker.getReplay();
+        assertTrue(replay.explain(fragments.get(0).getSqlText()).error().contains("多条"));
+        assertNull(System.getProperty("sql-audit.pwned"));
+        assertTrue(replay.explain("SELECT id FROM t_pwned").failed());
+
+        // 字面量、注释中的分号不影响；单条语句也不能是 SELECT / UPDATE / DELETE 以外的命令
+        assertTrue(check("SELECT id FROM t_user WHERE phone = 'a;b' /* x; */ -- y;").violated());
+        assertTrue(replay.explain("ANALYZE DELETE FROM t_user").failed());
+        assertTrue(replay.explain("SELECT id FROM t_user WHERE phone = 'a").failed());
+        assertTrue(replay.explain("SELECT a$$ FROM t_user; DROP TABLE t_dict $$").failed());
+        assertNull(replay.explain("SELECT code FROM t_dict").error());
+    }
+
+    @Test
+    void shouldNotEvaluateConstantExpressionsWhilePreparing() {
+        // H2 预编译时会对常量表达式求值，字面量不替换时这一条要花数秒并分配数百 MB
+        ExplainReplay replay = checker.getReplay();
+        ExplainReplay.Plan plan = assertTimeoutPreemptively(Duration.ofSeconds(2),
+                () -> replay.explain("SELECT id FROM t_user WHERE phone = REPEAT('ab', 50000000) || 1e9"));
+        assertEquals(List.of("public.t_user"), plan.scannedTables());
+        assertTrue(check("SELECT id FROM t_user WHERE phone = '-- x' /* 'y */ AND created_at IS NOT NULL").violated());
+    }
+
+    @Test
+    void shouldBoundCachedPlans() throws Exception {
+        try (ExplainReplay replay = ExplainReplay.open(checker.getReplay().catalog(), 1, 10000, 2, 5)) {
+            for (int i = 0; i < 5; i++) {
+                replay.explain("SELECT id FROM t_user WHERE status = " + i + " AND phone_" + i + " IS NULL");
+            }
+            assertEquals(2, replay.cachedPlans());
+        }
+    }
+
+    @Test
+    void shouldFinishBatchWhenReplacedDuringExplain() throws Exception {
+        ExplainReplay replay = ExplainReplay.open(checker.getReplay().catalog(), 1, 10000, 20000, 5);
+        List<String> sqls = IntStream.range(0, 500)
+                .mapToObj(i -> "SELECT id FROM t_user WHERE status = ? AND phone_" + i + " IS NULL")
+                .toList();
+        CompletableFuture<Void> batch = CompletableFuture.runAsync(() -> replay.explainAll(sqls));
+        while (replay.cachedPlans() == 0 && !batch.isDone()) {
+            Thread.onSpinWait();
+        }
+        // 与 setReplay 替换旧实例时相同：批量解释进行中关闭
+        replay.close();
+        batch.get(30, TimeUnit.SECONDS);
+        assertEquals(sqls.size(), replay.cachedPlans());
+        assertTrue(replay.explain("SELECT code FROM t_dict").failed());
+    }
+
+    private CheckResult check(String sql) {
+        return checker.check(fragment(sql));
+    }
+
+    private static SqlFragment fragment(String sql) {
+        String type = sql.substring(0, sql.indexOf(' ')).toLowerCase();
+        return SqlFragment.builder().sqlText(sql).statementType(type).build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.sqlaudit.rule.checker;
+
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.rule.SchemaCatalog;
+import com.sqlaudit.rule.checker.SqlChecker.CheckResult;
+import com.sqlaudit.service.SchemaCatalogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexHintCheckerTest {
+
+    private static final String DDL = """
+            CREATE TABLE public."t_user" (
+                id bigint PRIMARY KEY,
+                username varchar(64) NOT NULL,
+                phone varchar(20),
+                status int DEFAULT 0,
+                key varchar(64),
+                created_at timestamp,
+                CONSTRAINT uk_user_name UNIQUE (username)
+            );
+            CREATE INDEX idx_user_status_created ON public.t_user USING btree (status, created_at DESC);
+            CREATE INDEX idx_user_lower_phone ON public.t_user (lower(phone));
+            CREATE TABLE `t_order` (
+              `id` bigint NOT NULL,
+              `user_id` bigint NOT NULL,
+              `amount` decimal(10, 2),
+              PRIMARY KEY (`id`)
+            ) ENGINE=InnoDB;
+            ALTER TABLE t_order ADD INDEX idx_order_user (user_id), ADD COLUMN remark varchar(255);
+            CREATE TABLE t_log (msg text);
+            """;
+
+    private final IndexHintChecker checker = new IndexHintChecker();
+
+    @BeforeEach
+    void importSchema() throws Exception {
+        new SchemaCatalogService(checker, new SqlScriptParser(), null)
+                .importDdl(new ByteArrayInputStream(DDL.getBytes(StandardCharsets.UTF_8)), "schema.sql");
+    }
+
+    @Test
+    void shouldBuildCatalogFromDdl() {
+        SchemaCatalog catalog = checker.getCatalog();
+        assertEquals(3, catalog.tableCount());
+        SchemaCatalog.Table user = catalog.table("T_USER");
+        assertSame(user, catalog.table("public.t_user"));
+        assertTrue(user.hasColumn("key"));
+        assertEquals(List.of(List.of("id"), List.of("username"), List.of("status", "created_at")), user.indexes());
+        assertEquals(List.of(List.of("id"), List.of("user_id")), catalog.table("t_order").indexes());
+        assertTrue(catalog.table("t_order").hasColumn("remark"));
+        assertTrue(catalog.table("t_log").indexes().isEmpty());
+    }
+
+    @Test
+    void shouldFlagPredicatesNotCoveredByIndexPrefix() {
+        assertFalse(check("SELECT id FROM t_user WHERE status = #{status} AND phone = #{phone}").violated());
+        assertFalse(check("SELECT u.id FROM public.t_user u JOIN t_order o ON o.user_id = u.id WHERE u.username = ?")
+                .violated());
+        assertFalse(check("SELECT id FROM t_user WHERE ROWNUM <= 10").violated());
+
+        CheckResult phone = check("SELECT id FROM t_user WHERE phone = #{phone}");
+        assertTrue(phone.violated());
+        assertEquals("public.t_user(phone)", phone.matchedText());
+
+        // 复合索引 (status, created_at) 的非前导列、函数包裹的列都用不上索引
+        CheckResult created = check("SELECT id FROM t_user WHERE created_at > ? AND lower(username) = ?");
+        assertEquals("public.t_user(created_at)", created.matchedText());
+
+        CheckResult join = check("SELECT o.id FROM t_order o LEFT JOIN t_user u ON u.phone = o.amount "
+                + "WHERE o.amount > 100");
+        assertEquals("public.t_user(phone); t_order(amount)", join.matchedText());
+
+        CheckResult update = check("UPDATE t_log SET msg = 'x' WHERE msg LIKE 'err%'");
+        assertTrue(update.message().contains("没有任何索引"));
+        assertFalse(check("SELECT msg FROM t_log WHERE msg LIKE '%err'").violated());
+    }
+
+    private CheckResult check(String sql) {
+        String type = sql.substring(0, sql.indexOf(' ')).toLowerCase();
+        return checker.check(SqlFragment.builder().sqlText(sql).statementType(type).build());
+    }
+}
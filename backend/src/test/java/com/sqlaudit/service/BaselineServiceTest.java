@@ -0,0 +1,86 @@
+package com.sqlaudit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.Baseline;
+import com.sqlaudit.model.ReportDiff;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.report.ViolationFingerprint;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaselineServiceTest {
+
+    private final BaselineService baselineService =
+            new BaselineService(new ObjectMapper().registerModule(new JavaTimeModule()));
+    private final AuditRule selectStar = AuditRule.builder().id("OG_3_4_1").build();
+    private final AuditRule injection = AuditRule.builder().id("OG_MYBATIS_INJECTION").build();
+
+    @Test
+    void fingerprintShouldIgnoreLineNumbersPathsAndLiteralFormatting() {
+        Violation before = violation(selectStar, "a/UserMapper.xml", 10, "findAll", "SELECT *  FROM t_user");
+        Violation after = violation(selectStar, "b/UserMapper.xml", 42, "findAll", "select * from t_user");
+        Violation other = violation(selectStar, "a/UserMapper.xml", 10, "findOne", "SELECT * FROM t_user");
+
+        assertEquals(ViolationFingerprint.of(before), ViolationFingerprint.of(after));
+        assertNotEquals(ViolationFingerprint.of(before), ViolationFingerprint.of(other));
+    }
+
+    @Test
+    void shouldDiffReportsByFingerprint() {
+        ScanReport base = report(
+                violation(selectStar, "UserMapper.xml", 10, "findAll", "SELECT * FROM"),
+                violation(injection, "UserMapper.xml", 20, "search", "${name}"));
+        ScanReport head = report(
+                violation(selectStar, "UserMapper.xml", 12, "findAll", "SELECT * FROM"),
+                violation(selectStar, "UserMapper.xml", 30, "findByName", "SELECT * FROM"));
+
+        ReportDiff diff = baselineService.diff(base, head);
+
+        assertEquals(1, diff.getAddedCount());
+        assertEquals("findByName", diff.getAdded().get(0).getSqlFragment().getStatementId());
+        assertEquals(1, diff.getFixedCount());
+        assertEquals("search", diff.getFixed().get(0).getSqlFragment().getStatementId());
+        assertEquals(1, diff.getUnchangedCount());
+    }
+
+    @Test
+    void baselineShouldRoundTripThroughJson() throws Exception {
+        ScanReport report = report(
+                violation(selectStar, "UserMapper.xml", 10, "findAll", "SELECT * FROM"),
+                violation(selectStar, "UserMapper.xml", 10, "findAll", "SELECT * FROM"));
+        Baseline baseline = baselineService.createBaseline(report);
+        assertEquals(1, baseline.getEntries().size());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        baselineService.writeBaseline(baseline, out);
+        Baseline read = baselineService.readBaseline(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(baselineService.fingerprints(baseline), baselineService.fingerprints(read));
+    }
+
+    private ScanReport report(Violation... violations) {
+        return ScanReport.builder().violations(List.of(violations)).build();
+    }
+
+    private Violation violation(AuditRule rule, String file, int line, String statementId, String matched) {
+        return Violation.builder()
+                .rule(rule)
+                .sqlFragment(SqlFragment.builder()
+                        .relativePath(file)
+                        .lineNumber(line)
+                        .namespace("com.example.UserMapper")
+                        .statementId(statementId)
+                        .build())
+                .matchedText(matched)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.LintResult;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LintServiceTest {
+
+    private static final List<String> STATEMENTS = List.of(
+            "SELECT * FROM t_user WHERE id = 1",
+            "select id, name from public.t_user where status = 1 limit 10;",
+            "UPDATE t_order SET status = 'PAID' WHERE order_no = ? ",
+            "DELETE FROM t_log",
+            "SELECT u.id, (SELECT count(*) FROM t_order o WHERE o.user_id = u.id) FROM t_user u, t_dept d "
+                    + "WHERE u.dept_id = d.id AND u.name LIKE '%abc' AND upper(u.code) != 'X'",
+            "INSERT INTO public.t_audit (id, content) VALUES (?, ?)");
+
+    private final RuleService ruleService = new RuleService(BuiltInCheckers.all(), new WordRuleParser());
+    private final LintService lintService = new LintService(ruleService, new SqlScriptParser());
+
+    @Test
+    void shouldMatchFullScanViolationsWithoutExampleSql() {
+        SqlFragment fragment = SqlFragment.builder().relativePath("x.sql").statementType("delete")
+                .sqlText("DELETE FROM t_log").build();
+        List<String> expected = ruleService.checkSql(fragment).stream().map(v -> v.getRule().getId()).toList();
+
+        LintResult result = lintService.lint("  DELETE FROM t_log;; \n", null);
+
+        assertEquals("delete", result.getStatementType());
+        assertEquals(expected, result.getViolations().stream().map(LintResult.Item::getRuleId).toList());
+        assertFalse(expected.isEmpty());
+        // 复用的线程状态在两次调用之间不残留
+        assertTrue(lintService.lint("SELECT id FROM public.t_user WHERE id = 1 LIMIT 1", "select")
+                .getViolations().stream().noneMatch(v -> v.getRuleId().startsWith("OG_3_7")));
+        assertThrows(IllegalArgumentException.class, () -> lintService.lint(" ; ", null));
+    }
+
+    @Test
+    void shouldRejectUnknownStatementType() {
+        assertEquals("update", lintService.lint("UPDATE t_order SET status = 1", " UPDATE ").getStatementType());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> lintService.lint("SELECT id FROM t_user", "select-" + System.nanoTime()));
+        assertTrue(e.getMessage().contains("不支持的语句类型"));
+    }
+
+    @Test
+    void shouldSkipExampleSqlInLightweightCheck() {
+        SqlFragment fragment = SqlFragment.builder().statementType("select").sqlText("SELECT * FROM t_user").build();
+        List<Violation> sink = new ArrayList<>();
+        ruleService.checkSql(fragment, false, sink);
+        assertFalse(sink.isEmpty());
+        assertTrue(sink.stream().allMatch(v -> v.getExampleSql() == null));
+    }
+
+    /**
+     * 并发压测：mvn test -Dtest=LintServiceTest -Dlint.benchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "lint.benchmark", matches = "true")
+    void benchmarkConcurrentLintLatency() throws Exception {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int warmup = 20_000;
+        int iterations = 50_000;
+        for (int i = 0; i < warmup; i++) {
+            lintService.lint(STATEMENTS.get(i % STATEMENTS.size()), null);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(pool.submit(() -> {
+                long[] latencies = new long[iterations];
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    String sql = STATEMENTS.get((i + offset) % STATEMENTS.size());
+                    long begin = System.nanoTime();
+                    lintService.lint(sql, null);
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+        start.countDown();
+        long[] all = new long[threads * iterations];
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(futures.get(t).get(), 0, all, t * iterations, iterations);
+        }
+        pool.shutdown();
+
+        Arrays.sort(all);
+        long p50 = all[(int) (all.length * 0.50)];
+        long p99 = all[(int) (all.length * 0.99)];
+        long max = all[all.length - 1];
+        System.out.printf("lint benchmark: threads=%d, calls=%d, p50=%d us, p99=%d us, max=%d us%n",
+                threads, all.length, p50 / 1000, p99 / 1000, max / 1000);
+        assertTrue(p99 < 1_000_000, "p99 应低于 1 ms，实际 " + p99 / 1000 + " us");
+    }
+}
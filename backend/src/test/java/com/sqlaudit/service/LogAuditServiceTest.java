@@ -0,0 +1,126 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.IndexAdvice;
+import com.sqlaudit.model.ScanOptions;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.StatementStats;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.SqlLogParser;
+import com.sqlaudit.parser.SqlLogParser.LogFormat;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.rule.SchemaCatalog;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogAuditServiceTest {
+
+    private static final String TEXT_LOG = """
+            2026-10-01 10:00:00.123 CST [1234] LOG:  duration: 12.5 ms  statement: SELECT *
+            \t  FROM t_order
+            \t  WHERE user_id = 1
+            2026-10-01 10:00:01.000 CST [1234] LOG:  connection authorized: user=app
+            2026-10-01 10:00:02.000 CST [1235] LOG:  duration: 30.0 ms  execute <unnamed>: SELECT * FROM t_order WHERE user_id = 42
+            2026-10-01 10:00:03.000 CST [1236] LOG:  duration: 1.0 ms  statement: DELETE FROM t_log
+            2026-10-01 10:00:04.000 CST [1237] ERROR:  relation "t_x" does not exist
+            2026-10-01 10:00:04.000 CST [1237] STATEMENT:  SELECT * FROM t_order WHERE user_id = 7;
+            """;
+
+    private final SqlLogParser logParser = new SqlLogParser();
+    private final LogAuditService logAuditService = new LogAuditService(logParser, new SqlScriptParser(),
+            new RuleService(BuiltInCheckers.all(), new WordRuleParser()));
+
+    @Test
+    void shouldReassembleMultiLineStatementsFromTextLog() throws Exception {
+        List<SqlLogParser.LogStatement> statements = new ArrayList<>();
+        long lines = logParser.parse(new StringReader(TEXT_LOG), "postgresql.log", LogFormat.AUTO, statements::add);
+
+        assertEquals(8, lines);
+        assertEquals(4, statements.size());
+        assertEquals("SELECT *\n  FROM t_order\n  WHERE user_id = 1", statements.get(0).sql());
+        assertEquals(1, statements.get(0).line());
+        assertEquals(12.5, statements.get(0).totalTimeMs());
+        assertEquals("SELECT * FROM t_order WHERE user_id = 7", statements.get(3).sql());
+    }
+
+    @Test
+    void shouldDedupeByFingerprintAndRankByExecutions() throws Exception {
+        ScanReport report = logAuditService.audit(
+                new ByteArrayInputStream(TEXT_LOG.getBytes(StandardCharsets.UTF_8)), "postgresql.log", LogFormat.AUTO);
+
+        assertEquals(2, report.getTotalStatements());
+        assertFalse(report.getViolations().isEmpty());
+        Violation first = report.getViolations().get(0);
+        assertEquals("postgresql.log", first.getSqlFragment().getNamespace());
+        StatementStats stats = first.getSqlFragment().getRuntimeStats();
+        assertEquals(3, stats.getExecutions());
+        assertEquals(42.5, stats.getTotalTimeMs(), 1e-9);
+        assertEquals(30.0, stats.getMaxTimeMs(), 1e-9);
+        assertEquals(1, report.getViolations().get(report.getViolations().size() - 1)
+                .getSqlFragment().getRuntimeStats().getExecutions());
+    }
+
+    @Test
+    void shouldApplyScanOptions() throws Exception {
+        ScanReport all = audit(ScanOptions.defaults());
+        assertTrue(all.getViolations().size() > 1);
+        assertFalse(all.isLimitReached());
+        assertTrue(recommendations(all).contains(List.of("user_id")), recommendations(all).toString());
+
+        ScanReport capped = audit(ScanOptions.builder().maxViolations(1).build());
+        assertTrue(capped.isLimitReached());
+        assertTrue(capped.getViolations().size() <= 1);
+        assertTrue(capped.getNotices().stream().anyMatch(n -> n.contains("上限 1，")));
+
+        // 表结构中已有的索引不再建议
+        SchemaCatalog.Builder catalog = SchemaCatalog.builder();
+        catalog.addStatement("CREATE TABLE t_order (id bigint PRIMARY KEY, user_id bigint)");
+        catalog.addStatement("CREATE INDEX idx_order_user ON t_order (user_id)");
+        ScanReport withSchema = audit(ScanOptions.builder().schemaCatalog(catalog.build()).build());
+        assertFalse(recommendations(withSchema).contains(List.of("user_id")));
+    }
+
+    @Test
+    void shouldReadGzippedStatisticsCsvWithQuotedMultiLineQuery() throws Exception {
+        String csv = """
+                queryid,calls,total_exec_time,max_exec_time,query
+                1,5,10.0,4.0,"SELECT id
+                  FROM t_user WHERE name = ""a""\"
+                2,1000,500.0,2.5,DELETE FROM t_log
+                """;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ScanReport report = logAuditService.audit(new ByteArrayInputStream(bytes.toByteArray()),
+                "pg_stat_statements.csv.gz", LogFormat.AUTO);
+
+        assertEquals(2, report.getTotalStatements());
+        StatementStats top = report.getViolations().get(0).getSqlFragment().getRuntimeStats();
+        assertEquals(1000, top.getExecutions());
+        assertTrue(report.getViolations().stream()
+                .anyMatch(v -> v.getSqlFragment().getSqlText().equals("SELECT id\n  FROM t_user WHERE name = \"a\"")));
+        assertThrows(IllegalArgumentException.class, () -> LogFormat.of("xml"));
+    }
+
+    private ScanReport audit(ScanOptions options) throws Exception {
+        return logAuditService.audit(new ByteArrayInputStream(TEXT_LOG.getBytes(StandardCharsets.UTF_8)),
+                "postgresql.log", LogFormat.AUTO, options);
+    }
+
+    private static List<List<String>> recommendations(ScanReport report) {
+        return report.getIndexAdvice().getRecommendations().stream().map(IndexAdvice.Recommendation::getColumns)
+                .toList();
+    }
+}
@@ -0,0 +1,96 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportStoreTest {
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    void shouldKeepReportsSeparatedById() {
+        ReportStore store = new ReportStore(64, "", 10);
+        ScanReport first = report("a", 3);
+        ScanReport second = report("b", 5);
+
+        String firstId = store.put(first).reportId();
+        String secondId = store.put(second).reportId();
+
+        assertNotEquals(firstId, secondId);
+        assertSame(first, store.getReport(firstId).orElseThrow());
+        assertSame(second, store.getReport(secondId).orElseThrow());
+        assertEquals(5, store.get(secondId).orElseThrow().index().size());
+        assertTrue(store.get("../../etc/passwd").isEmpty());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedAndReloadFromSpill() throws Exception {
+        // 1 MB 预算，每份报告列式存储后约 350 KB，只能同时容纳两份
+        ReportStore store = new ReportStore(1, spillDir.toString(), 10);
+        ScanReport first = report("a", 1200);
+        String firstId = store.put(first).reportId();
+        String secondId = store.put(report("b", 1200)).reportId();
+        // 访问第一份，使第二份成为最久未使用
+        store.get(firstId);
+        store.put(report("c", 1200));
+
+        assertTrue(Files.exists(spillDir.resolve(secondId + ".sqar")));
+        assertFalse(Files.exists(spillDir.resolve(firstId + ".sqar")));
+        assertSame(first, store.getReport(firstId).orElseThrow());
+
+        ScanReport reloaded = store.getReport(secondId).orElseThrow();
+        ScanReport expected = report("b", 1200);
+        expected.setReportId(secondId);
+        assertEquals(expected.getViolations(), reloaded.getViolations());
+        assertEquals(expected, reloaded);
+    }
+
+    @Test
+    void shouldDropEvictedReportsWithoutSpillDir() {
+        ReportStore store = new ReportStore(1, "", 10);
+        String firstId = store.put(report("a", 1200)).reportId();
+        store.put(report("b", 1200));
+        store.put(report("c", 1200));
+
+        assertTrue(store.get(firstId).isEmpty());
+    }
+
+    private static ScanReport report(String name, int violationCount) {
+        AuditRule rule = AuditRule.builder().id("OG_3_4_1").name("禁止 SELECT *")
+                .severity(AuditRule.Severity.ERROR).type(AuditRule.RuleType.REGEX).build();
+        List<Violation> violations = new ArrayList<>();
+        for (int i = 0; i < violationCount; i++) {
+            SqlFragment fragment = SqlFragment.builder().relativePath(name + "/Mapper" + (i % 7) + ".xml")
+                    .statementId("find" + i).statementType("select").lineNumber(i)
+                    .sqlText("SELECT * FROM t_" + name + " WHERE id = " + i).namespace("com.demo." + name)
+                    .build();
+            violations.add(Violation.builder().rule(rule).sqlFragment(fragment)
+                    .message("查询语句中禁止使用 SELECT * " + "x".repeat(100)).matchedText("SELECT *").build());
+        }
+        return ScanReport.builder()
+                .repoPath("/repo/" + name)
+                .scanTime(LocalDateTime.of(2026, 1, 1, 10, 0))
+                .totalFiles(7)
+                .totalStatements(violationCount)
+                .totalViolations(violationCount)
+                .errorCount(violationCount)
+                .violations(violations)
+                .scannedFiles(List.of(name + "/Mapper0.xml"))
+                .notices(List.of())
+                .baselineSuppressed(2)
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.model.AuditRule.RuleType;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RulePackStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger parses = new AtomicInteger();
+    private final WordRuleParser countingParser = new WordRuleParser() {
+        @Override
+        public List<AuditRule> parse(InputStream inputStream) {
+            parses.incrementAndGet();
+            return super.parse(inputStream);
+        }
+    };
+
+    @Test
+    void shouldReuseCachedPackAndRestoreAfterRestart() throws Exception {
+        byte[] docx = docx("1. 禁止使用 select * 查询", "2. 【错误】禁止使用 'NOLOGGING' 关键字");
+        RuleService ruleService = new RuleService(BuiltInCheckers.all(), countingParser);
+        RulePackStore store = new RulePackStore(ruleService, countingParser, dir.toString(), 10);
+
+        RulePackStore.ImportResult first = store.importDocument(docx, "规范.docx");
+        assertFalse(first.cached());
+        assertEquals(2, first.pack().rules().size());
+        assertEquals(1, first.pack().patterns().size());
+        assertEquals(64, first.pack().id().length());
+        assertTrue(Files.isRegularFile(dir.resolve(first.pack().id() + ".pack")));
+
+        RulePackStore.ImportResult second = store.importDocument(docx, "规范-副本.docx");
+        assertTrue(second.cached());
+        assertEquals(1, parses.get());
+
+        // 重启：新的服务实例从目录载入规则包并恢复启用状态，不解析文档
+        RuleService restarted = new RuleService(BuiltInCheckers.all(), countingParser);
+        RulePackStore reloaded = new RulePackStore(restarted, countingParser, dir.toString(), 10);
+        assertEquals(1, parses.get());
+        assertEquals(first.pack().id(), reloaded.activeId().orElseThrow());
+        assertEquals(first.pack().rules(), restarted.getCustomRules());
+        assertTrue(restarted.getCustomRules().stream().anyMatch(r -> r.getType() == RuleType.REGEX));
+        assertTrue(restarted.checkSql(fragment("CREATE TABLE t (id int) nologging")).stream()
+                .anyMatch(v -> v.getRule().getType() == RuleType.REGEX));
+
+        reloaded.deactivate();
+        assertTrue(restarted.getCustomRules().isEmpty());
+        RuleService third = new RuleService(BuiltInCheckers.all(), countingParser);
+        new RulePackStore(third, countingParser, dir.toString(), 10);
+        assertTrue(third.getCustomRules().isEmpty());
+
+        assertTrue(reloaded.activate(first.pack().id()).isPresent());
+        assertFalse(restarted.getCustomRules().isEmpty());
+        assertTrue(reloaded.delete(first.pack().id()));
+        assertTrue(restarted.getCustomRules().isEmpty());
+        assertFalse(Files.exists(dir.resolve(first.pack().id() + ".pack")));
+    }
+
+    @Test
+    void shouldKeepNewlyImportedPackWhenEvicting() throws Exception {
+        byte[] first = docx("1. 禁止使用 select * 查询");
+        byte[] second = docx("1. 【错误】禁止使用 'NOLOGGING' 关键字");
+        RuleService ruleService = new RuleService(BuiltInCheckers.all(), countingParser);
+        RulePackStore store = new RulePackStore(ruleService, countingParser, dir.toString(), 1);
+
+        String firstId = store.importDocument(first, "a.docx").pack().id();
+        RulePackStore.RulePack imported = store.importDocument(second, "b.docx").pack();
+
+        // 上限为 1 且已有启用的规则包时，淘汰的是原先启用的规则包而不是刚导入的
+        assertEquals(imported.id(), store.activeId().orElseThrow());
+        assertEquals(List.of(imported.id()), store.list().stream().map(RulePackStore.RulePack::id).toList());
+        assertEquals(imported.rules(), ruleService.getCustomRules());
+        assertTrue(Files.isRegularFile(dir.resolve(imported.id() + ".pack")));
+        assertFalse(Files.exists(dir.resolve(firstId + ".pack")));
+
+        RuleService restarted = new RuleService(BuiltInCheckers.all(), countingParser);
+        RulePackStore reloaded = new RulePackStore(restarted, countingParser, dir.toString(), 1);
+        assertEquals(imported.id(), reloaded.activeId().orElseThrow());
+        assertEquals(imported.rules(), restarted.getCustomRules());
+    }
+
+    private static SqlFragment fragment(String sql) {
+        return SqlFragment.builder()
+                .sqlText(sql)
+                .statementType("CREATE")
+                .statementId("ddl")
+                .namespace("test")
+                .relativePath("test.sql")
+                .lineNumber(1)
+                .build();
+    }
+
+    private static byte[] docx(String... paragraphs) throws Exception {
+        try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (String text : paragraphs) {
+                document.createParagraph().createRun().setText(text);
+            }
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
+}
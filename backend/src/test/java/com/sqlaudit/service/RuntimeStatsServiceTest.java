@@ -0,0 +1,111 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.ScanOptions;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.StatementStats;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.MyBatisMapperParser;
+import com.sqlaudit.parser.SqlLogParser;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.report.ReportIndex;
+import com.sqlaudit.report.ReportIndex.SortKey;
+import com.sqlaudit.report.ReportIndex.ViolationFilter;
+import com.sqlaudit.report.RuntimeStatsIndex;
+import com.sqlaudit.report.ViolationFingerprint;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuntimeStatsServiceTest {
+
+    private static final String SNAPSHOT = """
+            userid,dbid,query,calls,total_exec_time,max_exec_time,rows
+            10,1,SELECT * FROM t_user,40000,120000.5,80.0,4000000
+            10,2,select *  from T_USER;,2000,500.0,3.0,200000
+            10,1,"SELECT id, username, email FROM t_user WHERE phone = $1",300,90.0,1.5,300
+            10,1,DELETE FROM t_user WHERE id = $1,5,1.0,0.5,5
+            10,1,"SELECT id FROM t_order WHERE user_id IN ($1, $2, $3)",7,2.0,1.0,21
+            """;
+
+    private final RuntimeStatsService runtimeStatsService = new RuntimeStatsService(new SqlLogParser());
+
+    @Test
+    void shouldMatchByShapeThenBySimilarity() {
+        RuntimeStatsIndex index = RuntimeStatsIndex.builder()
+                .add("SELECT id FROM t_order WHERE user_id IN ($1, $2, $3)", 7, 2.0, 1.0, 21)
+                .add("SELECT id, username, email FROM t_user WHERE phone = $1", 300, 90.0, 1.5, 300)
+                .build();
+
+        StatementStats exact = index.match("select id from t_order\n where user_id in (?, ?)");
+        assertNotNull(exact);
+        assertEquals(1.0, exact.getMatchScore());
+        assertEquals(7, exact.getExecutions());
+
+        StatementStats similar = index.match("SELECT id, username, email FROM t_user WHERE ${column} = #{value}");
+        assertNotNull(similar);
+        assertTrue(similar.getMatchScore() >= 0.7 && similar.getMatchScore() < 1.0);
+        assertNull(index.match("DELETE FROM t_user"));
+    }
+
+    @Test
+    void shouldAnnotateScannedViolationsAndSortByImpact() throws Exception {
+        ScanService scanService = new ScanService(new MyBatisMapperParser(), new SqlScriptParser(),
+                new RuleService(BuiltInCheckers.all(), new WordRuleParser()));
+        ScanReport report = scanService.scan("src/test/resources/test-mapper", ScanOptions.builder().build());
+        RuntimeStatsService.Snapshot snapshot = runtimeStatsService.importSnapshot(
+                new ByteArrayInputStream(SNAPSHOT.getBytes(StandardCharsets.UTF_8)), "pg_stat_statements.csv");
+        assertEquals(4, snapshot.statements());
+        assertEquals(42312, snapshot.totalCalls());
+
+        runtimeStatsService.annotate(report);
+
+        List<Violation> top = ReportIndex.build(report.getViolations())
+                .query(ViolationFilter.none(), SortKey.IMPACT, null, 50).items();
+        StatementStats hottest = top.get(0).getSqlFragment().getRuntimeStats();
+        assertEquals("findAll", top.get(0).getSqlFragment().getStatementId());
+        assertEquals(42000, hottest.getExecutions());
+        assertEquals(4200000, hottest.getRows());
+        assertTrue(report.getViolations().stream()
+                .filter(v -> "deleteAll".equals(v.getSqlFragment().getStatementId()))
+                .allMatch(v -> v.getSqlFragment().getRuntimeStats() == null));
+        assertTrue(report.getNotices().stream().anyMatch(n -> n.contains("pg_stat_statements.csv")));
+    }
+
+    @Test
+    void shouldApplyScanOptionsToUploadedScripts() throws Exception {
+        ScanService scanService = new ScanService(new MyBatisMapperParser(), new SqlScriptParser(),
+                new RuleService(BuiltInCheckers.all(), new WordRuleParser()));
+        String script = """
+                SELECT * FROM t_user;
+                SELECT id, username, email FROM t_user WHERE phone = '138';
+                DELETE FROM t_user;
+                SELECT id FROM t_order WHERE user_id IN (1, 2, 3);
+                """;
+        ScanReport all = scanService.scanSqlContent(script, "upload.sql", List.of());
+        assertTrue(all.getViolations().size() > 2);
+        assertFalse(all.getIndexAdvice().isWeightedByExecutions());
+
+        ScanReport capped = scanService.scanSqlContent(script, "upload.sql", List.of(),
+                ScanOptions.builder().maxViolations(2).build());
+        assertEquals(2, capped.getViolations().size());
+        assertTrue(capped.isLimitReached());
+
+        ScanReport suppressed = scanService.scanSqlContent(script, "upload.sql", List.of(), ScanOptions.builder()
+                .baselineFingerprints(Set.of(ViolationFingerprint.of(all.getViolations().get(0)))).build());
+        assertEquals(1, suppressed.getBaselineSuppressed());
+        assertEquals(all.getViolations().size() - 1, suppressed.getViolations().size());
+
+        RuntimeStatsService.Snapshot snapshot = runtimeStatsService.importSnapshot(
+                new ByteArrayInputStream(SNAPSHOT.getBytes(StandardCharsets.UTF_8)), "pg_stat_statements.csv");
+        ScanReport weighted = scanService.scanSqlContent(script, "upload.sql", List.of(),
+                ScanOptions.builder().runtimeStats(snapshot.index()).build());
+        assertTrue(weighted.getIndexAdvice().isWeightedByExecutions());
+    }
+}
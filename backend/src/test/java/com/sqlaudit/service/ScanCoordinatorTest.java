@@ -0,0 +1,317 @@
+package com.sqlaudit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sqlaudit.SqlAuditApplication;
+import com.sqlaudit.model.ScanOptions;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.ShardRequest;
+import com.sqlaudit.report.ViolationFingerprint;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * worker 为随机端口启动的完整应用（真实的 ShardController 与调度器），协调节点与其共用同一套规则
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "sql-audit.history.dir=",
+        "sql-audit.rule-packs.dir=",
+        "sql-audit.scan.max-concurrent=1",
+        "sql-audit.scan.queue-capacity=1"
+})
+class ScanCoordinatorTest {
+
+    @TempDir
+    Path repo;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ScanService scanService;
+
+    @Autowired
+    ScanScheduler scanScheduler;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final CountDownLatch stalled = new CountDownLatch(1);
+
+    @AfterEach
+    void stopWorkers() {
+        stalled.countDown();
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void shouldPartitionBySizeKeepingFileOrder() {
+        long[] sizes = {10, 400, 30, 250, 250, 20, 90, 60, 300};
+        List<ScanCoordinator.Shard> shards = ScanCoordinator.partition(sizes, 3);
+        assertEquals(3, shards.size());
+        long[] totals = shards.stream().mapToLong(ScanCoordinator.Shard::bytes).toArray();
+        assertTrue(Arrays.stream(totals).max().orElseThrow() - Arrays.stream(totals).min().orElseThrow() <= 60,
+                Arrays.toString(totals));
+        for (ScanCoordinator.Shard shard : shards) {
+            assertArrayEquals(IntStream.of(shard.files()).sorted().toArray(), shard.files());
+        }
+        assertEquals(IntStream.range(0, sizes.length).boxed().collect(Collectors.toSet()),
+                shards.stream().flatMapToInt(s -> IntStream.of(s.files())).boxed().collect(Collectors.toSet()));
+        assertEquals(2, ScanCoordinator.partition(new long[] {5, 5}, 8).size());
+    }
+
+    @Test
+    void shouldMergeShardsExactlyAndReassignFailedWorkers() throws Exception {
+        createRepo(12);
+        ScanService.ScanPlan plan = scanService.plan(repo.toString());
+        ScanReport all = scanService.scan(plan, ScanOptions.builder().maxViolations(100_000).build());
+        // 基线覆盖一部分违规，验证抑制计数在截断前后与单机扫描一致
+        Set<String> baseline = all.getViolations().stream().limit(40)
+                .map(ViolationFingerprint::of).collect(Collectors.toSet());
+
+        AtomicInteger stalledCalls = new AtomicInteger();
+        String workers = String.join(",", localWorker(), unusedAddress(), stalledWorker(stalledCalls));
+        ScanCoordinator coordinator = new ScanCoordinator(scanService, objectMapper, workers, 3, 2, 30, 1);
+
+        for (ScanOptions options : List.of(
+                ScanOptions.builder().maxViolations(100_000).build(),
+                ScanOptions.builder().maxViolations(25).build(),
+                ScanOptions.builder().maxViolations(30).baselineFingerprints(baseline).build())) {
+            ScanReport local = scanService.scan(plan, options);
+            ScanReport merged = coordinator.scan(plan, options);
+            assertEquals(local.getViolations(), merged.getViolations());
+            assertEquals(local.getTotalStatements(), merged.getTotalStatements());
+            assertEquals(local.getErrorCount(), merged.getErrorCount());
+            assertEquals(local.getWarningCount(), merged.getWarningCount());
+            assertEquals(local.getInfoCount(), merged.getInfoCount());
+            assertEquals(local.isLimitReached(), merged.isLimitReached());
+            assertEquals(local.getBaselineSuppressed(), merged.getBaselineSuppressed());
+            assertEquals(local.getScannedFiles(), merged.getScannedFiles());
+            assertEquals(local.getIndexAdvice(), merged.getIndexAdvice());
+            assertEquals(local.getUsageIndex().tables(), merged.getUsageIndex().tables());
+            assertTrue(merged.getNotices().stream().anyMatch(n -> n.contains("重新分配")));
+        }
+        // 卡住的 worker 已发出响应头，只能靠结果流的空闲超时放弃
+        assertTrue(stalledCalls.get() > 0);
+        coordinator.shutdown();
+    }
+
+    @Test
+    void shouldScanLocallyWhenAllWorkersFail() throws Exception {
+        createRepo(4);
+        ScanService.ScanPlan plan = scanService.plan(repo.toString());
+        ScanCoordinator coordinator = new ScanCoordinator(scanService, objectMapper,
+                unusedAddress() + "," + stalledWorker(new AtomicInteger()), 2, 3, 30, 1);
+        ScanReport merged = coordinator.scan(plan, ScanOptions.defaults());
+        assertEquals(scanService.scan(plan, ScanOptions.defaults()).getViolations(), merged.getViolations());
+        assertTrue(merged.getNotices().stream().anyMatch(n -> n.contains("由协调节点自行扫描")));
+        coordinator.shutdown();
+    }
+
+    @Test
+    void shouldRequeueShardsWhileWorkerIsBusy() throws Exception {
+        createRepo(6);
+        ScanService.ScanPlan plan = scanService.plan(repo.toString());
+        ScanReport local = scanService.scan(plan, ScanOptions.defaults());
+
+        // 前两次请求返回 429，之后转发给真实 worker；只允许一次尝试，429 计入失败时分片会留给协调节点
+        AtomicInteger calls = new AtomicInteger();
+        ScanCoordinator coordinator = new ScanCoordinator(scanService, objectMapper, busyWorker(calls, 2),
+                3, 1, 30, 30);
+        ScanReport merged = coordinator.scan(plan, ScanOptions.defaults());
+        assertEquals(local.getViolations(), merged.getViolations());
+        assertTrue(calls.get() > 2);
+        assertTrue(merged.getNotices().stream().noneMatch(n -> n.contains("由协调节点自行扫描")),
+                merged.getNotices().toString());
+
+        // 一直繁忙的 worker 超过 shard-timeout 后不再使用
+        String alwaysBusy = busyWorker(new AtomicInteger(), Integer.MAX_VALUE);
+        ScanCoordinator busyCoordinator = new ScanCoordinator(scanService, objectMapper, alwaysBusy, 3, 1, 1, 30);
+        merged = busyCoordinator.scan(plan, ScanOptions.defaults());
+        assertEquals(local.getViolations(), merged.getViolations());
+        assertTrue(merged.getNotices().stream().anyMatch(n -> n.contains(alwaysBusy) && n.contains("繁忙")),
+                merged.getNotices().toString());
+        coordinator.shutdown();
+        busyCoordinator.shutdown();
+    }
+
+    @Test
+    void shouldSkipWorkersWithDifferentConfiguration(@TempDir Path schemaDir) throws Exception {
+        createRepo(6);
+        Path ddl = Files.writeString(schemaDir.resolve("schema.sql"),
+                "CREATE TABLE t_user (id BIGINT PRIMARY KEY, name VARCHAR(64));");
+        try (ConfigurableApplicationContext other = new SpringApplicationBuilder(SqlAuditApplication.class)
+                .run("--server.port=0", "--sql-audit.history.dir=", "--sql-audit.rule-packs.dir=",
+                        "--sql-audit.schema.ddl-path=" + ddl)) {
+            assertNotEquals(scanService.ruleFingerprint(), other.getBean(ScanService.class).ruleFingerprint());
+            String mismatched = "http://127.0.0.1:" + other.getEnvironment().getProperty("local.server.port");
+            ScanService.ScanPlan plan = scanService.plan(repo.toString());
+            ScanCoordinator coordinator = new ScanCoordinator(scanService, objectMapper, mismatched, 3, 3, 30, 30);
+            ScanReport merged = coordinator.scan(plan, ScanOptions.defaults());
+            assertEquals(scanService.scan(plan, ScanOptions.defaults()).getViolations(), merged.getViolations());
+            assertTrue(merged.getNotices().stream().anyMatch(n -> n.contains(mismatched) && n.contains("不一致")),
+                    merged.getNotices().toString());
+            assertTrue(merged.getNotices().stream().anyMatch(n -> n.contains("由协调节点自行扫描")));
+            coordinator.shutdown();
+        }
+    }
+
+    @Test
+    void shouldAdmitShardsThroughSchedulerAndCheckFingerprint() throws Exception {
+        createRepo(2);
+        ScanService.ScanPlan plan = scanService.plan(repo.toString());
+        List<String> files = plan.mapperFiles().stream()
+                .map(f -> plan.repoRoot().relativize(f.toPath()).toString()).toList();
+        ShardRequest request = ShardRequest.builder()
+                .repoRoot(plan.repoRoot().toString())
+                .files(files)
+                .maxViolations(1000)
+                .ruleFingerprint("other")
+                .build();
+        assertEquals(409, postShard(request));
+
+        request.setRuleFingerprint(scanService.ruleFingerprint());
+        assertEquals(200, postShard(request));
+
+        // 占满调度器（一个执行中，其余排队）后分片请求被拒绝
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Object>> blockers = new ArrayList<>();
+        try {
+            while (true) {
+                try {
+                    blockers.add(scanScheduler.submit(0, 0, () -> {
+                        running.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return null;
+                    }));
+                } catch (ScanRejectedException e) {
+                    break;
+                }
+                running.await();
+            }
+            assertEquals(429, postShard(request));
+        } finally {
+            release.countDown();
+        }
+        CompletableFuture.allOf(blockers.toArray(CompletableFuture[]::new)).join();
+        assertEquals(200, postShard(request));
+    }
+
+    private int postShard(ShardRequest request) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(localWorker() + "/api/shard/scan"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(request)))
+                    .build();
+            return client.send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+    }
+
+    private String localWorker() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    /**
+     * 发出响应头后不再写任何数据的 worker，模拟执行中卡住的进程
+     */
+    private String stalledWorker(AtomicInteger calls) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/shard/scan", exchange -> {
+            calls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().flush();
+            try {
+                stalled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * 前 busyCalls 次请求返回 429（Retry-After: 1），之后把请求转发给本测试的 worker
+     */
+    private String busyWorker(AtomicInteger calls, int busyCalls) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/shard/scan", exchange -> {
+            byte[] request = exchange.getRequestBody().readAllBytes();
+            if (calls.incrementAndGet() <= busyCalls) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1);
+                exchange.close();
+                return;
+            }
+            try (HttpClient client = HttpClient.newHttpClient()) {
+                HttpResponse<byte[]> response = client.send(
+                        HttpRequest.newBuilder(URI.create(localWorker() + "/api/shard/scan"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofByteArray(request))
+                                .build(),
+                        HttpResponse.BodyHandlers.ofByteArray());
+                exchange.sendResponseHeaders(response.statusCode(), response.body().length);
+                exchange.getResponseBody().write(response.body());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static String unusedAddress() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "http://127.0.0.1:" + socket.getLocalPort();
+        }
+    }
+
+    private void createRepo(int files) throws IOException {
+        String mapper = Files.readString(Path.of("src/test/resources/test-mapper/UserMapper.xml"));
+        for (int i = 0; i < files; i++) {
+            Path dir = Files.createDirectories(repo.resolve("module" + i % 3).resolve("mapper"));
+            // 不同大小的文件，使分片按大小切分时文件顺序被打乱
+            Files.writeString(dir.resolve("Mapper" + i + ".xml"), mapper.replace("</mapper>",
+                    "<!-- " + "x".repeat(i * 500) + " -->\n</mapper>"));
+        }
+    }
+}
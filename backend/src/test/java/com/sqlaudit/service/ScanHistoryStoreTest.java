@@ -0,0 +1,103 @@
+package com.sqlaudit.service;
+
+import com.sqlaudit.model.ScanOptions;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.parser.MyBatisMapperParser;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.report.HistorySegment;
+import com.sqlaudit.report.HistorySegment.Header;
+import com.sqlaudit.report.HistorySegment.RuleCount;
+import com.sqlaudit.report.ViolationTable;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanHistoryStoreTest {
+
+    @TempDir
+    Path historyDir;
+
+    private final ScanService scanService = new ScanService(new MyBatisMapperParser(), new SqlScriptParser(),
+            new RuleService(BuiltInCheckers.all(), new WordRuleParser()));
+
+    @Test
+    void shouldSurviveRestartAndRestoreFullReport() throws Exception {
+        ScanReport report = scan(LocalDateTime.now());
+        new ScanHistoryStore(historyDir.toString(), 10, 90).record(report);
+
+        // 模拟重启：新实例只读取头部
+        ScanHistoryStore restarted = new ScanHistoryStore(historyDir.toString(), 10, 90);
+        Header header = restarted.header(report.getReportId()).orElseThrow();
+        assertEquals(report.getRepoPath(), header.repoPath());
+        assertEquals(report.getErrorCount(), header.errorCount());
+        assertEquals(report.getTotalViolations(), header.totalViolations());
+        assertEquals(List.of(header), restarted.list(7, report.getRepoPath()));
+        assertTrue(restarted.list(0, "/other/repo").isEmpty());
+
+        HistorySegment segment = restarted.open(report.getReportId()).orElseThrow();
+        List<RuleCount> counts = segment.ruleCounts();
+        assertEquals(report.getTotalViolations(), counts.stream().mapToInt(RuleCount::count).sum());
+        assertEquals(report.getViolations().stream().filter(v -> v.getRule().getId().equals(counts.get(0).ruleId()))
+                .count(), counts.get(0).count());
+
+        ScanReport restored = segment.toReport();
+        assertInstanceOf(ViolationTable.class, restored.getViolations());
+        assertEquals(report.getUsageIndex().tables(), restored.getUsageIndex().tables());
+        assertEquals(report.getNearDuplicates().statementCount(), restored.getNearDuplicates().statementCount());
+        // 用法索引、近似重复簇按实例比较，上面已比较内容
+        restored.setUsageIndex(report.getUsageIndex());
+        restored.setNearDuplicates(report.getNearDuplicates());
+        assertEquals(report, restored);
+
+        ReportStore reportStore = new ReportStore(64, "", 10);
+        assertSame(restored, reportStore.restore(restored).report());
+        assertEquals(report.getTotalViolations(), reportStore.get(report.getReportId()).orElseThrow().index().size());
+    }
+
+    @Test
+    void shouldApplyRetentionAndReportTrendFromHeaders() throws Exception {
+        ScanHistoryStore store = new ScanHistoryStore(historyDir.toString(), 3, 30);
+        LocalDateTime now = LocalDateTime.now();
+        ScanReport expired = scan(now.minusDays(40));
+        store.record(expired);
+        assertTrue(store.header(expired.getReportId()).isEmpty());
+        assertFalse(Files.exists(historyDir.resolve(expired.getReportId() + ".sqah")));
+
+        ScanReport[] reports = new ScanReport[4];
+        for (int i = 0; i < reports.length; i++) {
+            reports[i] = scan(now.minusDays(4 - i));
+            reports[i].setErrorCount(i);
+            store.record(reports[i]);
+        }
+        // 超过 3 条上限，最早的一条被删除
+        assertTrue(store.open(reports[0].getReportId()).isEmpty());
+        List<ScanHistoryStore.TrendPoint> trend = store.trend(90, null);
+        assertEquals(List.of(1, 2, 3), trend.stream().map(ScanHistoryStore.TrendPoint::errorCount).toList());
+        assertEquals(List.of(3, 2), store.list(3, null).stream().map(Header::errorCount).toList());
+
+        assertTrue(store.delete(reports[3].getReportId()));
+        assertFalse(store.delete(reports[3].getReportId()));
+        assertTrue(store.open("../../etc/passwd").isEmpty());
+
+        Files.writeString(historyDir.resolve(UUID.randomUUID() + ".sqah"), "not a segment");
+        assertEquals(2, new ScanHistoryStore(historyDir.toString(), 3, 30).list(0, null).size());
+        assertThrows(IOException.class, () -> HistorySegment.readHeader(historyDir.resolve("missing.sqah")));
+    }
+
+    private ScanReport scan(LocalDateTime scanTime) {
+        ScanReport report = scanService.scan("src/test/resources/test-mapper", ScanOptions.defaults());
+        report.setReportId(UUID.randomUUID().toString());
+        report.setScanTime(scanTime);
+        return report;
+    }
+}
@@ -0,0 +1,67 @@
+package com.sqlaudit.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanSchedulerTest {
+
+    @Test
+    void shouldRejectWhenConcurrencyAndQueueAreFull() throws Exception {
+        ScanScheduler scheduler = new ScanScheduler(1, 1, 1.0);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<String> running = scheduler.submit(1, 0, () -> {
+                await(release);
+                return "first";
+            });
+            CompletableFuture<String> queued = scheduler.submit(1, 0, () -> "second");
+
+            ScanRejectedException rejected = assertThrows(ScanRejectedException.class,
+                    () -> scheduler.submit(1, 0, () -> "third"));
+            assertTrue(rejected.getRetryAfterSeconds() >= 1);
+
+            release.countDown();
+            assertEquals("first", running.get(5, TimeUnit.SECONDS));
+            assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+            // 槽位释放后可以再次提交
+            assertEquals("fourth", scheduler.submit(1, 0, () -> "fourth").get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRejectByEstimatedMemoryOnlyWhenOtherScansAreRunning() throws Exception {
+        ScanScheduler scheduler = new ScanScheduler(4, 4, 0.5);
+        CountDownLatch release = new CountDownLatch(1);
+        long huge = Runtime.getRuntime().maxMemory();
+        try {
+            // 空闲时即使预估超出预算也放行
+            CompletableFuture<String> running = scheduler.submit(1, huge, () -> {
+                await(release);
+                return "huge";
+            });
+            assertThrows(ScanRejectedException.class, () -> scheduler.submit(1, 1024, () -> "small"));
+
+            release.countDown();
+            assertEquals("huge", running.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            scheduler.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -316,6 +316,8 @@ function renderResults() {
                         <div class="results-actions">
                             <button class="btn btn-sm btn-ghost" id="exportMarkdownBtn">📄 导出 Markdown</button>
                             <button class="btn btn-sm btn-ghost" id="exportJsonBtn">🧾 导出 JSON</button>
+                            <button class="btn btn-sm btn-ghost" id="exportSarifBtn">🛡️ 导出 SARIF</button>
+                            <button class="btn btn-sm btn-ghost" id="exportExcelBtn">📊 导出 Excel</button>
                             <button class="btn btn-sm btn-ghost" id="clearResultsBtn">🗑️ 清除</button>
                         </div>
                     </div>
@@ -700,6 +702,18 @@ function bindEvents() {
         exportJsonBtn.addEventListener('click', handleExportJson);
     }
 
+    // Export SARIF button
+    const exportSarifBtn = document.getElementById('exportSarifBtn');
+    if (exportSarifBtn) {
+        exportSarifBtn.addEventListener('click', () => handleBackendOnlyExport('sarif', 'SARIF'));
+    }
+
+    // Export Excel button
+    const exportExcelBtn = document.getElementById('exportExcelBtn');
+    if (exportExcelBtn) {
+        exportExcelBtn.addEventListener('click', () => handleBackendOnlyExport('xlsx', 'Excel'));
+    }
+
     // SQL file upload
     const sqlUploadZone = document.getElementById('sqlUploadZone');
     const sqlFileInput = document.getElementById('sqlFileInput');
@@ -834,11 +848,14 @@ function extractFilenameFromDisposition(disposition) {
 }
 
 async function downloadExportFromBackend(format, report) {
-    const res = await fetch(`/api/report/export/${format}`, {
-        method: 'POST',
-        headers: { 'Content-Type': 'application/json' },
-        body: JSON.stringify(report || {})
-    });
+    // 服务端保存的报告按 ID 下载，无需回传整份报告；导入的历史报告仍以请求体提交
+    const res = report?.reportId
+        ? await fetch(`/api/report/export/${format}?reportId=${encodeURIComponent(report.reportId)}`)
+        : await fetch(`/api/report/export/${format}`, {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify(report || {})
+        });
 
     if (!res.ok) {
         let message = `导出失败（${res.status}）`;
@@ -855,7 +872,7 @@ async function downloadExportFromBackend(format, report) {
 
     const blob = await res.blob();
     const disposition = res.headers.get('content-disposition');
-    const fallbackExt = format === 'json' ? 'json' : 'md';
+    const fallbackExt = { json: 'json', markdown: 'md', sarif: 'sarif', xlsx: 'xlsx' }[format] || format;
     const filename = extractFilenameFromDisposition(disposition) || `sql-audit-report-${Date.now()}.${fallbackExt}`;
     downloadFile(blob, filename, blob.type);
 }
@@ -966,6 +983,23 @@ function handleExportJson() {
         });
 }
 
+function handleBackendOnlyExport(format, label) {
+    const report = state.scanReport;
+    if (!report) {
+        showToast('暂无可导出的审查结果', 'error');
+        return;
+    }
+
+    downloadExportFromBackend(format, report)
+        .then(() => {
+            showToast(`${label} 报告导出成功`);
+        })
+        .catch((err) => {
+            console.error(`后端导出 ${label} 失败`, err);
+            showToast(err.message || '导出失败，请稍后重试', 'error');
+        });
+}
+
 async function handleSqlFileScan(file) {
     if (file.size > 10 * 1024 * 1024) {
         showToast('文件大小不能超过 10MB', 'error');
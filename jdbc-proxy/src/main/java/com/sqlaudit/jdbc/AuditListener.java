@@ -0,0 +1,41 @@
+package com.sqlaudit.jdbc;
+
+import com.sqlaudit.model.Violation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * 运行时 SQL 审查结果回调；在审查线程中调用，实现不应长时间阻塞
+ */
+@FunctionalInterface
+public interface AuditListener {
+
+    void onAudit(AuditedStatement statement);
+
+    /**
+     * 默认实现：存在违规时以 WARN 级别输出日志
+     */
+    static AuditListener logging() {
+        Logger log = LoggerFactory.getLogger(AuditListener.class);
+        return statement -> {
+            if (statement.violations().isEmpty()) {
+                return;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (Violation v : statement.violations()) {
+                sb.append("\n  [").append(v.getRule().getSeverity()).append("] ")
+                        .append(v.getRule().getId()).append(' ').append(v.getMessage());
+            }
+            log.warn("运行时 SQL 审查发现 {} 条违规, 指纹 {}: {}{}", statement.violations().size(),
+                    statement.fingerprint(), statement.sql(), sb);
+        };
+    }
+
+    /**
+     * 一个指纹的审查结果（每个指纹只审查一次，sql 为首次捕获到的原文）
+     */
+    record AuditedStatement(String fingerprint, String sql, String statementType, List<Violation> violations) {
+    }
+}
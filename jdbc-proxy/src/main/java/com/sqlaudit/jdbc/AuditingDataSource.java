@@ -0,0 +1,172 @@
+package com.sqlaudit.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * 审查用 DataSource 包装：捕获 {@code prepareStatement / prepareCall} 与 {@code Statement.execute* / addBatch}
+ * 传入的 SQL 交给 {@link SqlAuditCollector}，其余调用原样转发给被包装的 DataSource
+ * <p>
+ * Connection 与 Statement / PreparedStatement / CallableStatement 通过 JDK 动态代理包装，业务线程上的额外开销
+ * 只有一次反射转发和一次 {@link SqlAuditCollector#capture(String)}。PreparedStatement 在创建时已捕获 SQL，
+ * 代理只负责让 {@code getConnection()} 返回包装后的 Connection。
+ */
+public class AuditingDataSource implements DataSource {
+
+    private final DataSource delegate;
+    private final SqlAuditCollector collector;
+
+    public AuditingDataSource(DataSource delegate, SqlAuditCollector collector) {
+        this.delegate = delegate;
+        this.collector = collector;
+    }
+
+    public SqlAuditCollector getCollector() {
+        return collector;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(delegate.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(delegate.getConnection(username, password));
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(AuditingDataSource.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+    }
+
+    private Statement wrapStatement(Statement statement, Class<? extends Statement> type, Connection connection) {
+        return (Statement) Proxy.newProxyInstance(AuditingDataSource.class.getClassLoader(),
+                new Class<?>[] { type }, new StatementHandler(statement, connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 代理对象自身的 equals / hashCode 按代理实例判断，避免与被包装对象混淆
+     */
+    private static Object objectMethod(Object proxy, Object target, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> "Auditing" + target;
+        };
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, target, method, args);
+            }
+            Class<? extends Statement> type = switch (method.getName()) {
+                case "prepareStatement" -> PreparedStatement.class;
+                case "prepareCall" -> CallableStatement.class;
+                case "createStatement" -> Statement.class;
+                default -> null;
+            };
+            if (type == null) {
+                return AuditingDataSource.invoke(target, method, args);
+            }
+            if (type != Statement.class) {
+                collector.capture((String) args[0]);
+            }
+            Statement statement = (Statement) AuditingDataSource.invoke(target, method, args);
+            return wrapStatement(statement, type, (Connection) proxy);
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final Connection connection;
+
+        private StatementHandler(Statement target, Connection connection) {
+            this.target = target;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, target, method, args);
+            }
+            String name = method.getName();
+            if (args != null && args.length > 0 && args[0] instanceof String sql
+                    && (name.startsWith("execute") || name.equals("addBatch"))) {
+                collector.capture(sql);
+            } else if (name.equals("getConnection")) {
+                return connection;
+            }
+            return AuditingDataSource.invoke(target, method, args);
+        }
+    }
+}
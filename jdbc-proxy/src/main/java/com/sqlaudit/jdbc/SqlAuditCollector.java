@@ -0,0 +1,172 @@
+package com.sqlaudit.jdbc;
+
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.report.ViolationFingerprint;
+import com.sqlaudit.service.RuleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 运行时 SQL 收集与异步审查
+ * <p>
+ * 应用线程上的 {@link #capture(String)} 只做一次并发 Map 查找和一次非阻塞入队：
+ * 已见过的 SQL 原文直接返回；新 SQL 放入有界队列，队列满时丢弃并计数，绝不阻塞业务查询。
+ * 后台审查线程计算规范化指纹（字面量不同的同一语句视为一条），每个指纹只经 {@link RuleService} 审查一次。
+ */
+public class SqlAuditCollector implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlAuditCollector.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_FINGERPRINTS = 10_000;
+
+    private static final String SOURCE = "jdbc";
+
+    private final RuleService ruleService;
+    private final AuditListener listener;
+    private final SqlScriptParser sqlScriptParser = new SqlScriptParser();
+    private final BlockingQueue<String> queue;
+    private final int maxFingerprints;
+    /** 已处理过的 SQL 原文，应用线程只读；上限为指纹上限的 4 倍，超出后不再记录（仍按指纹去重） */
+    private final ConcurrentHashMap<String, Boolean> seenSql = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> fingerprints = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder captured = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder audited = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public SqlAuditCollector(RuleService ruleService, AuditListener listener) {
+        this(ruleService, listener, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_FINGERPRINTS);
+    }
+
+    public SqlAuditCollector(RuleService ruleService, AuditListener listener, int queueCapacity,
+            int maxFingerprints) {
+        this.ruleService = ruleService;
+        this.listener = listener;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxFingerprints = Math.max(1, maxFingerprints);
+        this.worker = new Thread(this::runWorker, "sql-audit-jdbc");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 应用线程调用：记录一条即将执行的 SQL
+     */
+    public void capture(String sql) {
+        if (sql == null || !running) {
+            return;
+        }
+        captured.increment();
+        if (seenSql.containsKey(sql)) {
+            return;
+        }
+        inFlight.incrementAndGet();
+        if (!queue.offer(sql)) {
+            inFlight.decrementAndGet();
+            dropped.increment();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(captured.sum(), dropped.sum(), audited.sum(), fingerprints.size());
+    }
+
+    /**
+     * 等待已入队的 SQL 全部审查完成（主要用于测试与优雅停机）
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void runWorker() {
+        while (running) {
+            String sql;
+            try {
+                sql = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (sql == null) {
+                continue;
+            }
+            try {
+                audit(sql);
+            } catch (RuntimeException e) {
+                log.warn("运行时 SQL 审查失败: {}", sql, e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private void audit(String sql) {
+        if (seenSql.size() < maxFingerprints * 4) {
+            seenSql.put(sql, Boolean.TRUE);
+        }
+        String fingerprint = ViolationFingerprint.ofStatement(sql);
+        if (fingerprints.containsKey(fingerprint) || fingerprints.size() >= maxFingerprints) {
+            return;
+        }
+        if (fingerprints.putIfAbsent(fingerprint, Boolean.TRUE) != null) {
+            return;
+        }
+
+        String text = sql.trim();
+        String type = sqlScriptParser.detectStatementType(text).toLowerCase(Locale.ROOT);
+        SqlFragment fragment = SqlFragment.builder()
+                .filePath(SOURCE)
+                .relativePath(SOURCE)
+                .namespace(SOURCE)
+                .statementId(fingerprint)
+                .statementType(type)
+                .sqlText(text)
+                .lineNumber(0)
+                .build();
+        List<Violation> violations = new ArrayList<>();
+        ruleService.checkSql(fragment, true, violations);
+        audited.increment();
+        try {
+            listener.onAudit(new AuditListener.AuditedStatement(fingerprint, text, type, List.copyOf(violations)));
+        } catch (RuntimeException e) {
+            log.warn("运行时 SQL 审查回调出错", e);
+        }
+    }
+
+    /**
+     * @param captured 应用线程捕获的 SQL 次数
+     * @param dropped  因队列已满而丢弃的次数
+     * @param audited  实际审查过的语句（指纹）数
+     * @param distinct 已记录的不同指纹数
+     */
+    public record Stats(long captured, long dropped, long audited, int distinct) {
+    }
+}
@@ -0,0 +1,184 @@
+package com.sqlaudit.jdbc;
+
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import com.sqlaudit.service.RuleService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditingDataSourceTest {
+
+    private final RuleService ruleService = new RuleService(BuiltInCheckers.all(), new WordRuleParser());
+    private final List<AuditListener.AuditedStatement> audited = new CopyOnWriteArrayList<>();
+    private SqlAuditCollector collector;
+
+    @AfterEach
+    void tearDown() {
+        if (collector != null) {
+            collector.close();
+        }
+    }
+
+    @Test
+    void shouldAuditEachDistinctStatementOnce() throws Exception {
+        collector = new SqlAuditCollector(ruleService, audited::add);
+        AuditingDataSource dataSource = new AuditingDataSource(h2("audit"), collector);
+
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_user (id INT PRIMARY KEY, name VARCHAR(32))");
+            for (int i = 0; i < 5; i++) {
+                // 字面量不同，指纹相同
+                statement.executeUpdate("INSERT INTO t_user (id, name) VALUES (" + i + ", 'u" + i + "')");
+            }
+            for (int i = 0; i < 3; i++) {
+                try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM t_user WHERE id = ?")) {
+                    assertSame(connection, ps.getConnection());
+                    ps.setInt(1, i);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        assertTrue(rs.next());
+                    }
+                }
+            }
+            assertSame(connection, statement.getConnection());
+            try (CallableStatement call = connection.prepareCall("CALL 1")) {
+                assertSame(connection, call.getConnection());
+                assertTrue(call.isWrapperFor(CallableStatement.class));
+            }
+            assertEquals(5, statement.executeUpdate("DELETE FROM t_user"));
+        }
+
+        assertTrue(collector.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(5, audited.size());
+        SqlAuditCollector.Stats stats = collector.stats();
+        assertEquals(11, stats.captured());
+        assertEquals(5, stats.audited());
+        assertEquals(0, stats.dropped());
+
+        AuditListener.AuditedStatement select = audited.stream()
+                .filter(s -> s.statementType().equals("select")).findFirst().orElseThrow();
+        assertTrue(select.violations().stream().anyMatch(v -> v.getRule().getId().equals("OG_3_4_1")));
+        AuditListener.AuditedStatement delete = audited.stream()
+                .filter(s -> s.statementType().equals("delete")).findFirst().orElseThrow();
+        assertTrue(delete.violations().stream().anyMatch(v -> v.getRule().getCheckerName().equals("REQUIRE_WHERE")));
+    }
+
+    @Test
+    void shouldDropInsteadOfBlockingWhenQueueIsFull() throws Exception {
+        Object gate = new Object();
+        // 回调阻塞审查线程，使队列无法消费
+        collector = new SqlAuditCollector(ruleService, s -> {
+            synchronized (gate) {
+                try {
+                    gate.wait(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 2, 100);
+
+        for (int i = 0; i < 50; i++) {
+            collector.capture("SELECT name FROM t_" + i);
+        }
+
+        SqlAuditCollector.Stats stats = collector.stats();
+        assertEquals(50, stats.captured());
+        assertTrue(stats.dropped() >= 45, "dropped=" + stats.dropped());
+        synchronized (gate) {
+            gate.notifyAll();
+        }
+    }
+
+    /**
+     * 业务线程开销：mvn test -Djdbc.benchmark=true
+     * <p>
+     * 被包装的是不做任何工作的桩 DataSource，两者之差即代理转发与 capture 的开销
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "jdbc.benchmark", matches = "true")
+    void benchmarkCaptureOverhead() throws Exception {
+        collector = new SqlAuditCollector(ruleService, s -> {
+        });
+        String sql = "SELECT id, name FROM public.t_user WHERE id = ? AND status = ?";
+        DataSource stub = stubDataSource();
+        AuditingDataSource dataSource = new AuditingDataSource(stub, collector);
+
+        try (Connection raw = stub.getConnection(); Connection audited = dataSource.getConnection()) {
+            audited.prepareStatement(sql).close();
+            assertTrue(collector.awaitIdle(Duration.ofSeconds(5)));
+
+            int iterations = 2_000_000;
+            prepareAndExecute(raw, sql, iterations);
+            prepareAndExecute(audited, sql, iterations);
+            double rawNanos = prepareAndExecute(raw, sql, iterations);
+            double auditedNanos = prepareAndExecute(audited, sql, iterations);
+            System.out.printf("jdbc proxy overhead: %.1f ns/call (raw %.1f, audited %.1f)%n",
+                    auditedNanos - rawNanos, rawNanos, auditedNanos);
+            assertTrue(auditedNanos - rawNanos < 1_000, "代理与 capture 开销应在微秒以内");
+        }
+    }
+
+    /**
+     * prepareStatement → executeQuery → close 一轮的平均耗时（纳秒）
+     */
+    private static double prepareAndExecute(Connection connection, String sql, int iterations) throws Exception {
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setInt(1, i);
+                ps.executeQuery();
+            }
+        }
+        return (System.nanoTime() - begin) / (double) iterations;
+    }
+
+    /**
+     * Connection / PreparedStatement 均为空实现，所有方法返回默认值
+     */
+    private static DataSource stubDataSource() {
+        PreparedStatement statement = stub(PreparedStatement.class, null);
+        Connection connection = stub(Connection.class, statement);
+        return stub(DataSource.class, connection);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Object child) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            Class<?> returnType = method.getReturnType();
+            if (child != null && returnType.isInstance(child)) {
+                return child;
+            }
+            if (returnType == boolean.class) {
+                return false;
+            }
+            if (returnType == int.class) {
+                return 0;
+            }
+            if (returnType == long.class) {
+                return 0L;
+            }
+            return null;
+        });
+    }
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
@@ -0,0 +1,112 @@
+package com.sqlaudit.maven;
+
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.report.ReportBinaryCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * target/ 下的增量缓存文件：每个 Mapper 的大小、修改时间、内容哈希，以及上次检查得到的违规
+ * <p>
+ * 文件头记录规则集指纹，规则或插件版本变化后整份缓存失效。违规部分沿用 {@link ReportBinaryCodec} 编码。
+ */
+final class AuditCache {
+
+    private static final int MAGIC = 0x53514143; // "SQAC"
+    private static final int VERSION = 1;
+
+    private AuditCache() {
+    }
+
+    /**
+     * 单个文件的缓存条目
+     *
+     * @param statements 文件中的 SQL 语句数
+     */
+    record Entry(String path, long size, long lastModified, String hash, int statements, List<Violation> violations) {
+    }
+
+    /**
+     * 读取缓存；文件不存在、格式损坏或规则集指纹不一致时返回空表
+     */
+    static Map<String, Entry> read(Path cacheFile, String rulesKey) {
+        if (cacheFile == null || !Files.isRegularFile(cacheFile)) {
+            return Map.of();
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(cacheFile), 65536)) {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != MAGIC || data.readInt() != VERSION || !rulesKey.equals(data.readUTF())) {
+                return Map.of();
+            }
+            int count = data.readInt();
+            List<Entry> headers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                headers.add(new Entry(data.readUTF(), data.readLong(), data.readLong(), data.readUTF(),
+                        data.readInt(), null));
+            }
+            ScanReport stored = ReportBinaryCodec.read(in);
+            Map<String, List<Violation>> byFile = new HashMap<>();
+            for (Violation v : stored.getViolations()) {
+                byFile.computeIfAbsent(v.getSqlFragment().getRelativePath(), k -> new ArrayList<>()).add(v);
+            }
+            Map<String, Entry> entries = new HashMap<>(count * 2);
+            for (Entry header : headers) {
+                entries.put(header.path(), new Entry(header.path(), header.size(), header.lastModified(),
+                        header.hash(), header.statements(), byFile.getOrDefault(header.path(), List.of())));
+            }
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            // 缓存只是加速手段，任何读取问题都按全量扫描处理
+            return Map.of();
+        }
+    }
+
+    /**
+     * 写出缓存；先写临时文件再原子替换，并行构建中途中断也不会留下半截文件
+     */
+    static void write(Path cacheFile, String rulesKey, List<Entry> entries) throws IOException {
+        Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), "sql-audit-cache", ".tmp");
+        try {
+            List<Violation> violations = new ArrayList<>();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 65536)) {
+                DataOutputStream data = new DataOutputStream(out);
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                data.writeUTF(rulesKey);
+                data.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    data.writeUTF(entry.path());
+                    data.writeLong(entry.size());
+                    data.writeLong(entry.lastModified());
+                    data.writeUTF(entry.hash());
+                    data.writeInt(entry.statements());
+                    violations.addAll(entry.violations());
+                }
+                data.flush();
+                ReportBinaryCodec.write(ScanReport.builder()
+                        .violations(violations)
+                        .scannedFiles(List.of())
+                        .notices(List.of())
+                        .build(), out);
+            }
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
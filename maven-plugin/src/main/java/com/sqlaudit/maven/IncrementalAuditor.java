@@ -0,0 +1,189 @@
+package com.sqlaudit.maven;
+
+import com.sqlaudit.model.AuditRule.Severity;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.SqlFragment;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.MyBatisMapperParser;
+import com.sqlaudit.parser.SqlScriptParser;
+import com.sqlaudit.service.RuleService;
+import com.sqlaudit.service.ScanService;
+import com.sqlaudit.util.Digests;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 增量审查：Mapper 内容未变化时直接复用缓存中的违规，只重新解析和检查有变化的文件
+ * <p>
+ * 大小与修改时间都未变时不读取文件；任一变化时计算 SHA-256，内容相同（如仅 touch、切换分支后切回）仍命中缓存。
+ * 每个文件的哈希、解析与检查作为一个任务提交到共享线程池，多个模块并行构建时共用同一组工作线程。
+ */
+final class IncrementalAuditor {
+
+    private static final int CACHE_FORMAT = 1;
+
+    private final MyBatisMapperParser mapperParser = new MyBatisMapperParser();
+    private final ScanService scanService;
+    private final RuleService ruleService;
+    private final String rulesKey;
+
+    IncrementalAuditor(RuleService ruleService) {
+        this.ruleService = ruleService;
+        this.scanService = new ScanService(mapperParser, new SqlScriptParser(), ruleService);
+        this.rulesKey = rulesKey(ruleService);
+    }
+
+    /**
+     * 审查结果
+     *
+     * @param scannedFiles 本次实际解析检查的文件数
+     * @param cachedFiles  直接复用缓存结果的文件数
+     */
+    record Result(ScanReport report, int scannedFiles, int cachedFiles) {
+    }
+
+    /**
+     * @param baseDir    模块根目录，报告中的文件路径相对于该目录
+     * @param mapperDirs 要扫描的目录，不存在的目录跳过
+     * @param cacheFile  增量缓存文件，为 null 时不读写缓存
+     */
+    Result audit(Path baseDir, List<Path> mapperDirs, Path cacheFile, ExecutorService pool) throws IOException {
+        Path root = baseDir.toAbsolutePath().normalize();
+        Map<String, File> files = new TreeMap<>();
+        for (Path dir : mapperDirs) {
+            if (Files.isDirectory(dir)) {
+                for (File file : scanService.plan(dir.toAbsolutePath().toString()).mapperFiles()) {
+                    Path path = file.toPath().toAbsolutePath().normalize();
+                    files.putIfAbsent(root.relativize(path).toString(), path.toFile());
+                }
+            }
+        }
+
+        Map<String, AuditCache.Entry> cache = cacheFile != null ? AuditCache.read(cacheFile, rulesKey) : Map.of();
+        List<CompletableFuture<FileOutcome>> tasks = new ArrayList<>(files.size());
+        for (Map.Entry<String, File> file : files.entrySet()) {
+            AuditCache.Entry cached = cache.get(file.getKey());
+            tasks.add(CompletableFuture.supplyAsync(() -> auditFile(file.getKey(), file.getValue(), root, cached), pool));
+        }
+
+        List<AuditCache.Entry> entries = new ArrayList<>(tasks.size());
+        List<Violation> violations = new ArrayList<>();
+        int statements = 0;
+        int cachedFiles = 0;
+        for (CompletableFuture<FileOutcome> task : tasks) {
+            FileOutcome outcome = join(task);
+            entries.add(outcome.entry());
+            violations.addAll(outcome.entry().violations());
+            statements += outcome.entry().statements();
+            if (outcome.fromCache()) {
+                cachedFiles++;
+            }
+        }
+        if (cacheFile != null && (!entries.isEmpty() || !cache.isEmpty())) {
+            AuditCache.write(cacheFile, rulesKey, entries);
+        }
+
+        List<String> notices = new ArrayList<>();
+        if (cachedFiles > 0) {
+            notices.add("增量缓存命中 " + cachedFiles + " / " + files.size() + " 个 Mapper 文件。");
+        }
+        ScanReport report = ScanReport.builder()
+                .repoPath(root.toString())
+                .scanTime(LocalDateTime.now())
+                .totalFiles(files.size())
+                .totalStatements(statements)
+                .totalViolations(violations.size())
+                .errorCount(count(violations, Severity.ERROR))
+                .warningCount(count(violations, Severity.WARNING))
+                .infoCount(count(violations, Severity.INFO))
+                .violations(violations)
+                .scannedFiles(List.copyOf(files.keySet()))
+                .notices(notices)
+                .build();
+        return new Result(report, files.size() - cachedFiles, cachedFiles);
+    }
+
+    private FileOutcome auditFile(String relativePath, File file, Path root, AuditCache.Entry cached) {
+        long size = file.length();
+        long lastModified = file.lastModified();
+        if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+            return new FileOutcome(cached, true);
+        }
+        String hash = sha256(file.toPath());
+        if (cached != null && cached.hash().equals(hash)) {
+            return new FileOutcome(new AuditCache.Entry(relativePath, size, lastModified, hash,
+                    cached.statements(), cached.violations()), true);
+        }
+        List<SqlFragment> fragments = mapperParser.parse(file, root);
+        List<Violation> violations = new ArrayList<>();
+        for (SqlFragment fragment : fragments) {
+            ruleService.checkSql(fragment, true, violations);
+        }
+        return new FileOutcome(new AuditCache.Entry(relativePath, size, lastModified, hash, fragments.size(),
+                violations), false);
+    }
+
+    private record FileOutcome(AuditCache.Entry entry, boolean fromCache) {
+    }
+
+    private static FileOutcome join(CompletableFuture<FileOutcome> task) throws IOException {
+        try {
+            return task.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static int count(List<Violation> violations, Severity severity) {
+        int count = 0;
+        for (Violation v : violations) {
+            if (v.getRule().getSeverity() == severity) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 规则集指纹：{@link RuleService#configFingerprint()}（规则定义与检查器外部配置）+ 规则库 jar 的大小与修改时间，
+     * 任一变化都使缓存失效
+     */
+    private static String rulesKey(RuleService ruleService) {
+        MessageDigest digest = Digests.sha256();
+        Digests.update(digest, "format=" + CACHE_FORMAT);
+        Digests.update(digest, ruleService.configFingerprint());
+        try {
+            var location = RuleService.class.getProtectionDomain().getCodeSource().getLocation();
+            File library = new File(location.toURI());
+            Digests.update(digest, library.length() + ":" + library.lastModified());
+        } catch (Exception e) {
+            // 无法定位规则库时只按规则定义区分
+        }
+        return Digests.hex(digest);
+    }
+
+    private static String sha256(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return Digests.sha256Hex(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.sqlaudit.maven;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sqlaudit.model.AuditRule.Severity;
+import com.sqlaudit.model.ScanReport;
+import com.sqlaudit.model.Violation;
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.report.exporter.FileSortedViolations;
+import com.sqlaudit.report.exporter.JsonReportExporter;
+import com.sqlaudit.report.exporter.MarkdownReportExporter;
+import com.sqlaudit.report.exporter.ReportExporter;
+import com.sqlaudit.report.exporter.SarifReportExporter;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import com.sqlaudit.service.RuleService;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 构建期 SQL 审查：扫描资源目录及配置的 Mapper 目录，存在不低于 failOn 级别的违规时使构建失败
+ * <p>
+ * 默认绑定 verify 阶段。线程安全，配合 mvn -T 时各模块并行执行，文件级任务提交到同一个共享线程池；
+ * 规则服务按自定义规则文件缓存，同一次构建中的各模块复用。
+ */
+@Mojo(name = "check", defaultPhase = LifecyclePhase.VERIFY, threadSafe = true)
+public class SqlAuditCheckMojo extends AbstractMojo {
+
+    /** 整个构建共用的工作线程池，首个执行的模块按 threads 参数创建 */
+    private static volatile ExecutorService sharedPool;
+    /** 自定义规则文件路径（无自定义规则时为空串）到审查器的缓存 */
+    private static final Map<String, IncrementalAuditor> AUDITORS = new ConcurrentHashMap<>();
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /** 除资源目录外额外扫描的 Mapper 目录 */
+    @Parameter(property = "sql-audit.mapperDirectories")
+    private List<File> mapperDirectories;
+
+    /** 报告格式，可多选: sarif, json, markdown */
+    @Parameter(property = "sql-audit.formats", defaultValue = "sarif")
+    private List<String> formats;
+
+    @Parameter(property = "sql-audit.outputDirectory", defaultValue = "${project.build.directory}/sql-audit")
+    private File outputDirectory;
+
+    /** 达到该级别的违规时构建失败: error, warning, info, none */
+    @Parameter(property = "sql-audit.failOn", defaultValue = "error")
+    private String failOn;
+
+    /** 自定义规则 Word 文档（.docx） */
+    @Parameter(property = "sql-audit.rulesFile")
+    private File rulesFile;
+
+    @Parameter(property = "sql-audit.useCache", defaultValue = "true")
+    private boolean useCache;
+
+    /** 共享线程池大小，0 表示 CPU 核数；只有构建中首个执行的模块的配置生效 */
+    @Parameter(property = "sql-audit.threads", defaultValue = "0")
+    private int threads;
+
+    @Parameter(property = "sql-audit.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("已跳过 SQL 审查 (sql-audit.skip=true)");
+            return;
+        }
+        Severity threshold = parseFailOn(failOn);
+        List<ReportExporter> exporters = exporters();
+
+        List<Path> dirs = new ArrayList<>();
+        for (Resource resource : project.getBuild().getResources()) {
+            dirs.add(Path.of(resource.getDirectory()));
+        }
+        if (mapperDirectories != null) {
+            mapperDirectories.forEach(dir -> dirs.add(dir.toPath()));
+        }
+
+        IncrementalAuditor.Result result;
+        try {
+            Path cacheFile = useCache ? outputDirectory.toPath().resolve("cache.bin") : null;
+            result = auditor().audit(project.getBasedir().toPath(), dirs, cacheFile, pool(threads));
+        } catch (IOException | RuntimeException e) {
+            throw new MojoExecutionException("SQL 审查失败: " + e.getMessage(), e);
+        }
+        ScanReport report = result.report();
+        if (report.getTotalFiles() == 0) {
+            getLog().info("未发现 MyBatis Mapper 文件，跳过 SQL 审查");
+            return;
+        }
+        getLog().info(String.format("SQL 审查: %d 个 Mapper 文件（重新检查 %d，缓存命中 %d），%d 条 SQL，"
+                        + "违规 %d 条 (ERROR %d, WARNING %d, INFO %d)",
+                report.getTotalFiles(), result.scannedFiles(), result.cachedFiles(), report.getTotalStatements(),
+                report.getTotalViolations(), report.getErrorCount(), report.getWarningCount(), report.getInfoCount()));
+
+        writeReports(report, exporters);
+
+        int failing = 0;
+        for (Violation v : report.getViolations()) {
+            Severity severity = v.getRule().getSeverity();
+            String line = String.format("%s:%d: [%s] %s %s", FileSortedViolations.pathOf(v),
+                    v.getSqlFragment().getLineNumber(), severity, v.getRule().getId(), v.getMessage());
+            if (threshold != null && severity.ordinal() <= threshold.ordinal()) {
+                failing++;
+                getLog().error(line);
+            } else if (getLog().isDebugEnabled()) {
+                getLog().debug(line);
+            }
+        }
+        if (failing > 0) {
+            throw new MojoFailureException("发现 " + failing + " 条不低于 " + threshold + " 级别的 SQL 违规，报告见 "
+                    + outputDirectory);
+        }
+    }
+
+    private IncrementalAuditor auditor() throws IOException {
+        String key = rulesFile != null ? rulesFile.getAbsolutePath() : "";
+        IncrementalAuditor auditor = AUDITORS.get(key);
+        if (auditor == null) {
+            RuleService ruleService = new RuleService(BuiltInCheckers.all(), new WordRuleParser());
+            if (rulesFile != null) {
+                try (InputStream in = Files.newInputStream(rulesFile.toPath())) {
+                    ruleService.loadRulesFromWord(in);
+                }
+            }
+            auditor = new IncrementalAuditor(ruleService);
+            IncrementalAuditor existing = AUDITORS.putIfAbsent(key, auditor);
+            if (existing != null) {
+                auditor = existing;
+            }
+        }
+        return auditor;
+    }
+
+    private static ExecutorService pool(int threads) {
+        ExecutorService pool = sharedPool;
+        if (pool == null) {
+            synchronized (SqlAuditCheckMojo.class) {
+                pool = sharedPool;
+                if (pool == null) {
+                    int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+                    AtomicInteger counter = new AtomicInteger();
+                    pool = Executors.newFixedThreadPool(size, runnable -> {
+                        Thread thread = new Thread(runnable, "sql-audit-worker-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    sharedPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    private List<ReportExporter> exporters() throws MojoExecutionException {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        List<ReportExporter> exporters = new ArrayList<>();
+        for (String format : formats != null ? formats : List.<String>of()) {
+            exporters.add(switch (format.trim().toLowerCase(Locale.ROOT)) {
+                case "sarif" -> new SarifReportExporter(objectMapper);
+                case "json" -> new JsonReportExporter(objectMapper);
+                case "markdown", "md" -> new MarkdownReportExporter();
+                default -> throw new MojoExecutionException("不支持的报告格式: " + format + "，可选: sarif, json, markdown");
+            });
+        }
+        return exporters;
+    }
+
+    private void writeReports(ScanReport report, List<ReportExporter> exporters) throws MojoExecutionException {
+        for (ReportExporter exporter : exporters) {
+            Path target = outputDirectory.toPath().resolve("sql-audit." + exporter.fileExtension());
+            try {
+                Files.createDirectories(target.getParent());
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), 65536)) {
+                    exporter.write(report, out);
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("写出报告失败: " + target, e);
+            }
+            getLog().info("SQL 审查报告: " + target);
+        }
+    }
+
+    static Severity parseFailOn(String value) throws MojoExecutionException {
+        if (value == null || "none".equalsIgnoreCase(value.trim())) {
+            return null;
+        }
+        try {
+            return Severity.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("failOn 仅支持 error, warning, info, none: " + value);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.sqlaudit.maven;
+
+import com.sqlaudit.model.AuditRule;
+import com.sqlaudit.parser.WordRuleParser;
+import com.sqlaudit.rule.checker.BuiltInCheckers;
+import com.sqlaudit.service.RuleService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalAuditorTest {
+
+    private static final String MAPPER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <!DOCTYPE mapper PUBLIC "-//mybatis.org//DTD Mapper 3.0//EN" "http://mybatis.org/dtd/mybatis-3-mapper.dtd">
+            <mapper namespace="com.example.%s">
+                <select id="findAll" resultType="map">
+                    SELECT * FROM t_%s
+                </select>
+            </mapper>
+            """;
+
+    @TempDir
+    Path project;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final IncrementalAuditor auditor = new IncrementalAuditor(
+            new RuleService(BuiltInCheckers.all(), new WordRuleParser()));
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void shouldReuseCachedResultsForUnchangedMappers() throws Exception {
+        Path resources = Files.createDirectories(project.resolve("src/main/resources/mapper"));
+        Path user = Files.writeString(resources.resolve("UserMapper.xml"), MAPPER.formatted("UserMapper", "user"));
+        Files.writeString(resources.resolve("OrderMapper.xml"), MAPPER.formatted("OrderMapper", "order"));
+        Path cache = project.resolve("target/sql-audit/cache.bin");
+        List<Path> dirs = List.of(project.resolve("src/main/resources"), project.resolve("src/missing"));
+
+        IncrementalAuditor.Result first = auditor.audit(project, dirs, cache, pool);
+        assertEquals(2, first.scannedFiles());
+        assertEquals(0, first.cachedFiles());
+        assertTrue(first.report().getErrorCount() > 0);
+
+        // 只改修改时间不改内容：按哈希仍命中缓存
+        Files.setLastModifiedTime(user, FileTime.fromMillis(Files.getLastModifiedTime(user).toMillis() + 5000));
+        IncrementalAuditor.Result second = auditor.audit(project, dirs, cache, pool);
+        assertEquals(0, second.scannedFiles());
+        assertEquals(2, second.cachedFiles());
+        assertEquals(first.report().getTotalViolations(), second.report().getTotalViolations());
+        assertEquals(first.report().getTotalStatements(), second.report().getTotalStatements());
+
+        Files.writeString(user, MAPPER.formatted("UserMapper", "user").replace("SELECT *", "SELECT id"));
+        IncrementalAuditor.Result third = auditor.audit(project, dirs, cache, pool);
+        assertEquals(1, third.scannedFiles());
+        assertEquals(1, third.cachedFiles());
+        assertEquals(first.report().getErrorCount() - 1, third.report().getErrorCount());
+        assertEquals("src/main/resources/mapper/OrderMapper.xml",
+                third.report().getScannedFiles().get(0).replace('\\', '/'));
+    }
+
+    @Test
+    void shouldInvalidateCacheWhenRuleSetChanges() throws Exception {
+        Path resources = Files.createDirectories(project.resolve("src/main/resources/mapper"));
+        Files.writeString(resources.resolve("UserMapper.xml"), MAPPER.formatted("UserMapper", "user"));
+        Path cache = project.resolve("target/sql-audit/cache.bin");
+        List<Path> dirs = List.of(project.resolve("src/main/resources"));
+        assertEquals(1, auditor.audit(project, dirs, cache, pool).scannedFiles());
+
+        RuleService custom = new RuleService(BuiltInCheckers.all(), new WordRuleParser());
+        AuditRule rule = AuditRule.builder().id("C1").name("禁止访问 t_user").pattern("t_user")
+                .severity(AuditRule.Severity.WARNING)
+                .type(AuditRule.RuleType.REGEX)
+                .source(AuditRule.RuleSource.CUSTOM)
+                .build();
+        custom.activateCustomRules(List.of(rule), Map.of());
+        IncrementalAuditor.Result result = new IncrementalAuditor(custom).audit(project, dirs, cache, pool);
+        assertEquals(1, result.scannedFiles());
+        assertEquals(0, result.cachedFiles());
+        assertEquals(1, auditor.audit(project, dirs, cache, pool).scannedFiles());
+    }
+}